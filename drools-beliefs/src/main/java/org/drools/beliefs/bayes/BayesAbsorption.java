@@ -51,6 +51,23 @@ public class BayesAbsorption {
         normalize(trgPotentials);
     }
 
+    /**
+     * Absorbs the change of the separator potentials into trgPotentials, with the index map created by PotentialMultiplier.createIndexMap
+     */
+    public static void absorb(double[] trgPotentials, int[] indexMap, double[] srcPotentials, double[] oldSrcPotentials) {
+        multiply(trgPotentials, indexMap, dividePotentials(srcPotentials, oldSrcPotentials));
+        normalize(trgPotentials);
+    }
+
+    /**
+     * Multiplies trgPotentials by the potentials of a subset of its variables, with the index map created by PotentialMultiplier.createIndexMap
+     */
+    public static void multiply(double[] trgPotentials, int[] indexMap, double[] srcPotentials) {
+        for ( int i = 0, length = trgPotentials.length; i < length; i++ ) {
+            trgPotentials[i] *= srcPotentials[indexMap[i]];
+        }
+    }
+
     public static void normalize(double[] array) {
         double sum = 0.0;
         for ( int i = 0, length = array.length; i < length; i++ ) {
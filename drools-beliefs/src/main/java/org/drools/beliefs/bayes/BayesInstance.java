@@ -30,6 +30,22 @@ import java.util.Map;
 import java.util.Random;
 
 public class BayesInstance<T> {
+
+    /**
+     * Minimum number of potentials in a sub-tree of the junction tree for the global update to propagate it in its own
+     * fork/join task, "true" standing for DEFAULT_PARALLEL_THRESHOLD. Parallel propagation is disabled by default,
+     * and whenever a PassMessageListener is set, as it expects the messages to be passed in order.
+     */
+    public static final String PARALLEL_PROPAGATION_PROPERTY = "drools.beliefs.parallelPropagation";
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * When "true" the global update only invalidates the messages depending on the changed evidence, while messages
+     * and clique potentials are recomputed on demand when a variable is marginalized (see LazyPropagation).
+     */
+    public static final String INCREMENTAL_PROPAGATION_PROPERTY = "drools.beliefs.incrementalPropagation";
+
     private Graph<BayesVariable>       graph;
     private JunctionTree               tree;
     private Map<String, BayesVariable> variables;
@@ -45,6 +61,10 @@ public class BayesInstance<T> {
     private GlobalUpdateListener globalUpdateListener;
     private PassMessageListener  passMessageListener;
 
+    private int                 parallelThreshold;
+    private ParallelPropagation parallelPropagation;
+    private LazyPropagation     lazyPropagation;
+
     private int[]          targetParameterMap;
     private Class<T>       targetClass;
     private Constructor<T> targetConstructor;
@@ -79,9 +99,50 @@ public class BayesInstance<T> {
             variables.put(var.getName(), var);
             varStates[var.getId()] = var.createState();
         }
+
+        setParallelPropagationThreshold( parseParallelThreshold( System.getProperty( PARALLEL_PROPAGATION_PROPERTY ) ) );
+        setIncrementalPropagation( Boolean.getBoolean( INCREMENTAL_PROPAGATION_PROPERTY ) );
+    }
+
+    private static int parseParallelThreshold(String value) {
+        if ( value == null || value.trim().isEmpty() || "false".equalsIgnoreCase( value.trim() ) ) {
+            return 0;
+        }
+        if ( "true".equalsIgnoreCase( value.trim() ) ) {
+            return DEFAULT_PARALLEL_THRESHOLD;
+        }
+        return Integer.parseInt( value.trim() );
+    }
+
+    public int getParallelPropagationThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * @param threshold the minimum number of potentials of a sub-tree propagated in its own task, 0 to disable parallel propagation
+     */
+    public void setParallelPropagationThreshold(int threshold) {
+        this.parallelThreshold = threshold;
+        this.parallelPropagation = threshold > 0 ? new ParallelPropagation( tree, cliqueStates, separatorStates, threshold ) : null;
+    }
+
+    public boolean isIncrementalPropagation() {
+        return lazyPropagation != null;
+    }
+
+    public void setIncrementalPropagation(boolean incremental) {
+        if ( !incremental ) {
+            lazyPropagation = null;
+        } else if ( lazyPropagation == null ) {
+            lazyPropagation = new LazyPropagation( tree, cliqueStates );
+            lazyPropagation.reset( likelyhoods );
+        }
     }
 
     public void reset() {
+        if ( lazyPropagation != null ) {
+            lazyPropagation.reset( likelyhoods );
+        }
         for (JunctionTreeClique clique : tree.getJunctionTreeNodes()) {
             clique.resetState(cliqueStates[clique.getId()]);
         }
@@ -232,13 +293,49 @@ public class BayesInstance<T> {
         if ( !isDecided() ) {
             throw new IllegalStateException("Cannot perform global upset, while one ore more variables are undecided" );
         }
+        if ( lazyPropagation != null ) {
+            incrementalGlobalUpdate();
+            return;
+        }
         if ( isDirty() ) {
             reset();
         }
         applyEvidence();
         //recurseGlobalUpdate(tree.getRoot());
-        globalUpdate(tree.getRoot());
+        if ( parallelPropagation != null && passMessageListener == null ) {
+            CliqueState rootState = cliqueStates[tree.getRoot().getId()];
+            if ( globalUpdateListener != null ) {
+                globalUpdateListener.beforeGlobalUpdate(rootState);
+            }
+            parallelPropagation.globalUpdate(tree.getRoot());
+            if ( globalUpdateListener != null ) {
+                globalUpdateListener.afterGlobalUpdate(rootState);
+            }
+        } else {
+            globalUpdate(tree.getRoot());
+        }
+        dirty = 0;
+    }
+
+    private void incrementalGlobalUpdate() {
+        JunctionTreeClique root = tree.getRoot();
+        if ( globalUpdateListener != null ) {
+            globalUpdateListener.beforeGlobalUpdate(cliqueStates[root.getId()]);
+        }
+        boolean[] changedFamilies = new boolean[cliqueStates.length];
+        for ( int i = 0; i < likelyhoods.length; i++ ) {
+            if ( BitMaskUtil.isPositionSet( dirty, i ) ) {
+                int family = graph.getNode( i ).getContent().getFamily();
+                if ( !changedFamilies[family] ) {
+                    changedFamilies[family] = true;
+                    lazyPropagation.evidenceChanged( tree.getJunctionTreeNodes()[family], likelyhoods );
+                }
+            }
+        }
         dirty = 0;
+        if ( globalUpdateListener != null ) {
+            globalUpdateListener.afterGlobalUpdate(lazyPropagation.refresh( root.getId() ));
+        }
     }
 
     public void applyEvidence() {
@@ -369,50 +466,21 @@ public class BayesInstance<T> {
         double[] sepPots = separatorStates[sep.getId()].getPotentials();
         double[] oldSepPots = Arrays.copyOf(sepPots, sepPots.length);
 
-        BayesVariable[] sepVars = sep.getValues().toArray(new BayesVariable[sep.getValues().size()]);
-
         if ( passMessageListener != null ) {
             passMessageListener.beforeProjectAndAbsorb(sourceClique, sep, targetClique, oldSepPots);
         }
 
-        project(sepVars, cliqueStates[sourceClique.getId()], separatorStates[sep.getId()]);
+        BayesProjection.project(cliqueStates[sourceClique.getId()].getPotentials(), sep.getIndexMap(sourceClique), sepPots);
         if ( passMessageListener != null ) {
             passMessageListener.afterProject(sourceClique, sep, targetClique, oldSepPots);
         }
 
-        absorb(sepVars, cliqueStates[targetClique.getId()], separatorStates[sep.getId()], oldSepPots);
+        BayesAbsorption.absorb(cliqueStates[targetClique.getId()].getPotentials(), sep.getIndexMap(targetClique), sepPots, oldSepPots);
         if ( passMessageListener != null ) {
             passMessageListener.afterAbsorb(sourceClique, sep, targetClique, oldSepPots);
         }
     }
 
-    //private static void project(BayesVariable[] sepVars, JunctionTreeNode node, JunctionTreeSeparator sep) {
-    private static void project(BayesVariable[] sepVars, CliqueState clique, SeparatorState separator) {
-        //JunctionTreeNode node, JunctionTreeSeparator sep
-        BayesVariable[] vars = clique.getJunctionTreeClique().getValues().toArray(new BayesVariable[clique.getJunctionTreeClique().getValues().size()]);
-        int[] sepVarPos = PotentialMultiplier.createSubsetVarPos(vars, sepVars);
-
-        int sepVarNumberOfStates = PotentialMultiplier.createNumberOfStates(sepVars);
-        int[] sepVarMultipliers = PotentialMultiplier.createIndexMultipliers(sepVars, sepVarNumberOfStates);
-
-        BayesProjection p = new BayesProjection(vars, clique.getPotentials(), sepVarPos, sepVarMultipliers, separator.getPotentials());
-        p.project();
-    }
-
-    //private static void absorb(BayesVariable[] sepVars, JunctionTreeNode node, JunctionTreeSeparator sep, double[] oldSepPots ) {
-    private static void absorb(BayesVariable[] sepVars, CliqueState clique, SeparatorState separator, double[] oldSepPots ) {
-        //BayesVariable[] vars = node.getValues().toArray( new BayesVariable[node.getValues().size()] );
-        BayesVariable[] vars = clique.getJunctionTreeClique().getValues().toArray(new BayesVariable[clique.getJunctionTreeClique().getValues().size()]);
-
-        int[] sepVarPos = PotentialMultiplier.createSubsetVarPos(vars, sepVars);
-
-        int sepVarNumberOfStates = PotentialMultiplier.createNumberOfStates(sepVars);
-        int[] sepVarMultipliers = PotentialMultiplier.createIndexMultipliers(sepVars, sepVarNumberOfStates);
-
-        BayesAbsorption p = new BayesAbsorption(sepVarPos, oldSepPots, separator.getPotentials(), sepVarMultipliers, vars, clique.getPotentials());
-        p.absorb();
-    }
-
     public BayesVariableState marginalize(String name) {
         BayesVariable var = this.variables.get(name);
         if ( var == null ) {
@@ -475,7 +543,9 @@ public class BayesInstance<T> {
 //    }
 
     public void marginalize(BayesVariableState varState) {
-        CliqueState cliqueState = cliqueStates[varState.getVariable().getFamily()];
+        CliqueState cliqueState = lazyPropagation != null
+                                  ? lazyPropagation.refresh( varState.getVariable().getFamily() )
+                                  : cliqueStates[varState.getVariable().getFamily()];
         JunctionTreeClique jtNode = cliqueState.getJunctionTreeClique();
         new Marginalizer(jtNode.getValues().toArray( new BayesVariable[jtNode.getValues().size()]), cliqueState.getPotentials(), varState.getVariable(), varState.getDistribution() );
 //        System.out.print( varState.getVariable().getName() + " " );
@@ -491,6 +561,9 @@ public class BayesInstance<T> {
     }
 
     public CliqueState[] getCliqueStates() {
+        if ( lazyPropagation != null ) {
+            lazyPropagation.refreshAll();
+        }
         return cliqueStates;
     }
 
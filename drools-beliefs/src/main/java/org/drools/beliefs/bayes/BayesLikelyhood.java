@@ -23,48 +23,25 @@ import java.util.Arrays;
 public class BayesLikelyhood {
     private BayesVariable variable;
     private double[]      distribution;
-    private double[][]    varPotential;
-
-    private BayesVariable[] vars;
-    private int[]           multipliers;
-    private int[]           parentVarPos;
-    private int[]           parentIndexMultipliers;
-    private int             varPos;
+    private int[]         indexMap;
 
     public BayesLikelyhood(Graph graph, JunctionTreeClique jtNode, GraphNode<BayesVariable> varNode, double[] distribution) {
-        vars = jtNode.getValues().toArray( new BayesVariable[jtNode.getValues().size()] );
-
         this.variable = varNode.getContent();
         this.distribution = distribution;
 
-        BayesVariable[] parents = new BayesVariable[varNode.getInEdges().size()];
-        for ( int i = 0; i < parents.length; i++ ) {
-            parents[i] = (BayesVariable) varNode.getInEdges().get(i).getOutGraphNode().getContent();
-        }
-
-        varPotential = new double[ this.variable.getProbabilityTable().length ][];
-        for ( int i = 0; i < varPotential.length; i++ ) {
-            varPotential[i] = distribution;
-        }
-
         BayesVariable[] vars = jtNode.getValues().toArray( new BayesVariable[jtNode.getValues().size()] );
-        int numberOfStates = PotentialMultiplier.createNumberOfStates(vars);
-        multipliers = PotentialMultiplier.createIndexMultipliers(vars, numberOfStates);
-
-        parentVarPos = PotentialMultiplier.createSubsetVarPos(vars, parents);
-        int parentsNumberOfStates = PotentialMultiplier.createNumberOfStates(parents);
-        parentIndexMultipliers = PotentialMultiplier.createIndexMultipliers(parents, parentsNumberOfStates);
-//
-        varPos = -1;
+        int varPos = -1;
         for( int i = 0; i < vars.length; i++) {
             if ( vars[i] == variable)  {
                 varPos = i;
                 break;
             }
         }
-        if ( varPos == -1 || varPos == vars.length ) {
+        if ( varPos == -1 ) {
             throw new IllegalStateException( "Unable to find Variable in set" );
         }
+        // every row of the likelyhood's probability table is the distribution, so only the variable's own state matters
+        indexMap = PotentialMultiplier.createIndexMap( vars, new BayesVariable[] { variable } );
     }
 
     public BayesVariable getVariable() {
@@ -76,20 +53,7 @@ public class BayesLikelyhood {
     }
 
     public void multiplyInto(double[] trgPotential) {
-        PotentialMultiplier m = new PotentialMultiplier(varPotential, varPos, parentVarPos, parentIndexMultipliers,
-                                                        vars, multipliers, trgPotential);
-
-        m.multiple();
-
-//        int j = 0;
-//        int jlength = distribution.length;
-//        for ( int i = 0, length = potential.length; i < length; i++ ) {
-//            potential[i] = potential[i] * distribution[j++];
-//            if ( j == jlength ) {
-//                j = 0;
-//            }
-//        }
-
+        BayesAbsorption.multiply( trgPotential, indexMap, distribution );
     }
 
     @Override
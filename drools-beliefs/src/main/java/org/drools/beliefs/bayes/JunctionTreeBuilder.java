@@ -299,7 +299,7 @@ public class JunctionTreeBuilder {
                 // connection made, remove from the graph, before recursion
                 sepGraph[separatorSet.getId1()][separatorSet.getId2()] = null;
                 sepGraph[separatorSet.getId2()][separatorSet.getId1()] = null;
-                createJunctionTreeGraph( sepGraph, child, jtNodes, jtSeps, i );
+                i = createJunctionTreeGraph( sepGraph, child, jtNodes, jtSeps, i );
             }
         }
         return i;
@@ -28,6 +28,8 @@ public class JunctionTreeSeparator {
     private List<BayesVariable> values;
     private JunctionTreeClique  parent;
     private JunctionTreeClique  child;
+    private int[]               parentIndexMap;
+    private int[]               childIndexMap;
     //private double[]            potentials;
 
 
@@ -44,6 +46,10 @@ public class JunctionTreeSeparator {
         for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
             values.add(graph.getNode(i).getContent());
         }
+
+        BayesVariable[] sepVars = values.toArray(new BayesVariable[values.size()]);
+        parentIndexMap = PotentialMultiplier.createIndexMap(parent.getValues().toArray(new BayesVariable[parent.getValues().size()]), sepVars);
+        childIndexMap = PotentialMultiplier.createIndexMap(child.getValues().toArray(new BayesVariable[child.getValues().size()]), sepVars);
     }
 
     public OpenBitSet getBitSet() {
@@ -62,6 +68,24 @@ public class JunctionTreeSeparator {
         return id;
     }
 
+    /**
+     * @return the separator index of each index of the parent clique potentials
+     */
+    public int[] getParentIndexMap() {
+        return parentIndexMap;
+    }
+
+    /**
+     * @return the separator index of each index of the child clique potentials
+     */
+    public int[] getChildIndexMap() {
+        return childIndexMap;
+    }
+
+    public int[] getIndexMap(JunctionTreeClique clique) {
+        return clique == parent ? parentIndexMap : childIndexMap;
+    }
+
     public SeparatorState createState() {
         int numberOfStates = PotentialMultiplier.createNumberOfStates(values);
         double[]  potentials = new double[numberOfStates];
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.beliefs.bayes;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Propagates evidence by keeping, for every separator, the message sent from its child to its parent (up) and
+ * the one sent from its parent to its child (down), each one computed from the potentials of its source clique
+ * (its initial potentials with the evidence of its family) and the messages it received from the other side.
+ * When the evidence of a clique changes only the messages coming from its side of each separator are invalidated,
+ * and messages and clique potentials are then recomputed on demand, when a variable is marginalized.
+ * Messages are never divided, so unlike the passes of BayesInstance the separator states are left untouched.
+ */
+class LazyPropagation {
+
+    private final JunctionTree  tree;
+    private final CliqueState[] cliqueStates;
+
+    private final double[][] basePotentials;
+    private final boolean[]  validBeliefs;
+
+    private final double[][] upMessages;
+    private final boolean[]  validUpMessages;
+    private final double[][] downMessages;
+    private final boolean[]  validDownMessages;
+
+    // a clique c is in the sub-tree of s when preOrder[s] <= preOrder[c] <= lastDescendant[s]
+    private final int[] preOrder;
+    private final int[] lastDescendant;
+
+    LazyPropagation(JunctionTree tree, CliqueState[] cliqueStates) {
+        this.tree = tree;
+        this.cliqueStates = cliqueStates;
+
+        JunctionTreeClique[] cliques = tree.getJunctionTreeNodes();
+        basePotentials = new double[cliques.length][];
+        validBeliefs = new boolean[cliques.length];
+
+        JunctionTreeSeparator[] seps = tree.getJunctionTreeSeparators();
+        upMessages = new double[seps.length][];
+        downMessages = new double[seps.length][];
+        for ( JunctionTreeSeparator sep : seps ) {
+            int numberOfStates = PotentialMultiplier.createNumberOfStates(sep.getValues());
+            upMessages[sep.getId()] = new double[numberOfStates];
+            downMessages[sep.getId()] = new double[numberOfStates];
+        }
+        validUpMessages = new boolean[seps.length];
+        validDownMessages = new boolean[seps.length];
+
+        preOrder = new int[cliques.length];
+        lastDescendant = new int[cliques.length];
+        number(tree.getRoot());
+    }
+
+    private void number(JunctionTreeClique root) {
+        // iterative, as trees can be deeper than the stack allows
+        Deque<JunctionTreeClique> stack = new ArrayDeque<JunctionTreeClique>();
+        JunctionTreeClique[] byPreOrder = new JunctionTreeClique[preOrder.length];
+        int counter = 0;
+        stack.push(root);
+        while ( !stack.isEmpty() ) {
+            JunctionTreeClique clique = stack.pop();
+            byPreOrder[counter] = clique;
+            preOrder[clique.getId()] = counter++;
+            for ( int i = clique.getChildren().size() - 1; i >= 0; i-- ) {
+                stack.push(clique.getChildren().get(i).getChild());
+            }
+        }
+        for ( int i = counter - 1; i >= 0; i-- ) {
+            JunctionTreeClique clique = byPreOrder[i];
+            int last = i;
+            for ( JunctionTreeSeparator sep : clique.getChildren() ) {
+                last = Math.max(last, lastDescendant[sep.getChild().getId()]);
+            }
+            lastDescendant[clique.getId()] = last;
+        }
+    }
+
+    private boolean isInSubTree(JunctionTreeClique clique, JunctionTreeClique subTreeRoot) {
+        int pos = preOrder[clique.getId()];
+        return preOrder[subTreeRoot.getId()] <= pos && pos <= lastDescendant[subTreeRoot.getId()];
+    }
+
+    /**
+     * Recomputes the potentials of every clique from its initial potentials and the given evidence
+     */
+    public void reset(BayesLikelyhood[] likelyhoods) {
+        for ( JunctionTreeClique clique : tree.getJunctionTreeNodes() ) {
+            basePotentials[clique.getId()] = createBasePotentials(clique, likelyhoods);
+        }
+        Arrays.fill(validUpMessages, false);
+        Arrays.fill(validDownMessages, false);
+        Arrays.fill(validBeliefs, false);
+    }
+
+    /**
+     * Applies the changed evidence of the family of the given clique, invalidating the messages depending on it
+     */
+    public void evidenceChanged(JunctionTreeClique clique, BayesLikelyhood[] likelyhoods) {
+        basePotentials[clique.getId()] = createBasePotentials(clique, likelyhoods);
+        for ( JunctionTreeSeparator sep : tree.getJunctionTreeSeparators() ) {
+            if ( isInSubTree(clique, sep.getChild()) ) {
+                validUpMessages[sep.getId()] = false;
+            } else {
+                validDownMessages[sep.getId()] = false;
+            }
+        }
+        Arrays.fill(validBeliefs, false);
+    }
+
+    private static double[] createBasePotentials(JunctionTreeClique clique, BayesLikelyhood[] likelyhoods) {
+        double[] potentials = Arrays.copyOf(clique.getPotentials(), clique.getPotentials().length);
+        for ( BayesLikelyhood likelyhood : likelyhoods ) {
+            if ( likelyhood != null && likelyhood.getVariable().getFamily() == clique.getId() ) {
+                likelyhood.multiplyInto(potentials);
+                BayesAbsorption.normalize(potentials);
+            }
+        }
+        return potentials;
+    }
+
+    /**
+     * Ensures the state of the given clique reflects the current evidence
+     */
+    public CliqueState refresh(int cliqueId) {
+        if ( !validBeliefs[cliqueId] ) {
+            JunctionTreeClique clique = tree.getJunctionTreeNodes()[cliqueId];
+            double[] potentials = Arrays.copyOf(basePotentials[cliqueId], basePotentials[cliqueId].length);
+            JunctionTreeSeparator parentSep = clique.getParentSeparator();
+            if ( parentSep != null ) {
+                BayesAbsorption.multiply(potentials, parentSep.getChildIndexMap(), downMessage(parentSep));
+            }
+            for ( JunctionTreeSeparator sep : clique.getChildren() ) {
+                BayesAbsorption.multiply(potentials, sep.getParentIndexMap(), upMessage(sep));
+            }
+            BayesAbsorption.normalize(potentials);
+            cliqueStates[cliqueId].setPotentials(potentials);
+            validBeliefs[cliqueId] = true;
+        }
+        return cliqueStates[cliqueId];
+    }
+
+    public void refreshAll() {
+        for ( int i = 0; i < validBeliefs.length; i++ ) {
+            refresh(i);
+        }
+    }
+
+    private double[] upMessage(JunctionTreeSeparator sep) {
+        if ( !validUpMessages[sep.getId()] ) {
+            JunctionTreeClique child = sep.getChild();
+            double[] potentials = Arrays.copyOf(basePotentials[child.getId()], basePotentials[child.getId()].length);
+            for ( JunctionTreeSeparator childSep : child.getChildren() ) {
+                BayesAbsorption.multiply(potentials, childSep.getParentIndexMap(), upMessage(childSep));
+            }
+            BayesProjection.project(potentials, sep.getChildIndexMap(), upMessages[sep.getId()]);
+            validUpMessages[sep.getId()] = true;
+        }
+        return upMessages[sep.getId()];
+    }
+
+    private double[] downMessage(JunctionTreeSeparator sep) {
+        if ( !validDownMessages[sep.getId()] ) {
+            JunctionTreeClique parent = sep.getParent();
+            double[] potentials = Arrays.copyOf(basePotentials[parent.getId()], basePotentials[parent.getId()].length);
+            JunctionTreeSeparator parentSep = parent.getParentSeparator();
+            if ( parentSep != null ) {
+                BayesAbsorption.multiply(potentials, parentSep.getChildIndexMap(), downMessage(parentSep));
+            }
+            for ( JunctionTreeSeparator siblingSep : parent.getChildren() ) {
+                if ( siblingSep != sep ) {
+                    BayesAbsorption.multiply(potentials, siblingSep.getParentIndexMap(), upMessage(siblingSep));
+                }
+            }
+            BayesProjection.project(potentials, sep.getParentIndexMap(), downMessages[sep.getId()]);
+            validDownMessages[sep.getId()] = true;
+        }
+        return downMessages[sep.getId()];
+    }
+}
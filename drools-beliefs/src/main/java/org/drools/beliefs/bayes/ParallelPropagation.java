@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.beliefs.bayes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Performs the collect and distribute evidence passes of a global update from the root, propagating the
+ * sub-trees holding at least threshold potentials in their own fork/join tasks.
+ * Sibling sub-trees share no clique or separator, only their parent, so during the collect pass each sub-tree
+ * projects into its separator concurrently while the parent absorbs the separators afterwards, in the order of
+ * its children. During the distribute pass the parent is only read. Each clique therefore sees the same
+ * operations, in the same order, as with the sequential passes of BayesInstance.
+ */
+class ParallelPropagation {
+
+    private final CliqueState[]    cliqueStates;
+    private final SeparatorState[] separatorStates;
+    private final int[]            subTreeSizes;
+    private final int              threshold;
+
+    ParallelPropagation(JunctionTree tree, CliqueState[] cliqueStates, SeparatorState[] separatorStates, int threshold) {
+        this.cliqueStates = cliqueStates;
+        this.separatorStates = separatorStates;
+        this.threshold = threshold;
+        this.subTreeSizes = new int[cliqueStates.length];
+        computeSubTreeSize(tree.getRoot());
+    }
+
+    private int computeSubTreeSize(JunctionTreeClique clique) {
+        int size = clique.getPotentials().length;
+        for ( JunctionTreeSeparator sep : clique.getChildren() ) {
+            size += computeSubTreeSize(sep.getChild());
+        }
+        subTreeSizes[clique.getId()] = size;
+        return size;
+    }
+
+    public void globalUpdate(JunctionTreeClique root) {
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> {
+            collectEvidence(root);
+            distributeEvidence(root);
+        }));
+    }
+
+    private void collectEvidence(JunctionTreeClique clique) {
+        List<JunctionTreeSeparator> seps = clique.getChildren();
+        double[][] oldSepPots = new double[seps.size()][];
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for ( int i = 0; i < seps.size(); i++ ) {
+            JunctionTreeSeparator sep = seps.get(i);
+            int pos = i;
+            if ( subTreeSizes[sep.getChild().getId()] >= threshold ) {
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    oldSepPots[pos] = collectAndProject(sep);
+                }));
+            } else {
+                oldSepPots[pos] = collectAndProject(sep);
+            }
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        for ( int i = 0; i < seps.size(); i++ ) {
+            JunctionTreeSeparator sep = seps.get(i);
+            BayesAbsorption.absorb(cliqueStates[clique.getId()].getPotentials(), sep.getParentIndexMap(),
+                                   separatorStates[sep.getId()].getPotentials(), oldSepPots[i]);
+        }
+    }
+
+    private double[] collectAndProject(JunctionTreeSeparator sep) {
+        collectEvidence(sep.getChild());
+        double[] sepPots = separatorStates[sep.getId()].getPotentials();
+        double[] oldSepPots = Arrays.copyOf(sepPots, sepPots.length);
+        BayesProjection.project(cliqueStates[sep.getChild().getId()].getPotentials(), sep.getChildIndexMap(), sepPots);
+        return oldSepPots;
+    }
+
+    private void distributeEvidence(JunctionTreeClique clique) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for ( JunctionTreeSeparator sep : clique.getChildren() ) {
+            if ( subTreeSizes[sep.getChild().getId()] >= threshold ) {
+                tasks.add(ForkJoinTask.adapt(() -> passAndDistribute(sep)));
+            } else {
+                passAndDistribute(sep);
+            }
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    private void passAndDistribute(JunctionTreeSeparator sep) {
+        double[] sepPots = separatorStates[sep.getId()].getPotentials();
+        double[] oldSepPots = Arrays.copyOf(sepPots, sepPots.length);
+        BayesProjection.project(cliqueStates[sep.getParent().getId()].getPotentials(), sep.getParentIndexMap(), sepPots);
+        BayesAbsorption.absorb(cliqueStates[sep.getChild().getId()].getPotentials(), sep.getChildIndexMap(), sepPots, oldSepPots);
+        distributeEvidence(sep.getChild());
+    }
+}
@@ -83,6 +83,39 @@ public class PotentialMultiplier {
         return parentVarPos;
     }
 
+    /**
+     * Maps every index of the potentials of vars to the index, in the potentials of subset, of the same states of the subset variables.
+     * Both arrays must follow the same variable ordering, as for createSubsetVarPos. The map turns projections and multiplications
+     * between a clique and a separator into flat loops over the clique potentials, rather than a recursion over its variables.
+     */
+    public static int[] createIndexMap(BayesVariable[] vars, BayesVariable[] subset) {
+        int[] subsetVarPos = createSubsetVarPos(vars, subset);
+        int[] subsetMultipliers = createIndexMultipliers(subset, createNumberOfStates(subset));
+
+        // the stride of each var within the subset potentials, 0 when the var is not part of the subset
+        int[] strides = new int[vars.length];
+        for ( int i = 0; i < subsetVarPos.length; i++ ) {
+            strides[subsetVarPos[i]] = subsetMultipliers[i];
+        }
+
+        int[] indexMap = new int[createNumberOfStates(vars)];
+        int[] path = new int[vars.length];
+        int subsetIndex = 0;
+        for ( int i = 0; i < indexMap.length; i++ ) {
+            indexMap[i] = subsetIndex;
+            // increment the path, the last var changing first, as the potentials are laid out
+            for ( int j = vars.length - 1; j >= 0; j-- ) {
+                subsetIndex += strides[j];
+                if ( ++path[j] < vars[j].getOutcomes().length ) {
+                    break;
+                }
+                subsetIndex -= strides[j] * path[j];
+                path[j] = 0;
+            }
+        }
+        return indexMap;
+    }
+
     public void multiple() {
         varProbabilityTableRow = 0;
         trgPotentialIndex = 0;
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.beliefs.bayes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.drools.beliefs.graph.Graph;
+import org.drools.beliefs.graph.GraphNode;
+import org.drools.beliefs.graph.impl.EdgeImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PropagationModesTest {
+
+    private static final int VARIABLES = 40;
+
+    @Test
+    public void testParallelAndIncrementalMatchSequential() {
+        for ( long seed = 1; seed <= 5; seed++ ) {
+            JunctionTree tree = buildRandomNetwork( VARIABLES, seed );
+
+            BayesInstance sequential = new BayesInstance( tree );
+            BayesInstance parallel = new BayesInstance( tree );
+            parallel.setParallelPropagationThreshold( 1 );
+            BayesInstance incremental = new BayesInstance( tree );
+            incremental.setIncrementalPropagation( true );
+            BayesInstance[] instances = new BayesInstance[] { sequential, parallel, incremental };
+
+            Random random = new Random( seed * 31 );
+            List<String> evidence = new ArrayList<String>();
+            for ( int step = 0; step < 8; step++ ) {
+                if ( step % 3 == 2 && !evidence.isEmpty() ) {
+                    String name = evidence.remove( random.nextInt( evidence.size() ) );
+                    for ( BayesInstance instance : instances ) {
+                        instance.unsetLikelyhood( (BayesVariable) instance.getVariables().get( name ) );
+                    }
+                } else {
+                    String name = "v" + random.nextInt( VARIABLES );
+                    BayesVariable var = (BayesVariable) sequential.getVariables().get( name );
+                    double[] distribution = new double[var.getOutcomes().length];
+                    distribution[random.nextInt( distribution.length )] = 1.0;
+                    for ( BayesInstance instance : instances ) {
+                        instance.setLikelyhood( name, distribution.clone() );
+                    }
+                    evidence.add( name );
+                }
+
+                for ( BayesInstance instance : instances ) {
+                    instance.globalUpdate();
+                }
+
+                for ( int i = 0; i < VARIABLES; i++ ) {
+                    double[] expected = sequential.marginalize( "v" + i ).getDistribution();
+                    assertDistribution( expected, parallel.marginalize( "v" + i ).getDistribution(), 0.0 );
+                    assertDistribution( expected, incremental.marginalize( "v" + i ).getDistribution(), 1e-9 );
+                }
+            }
+        }
+    }
+
+    private static void assertDistribution(double[] expected, double[] actual, double delta) {
+        assertEquals( expected.length, actual.length );
+        for ( int i = 0; i < expected.length; i++ ) {
+            assertEquals( expected[i], actual[i], delta );
+        }
+    }
+
+    private static JunctionTree buildRandomNetwork(int size, long seed) {
+        Random random = new Random( seed );
+        Graph<BayesVariable> graph = new BayesNetwork();
+        List<GraphNode<BayesVariable>> nodes = new ArrayList<GraphNode<BayesVariable>>();
+        int[] outcomes = new int[size];
+        for ( int i = 0; i < size; i++ ) {
+            nodes.add( graph.addNode() );
+            outcomes[i] = 2 + random.nextInt( 2 );
+        }
+
+        for ( int i = 0; i < size; i++ ) {
+            // every variable after the first gets one or two earlier parents, keeping the network connected and acyclic
+            TreeSet<Integer> parents = new TreeSet<Integer>();
+            if ( i > 0 ) {
+                int count = 1 + random.nextInt( 2 );
+                for ( int j = 0; j < count; j++ ) {
+                    parents.add( random.nextInt( i ) );
+                }
+            }
+
+            int rows = 1;
+            for ( int parent : parents ) {
+                EdgeImpl edge = new EdgeImpl();
+                edge.setOutGraphNode( nodes.get( parent ) );
+                edge.setInGraphNode( nodes.get( i ) );
+                rows *= outcomes[parent];
+            }
+
+            double[][] probabilities = new double[rows][outcomes[i]];
+            for ( double[] row : probabilities ) {
+                double sum = 0;
+                for ( int k = 0; k < row.length; k++ ) {
+                    row[k] = random.nextDouble() + 0.01;
+                    sum += row[k];
+                }
+                for ( int k = 0; k < row.length; k++ ) {
+                    row[k] /= sum;
+                }
+            }
+
+            String[] names = new String[outcomes[i]];
+            for ( int k = 0; k < names.length; k++ ) {
+                names[k] = "o" + k;
+            }
+            nodes.get( i ).setContent( new BayesVariable<String>( "v" + i, nodes.get( i ).getId(), names, probabilities ) );
+        }
+
+        return new JunctionTreeBuilder( graph ).build();
+    }
+}
@@ -416,6 +416,14 @@ public class KnowledgeBuilderImpl implements KnowledgeBuilder {
             return compositePackageDescr;
         }
 
+        // the DRL is still needed when it has to be dumped
+        if (this.configuration.getDumpDir() == null) {
+            PackageDescr pkg = DecisionTableFactory.loadPackageDescrFromResource(resource, dtableConfiguration, this.configuration.getLanguageLevel());
+            if (pkg != null) {
+                return pkg;
+            }
+        }
+
         String generatedDrl = DecisionTableFactory.loadFromResource(resource, dtableConfiguration);
         return generatedDrlToPackageDescr(resource, generatedDrl);
     }
@@ -15,9 +15,11 @@
 
 package org.drools.compiler.compiler;
 
+import org.drools.compiler.lang.descr.PackageDescr;
 import org.kie.api.internal.utils.ServiceRegistry;
 import org.kie.api.io.Resource;
 import org.kie.internal.builder.DecisionTableConfiguration;
+import org.kie.internal.builder.conf.LanguageLevelOption;
 import org.kie.internal.io.ResourceFactory;
 import org.kie.api.internal.utils.ServiceRegistryImpl;
 
@@ -36,6 +38,10 @@ public class DecisionTableFactory {
         return getDecisionTableProvider().loadFromResource( resource, configuration );
     }
 
+    public static PackageDescr loadPackageDescrFromResource(Resource resource, DecisionTableConfiguration configuration, LanguageLevelOption languageLevel) {
+        return getDecisionTableProvider().loadPackageDescrFromResource( resource, configuration, languageLevel );
+    }
+
     public static List<String> loadFromInputStreamWithTemplates(Resource resource, DecisionTableConfiguration configuration) {
         return getDecisionTableProvider().loadFromInputStreamWithTemplates( resource, configuration );
     }
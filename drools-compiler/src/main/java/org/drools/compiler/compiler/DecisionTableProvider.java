@@ -15,9 +15,11 @@
 
 package org.drools.compiler.compiler;
 
+import org.drools.compiler.lang.descr.PackageDescr;
 import org.kie.api.Service;
 import org.kie.api.io.Resource;
 import org.kie.internal.builder.DecisionTableConfiguration;
+import org.kie.internal.builder.conf.LanguageLevelOption;
 
 import java.util.List;
 
@@ -29,5 +31,17 @@ public interface DecisionTableProvider extends Service {
     List<String> loadFromInputStreamWithTemplates(Resource resource,
                                                   DecisionTableConfiguration configuration);
 
+    /**
+     * Compiles the decision table straight to a PackageDescr, skipping the generation and the parsing of its DRL.
+     * The DRL still needed, e.g. for the package header, is parsed with the given language level.
+     * @return the PackageDescr, or null if the provider doesn't support it, so that the DRL returned by
+     * {@link #loadFromResource(Resource, DecisionTableConfiguration)} has to be used instead
+     */
+    default PackageDescr loadPackageDescrFromResource(Resource resource,
+                                                      DecisionTableConfiguration configuration,
+                                                      LanguageLevelOption languageLevel) {
+        return null;
+    }
+
 
 }
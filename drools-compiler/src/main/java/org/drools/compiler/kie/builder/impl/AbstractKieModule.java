@@ -204,6 +204,14 @@ public abstract class AbstractKieModule
     }
 
     public InternalKnowledgeBase createKieBase( KieBaseModelImpl kBaseModel, KieProject kieProject, ResultsImpl messages, KieBaseConfiguration conf ) {
+        if ( conf == null && KieBaseSnapshot.isEnabled( kBaseModel.getKModule() ) ) {
+            byte[] snapshot = getBytes( KieBuilderImpl.getKieBaseSnapshotPath( releaseId, kBaseModel.getName() ) );
+            InternalKnowledgeBase kBase = snapshot != null ? KieBaseSnapshot.read( snapshot, kBaseModel.getName(), kieProject.getClassLoader() ) : null;
+            if ( kBase != null ) {
+                return kBase;
+            }
+        }
+
         Collection<KiePackage> pkgs = getKnowledgePackagesForKieBase(kBaseModel.getName());
 
         if ( pkgs == null ) {
@@ -238,7 +246,7 @@ public abstract class AbstractKieModule
         return kBase;
     }
 
-    private KieBaseConfiguration getKnowledgeBaseConfiguration(KieBaseModelImpl kBaseModel, ClassLoader cl) {
+    static KieBaseConfiguration getKnowledgeBaseConfiguration(KieBaseModelImpl kBaseModel, ClassLoader cl) {
         KieBaseConfiguration kbConf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration(null, cl);
         kbConf.setOption(kBaseModel.getEqualsBehavior());
         kbConf.setOption(kBaseModel.getEventProcessingMode());
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.kie.builder.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
+import org.drools.compiler.commons.jci.stores.ResourceStore;
+import org.drools.compiler.kproject.models.KieBaseModelImpl;
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.common.DroolsObjectOutputStream;
+import org.drools.core.definitions.impl.KnowledgePackageImpl;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.KnowledgeBaseFactory;
+import org.drools.core.util.Drools;
+import org.kie.api.builder.model.KieModuleModel;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.definition.KiePackage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores in the kjar a KieBase with its whole network already built, so that at runtime it can be deserialized
+ * instead of being built again from the compiled packages.
+ * <p>
+ * The snapshot is generated at kjar build time for the KieBases of a kmodule having the
+ * {@link #KBASE_SNAPSHOT_OPTION} configuration property set to true. It is only used for KieBases created with
+ * the configuration of their model and without the alpha network compiler, which needs the KnowledgeBuilder.
+ */
+public class KieBaseSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger( KieBaseSnapshot.class );
+
+    public static final String KBASE_SNAPSHOT_OPTION = "drools.kbaseSnapshot";
+
+    private KieBaseSnapshot() { }
+
+    public static boolean isEnabled( KieModuleModel kModuleModel ) {
+        return Boolean.valueOf( kModuleModel.getConfigurationProperty( KBASE_SNAPSHOT_OPTION ) ) &&
+               !Boolean.valueOf( kModuleModel.getConfigurationProperty( KieContainerImpl.ALPHA_NETWORK_COMPILER_OPTION ) );
+    }
+
+    static void write( KieBaseModelImpl kBaseModel, KnowledgeBuilderImpl kBuilder, ResourceStore trgMfs ) {
+        if ( kBaseModel.getEventProcessingMode() == EventProcessingOption.CLOUD ) {
+            for (KiePackage kpkg : kBuilder.getKnowledgePackages()) {
+                if ( ((KnowledgePackageImpl) kpkg).needsStreamMode() ) {
+                    // let the KieBase creation report the problem
+                    return;
+                }
+            }
+        }
+
+        try {
+            InternalKnowledgeBase kBase = (InternalKnowledgeBase) KnowledgeBaseFactory.newKnowledgeBase( kBaseModel.getName(),
+                    AbstractKieModule.getKnowledgeBaseConfiguration( kBaseModel, kBuilder.getRootClassLoader() ) );
+            kBase.addPackages( kBuilder.getKnowledgePackages() );
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DroolsObjectOutputStream out = new DroolsObjectOutputStream( bytes );
+            out.writeInt( Drools.getMajorVersion() );
+            out.writeInt( Drools.getMinorVersion() );
+            out.writeInt( Drools.getRevisionVersion() );
+            out.writeObject( kBase );
+            out.close();
+            trgMfs.write( getPath( kBaseModel.getName() ), bytes.toByteArray(), true );
+        } catch ( Exception e ) {
+            log.warn( "Unable to write the snapshot of KieBase " + kBaseModel.getName() + ", it will be built at runtime", e );
+        }
+    }
+
+    static InternalKnowledgeBase read( byte[] bytes, String kBaseName, ClassLoader classLoader ) {
+        try {
+            DroolsObjectInputStream in = new DroolsObjectInputStream( new ByteArrayInputStream( bytes ), classLoader );
+            if ( !Drools.isCompatible( in.readInt(), in.readInt(), in.readInt() ) ) {
+                // if the snapshot has been built with an incompatible version avoid to use it
+                log.warn( "The snapshot of KieBase " + kBaseName + " has been built with an incompatible version. " +
+                          "You should recompile your project in order to use it with current release." );
+                return null;
+            }
+            InternalKnowledgeBase kBase = (InternalKnowledgeBase) in.readObject();
+            in.close();
+            return kBase;
+        } catch ( Exception e ) {
+            log.error( "Unable to load the snapshot of KieBase " + kBaseName + ", building it from its packages", e );
+            return null;
+        }
+    }
+
+    static String getPath( String kBaseName ) {
+        return "META-INF/" + kBaseName.replace( '.', '/' ) + "/kbase.network";
+    }
+}
@@ -255,6 +255,11 @@ public class KieBuilderImpl
         return ( (AFReleaseIdImpl) releaseId ).getCompilationCachePathPrefix() + kbaseName.replace( '.', '/' ) + "/kbase.cache";
     }
 
+    public static String getKieBaseSnapshotPath( AFReleaseId releaseId,
+                                                 String kbaseName ) {
+        return ( (AFReleaseIdImpl) releaseId ).getCompilationCachePathPrefix() + kbaseName.replace( '.', '/' ) + "/kbase.network";
+    }
+
     public static void buildKieModule( InternalKieModule kModule,
                                        ResultsImpl messages ) {
         buildKieProject( messages, new KieModuleKieProject( kModule ), null );
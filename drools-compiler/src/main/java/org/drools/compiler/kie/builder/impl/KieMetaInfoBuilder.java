@@ -28,6 +28,7 @@ import com.google.protobuf.ByteString;
 import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
 import org.drools.compiler.commons.jci.stores.ResourceStore;
 import org.drools.compiler.compiler.PackageRegistry;
+import org.drools.compiler.kproject.models.KieBaseModelImpl;
 import org.drools.compiler.kproject.models.KieModuleModelImpl;
 import org.drools.core.factmodel.ClassDefinition;
 import org.drools.core.rule.JavaDialectRuntimeData;
@@ -116,6 +117,9 @@ public class KieMetaInfoBuilder {
             _kmoduleCacheBuilder.addCompilationData( _compData.build() );
             if (trgMfs != null) {
                 writeCompilationDataToTrg( _kmoduleCacheBuilder.build(), kieBaseName, trgMfs );
+                if ( KieBaseSnapshot.isEnabled( kieModuleModel ) ) {
+                    KieBaseSnapshot.write( (KieBaseModelImpl) kieModuleModel.getKieBaseModels().get( kieBaseName ), kBuilder, trgMfs );
+                }
             }
         }
         return new KieModuleMetaInfo(typeInfos, rulesPerPackage);
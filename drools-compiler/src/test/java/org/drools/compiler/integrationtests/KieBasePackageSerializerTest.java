@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.drools.compiler.integrationtests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.KieBasePackageSerializer;
+import org.drools.core.impl.SerializedKnowledgePackage;
+import org.junit.Test;
+import org.kie.api.runtime.KieSession;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KieBasePackageSerializerTest extends CommonTestMethodBase {
+
+    private static final String DRL =
+            "package org.kie.test\n" +
+            "global java.util.List list\n" +
+            "rule R1 when\n" +
+            "   $s : String()\n" +
+            "then\n" +
+            "   list.add( \"R1 \" + $s );\n" +
+            "end\n" +
+            "rule R2 when\n" +
+            "   $s : String()\n" +
+            "then\n" +
+            "   list.add( \"R2 \" + $s );\n" +
+            "end\n" +
+            "rule R3 when\n" +
+            "   $s : String()\n" +
+            "then\n" +
+            "   list.add( \"R3 \" + $s );\n" +
+            "end\n";
+
+    private static final String CHANGED_DRL =
+            "package org.kie.test\n" +
+            "global java.util.List list\n" +
+            "rule R1 when\n" +
+            "   $s : String( this == \"b\" )\n" +
+            "then\n" +
+            "   list.add( \"R1 changed \" + $s );\n" +
+            "end\n" +
+            "rule R3 when\n" +
+            "   $s : String()\n" +
+            "then\n" +
+            "   list.add( \"R3 \" + $s );\n" +
+            "end\n";
+
+    @Test
+    public void testApplyChangedAndRemovedRules() throws Exception {
+        InternalKnowledgeBase current = (InternalKnowledgeBase) loadKnowledgeBaseFromString( DRL );
+        InternalKnowledgeBase target = (InternalKnowledgeBase) loadKnowledgeBaseFromString( CHANGED_DRL );
+
+        KieSession ksession = current.newKieSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        ksession.insert( "a" );
+        ksession.fireAllRules();
+        Collections.sort( list );
+        assertEquals( Arrays.asList( "R1 a", "R2 a", "R3 a" ), list );
+
+        Map<String, SerializedKnowledgePackage> targetPackages = KieBasePackageSerializer.serialize( target );
+        Map<String, String> currentManifest = KieBasePackageSerializer.manifest( KieBasePackageSerializer.serialize( current ) );
+        Map<String, String> targetManifest = KieBasePackageSerializer.manifest( targetPackages );
+        Set<String> changed = KieBasePackageSerializer.getChangedPackages( currentManifest, targetManifest );
+        assertTrue( changed.contains( "org.kie.test" ) );
+
+        List<SerializedKnowledgePackage> toApply = new ArrayList<SerializedKnowledgePackage>();
+        for ( String name : changed ) {
+            toApply.add( targetPackages.get( name ) );
+        }
+        KieBasePackageSerializer.apply( current, toApply, KieBasePackageSerializer.getRemovedPackages( currentManifest, targetManifest ) );
+
+        assertNull( current.getRule( "org.kie.test", "R2" ) );
+        assertEquals( 2, current.getPackage( "org.kie.test" ).getRules().size() );
+
+        // the live session no longer fires the removed rule, and the changed one only with its new constraint;
+        // R3 is replaced along with the rest of its package, so it matches again the fact it already fired for
+        list.clear();
+        ksession.insert( "b" );
+        ksession.fireAllRules();
+        Collections.sort( list );
+        assertEquals( Arrays.asList( "R1 changed b", "R3 a", "R3 b" ), list );
+        ksession.dispose();
+
+        // and so does a session created afterwards
+        KieSession newSession = current.newKieSession();
+        list = new ArrayList<String>();
+        newSession.setGlobal( "list", list );
+        newSession.insert( "a" );
+        newSession.insert( "b" );
+        newSession.fireAllRules();
+        Collections.sort( list );
+        assertEquals( Arrays.asList( "R1 changed b", "R3 a", "R3 b" ), list );
+        newSession.dispose();
+    }
+}
@@ -20,6 +20,7 @@ import org.drools.compiler.Message;
 import org.drools.compiler.compiler.io.File;
 import org.drools.compiler.compiler.io.memory.MemoryFileSystem;
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.compiler.kie.builder.impl.KieBaseSnapshot;
 import org.drools.compiler.kie.builder.impl.KieBuilderImpl;
 import org.junit.Test;
 import org.kie.api.KieBase;
@@ -194,6 +195,67 @@ public class KieCompilationCacheTest extends CommonTestMethodBase {
         assertEquals( 1, ksession.fireAllRules() );
     }
 
+    @Test
+    public void testKieBaseSnapshot() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId("org.kie", "kbase-snapshot", "1.0");
+
+        byte[] helloJar = buildKieModuleWithSnapshot( ks, releaseId, "Hello World" );
+        MemoryFileSystem helloMfs = MemoryFileSystem.readFromJar( helloJar );
+        byte[] snapshot = helloMfs.getBytes( KieBuilderImpl.getKieBaseSnapshotPath( releaseId, "KBase2") );
+        assertNotNull( snapshot );
+
+        // the same kjar with a different rule, whose snapshot is replaced by the one of the previous build:
+        // only a KieBase actually read from the snapshot can fire for "Hello World"
+        MemoryFileSystem mfs = MemoryFileSystem.readFromJar( buildKieModuleWithSnapshot( ks, releaseId, "Hi Universe" ) );
+        mfs.write( KieBuilderImpl.getKieBaseSnapshotPath( releaseId, "KBase2"), snapshot, true );
+        KieModule km = ks.getRepository().addKieModule( ks.getResources().newByteArrayResource( mfs.writeAsBytes() ) );
+
+        KieContainer kc = ks.newKieContainer( km.getReleaseId() );
+        KieSession ksession = kc.newKieSession("KSession1");
+        ksession.insert(new Message("Hello World"));
+        assertEquals( 1, ksession.fireAllRules() );
+
+        ksession = kc.newKieSession("KSession1");
+        ksession.insert(new Message("Hi Universe"));
+        assertEquals( 0, ksession.fireAllRules() );
+    }
+
+    @Test
+    public void testUnreadableKieBaseSnapshot() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId("org.kie", "kbase-snapshot-unreadable", "1.0");
+
+        MemoryFileSystem mfs = MemoryFileSystem.readFromJar( buildKieModuleWithSnapshot( ks, releaseId, "Hello World" ) );
+        mfs.write( KieBuilderImpl.getKieBaseSnapshotPath( releaseId, "KBase2"), new byte[] { 1, 2, 3 }, true );
+        KieModule km = ks.getRepository().addKieModule( ks.getResources().newByteArrayResource( mfs.writeAsBytes() ) );
+
+        // the KieBase is built from its packages instead
+        KieSession ksession = ks.newKieContainer( km.getReleaseId() ).newKieSession("KSession1");
+        ksession.insert(new Message("Hello World"));
+        assertEquals( 1, ksession.fireAllRules() );
+    }
+
+    private byte[] buildKieModuleWithSnapshot(KieServices ks, ReleaseId releaseId, String message) {
+        String drl = "package org.drools.compiler.integrationtests\n" +
+                "import " + Message.class.getCanonicalName() + "\n" +
+                "rule R11 when\n" +
+                "   $m : Message( message == \"" + message + "\" )\n" +
+                "then\n" +
+                "end\n";
+
+        KieModuleModel kproj = createKieProjectWithPackagesAnd2KieBases(ks);
+        kproj.setConfigurationProperty( KieBaseSnapshot.KBASE_SNAPSHOT_OPTION, "true" );
+
+        KieFileSystem kfs = ks.newKieFileSystem()
+                .generateAndWritePomXML(releaseId)
+                .write("src/main/resources/KBase1/org/pkg1/r1.drl", drl)
+                .writeKModuleXML(kproj.toXML());
+        ks.newKieBuilder( kfs ).buildAll();
+
+        return ( (InternalKieModule) ks.getRepository().getKieModule( releaseId ) ).getBytes();
+    }
+
     private KieModuleModel createKieProjectWithPackagesAnd2KieBases(KieServices ks) {
         KieModuleModel kproj = ks.newKieModuleModel();
 
@@ -31,6 +31,10 @@ public class GetFactCountInEntryPointCommand
         this.entryPoint = entryPoint;
     }
 
+    public String getEntryPoint() {
+        return entryPoint;
+    }
+
     public Long execute(Context context) {
         KieSession ksession = ((RegistryContext) context).lookup( KieSession.class );
         return ksession.getEntryPoint(entryPoint).getFactCount();
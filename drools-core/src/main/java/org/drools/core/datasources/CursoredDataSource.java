@@ -183,6 +183,15 @@ public class CursoredDataSource<T> implements InternalDataSource<T> {
         currentEntryPoint = null;
     }
 
+    @Override
+    public void reset() {
+        objectStore.clear();
+        propagationsMap.clear();
+        currentUnit = null;
+        currentEntryPoint = null;
+        inserted = null;
+    }
+
     @Override
     public Iterator<T> iterator() {
         return inserted != null ? inserted.iterator() : (Iterator<T>) objectStore.iterateObjects();
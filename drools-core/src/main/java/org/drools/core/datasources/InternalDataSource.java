@@ -27,6 +27,12 @@ public interface InternalDataSource<T> extends DataSource<T>, BindableDataProvid
     void update( FactHandle fh, Object obj, BitMask mask, Class<?> modifiedClass, Activation activation );
 
     void setWorkingMemory( InternalWorkingMemory workingMemory );
+
+    /**
+     * Removes all the items of this data source and forgets the propagations pending for the units it was bound to,
+     * so that it can be bound again to a session that has been reset
+     */
+    void reset();
     
     default FactHandle getFactHandleForObject(Object object) {
     	return null;
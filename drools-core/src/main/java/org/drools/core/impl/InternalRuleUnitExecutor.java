@@ -49,4 +49,10 @@ public interface InternalRuleUnitExecutor extends RuleUnitExecutor {
     Collection<?> getSessionObjects(ObjectFilter filter);
 
     void bindDataSource(InternalDataSource dataSource );
+
+    /**
+     * Brings this executor and its session back to their initial state, emptying the bound data sources,
+     * so that they can be reused instead of creating new ones
+     */
+    void reset();
 }
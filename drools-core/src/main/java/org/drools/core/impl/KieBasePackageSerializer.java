@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.common.DroolsObjectOutputStream;
+import org.drools.core.common.ProjectClassLoader;
+import org.drools.core.definitions.InternalKnowledgePackage;
+import org.kie.api.definition.rule.Rule;
+
+/**
+ * Serializes the packages of a KieBase one by one, so that a KieBase can be brought up to date with another one
+ * by transferring and applying only the packages whose content changed.
+ * <p>
+ * Every package is written along with the runtime defined classes of its namespace, e.g. its declared types, and
+ * identified by the SHA-256 hash of these bytes. Comparing the {@link #manifest(Map) manifests} of two KieBases
+ * tells which packages differ; identical packages always hash the same, while a package can occasionally hash
+ * differently without having changed, which only costs an unneeded transfer.
+ * <p>
+ * Applying a package replaces the one of the same name: its rules, functions and processes that are no longer
+ * part of it are removed, the others are added or replaced, so that the network is only updated for the changed
+ * packages. All the rules of a changed package are replaced, including the ones whose definition is the same, hence
+ * in the sessions of the KieBase they match again the facts they already fired for.
+ */
+public class KieBasePackageSerializer {
+
+    private KieBasePackageSerializer() { }
+
+    /**
+     * Serializes every package of the given KieBase
+     * @return the serialized packages, keyed by name
+     */
+    public static Map<String, SerializedKnowledgePackage> serialize(InternalKnowledgeBase kbase) throws IOException {
+        Map<String, SerializedKnowledgePackage> serialized = new TreeMap<>();
+        for ( InternalKnowledgePackage pkg : kbase.getPackagesMap().values() ) {
+            serialized.put( pkg.getName(), serialize( kbase, pkg ) );
+        }
+        return serialized;
+    }
+
+    public static SerializedKnowledgePackage serialize(InternalKnowledgeBase kbase, InternalKnowledgePackage pkg) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DroolsObjectOutputStream out = new DroolsObjectOutputStream( bytes );
+        out.writeObject( getPackageClasses( kbase, pkg.getName() ) );
+        out.writeObject( pkg );
+        out.close();
+        byte[] data = bytes.toByteArray();
+        return new SerializedKnowledgePackage( pkg.getName(), hash( data ), data );
+    }
+
+    /**
+     * @return the hashes of the given packages, keyed by package name
+     */
+    public static Map<String, String> manifest(Map<String, SerializedKnowledgePackage> packages) {
+        Map<String, String> manifest = new TreeMap<>();
+        for ( SerializedKnowledgePackage pkg : packages.values() ) {
+            manifest.put( pkg.getName(), pkg.getHash() );
+        }
+        return manifest;
+    }
+
+    /**
+     * @return the names of the packages of the target manifest that are missing from, or differ in, the current one
+     */
+    public static Set<String> getChangedPackages(Map<String, String> current, Map<String, String> target) {
+        Set<String> changed = new TreeSet<>();
+        for ( Map.Entry<String, String> entry : target.entrySet() ) {
+            if ( !entry.getValue().equals( current.get( entry.getKey() ) ) ) {
+                changed.add( entry.getKey() );
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the names of the packages of the current manifest that are missing from the target one
+     */
+    public static Set<String> getRemovedPackages(Map<String, String> current, Map<String, String> target) {
+        Set<String> removed = new TreeSet<>( current.keySet() );
+        removed.removeAll( target.keySet() );
+        return removed;
+    }
+
+    /**
+     * Adds or replaces the given packages in the KieBase, and removes the packages of the given names
+     */
+    public static void apply(InternalKnowledgeBase kbase,
+                             Collection<SerializedKnowledgePackage> changed,
+                             Collection<String> removed) throws IOException, ClassNotFoundException {
+        ClassLoader classLoader = kbase.getRootClassLoader();
+
+        List<DroolsObjectInputStream> streams = new ArrayList<>();
+        for ( SerializedKnowledgePackage serialized : changed ) {
+            DroolsObjectInputStream in = new DroolsObjectInputStream( new ByteArrayInputStream( serialized.getData() ), classLoader );
+            // all the classes must be known before any package gets read
+            storePackageClasses( classLoader, serialized.getName(), (Map<String, byte[]>) in.readObject() );
+            streams.add( in );
+        }
+
+        List<InternalKnowledgePackage> pkgs = new ArrayList<>();
+        for ( DroolsObjectInputStream in : streams ) {
+            InternalKnowledgePackage pkg = (InternalKnowledgePackage) in.readObject();
+            in.close();
+            removeStaleDefinitions( kbase, pkg );
+            pkgs.add( pkg );
+        }
+        if ( !pkgs.isEmpty() ) {
+            kbase.addPackages( pkgs );
+        }
+
+        for ( String name : removed ) {
+            if ( kbase.getPackage( name ) != null ) {
+                kbase.removeKiePackage( name );
+            }
+        }
+    }
+
+    private static void removeStaleDefinitions(InternalKnowledgeBase kbase, InternalKnowledgePackage pkg) {
+        InternalKnowledgePackage existing = kbase.getPackage( pkg.getName() );
+        if ( existing == null ) {
+            return;
+        }
+        List<String> staleRules = new ArrayList<>();
+        for ( Rule rule : existing.getRules() ) {
+            if ( pkg.getRule( rule.getName() ) == null ) {
+                staleRules.add( rule.getName() );
+            }
+        }
+        // removeRules(Collection) only updates the network, the rules must also leave the package
+        for ( String rule : staleRules ) {
+            kbase.removeRule( pkg.getName(), rule );
+        }
+        for ( String function : new ArrayList<>( existing.getFunctions().keySet() ) ) {
+            if ( !pkg.getFunctions().containsKey( function ) ) {
+                kbase.removeFunction( pkg.getName(), function );
+            }
+        }
+        for ( String process : new ArrayList<>( existing.getRuleFlows().keySet() ) ) {
+            if ( !pkg.getRuleFlows().containsKey( process ) ) {
+                kbase.removeProcess( process );
+            }
+        }
+    }
+
+    private static Map<String, byte[]> getPackageClasses(InternalKnowledgeBase kbase, String packageName) {
+        Map<String, byte[]> classes = new TreeMap<>();
+        ClassLoader classLoader = kbase.getRootClassLoader();
+        if ( classLoader instanceof ProjectClassLoader && ( (ProjectClassLoader) classLoader ).getStore() != null ) {
+            for ( Map.Entry<String, byte[]> entry : ( (ProjectClassLoader) classLoader ).getStore().entrySet() ) {
+                if ( isInPackage( entry.getKey(), packageName ) ) {
+                    classes.put( entry.getKey(), entry.getValue() );
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static void storePackageClasses(ClassLoader classLoader, String packageName, Map<String, byte[]> classes) {
+        if ( classes.isEmpty() ) {
+            return;
+        }
+        if ( !( classLoader instanceof ProjectClassLoader ) ) {
+            throw new IllegalStateException( "Unable to define the classes of package " + packageName + ": the KieBase has no ProjectClassLoader" );
+        }
+        ProjectClassLoader projectClassLoader = (ProjectClassLoader) classLoader;
+        Map<String, byte[]> store = projectClassLoader.getStore() != null ? projectClassLoader.getStore() : new HashMap<>();
+        for ( Map.Entry<String, byte[]> entry : classes.entrySet() ) {
+            String className = entry.getKey().substring( 0, entry.getKey().length() - ".class".length() ).replace( '/', '.' );
+            byte[] current = store.get( entry.getKey() );
+            if ( current != null && !Arrays.equals( current, entry.getValue() ) && projectClassLoader.isClassInUse( className ) ) {
+                // a loaded class cannot be redefined, a new KieBase is needed for that
+                throw new IllegalStateException( "Unable to apply package " + packageName + ": class " + className + " changed while in use" );
+            }
+        }
+        projectClassLoader.storeClasses( classes );
+    }
+
+    private static boolean isInPackage(String resourceName, String packageName) {
+        if ( !resourceName.endsWith( ".class" ) ) {
+            return false;
+        }
+        int slash = resourceName.lastIndexOf( '/' );
+        String resourcePackage = slash < 0 ? "" : resourceName.substring( 0, slash ).replace( '/', '.' );
+        return resourcePackage.equals( packageName );
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance( "SHA-256" ).digest( data );
+            StringBuilder sb = new StringBuilder( digest.length * 2 );
+            for ( byte b : digest ) {
+                sb.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+            }
+            return sb.toString();
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+}
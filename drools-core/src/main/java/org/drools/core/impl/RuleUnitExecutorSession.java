@@ -336,6 +336,19 @@ public class RuleUnitExecutorSession implements InternalRuleUnitExecutor {
         }
     }
 
+    @Override
+    public void reset() {
+        session.reset();
+        factHandlesMap.clear();
+        unitsStack.clear();
+        currentRuleUnit = null;
+        suspended.set( false );
+        ruleUnitGuardSystem = new RuleUnitGuardSystem( this );
+        if (ruleUnitFactory != null) {
+            ruleUnitFactory.resetDataSources();
+        }
+    }
+
     @Override
     public void dispose() {
         session.dispose();
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.impl;
+
+import java.io.Serializable;
+
+/**
+ * A package of a KieBase serialized on its own by {@link KieBasePackageSerializer}, along with the hash of its content.
+ */
+public final class SerializedKnowledgePackage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final String hash;
+    private final byte[] data;
+
+    public SerializedKnowledgePackage(String name, String hash, byte[] data) {
+        this.name = name;
+        this.hash = hash;
+        this.data = data;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 digest of the serialized package
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedKnowledgePackage{name=" + name + ", hash=" + hash + ", size=" + data.length + "}";
+    }
+}
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +36,7 @@ import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.RightTuple;
 import org.drools.core.rule.EntryPointId;
 import org.drools.core.spi.PropagationContext;
+import org.drools.core.util.ByteBufferInputStream;
 import org.kie.api.marshalling.ObjectMarshallingStrategy;
 import org.kie.api.marshalling.ObjectMarshallingStrategyStore;
 import org.kie.api.runtime.Environment;
@@ -44,6 +46,8 @@ import org.kie.internal.marshalling.MarshallerFactory;
 
 public class MarshallerReaderContext extends ObjectInputStream {
     public final MarshallerReaderContext                                           stream;
+    // the buffer the stream reads from, when it is a ByteBufferInputStream
+    public final ByteBuffer                                                        buffer;
     public final InternalKnowledgeBase                                             kBase;
     public InternalWorkingMemory                                                   wm;
     public KieRuntime                                                              kruntime;
@@ -102,6 +106,7 @@ public class MarshallerReaderContext extends ObjectInputStream {
                                    Environment env) throws IOException {
         super( stream );
         this.stream = this;
+        this.buffer = stream instanceof ByteBufferInputStream ? ( (ByteBufferInputStream) stream ).getBuffer() : null;
         this.kBase = kBase;
         this.sinks = sinks;
 
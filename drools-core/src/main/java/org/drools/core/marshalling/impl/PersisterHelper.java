@@ -19,6 +19,7 @@ package org.drools.core.marshalling.impl;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -51,6 +52,9 @@ import com.google.protobuf.ByteString.Output;
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.Message;
 
+import static java.io.ObjectStreamConstants.TC_BLOCKDATA;
+import static java.io.ObjectStreamConstants.TC_BLOCKDATALONG;
+
 public class PersisterHelper {
     public static WorkingMemoryAction readWorkingMemoryAction(MarshallerReaderContext context) throws IOException,
                                                                                               ClassNotFoundException {
@@ -274,10 +278,8 @@ public class PersisterHelper {
     private static ProtobufMessages.Header loadStrategiesCheckSignature(MarshallerReaderContext context, ProtobufMessages.Header _header) throws ClassNotFoundException, IOException {
         loadStrategiesIndex( context, _header );
 
-        byte[] sessionbuff = _header.getPayload().toByteArray();
-
         // should we check version as well here?
-        checkSignature( _header, sessionbuff );
+        checkSignature( _header );
         
         return _header;
     }
@@ -285,7 +287,10 @@ public class PersisterHelper {
     public static ProtobufMessages.Header readFromStreamWithHeaderPreloaded( MarshallerReaderContext context, ExtensionRegistry registry ) throws IOException, ClassNotFoundException {
         // we preload the stream into a byte[] to overcome a message size limit
         // imposed by protobuf as per https://issues.jboss.org/browse/DROOLS-25
-        byte[] preloaded = preload(context.stream);
+        byte[] preloaded = context.buffer != null ? readBlockData( context.buffer ) : null;
+        if ( preloaded == null ) {
+            preloaded = preload(context.stream);
+        }
         ProtobufMessages.Header _header = ProtobufMessages.Header.parseFrom( preloaded, registry );
 
         return loadStrategiesCheckSignature(context, _header);
@@ -306,6 +311,53 @@ public class PersisterHelper {
         return preloaded.toByteArray();
     }
 
+    /* Method that gathers the block data records the header was written in by the ObjectOutputStream of the marshaller,
+       straight from the buffer underlying the stream: the header is copied once into an array of its exact size.
+       Returns null, leaving the buffer untouched, if the buffer holds any other kind of record.
+    */
+    private static byte[] readBlockData(ByteBuffer buffer) {
+        // a duplicate is big endian like the stream, whatever the order of the buffer
+        ByteBuffer source = buffer.duplicate();
+        int size = gatherBlockData( source, buffer.position(), null );
+        if ( size < 0 ) {
+            return null;
+        }
+        byte[] preloaded = new byte[size];
+        gatherBlockData( source, buffer.position(), preloaded );
+        // consumed, as when preloading the stream
+        buffer.position( buffer.limit() );
+        return preloaded;
+    }
+
+    private static int gatherBlockData(ByteBuffer source, int start, byte[] target) {
+        int limit = source.limit();
+        int offset = start;
+        int size = 0;
+        while ( offset < limit ) {
+            int length;
+            byte tag = source.get( offset );
+            if ( tag == TC_BLOCKDATA && limit - offset >= 2 ) {
+                length = source.get( offset + 1 ) & 0xFF;
+                offset += 2;
+            } else if ( tag == TC_BLOCKDATALONG && limit - offset >= 5 ) {
+                length = source.getInt( offset + 1 );
+                offset += 5;
+            } else {
+                return -1;
+            }
+            if ( length < 0 || length > limit - offset || length > Integer.MAX_VALUE - size ) {
+                return -1;
+            }
+            if ( target != null ) {
+                source.position( offset );
+                source.get( target, size, length );
+            }
+            size += length;
+            offset += length;
+        }
+        return size;
+    }
+
 	private static void loadStrategiesIndex(MarshallerReaderContext context,
                                             ProtobufMessages.Header _header) throws IOException, ClassNotFoundException {
         for ( ProtobufMessages.Header.StrategyIndex _entry : _header.getStrategyList() ) {
@@ -344,8 +396,7 @@ public class PersisterHelper {
         }
     }
 
-    private static void checkSignature(Header _header,
-                                       byte[] sessionbuff) {
+    private static void checkSignature(Header _header) {
         KeyStoreHelper helper = new KeyStoreHelper();
         boolean signed = _header.hasSignature();
         if ( helper.isSigned() != signed ) {
@@ -359,6 +410,8 @@ public class PersisterHelper {
                 throw new RuntimeException( "The session was serialized with a signature. Please configure a public keystore with the public key to check the signature. Deserialization aborted." );
             }
             try {
+                // only copied when signed, the payload can be large
+                byte[] sessionbuff = _header.getPayload().toByteArray();
                 if ( !helper.checkDataWithPublicKey( _header.getSignature().getKeyAlias(),
                                                      sessionbuff,
                                                      _header.getSignature().getSignature().toByteArray() ) ) {
@@ -26,6 +26,7 @@ import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.core.phreak.PhreakTimerNode.TimerNodeTimerInputMarshaller;
 import org.drools.core.reteoo.ObjectTypeNode.ExpireJobContextTimerInputMarshaller;
 import org.drools.core.rule.SlidingTimeWindow.BehaviorJobContextTimerInputMarshaller;
+import org.drools.core.util.ByteBufferInputStream;
 import org.kie.api.KieBase;
 import org.kie.api.KieServices;
 import org.kie.api.marshalling.MarshallingConfiguration;
@@ -39,6 +40,8 @@ import org.kie.internal.runtime.StatefulKnowledgeSession;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -141,6 +144,57 @@ public class ProtobufMarshaller
         context.close();
     }
 
+    /**
+     * Unmarshalls a new session from the remaining bytes of the given buffer, e.g. a file mapped in memory.
+     * The snapshot is read straight from the buffer rather than first being copied through a stream.
+     * The position of the buffer is left unchanged.
+     */
+    public StatefulKnowledgeSession unmarshall(final ByteBuffer buffer,
+                                               KieSessionConfiguration config,
+                                               Environment environment) throws IOException,
+                                                                       ClassNotFoundException {
+        return unmarshall( new ByteBufferInputStream( buffer.duplicate() ), config, environment );
+    }
+
+    /**
+     * Unmarshalls the remaining bytes of the given buffer into an existing session
+     * @see #unmarshall(ByteBuffer, KieSessionConfiguration, Environment)
+     */
+    public void unmarshall(final ByteBuffer buffer,
+                           final KieSession ksession) throws IOException,
+                                                             ClassNotFoundException {
+        unmarshall( new ByteBufferInputStream( buffer.duplicate() ), ksession );
+    }
+
+    /**
+     * Unmarshalls a new session from the given channel, mapped in memory from its current position to its end
+     */
+    public StatefulKnowledgeSession unmarshall(final FileChannel channel,
+                                               KieSessionConfiguration config,
+                                               Environment environment) throws IOException,
+                                                                       ClassNotFoundException {
+        return unmarshall( map( channel ), config, environment );
+    }
+
+    /**
+     * Unmarshalls the given channel, mapped in memory from its current position to its end, into an existing session
+     */
+    public void unmarshall(final FileChannel channel,
+                           final KieSession ksession) throws IOException,
+                                                             ClassNotFoundException {
+        unmarshall( map( channel ), ksession );
+    }
+
+    private static ByteBuffer map(FileChannel channel) throws IOException {
+        long position = channel.position();
+        long size = channel.size() - position;
+        if ( size > Integer.MAX_VALUE ) {
+            // protobuf messages are limited to 2GB anyway
+            throw new IOException( "Snapshot too large to be mapped: " + size + " bytes" );
+        }
+        return channel.map( FileChannel.MapMode.READ_ONLY, position, size );
+    }
+
     public void marshall(final OutputStream stream,
                          final KieSession ksession) throws IOException {
         marshall( stream, ksession, ksession.<SessionClock> getSessionClock().getCurrentTime() );
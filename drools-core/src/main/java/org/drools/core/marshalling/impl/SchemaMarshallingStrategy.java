@@ -0,0 +1,769 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.marshalling.impl;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.drools.core.base.ClassFieldAccessor;
+import org.drools.core.base.ClassFieldAccessorCache;
+import org.drools.core.base.ClassFieldAccessorStore;
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.factmodel.GeneratedFact;
+import org.drools.core.util.asm.ClassFieldInspector;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+import org.kie.api.marshalling.ObjectMarshallingStrategyAcceptor;
+
+/**
+ * Marshals facts field by field using the ASM generated accessors of a {@link ClassFieldAccessorStore}
+ * instead of relying on java serialization.
+ *
+ * By default it accepts instances of declared types (see {@link GeneratedFact}) and of classes annotated
+ * with {@link SchemaMarshalled}. The layout of each class, i.e. the names and kinds of its properties, is
+ * computed once and written only the first time the class is encountered in a stream. When reading,
+ * properties are matched by name, so that fields added, removed or reordered after a session was saved
+ * are tolerated. Identity between marshalled objects, cycles included, is preserved, and nested objects
+ * are written breadth first so that deep object graphs don't exhaust the stack.
+ *
+ * Lists, sets and maps are written element by element, so that they can hold accepted objects that
+ * aren't serializable and share their identity with the rest of the stream. They are read back as
+ * instances of their own class when it has a public default constructor (and, for sorted ones, no
+ * comparator), otherwise as an ArrayList, LinkedHashSet or LinkedHashMap respectively.
+ * Any other value that is neither a primitive, string, date, big number, enum nor accepted object
+ * is written through plain java serialization.
+ */
+public class SchemaMarshallingStrategy
+    implements
+    ObjectMarshallingStrategy {
+
+    public static final ObjectMarshallingStrategyAcceptor DEFAULT_ACCEPTOR = object ->
+            object instanceof GeneratedFact || object.getClass().isAnnotationPresent( SchemaMarshalled.class );
+
+    static final int FORMAT_VERSION = 1;
+
+    // kinds of the properties in a layout
+    private static final byte KIND_BOOLEAN = 1;
+    private static final byte KIND_BYTE = 2;
+    private static final byte KIND_CHAR = 3;
+    private static final byte KIND_SHORT = 4;
+    private static final byte KIND_INT = 5;
+    private static final byte KIND_LONG = 6;
+    private static final byte KIND_FLOAT = 7;
+    private static final byte KIND_DOUBLE = 8;
+    private static final byte KIND_OBJECT = 9;
+
+    // tags of the values stored in object properties
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_REFERENCE = 1;
+    private static final byte TAG_SCHEMA = 2;
+    private static final byte TAG_STRING = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_BYTE = 5;
+    private static final byte TAG_CHAR = 6;
+    private static final byte TAG_SHORT = 7;
+    private static final byte TAG_INT = 8;
+    private static final byte TAG_LONG = 9;
+    private static final byte TAG_FLOAT = 10;
+    private static final byte TAG_DOUBLE = 11;
+    private static final byte TAG_DATE = 12;
+    private static final byte TAG_BIG_DECIMAL = 13;
+    private static final byte TAG_BIG_INTEGER = 14;
+    private static final byte TAG_ENUM = 15;
+    private static final byte TAG_SERIALIZED = 16;
+    private static final byte TAG_LIST = 17;
+    private static final byte TAG_SET = 18;
+    private static final byte TAG_MAP = 19;
+
+    private final ObjectMarshallingStrategyAcceptor acceptor;
+
+    private final Map<Class<?>, SchemaLayout> layouts = new ConcurrentHashMap<>();
+
+    private final Map<ClassLoader, ClassFieldAccessorStore> stores = new ConcurrentHashMap<>();
+
+    public SchemaMarshallingStrategy() {
+        this( DEFAULT_ACCEPTOR );
+    }
+
+    public SchemaMarshallingStrategy(ObjectMarshallingStrategyAcceptor acceptor) {
+        this.acceptor = acceptor;
+    }
+
+    public boolean accept(Object object) {
+        return acceptor.accept( object );
+    }
+
+    public void write(ObjectOutputStream os,
+                      Object object) throws IOException {
+        SchemaStrategyContext ctx = new SchemaStrategyContext( this );
+        ctx.data.add( object );
+        ctx.write( os );
+    }
+
+    public Object read(ObjectInputStream os) throws IOException,
+                                                    ClassNotFoundException {
+        SchemaStrategyContext ctx = new SchemaStrategyContext( this );
+        ctx.read( os );
+        return ctx.data.get( 0 );
+    }
+
+    public byte[] marshal(Context context,
+                          ObjectOutputStream os,
+                          Object object) throws IOException {
+        SchemaStrategyContext ctx = (SchemaStrategyContext) context;
+        int index = ctx.data.size();
+        ctx.data.add( object );
+        return PersisterHelper.intToByteArray( index );
+    }
+
+    public Object unmarshal(Context context,
+                            ObjectInputStream is,
+                            byte[] object,
+                            ClassLoader classloader) throws IOException, ClassNotFoundException {
+        SchemaStrategyContext ctx = (SchemaStrategyContext) context;
+        return ctx.data.get( PersisterHelper.byteArrayToInt( object ) );
+    }
+
+    public Context createContext() {
+        return new SchemaStrategyContext( this );
+    }
+
+    SchemaLayout getLayout(Class<?> cls) throws IOException {
+        SchemaLayout layout = layouts.get( cls );
+        if ( layout == null ) {
+            layout = new SchemaLayout( cls, getAccessorStore( cls ) );
+            SchemaLayout existing = layouts.putIfAbsent( cls, layout );
+            if ( existing != null ) {
+                layout = existing;
+            }
+        }
+        return layout;
+    }
+
+    private ClassFieldAccessorStore getAccessorStore(Class<?> cls) {
+        ClassLoader classLoader = cls.getClassLoader() != null ? cls.getClassLoader() : getClass().getClassLoader();
+        return stores.computeIfAbsent( classLoader, cl -> {
+            ClassFieldAccessorStore store = new ClassFieldAccessorStore();
+            store.setClassFieldAccessorCache( new ClassFieldAccessorCache( cl ) );
+            store.setEagerWire( true );
+            return store;
+        } );
+    }
+
+    private static byte kindOf(Class<?> type) {
+        if ( !type.isPrimitive() ) {
+            return KIND_OBJECT;
+        } else if ( type == boolean.class ) {
+            return KIND_BOOLEAN;
+        } else if ( type == byte.class ) {
+            return KIND_BYTE;
+        } else if ( type == char.class ) {
+            return KIND_CHAR;
+        } else if ( type == short.class ) {
+            return KIND_SHORT;
+        } else if ( type == int.class ) {
+            return KIND_INT;
+        } else if ( type == long.class ) {
+            return KIND_LONG;
+        } else if ( type == float.class ) {
+            return KIND_FLOAT;
+        }
+        return KIND_DOUBLE;
+    }
+
+    /**
+     * The class a collection or map is read back as: its own one when it can be instantiated empty,
+     * the given default otherwise
+     */
+    private static Class<?> containerClassOf(Object container, Class<?> defaultClass) {
+        Class<?> cls = container.getClass();
+        if ( container instanceof SortedSet && ( (SortedSet<?>) container ).comparator() != null ||
+             container instanceof SortedMap && ( (SortedMap<?, ?>) container ).comparator() != null ) {
+            return defaultClass;
+        }
+        try {
+            cls.getConstructor();
+            return cls;
+        } catch ( NoSuchMethodException e ) {
+            return defaultClass;
+        }
+    }
+
+    /**
+     * The properties of a class, sorted by name, together with the accessors used to read and write them
+     */
+    static class SchemaLayout {
+
+        final Class<?> cls;
+        final String[] names;
+        final byte[] kinds;
+        final ClassFieldAccessor[] accessors;
+        final Map<String, Integer> positions = new HashMap<>();
+        private final Constructor<?> constructor;
+
+        SchemaLayout(Class<?> cls, ClassFieldAccessorStore store) throws IOException {
+            this.cls = cls;
+            ClassFieldInspector inspector = new ClassFieldInspector( cls );
+            Map<String, Method> setters = inspector.getSetterMethods();
+            TreeMap<String, Method> properties = new TreeMap<>();
+            for ( Map.Entry<String, Method> entry : inspector.getGetterMethods().entrySet() ) {
+                if ( setters.containsKey( entry.getKey() ) ) {
+                    properties.put( entry.getKey(), entry.getValue() );
+                }
+            }
+
+            int size = properties.size();
+            this.names = new String[size];
+            this.kinds = new byte[size];
+            this.accessors = new ClassFieldAccessor[size];
+            int i = 0;
+            for ( Map.Entry<String, Method> entry : properties.entrySet() ) {
+                names[i] = entry.getKey();
+                kinds[i] = kindOf( entry.getValue().getReturnType() );
+                accessors[i] = store.getAccessor( cls, entry.getKey() );
+                positions.put( entry.getKey(), i );
+                i++;
+            }
+
+            try {
+                this.constructor = cls.getDeclaredConstructor();
+                this.constructor.setAccessible( true );
+            } catch ( NoSuchMethodException e ) {
+                throw new InvalidClassException( cls.getName(), "no default constructor available for schema marshalling" );
+            }
+        }
+
+        Object newInstance() throws IOException {
+            try {
+                return constructor.newInstance();
+            } catch ( ReflectiveOperationException e ) {
+                InvalidClassException ice = new InvalidClassException( cls.getName(), "unable to instantiate: " + e.getMessage() );
+                ice.initCause( e );
+                throw ice;
+            }
+        }
+    }
+
+    /**
+     * The layout of a class as found in a stream, mapped onto the properties of the current version of that class
+     */
+    private static class StreamLayout {
+
+        final SchemaLayout local;
+        final byte[] kinds;
+        // position of each streamed property in the local layout, -1 when the property no longer exists
+        final int[] targets;
+
+        StreamLayout(SchemaLayout local, String[] names, byte[] kinds) {
+            this.local = local;
+            this.kinds = kinds;
+            this.targets = new int[names.length];
+            for ( int i = 0; i < names.length; i++ ) {
+                Integer position = local.positions.get( names[i] );
+                targets[i] = position != null ? position : -1;
+            }
+        }
+    }
+
+    protected static class SchemaStrategyContext implements Context {
+
+        private final SchemaMarshallingStrategy strategy;
+
+        // the marshalled facts, in the order in which they have been handed out to the fact handles
+        public List<Object> data = new ArrayList<Object>();
+
+        private Map<Object, Integer> written;
+        private Map<Class<?>, Integer> writtenLayouts;
+        private Map<String, Integer> writtenSymbols;
+        private Deque<Object> pendingWrites;
+
+        private List<Object> read;
+        private List<StreamLayout> readLayouts;
+        private List<String> readSymbols;
+        private Deque<StreamLayout> pendingLayouts;
+        private Deque<Object> pendingReads;
+        private Deque<Object[]> pendingContents;
+        private ClassLoader classLoader;
+
+        protected SchemaStrategyContext(SchemaMarshallingStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public void write(ObjectOutputStream oos) throws IOException {
+            written = new IdentityHashMap<>();
+            writtenLayouts = new HashMap<>();
+            writtenSymbols = new HashMap<>();
+            pendingWrites = new ArrayDeque<>();
+            try {
+                oos.writeInt( FORMAT_VERSION );
+                oos.writeInt( data.size() );
+                for ( Object object : data ) {
+                    writeValue( oos, object );
+                }
+                while ( !pendingWrites.isEmpty() ) {
+                    writeProperties( oos, pendingWrites.poll() );
+                }
+            } finally {
+                written = null;
+                writtenLayouts = null;
+                writtenSymbols = null;
+                pendingWrites = null;
+            }
+        }
+
+        public void read(ObjectInputStream ois) throws IOException,
+                                                       ClassNotFoundException {
+            int version = ois.readInt();
+            if ( version != FORMAT_VERSION ) {
+                throw new StreamCorruptedException( "Unsupported schema marshalling format version " + version );
+            }
+            read = new ArrayList<>();
+            readLayouts = new ArrayList<>();
+            readSymbols = new ArrayList<>();
+            pendingLayouts = new ArrayDeque<>();
+            pendingReads = new ArrayDeque<>();
+            pendingContents = new ArrayDeque<>();
+            classLoader = ois instanceof DroolsObjectInputStream ?
+                          ( (DroolsObjectInputStream) ois ).getClassLoader() :
+                          Thread.currentThread().getContextClassLoader();
+            try {
+                int size = ois.readInt();
+                List<Object> objects = new ArrayList<Object>( size );
+                for ( int i = 0; i < size; i++ ) {
+                    objects.add( readValue( ois ) );
+                }
+                while ( !pendingReads.isEmpty() ) {
+                    readProperties( ois, pendingLayouts.poll(), pendingReads.poll() );
+                }
+                // the innermost ones first, as a nested container may be the key of an outer one
+                while ( !pendingContents.isEmpty() ) {
+                    fill( pendingContents.pollLast() );
+                }
+                this.data = objects;
+            } finally {
+                read = null;
+                readLayouts = null;
+                readSymbols = null;
+                pendingLayouts = null;
+                pendingReads = null;
+                pendingContents = null;
+                classLoader = null;
+            }
+        }
+
+        private void writeValue(ObjectOutputStream out, Object value) throws IOException {
+            if ( value == null ) {
+                out.writeByte( TAG_NULL );
+            } else if ( value instanceof String ) {
+                out.writeByte( TAG_STRING );
+                writeString( out, (String) value );
+            } else if ( value instanceof Integer ) {
+                out.writeByte( TAG_INT );
+                out.writeInt( (Integer) value );
+            } else if ( value instanceof Long ) {
+                out.writeByte( TAG_LONG );
+                out.writeLong( (Long) value );
+            } else if ( value instanceof Double ) {
+                out.writeByte( TAG_DOUBLE );
+                out.writeDouble( (Double) value );
+            } else if ( value instanceof Boolean ) {
+                out.writeByte( TAG_BOOLEAN );
+                out.writeBoolean( (Boolean) value );
+            } else if ( value instanceof Float ) {
+                out.writeByte( TAG_FLOAT );
+                out.writeFloat( (Float) value );
+            } else if ( value instanceof Short ) {
+                out.writeByte( TAG_SHORT );
+                out.writeShort( (Short) value );
+            } else if ( value instanceof Byte ) {
+                out.writeByte( TAG_BYTE );
+                out.writeByte( (Byte) value );
+            } else if ( value instanceof Character ) {
+                out.writeByte( TAG_CHAR );
+                out.writeChar( (Character) value );
+            } else if ( value.getClass() == Date.class ) {
+                out.writeByte( TAG_DATE );
+                out.writeLong( ( (Date) value ).getTime() );
+            } else if ( value.getClass() == BigDecimal.class ) {
+                out.writeByte( TAG_BIG_DECIMAL );
+                BigDecimal decimal = (BigDecimal) value;
+                writeBytes( out, decimal.unscaledValue().toByteArray() );
+                out.writeInt( decimal.scale() );
+            } else if ( value.getClass() == BigInteger.class ) {
+                out.writeByte( TAG_BIG_INTEGER );
+                writeBytes( out, ( (BigInteger) value ).toByteArray() );
+            } else if ( value instanceof Enum ) {
+                out.writeByte( TAG_ENUM );
+                writeSymbol( out, ( (Enum<?>) value ).getDeclaringClass().getName() );
+                writeSymbol( out, ( (Enum<?>) value ).name() );
+            } else {
+                Integer id = written.get( value );
+                if ( id != null ) {
+                    out.writeByte( TAG_REFERENCE );
+                    writeVarInt( out, id );
+                } else if ( strategy.accept( value ) ) {
+                    written.put( value, written.size() );
+                    out.writeByte( TAG_SCHEMA );
+                    writeLayout( out, strategy.getLayout( value.getClass() ) );
+                    // the properties are written once the current object is completed
+                    pendingWrites.add( value );
+                } else if ( value instanceof List || value instanceof Set ) {
+                    written.put( value, written.size() );
+                    Collection<?> collection = (Collection<?>) value;
+                    boolean list = value instanceof List;
+                    out.writeByte( list ? TAG_LIST : TAG_SET );
+                    writeSymbol( out, containerClassOf( value, list ? ArrayList.class : LinkedHashSet.class ).getName() );
+                    writeVarInt( out, collection.size() );
+                    for ( Object element : collection ) {
+                        writeValue( out, element );
+                    }
+                } else if ( value instanceof Map ) {
+                    written.put( value, written.size() );
+                    Map<?, ?> map = (Map<?, ?>) value;
+                    out.writeByte( TAG_MAP );
+                    writeSymbol( out, containerClassOf( value, LinkedHashMap.class ).getName() );
+                    writeVarInt( out, map.size() );
+                    for ( Map.Entry<?, ?> entry : map.entrySet() ) {
+                        writeValue( out, entry.getKey() );
+                        writeValue( out, entry.getValue() );
+                    }
+                } else {
+                    // the reference is registered so that the index space stays aligned with the reader's one
+                    written.put( value, written.size() );
+                    out.writeByte( TAG_SERIALIZED );
+                    out.writeObject( value );
+                }
+            }
+        }
+
+        private void writeLayout(ObjectOutputStream out, SchemaLayout layout) throws IOException {
+            Integer layoutId = writtenLayouts.get( layout.cls );
+            if ( layoutId != null ) {
+                writeVarInt( out, layoutId );
+            } else {
+                layoutId = writtenLayouts.size();
+                writtenLayouts.put( layout.cls, layoutId );
+                writeVarInt( out, layoutId );
+                writeSymbol( out, layout.cls.getName() );
+                writeVarInt( out, layout.names.length );
+                for ( int i = 0; i < layout.names.length; i++ ) {
+                    writeSymbol( out, layout.names[i] );
+                    out.writeByte( layout.kinds[i] );
+                }
+            }
+        }
+
+        private void writeProperties(ObjectOutputStream out, Object object) throws IOException {
+            SchemaLayout layout = strategy.getLayout( object.getClass() );
+            ClassFieldAccessor[] accessors = layout.accessors;
+            for ( int i = 0; i < accessors.length; i++ ) {
+                ClassFieldAccessor accessor = accessors[i];
+                switch ( layout.kinds[i] ) {
+                    case KIND_BOOLEAN: out.writeBoolean( accessor.getBooleanValue( object ) ); break;
+                    case KIND_BYTE: out.writeByte( accessor.getByteValue( object ) ); break;
+                    case KIND_CHAR: out.writeChar( accessor.getCharValue( object ) ); break;
+                    case KIND_SHORT: out.writeShort( accessor.getShortValue( object ) ); break;
+                    case KIND_INT: out.writeInt( accessor.getIntValue( object ) ); break;
+                    case KIND_LONG: out.writeLong( accessor.getLongValue( object ) ); break;
+                    case KIND_FLOAT: out.writeFloat( accessor.getFloatValue( object ) ); break;
+                    case KIND_DOUBLE: out.writeDouble( accessor.getDoubleValue( object ) ); break;
+                    default: writeValue( out, accessor.getValue( object ) );
+                }
+            }
+        }
+
+        private Object readValue(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            byte tag = in.readByte();
+            switch ( tag ) {
+                case TAG_NULL: return null;
+                case TAG_STRING: return readString( in );
+                case TAG_INT: return in.readInt();
+                case TAG_LONG: return in.readLong();
+                case TAG_DOUBLE: return in.readDouble();
+                case TAG_BOOLEAN: return in.readBoolean();
+                case TAG_FLOAT: return in.readFloat();
+                case TAG_SHORT: return in.readShort();
+                case TAG_BYTE: return in.readByte();
+                case TAG_CHAR: return in.readChar();
+                case TAG_DATE: return new Date( in.readLong() );
+                case TAG_BIG_DECIMAL: {
+                    BigInteger unscaled = new BigInteger( readBytes( in ) );
+                    return new BigDecimal( unscaled, in.readInt() );
+                }
+                case TAG_BIG_INTEGER: return new BigInteger( readBytes( in ) );
+                case TAG_ENUM: {
+                    Class enumClass = loadClass( readSymbol( in ) );
+                    return Enum.valueOf( enumClass, readSymbol( in ) );
+                }
+                case TAG_REFERENCE: {
+                    int id = readVarInt( in );
+                    if ( id >= read.size() ) {
+                        throw new StreamCorruptedException( "Invalid object reference " + id );
+                    }
+                    return read.get( id );
+                }
+                case TAG_SCHEMA: return readObject( in );
+                case TAG_LIST: return readContainer( in, List.class, 1 );
+                case TAG_SET: return readContainer( in, Set.class, 1 );
+                case TAG_MAP: return readContainer( in, Map.class, 2 );
+                case TAG_SERIALIZED: {
+                    int id = read.size();
+                    read.add( null );
+                    Object value = in.readObject();
+                    read.set( id, value );
+                    return value;
+                }
+                default:
+                    throw new StreamCorruptedException( "Unknown value tag " + tag );
+            }
+        }
+
+        private Object readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            StreamLayout layout = readLayout( in );
+            Object object = layout.local.newInstance();
+            // registered before reading the properties so that cycles resolve to this instance
+            read.add( object );
+            pendingLayouts.add( layout );
+            pendingReads.add( object );
+            return object;
+        }
+
+        /**
+         * Reads a list, set or map. Its elements may be objects whose properties are still to be read,
+         * so they are added only once the whole stream has been read, when their hash codes are final.
+         */
+        private Object readContainer(ObjectInputStream in, Class<?> type, int valuesPerElement) throws IOException, ClassNotFoundException {
+            Class<?> cls = loadClass( readSymbol( in ) );
+            if ( !type.isAssignableFrom( cls ) ) {
+                throw new StreamCorruptedException( cls.getName() + " is not a " + type.getName() );
+            }
+            Object container;
+            try {
+                container = cls.getConstructor().newInstance();
+            } catch ( ReflectiveOperationException e ) {
+                InvalidClassException ice = new InvalidClassException( cls.getName(), "unable to instantiate: " + e.getMessage() );
+                ice.initCause( e );
+                throw ice;
+            }
+            // registered before reading the elements so that cycles resolve to this instance
+            read.add( container );
+            Object[] contents = new Object[1 + readVarInt( in ) * valuesPerElement];
+            contents[0] = container;
+            for ( int i = 1; i < contents.length; i++ ) {
+                contents[i] = readValue( in );
+            }
+            pendingContents.add( contents );
+            return container;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static void fill(Object[] contents) {
+            Object container = contents[0];
+            if ( container instanceof Map ) {
+                Map<Object, Object> map = (Map<Object, Object>) container;
+                for ( int i = 1; i < contents.length; i += 2 ) {
+                    map.put( contents[i], contents[i + 1] );
+                }
+            } else {
+                Collection<Object> collection = (Collection<Object>) container;
+                for ( int i = 1; i < contents.length; i++ ) {
+                    collection.add( contents[i] );
+                }
+            }
+        }
+
+        private StreamLayout readLayout(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            int layoutId = readVarInt( in );
+            StreamLayout layout;
+            if ( layoutId == readLayouts.size() ) {
+                Class<?> cls = loadClass( readSymbol( in ) );
+                int size = readVarInt( in );
+                String[] names = new String[size];
+                byte[] kinds = new byte[size];
+                for ( int i = 0; i < size; i++ ) {
+                    names[i] = readSymbol( in );
+                    kinds[i] = in.readByte();
+                }
+                layout = new StreamLayout( strategy.getLayout( cls ), names, kinds );
+                readLayouts.add( layout );
+            } else if ( layoutId < readLayouts.size() ) {
+                layout = readLayouts.get( layoutId );
+            } else {
+                throw new StreamCorruptedException( "Invalid layout reference " + layoutId );
+            }
+            return layout;
+        }
+
+        private void readProperties(ObjectInputStream in, StreamLayout layout, Object object) throws IOException, ClassNotFoundException {
+            SchemaLayout local = layout.local;
+            for ( int i = 0; i < layout.kinds.length; i++ ) {
+                int target = layout.targets[i];
+                ClassFieldAccessor accessor = target >= 0 ? local.accessors[target] : null;
+                byte kind = layout.kinds[i];
+                if ( accessor != null && kind != KIND_OBJECT && kind == local.kinds[target] ) {
+                    switch ( kind ) {
+                        case KIND_BOOLEAN: accessor.setBooleanValue( object, in.readBoolean() ); break;
+                        case KIND_BYTE: accessor.setByteValue( object, in.readByte() ); break;
+                        case KIND_CHAR: accessor.setCharValue( object, in.readChar() ); break;
+                        case KIND_SHORT: accessor.setShortValue( object, in.readShort() ); break;
+                        case KIND_INT: accessor.setIntValue( object, in.readInt() ); break;
+                        case KIND_LONG: accessor.setLongValue( object, in.readLong() ); break;
+                        case KIND_FLOAT: accessor.setFloatValue( object, in.readFloat() ); break;
+                        default: accessor.setDoubleValue( object, in.readDouble() );
+                    }
+                } else {
+                    Object value = readProperty( in, kind );
+                    if ( accessor != null ) {
+                        assign( local, target, object, value );
+                    }
+                }
+            }
+        }
+
+        private Object readProperty(ObjectInputStream in, byte kind) throws IOException, ClassNotFoundException {
+            switch ( kind ) {
+                case KIND_BOOLEAN: return in.readBoolean();
+                case KIND_BYTE: return in.readByte();
+                case KIND_CHAR: return in.readChar();
+                case KIND_SHORT: return in.readShort();
+                case KIND_INT: return in.readInt();
+                case KIND_LONG: return in.readLong();
+                case KIND_FLOAT: return in.readFloat();
+                case KIND_DOUBLE: return in.readDouble();
+                case KIND_OBJECT: return readValue( in );
+                default:
+                    throw new StreamCorruptedException( "Unknown property kind " + kind );
+            }
+        }
+
+        private void assign(SchemaLayout layout, int position, Object object, Object value) throws IOException {
+            ClassFieldAccessor accessor = layout.accessors[position];
+            Class<?> type = accessor.getFieldType();
+            boolean compatible = type.isPrimitive() ?
+                                 value == null || value instanceof Number || value instanceof Boolean || value instanceof Character :
+                                 value == null || type.isInstance( value );
+            if ( compatible ) {
+                try {
+                    accessor.setValue( object, value );
+                    return;
+                } catch ( ClassCastException e ) {
+                    // falls through to the error below
+                }
+            }
+            throw new InvalidClassException( layout.cls.getName(),
+                                             "incompatible value of type " + value.getClass().getName() + " for property " + layout.names[position] );
+        }
+
+        /**
+         * Writes a class, property or enum constant name, each distinct name being written in full only once
+         */
+        private void writeSymbol(ObjectOutputStream out, String symbol) throws IOException {
+            Integer id = writtenSymbols.get( symbol );
+            if ( id != null ) {
+                writeVarInt( out, id );
+            } else {
+                id = writtenSymbols.size();
+                writtenSymbols.put( symbol, id );
+                writeVarInt( out, id );
+                writeString( out, symbol );
+            }
+        }
+
+        private String readSymbol(ObjectInputStream in) throws IOException {
+            int id = readVarInt( in );
+            if ( id == readSymbols.size() ) {
+                String symbol = readString( in );
+                readSymbols.add( symbol );
+                return symbol;
+            } else if ( id < readSymbols.size() ) {
+                return readSymbols.get( id );
+            }
+            throw new StreamCorruptedException( "Invalid symbol reference " + id );
+        }
+
+        private Class<?> loadClass(String name) throws ClassNotFoundException {
+            return Class.forName( name, false, classLoader != null ? classLoader : getClass().getClassLoader() );
+        }
+
+        private static void writeString(ObjectOutputStream out, String value) throws IOException {
+            writeBytes( out, value.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        private static String readString(ObjectInputStream in) throws IOException {
+            return new String( readBytes( in ), StandardCharsets.UTF_8 );
+        }
+
+        private static void writeBytes(ObjectOutputStream out, byte[] bytes) throws IOException {
+            writeVarInt( out, bytes.length );
+            out.write( bytes );
+        }
+
+        private static byte[] readBytes(ObjectInputStream in) throws IOException {
+            int length = readVarInt( in );
+            byte[] bytes = new byte[length];
+            in.readFully( bytes );
+            return bytes;
+        }
+
+        private static void writeVarInt(ObjectOutputStream out, int value) throws IOException {
+            while ( ( value & ~0x7F ) != 0 ) {
+                out.writeByte( ( value & 0x7F ) | 0x80 );
+                value >>>= 7;
+            }
+            out.writeByte( value );
+        }
+
+        private static int readVarInt(ObjectInputStream in) throws IOException {
+            int value = 0;
+            for ( int shift = 0; shift < 32; shift += 7 ) {
+                int b = in.readUnsignedByte();
+                value |= ( b & 0x7F ) << shift;
+                if ( ( b & 0x80 ) == 0 ) {
+                    if ( value < 0 ) {
+                        break;
+                    }
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException( "Malformed length or reference" );
+        }
+    }
+}
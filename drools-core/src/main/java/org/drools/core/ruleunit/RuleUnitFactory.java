@@ -38,6 +38,14 @@ public class RuleUnitFactory {
         return this;
     }
 
+    public void resetDataSources() {
+        for (Object variable : variables.values()) {
+            if (variable instanceof InternalDataSource) {
+                ( (InternalDataSource<?>) variable ).reset();
+            }
+        }
+    }
+
     public RuleUnit getOrCreateRuleUnit( InternalRuleUnitExecutor executor, String name, ClassLoader classLoader ) {
         try {
             return getOrCreateRuleUnit( executor, (Class<? extends RuleUnit>) Class.forName( name, true, classLoader ) );
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.impl;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.drools.core.definitions.InternalKnowledgePackage;
+import org.drools.core.definitions.impl.KnowledgePackageImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KieBasePackageSerializerTest {
+
+    @Test
+    public void testIdenticalPackagesHashTheSame() throws Exception {
+        KnowledgeBaseImpl kbase1 = newKieBase( "org.drools.test1", "org.drools.test2" );
+        KnowledgeBaseImpl kbase2 = newKieBase( "org.drools.test1", "org.drools.test2" );
+
+        Map<String, String> manifest1 = KieBasePackageSerializer.manifest( KieBasePackageSerializer.serialize( kbase1 ) );
+        Map<String, String> manifest2 = KieBasePackageSerializer.manifest( KieBasePackageSerializer.serialize( kbase2 ) );
+
+        assertEquals( manifest1, manifest2 );
+        assertTrue( KieBasePackageSerializer.getChangedPackages( manifest1, manifest2 ).isEmpty() );
+        assertTrue( KieBasePackageSerializer.getRemovedPackages( manifest1, manifest2 ).isEmpty() );
+    }
+
+    @Test
+    public void testApplyChangedPackagesOnly() throws Exception {
+        KnowledgeBaseImpl current = newKieBase( "org.drools.test1", "org.drools.test2" );
+
+        KnowledgeBaseImpl target = newKieBase( "org.drools.test1", "org.drools.test3" );
+        InternalKnowledgePackage pkg = new KnowledgePackageImpl( "org.drools.test1" );
+        pkg.addStaticImport( "org.drools.function.otherFunction" );
+        target.addPackage( pkg );
+
+        Map<String, SerializedKnowledgePackage> targetPackages = KieBasePackageSerializer.serialize( target );
+        Map<String, String> currentManifest = KieBasePackageSerializer.manifest( KieBasePackageSerializer.serialize( current ) );
+        Map<String, String> targetManifest = KieBasePackageSerializer.manifest( targetPackages );
+
+        assertEquals( 2, KieBasePackageSerializer.getChangedPackages( currentManifest, targetManifest ).size() );
+        assertTrue( KieBasePackageSerializer.getChangedPackages( currentManifest, targetManifest ).contains( "org.drools.test1" ) );
+        assertTrue( KieBasePackageSerializer.getChangedPackages( currentManifest, targetManifest ).contains( "org.drools.test3" ) );
+        assertEquals( Collections.singleton( "org.drools.test2" ), KieBasePackageSerializer.getRemovedPackages( currentManifest, targetManifest ) );
+
+        KieBasePackageSerializer.apply( current,
+                                        Collections.singletonList( targetPackages.get( "org.drools.test1" ) ),
+                                        KieBasePackageSerializer.getRemovedPackages( currentManifest, targetManifest ) );
+        KieBasePackageSerializer.apply( current,
+                                        Collections.singletonList( targetPackages.get( "org.drools.test3" ) ),
+                                        Collections.<String>emptySet() );
+
+        assertNull( current.getPackage( "org.drools.test2" ) );
+        assertNotNull( current.getPackage( "org.drools.test3" ) );
+        assertTrue( current.getPackage( "org.drools.test1" ).getStaticImports().contains( "org.drools.function.otherFunction" ) );
+        assertEquals( targetManifest, KieBasePackageSerializer.manifest( KieBasePackageSerializer.serialize( current ) ) );
+    }
+
+    private KnowledgeBaseImpl newKieBase( String... packageNames ) {
+        KnowledgeBaseImpl kbase = new KnowledgeBaseImpl( "default", null );
+        for ( String packageName : packageNames ) {
+            InternalKnowledgePackage pkg = new KnowledgePackageImpl( packageName );
+            pkg.addStaticImport( "org.drools.function.myFunction" );
+            kbase.addPackage( pkg );
+        }
+        return kbase;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.marshalling.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.core.impl.EnvironmentFactory;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.KnowledgeBaseFactory;
+import org.junit.Test;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.marshalling.MarshallerFactory;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteBufferUnmarshallingTest {
+
+    private static final int FACTS = 2000;
+
+    @Test
+    public void testUnmarshallFromDirectBuffer() throws Exception {
+        InternalKnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        ProtobufMarshaller marshaller = (ProtobufMarshaller) MarshallerFactory.newMarshaller( kbase );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        marshaller.marshall( out, newSession( kbase ) );
+        byte[] snapshot = out.toByteArray();
+
+        // the byte order of the buffer must not matter
+        ByteBuffer buffer = ByteBuffer.allocateDirect( snapshot.length ).order( ByteOrder.LITTLE_ENDIAN );
+        buffer.put( snapshot ).flip();
+
+        KieSession ksession = marshaller.unmarshall( buffer, null, EnvironmentFactory.newEnvironment() );
+        assertFacts( ksession );
+        assertEquals( 0, buffer.position() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testUnmarshallFromMappedFile() throws Exception {
+        InternalKnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        ProtobufMarshaller marshaller = (ProtobufMarshaller) MarshallerFactory.newMarshaller( kbase );
+
+        File file = File.createTempFile( "session", ".bin" );
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream( file )) {
+            marshaller.marshall( out, newSession( kbase ) );
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile( file, "r" );
+             FileChannel channel = raf.getChannel()) {
+            KieSession ksession = kbase.newKieSession();
+            marshaller.unmarshall( channel, ksession );
+            assertFacts( ksession );
+            ksession.dispose();
+        }
+    }
+
+    private static KieSession newSession(InternalKnowledgeBase kbase) {
+        KieSession ksession = kbase.newKieSession();
+        for ( int i = 0; i < FACTS; i++ ) {
+            ksession.insert( "fact-" + i );
+        }
+        return ksession;
+    }
+
+    private static void assertFacts(KieSession ksession) {
+        assertEquals( FACTS, ksession.getFactCount() );
+        List<String> facts = new ArrayList<String>();
+        for ( Object fact : ksession.getObjects() ) {
+            facts.add( (String) fact );
+        }
+        Collections.sort( facts );
+        assertEquals( "fact-0", facts.get( 0 ) );
+        assertEquals( "fact-999", facts.get( FACTS - 1 ) );
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.core.marshalling.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.factmodel.GeneratedFact;
+import org.junit.Test;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SchemaMarshallingStrategyTest {
+
+    public enum Level { LOW, HIGH }
+
+    @SchemaMarshalled
+    public static class Account implements Serializable {
+        private String owner;
+        private int number;
+        private double balance;
+        private boolean active;
+        private Date opened;
+        private BigDecimal limit;
+        private Level level;
+        private Integer rank;
+        private Account partner;
+        private List<String> notes;
+
+        public String getOwner() { return owner; }
+        public void setOwner( String owner ) { this.owner = owner; }
+        public int getNumber() { return number; }
+        public void setNumber( int number ) { this.number = number; }
+        public double getBalance() { return balance; }
+        public void setBalance( double balance ) { this.balance = balance; }
+        public boolean isActive() { return active; }
+        public void setActive( boolean active ) { this.active = active; }
+        public Date getOpened() { return opened; }
+        public void setOpened( Date opened ) { this.opened = opened; }
+        public BigDecimal getLimit() { return limit; }
+        public void setLimit( BigDecimal limit ) { this.limit = limit; }
+        public Level getLevel() { return level; }
+        public void setLevel( Level level ) { this.level = level; }
+        public Integer getRank() { return rank; }
+        public void setRank( Integer rank ) { this.rank = rank; }
+        public Account getPartner() { return partner; }
+        public void setPartner( Account partner ) { this.partner = partner; }
+        public List<String> getNotes() { return notes; }
+        public void setNotes( List<String> notes ) { this.notes = notes; }
+    }
+
+    // not serializable, so that it can only be written through its schema
+    @SchemaMarshalled
+    public static class Node {
+        private String name;
+        private List<Node> children = new LinkedList<Node>();
+        private Set<Node> tags;
+        private Map<String, Node> index;
+
+        public String getName() { return name; }
+        public void setName( String name ) { this.name = name; }
+        public List<Node> getChildren() { return children; }
+        public void setChildren( List<Node> children ) { this.children = children; }
+        public Set<Node> getTags() { return tags; }
+        public void setTags( Set<Node> tags ) { this.tags = tags; }
+        public Map<String, Node> getIndex() { return index; }
+        public void setIndex( Map<String, Node> index ) { this.index = index; }
+
+        @Override
+        public boolean equals( Object o ) {
+            return o instanceof Node && name.equals( ( (Node) o ).name );
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    // two versions of the same class, the names have the same length so that a stream can be patched from one to the other
+    @SchemaMarshalled
+    public static class OldVersion {
+        private String owner;
+        private int amount;
+        private String removed;
+        private int number;
+
+        public String getOwner() { return owner; }
+        public void setOwner( String owner ) { this.owner = owner; }
+        public int getAmount() { return amount; }
+        public void setAmount( int amount ) { this.amount = amount; }
+        public String getRemoved() { return removed; }
+        public void setRemoved( String removed ) { this.removed = removed; }
+        public int getNumber() { return number; }
+        public void setNumber( int number ) { this.number = number; }
+    }
+
+    @SchemaMarshalled
+    public static class NewVersion {
+        private int number;
+        private String added = "default";
+        private long amount;
+        private String owner;
+
+        public int getNumber() { return number; }
+        public void setNumber( int number ) { this.number = number; }
+        public String getAdded() { return added; }
+        public void setAdded( String added ) { this.added = added; }
+        public long getAmount() { return amount; }
+        public void setAmount( long amount ) { this.amount = amount; }
+        public String getOwner() { return owner; }
+        public void setOwner( String owner ) { this.owner = owner; }
+    }
+
+    public static class Declared implements GeneratedFact {
+        private String name;
+
+        public String getName() { return name; }
+        public void setName( String name ) { this.name = name; }
+    }
+
+    @Test
+    public void testAcceptsDeclaredAndAnnotatedTypesOnly() {
+        SchemaMarshallingStrategy strategy = new SchemaMarshallingStrategy();
+        assertTrue( strategy.accept( new Account() ) );
+        assertTrue( strategy.accept( new Declared() ) );
+        assertFalse( strategy.accept( "string" ) );
+        assertFalse( strategy.accept( new ArrayList<Object>() ) );
+    }
+
+    @Test
+    public void testRoundTripPreservesValuesAndIdentity() throws Exception {
+        SchemaMarshallingStrategy strategy = new SchemaMarshallingStrategy();
+
+        List<Account> accounts = new ArrayList<Account>();
+        for ( int i = 0; i < 10; i++ ) {
+            Account account = new Account();
+            account.setOwner( "owner" + i );
+            account.setNumber( i );
+            account.setBalance( i * 10.5 );
+            account.setActive( i % 2 == 0 );
+            account.setOpened( new Date( 1000L * i ) );
+            account.setLimit( new BigDecimal( "1234.56" ) );
+            account.setLevel( Level.values()[i % 2] );
+            account.setRank( i % 3 == 0 ? null : i );
+            account.setNotes( Arrays.asList( "a", "b" + i ) );
+            accounts.add( account );
+        }
+        // pairs of partners, so that every object is part of a cycle
+        for ( int i = 0; i < accounts.size(); i++ ) {
+            accounts.get( i ).setPartner( accounts.get( i ^ 1 ) );
+        }
+
+        ObjectMarshallingStrategy.Context context = strategy.createContext();
+        List<byte[]> keys = new ArrayList<byte[]>();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( baos );
+        for ( Account account : accounts ) {
+            keys.add( strategy.marshal( context, oos, account ) );
+        }
+        context.write( oos );
+        oos.close();
+
+        ObjectMarshallingStrategy.Context readContext = strategy.createContext();
+        readContext.read( new DroolsObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ), getClass().getClassLoader() ) );
+
+        for ( int i = 0; i < accounts.size(); i++ ) {
+            Account original = accounts.get( i );
+            Account copy = (Account) strategy.unmarshal( readContext, null, keys.get( i ), getClass().getClassLoader() );
+            assertEquals( original.getOwner(), copy.getOwner() );
+            assertEquals( original.getNumber(), copy.getNumber() );
+            assertEquals( original.getBalance(), copy.getBalance(), 0.0 );
+            assertEquals( original.isActive(), copy.isActive() );
+            assertEquals( original.getOpened(), copy.getOpened() );
+            assertEquals( original.getLimit(), copy.getLimit() );
+            assertSame( original.getLevel(), copy.getLevel() );
+            assertEquals( original.getRank(), copy.getRank() );
+            assertEquals( original.getNotes(), copy.getNotes() );
+            assertSame( copy, copy.getPartner().getPartner() );
+            assertSame( copy.getPartner(), strategy.unmarshal( readContext, null, keys.get( i ^ 1 ), getClass().getClassLoader() ) );
+        }
+    }
+
+    @Test
+    public void testNestedObjectsOfLongChains() throws Exception {
+        SchemaMarshallingStrategy strategy = new SchemaMarshallingStrategy();
+
+        // deep enough to overflow the stack of a depth first writer
+        Account head = new Account();
+        Account current = head;
+        for ( int i = 1; i < 100000; i++ ) {
+            Account next = new Account();
+            next.setNumber( i );
+            current.setPartner( next );
+            current = next;
+        }
+
+        Account copy = (Account) roundTrip( strategy, head );
+        int length = 0;
+        for ( Account account = copy; account != null; account = account.getPartner() ) {
+            assertEquals( length++, account.getNumber() );
+        }
+        assertEquals( 100000, length );
+    }
+
+    @Test
+    public void testCollectionsPreserveIdentity() throws Exception {
+        Node root = new Node();
+        root.setName( "root" );
+        Node child = new Node();
+        child.setName( "child" );
+        Node other = new Node();
+        other.setName( "other" );
+        root.getChildren().add( child );
+        root.getChildren().add( other );
+        root.getChildren().add( child );
+        child.getChildren().add( root );
+        root.setTags( new HashSet<Node>( Arrays.asList( child, other ) ) );
+        root.setIndex( new HashMap<String, Node>() );
+        root.getIndex().put( "child", child );
+        root.getIndex().put( "other", other );
+        // the same list reachable from two objects
+        other.setChildren( root.getChildren() );
+
+        Node copy = (Node) roundTrip( new SchemaMarshallingStrategy(), root );
+        List<Node> children = copy.getChildren();
+        assertTrue( children instanceof LinkedList );
+        assertEquals( 3, children.size() );
+        Node childCopy = children.get( 0 );
+        Node otherCopy = children.get( 1 );
+        assertEquals( "child", childCopy.getName() );
+        assertEquals( "other", otherCopy.getName() );
+        assertSame( childCopy, children.get( 2 ) );
+        assertSame( copy, childCopy.getChildren().get( 0 ) );
+        assertSame( children, otherCopy.getChildren() );
+
+        // the hash based containers are filled once the properties their elements rely on are read
+        assertTrue( copy.getTags() instanceof HashSet );
+        assertEquals( 2, copy.getTags().size() );
+        assertTrue( copy.getTags().contains( childCopy ) );
+        assertTrue( copy.getTags().contains( otherCopy ) );
+        assertSame( childCopy, copy.getIndex().get( "child" ) );
+        assertSame( otherCopy, copy.getIndex().get( "other" ) );
+    }
+
+    @Test
+    public void testReadingAnOlderLayout() throws Exception {
+        OldVersion old = new OldVersion();
+        old.setOwner( "owner" );
+        old.setAmount( 42 );
+        old.setRemoved( "removed" );
+        old.setNumber( 7 );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( baos );
+        new SchemaMarshallingStrategy().write( oos, old );
+        oos.close();
+
+        // the stream now describes the layout of OldVersion for the class NewVersion, where a property
+        // has been removed, one added, the others declared in a different order and amount widened to a long
+        byte[] bytes = replace( baos.toByteArray(), OldVersion.class.getName(), NewVersion.class.getName() );
+        NewVersion copy = (NewVersion) new SchemaMarshallingStrategy().read( new ObjectInputStream( new ByteArrayInputStream( bytes ) ) );
+        assertEquals( "owner", copy.getOwner() );
+        assertEquals( 42L, copy.getAmount() );
+        assertEquals( 7, copy.getNumber() );
+        assertEquals( "default", copy.getAdded() );
+    }
+
+    @Test
+    public void testDeclaredType() throws Exception {
+        Declared declared = new Declared();
+        declared.setName( "declared" );
+        Declared copy = (Declared) roundTrip( new SchemaMarshallingStrategy(), declared );
+        assertEquals( "declared", copy.getName() );
+
+        declared.setName( null );
+        assertNull( ( (Declared) roundTrip( new SchemaMarshallingStrategy(), declared ) ).getName() );
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception {
+        SchemaMarshallingStrategy strategy = new SchemaMarshallingStrategy();
+        ObjectMarshallingStrategy.Context context = strategy.createContext();
+        List<Account> accounts = new ArrayList<Account>();
+
+        ByteArrayOutputStream schema = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( schema );
+        for ( int i = 0; i < 1000; i++ ) {
+            Account account = new Account();
+            account.setOwner( "owner" + i );
+            account.setNumber( i );
+            account.setLimit( BigDecimal.TEN );
+            account.setLevel( Level.HIGH );
+            accounts.add( account );
+            strategy.marshal( context, oos, account );
+        }
+        context.write( oos );
+        oos.close();
+
+        ByteArrayOutputStream java = new ByteArrayOutputStream();
+        oos = new ObjectOutputStream( java );
+        oos.writeObject( accounts );
+        oos.close();
+
+        assertTrue( "schema marshalling took " + schema.size() + " bytes against " + java.size(),
+                    schema.size() < java.size() );
+    }
+
+    @Test
+    public void testUnknownFormatVersionIsRejected() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( baos );
+        oos.writeInt( SchemaMarshallingStrategy.FORMAT_VERSION + 1 );
+        oos.writeInt( 0 );
+        oos.close();
+
+        try {
+            new SchemaMarshallingStrategy().createContext().read( new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ) );
+            fail( "an unknown format version should be rejected" );
+        } catch ( StreamCorruptedException e ) {
+            // expected
+        }
+    }
+
+    private static byte[] replace( byte[] bytes, String from, String to ) {
+        byte[] source = from.getBytes( StandardCharsets.UTF_8 );
+        byte[] target = to.getBytes( StandardCharsets.UTF_8 );
+        assertEquals( source.length, target.length );
+        for ( int i = 0; i <= bytes.length - source.length; i++ ) {
+            if ( Arrays.equals( source, Arrays.copyOfRange( bytes, i, i + source.length ) ) ) {
+                System.arraycopy( target, 0, bytes, i, target.length );
+                return bytes;
+            }
+        }
+        throw new AssertionError( from + " not found in the stream" );
+    }
+
+    private static Object roundTrip( SchemaMarshallingStrategy strategy, Object object ) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( baos );
+        strategy.write( oos, object );
+        oos.close();
+        return strategy.read( new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ) );
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.decisiontable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.compiler.DroolsParserException;
+import org.drools.compiler.lang.descr.AndDescr;
+import org.drools.compiler.lang.descr.AttributeDescr;
+import org.drools.compiler.lang.descr.ExprConstraintDescr;
+import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.compiler.lang.descr.PatternDescr;
+import org.drools.compiler.lang.descr.RuleDescr;
+import org.drools.core.util.StringUtils;
+import org.drools.template.model.Condition;
+import org.drools.template.model.Consequence;
+import org.drools.template.model.DRLOutput;
+import org.drools.template.model.Package;
+import org.drools.template.model.Rule;
+import org.kie.api.io.Resource;
+import org.kie.internal.builder.conf.LanguageLevelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns the rule set produced by a {@link org.drools.decisiontable.parser.RuleSheetListener} into a
+ * {@link PackageDescr} without rendering and re-parsing the DRL of every rule.
+ *
+ * Only the package header (imports, globals, functions, queries and declared types) goes through the DRL parser,
+ * once per rule set. Rules are turned directly into descrs as long as their conditions are plain patterns,
+ * as generated by the decision table columns, and their attributes are the ones supported by the spreadsheets.
+ * Any other rule is rendered and parsed on its own.
+ */
+public class DecisionTableDescrCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger( DecisionTableDescrCompiler.class );
+
+    private static final Pattern PATTERN_HEAD = Pattern.compile( "\\s*(?:(\\$?[A-Za-z_][\\w$]*)\\s*:(?!=)\\s*)?([A-Za-z_$][\\w$.]*)\\s*\\(" );
+
+    private static final Set<String> KEYWORDS = new HashSet<String>( Arrays.asList( "eval", "not", "exists", "forall", "accumulate", "acc",
+                                                                                   "collect", "and", "or", "if", "do", "over" ) );
+
+    private static final Set<String> STRING_ATTRIBUTES = new HashSet<String>( Arrays.asList( "activation-group", "agenda-group", "ruleflow-group" ) );
+    private static final Set<String> BOOLEAN_ATTRIBUTES = new HashSet<String>( Arrays.asList( "no-loop", "lock-on-active", "auto-focus", "enabled" ) );
+    private static final Set<String> DATE_ATTRIBUTES = new HashSet<String>( Arrays.asList( "date-effective", "date-expires" ) );
+
+    private final Resource resource;
+    private final LanguageLevelOption languageLevel;
+
+    public DecisionTableDescrCompiler() {
+        this( null, DrlParser.DEFAULT_LANGUAGE_LEVEL );
+    }
+
+    public DecisionTableDescrCompiler( Resource resource, LanguageLevelOption languageLevel ) {
+        this.resource = resource;
+        this.languageLevel = languageLevel;
+    }
+
+    /**
+     * @return the descr of the given rule set, or null if some of its DRL cannot be parsed, in which case the
+     * rendered DRL has to be compiled in order to get the parser errors reported
+     */
+    public PackageDescr compile( Package ruleSet ) {
+        try {
+            DRLOutput header = new DRLOutput();
+            ruleSet.renderHeaderDRL( header );
+            DrlParser parser = new DrlParser( languageLevel );
+            PackageDescr pkg = parser.parse( resource, header.getDRL() );
+            if ( pkg == null || parser.hasErrors() ) {
+                return null;
+            }
+
+            int parsed = 0;
+            for ( Rule rule : ruleSet.getRules() ) {
+                RuleDescr ruleDescr = toRuleDescr( rule );
+                if ( ruleDescr != null ) {
+                    addRule( pkg, ruleDescr );
+                } else {
+                    DRLOutput out = new DRLOutput();
+                    rule.renderDRL( out );
+                    PackageDescr rulePkg = parser.parse( resource, out.getDRL() );
+                    if ( rulePkg == null || parser.hasErrors() ) {
+                        return null;
+                    }
+                    for ( RuleDescr parsedRule : rulePkg.getRules() ) {
+                        addRule( pkg, parsedRule );
+                    }
+                    parsed++;
+                }
+            }
+            if ( logger.isDebugEnabled() ) {
+                logger.debug( "Compiled " + ruleSet.getRules().size() + " decision table rules to descrs, " + parsed + " of them through the DRL parser" );
+            }
+            pkg.setResource( resource );
+            return pkg;
+        } catch ( DroolsParserException e ) {
+            logger.debug( "Unable to parse the decision table DRL", e );
+            return null;
+        }
+    }
+
+    private void addRule( PackageDescr pkg, RuleDescr rule ) {
+        rule.setNamespace( pkg.getNamespace() );
+        rule.setResource( resource );
+        pkg.addRule( rule );
+        pkg.afterRuleAdded( rule );
+    }
+
+    RuleDescr toRuleDescr( Rule rule ) {
+        if ( !rule.getMetadata().isEmpty() ) {
+            return null;
+        }
+        RuleDescr descr = new RuleDescr( StringUtils.unescapeJava( stripDelimiters( rule.getName(), "\"", "\"" ) ) );
+
+        for ( Map.Entry<String, String> entry : rule.getAttributes().entrySet() ) {
+            AttributeDescr attribute = toAttributeDescr( entry.getKey(), entry.getValue() );
+            if ( attribute == null ) {
+                return null;
+            }
+            attribute.setResource( resource );
+            descr.addAttribute( attribute );
+        }
+
+        AndDescr lhs = new AndDescr();
+        for ( Condition condition : rule.getConditions() ) {
+            PatternDescr pattern = toPatternDescr( condition.getSnippet() );
+            if ( pattern == null ) {
+                return null;
+            }
+            lhs.addDescr( pattern );
+        }
+        descr.setLhs( lhs );
+
+        StringBuilder consequence = new StringBuilder();
+        for ( Consequence rhs : rule.getConsequences() ) {
+            consequence.append( "\t\t" ).append( rhs.getSnippet() ).append( '\n' );
+        }
+        descr.setConsequence( consequence.toString() );
+        return descr;
+    }
+
+    AttributeDescr toAttributeDescr( String name, String value ) {
+        if ( "salience".equals( name ) ) {
+            return new AttributeDescr( name, value, AttributeDescr.Type.EXPRESSION );
+        } else if ( "duration".equals( name ) ) {
+            return new AttributeDescr( name, value, AttributeDescr.Type.NUMBER );
+        } else if ( "timer".equals( name ) ) {
+            return new AttributeDescr( name, stripDelimiters( value, "(", ")" ), AttributeDescr.Type.EXPRESSION );
+        } else if ( "calendars".equals( name ) ) {
+            return new AttributeDescr( name, "[ " + value + " ]", AttributeDescr.Type.LIST );
+        } else if ( BOOLEAN_ATTRIBUTES.contains( name ) && ( "true".equals( value ) || "false".equals( value ) ) ) {
+            return new AttributeDescr( name, value, AttributeDescr.Type.BOOLEAN );
+        } else if ( STRING_ATTRIBUTES.contains( name ) ) {
+            return new AttributeDescr( name, StringUtils.unescapeJava( stripDelimiters( value, "\"", "\"" ) ), AttributeDescr.Type.STRING );
+        } else if ( DATE_ATTRIBUTES.contains( name ) ) {
+            return new AttributeDescr( name, StringUtils.unescapeJava( stripDelimiters( value, "\"", "\"" ) ), AttributeDescr.Type.DATE );
+        }
+        return null;
+    }
+
+    /**
+     * Builds the descr of a condition made of a single, optionally bound, pattern with named constraints,
+     * e.g. <code>$p : Person( age > 18, name == "Mark" )</code>.
+     * @return null if the condition is anything else
+     */
+    PatternDescr toPatternDescr( String snippet ) {
+        if ( snippet == null || snippet.contains( "//" ) || snippet.contains( "/*" ) ) {
+            return null;
+        }
+        Matcher matcher = PATTERN_HEAD.matcher( snippet );
+        if ( !matcher.lookingAt() || KEYWORDS.contains( matcher.group( 2 ) ) ) {
+            return null;
+        }
+
+        List<String> constraints = new ArrayList<String>();
+        int start = matcher.end();
+        int close = -1;
+        int depth = 0;
+        char quote = 0;
+        for ( int i = start; i < snippet.length() && close < 0; i++ ) {
+            char c = snippet.charAt( i );
+            if ( quote != 0 ) {
+                if ( c == '\\' ) {
+                    i++;
+                } else if ( c == quote ) {
+                    quote = 0;
+                }
+            } else if ( c == '"' || c == '\'' ) {
+                quote = c;
+            } else if ( c == '(' || c == '[' || c == '{' ) {
+                depth++;
+            } else if ( c == ')' || c == ']' || c == '}' ) {
+                if ( depth == 0 ) {
+                    if ( c != ')' ) {
+                        return null;
+                    }
+                    close = i;
+                } else {
+                    depth--;
+                }
+            } else if ( depth == 0 && c == ',' ) {
+                constraints.add( snippet.substring( start, i ).trim() );
+                start = i + 1;
+            } else if ( depth == 0 && c == ';' ) {
+                // positional constraints
+                return null;
+            }
+        }
+        if ( close < 0 || !snippet.substring( close + 1 ).trim().isEmpty() ) {
+            return null;
+        }
+        String last = snippet.substring( start, close ).trim();
+        if ( !last.isEmpty() || !constraints.isEmpty() ) {
+            constraints.add( last );
+        }
+
+        PatternDescr pattern = new PatternDescr( matcher.group( 2 ), matcher.group( 1 ) );
+        pattern.setResource( resource );
+        for ( String constraint : constraints ) {
+            if ( constraint.isEmpty() ) {
+                return null;
+            }
+            ExprConstraintDescr expr = new ExprConstraintDescr( constraint );
+            expr.setType( ExprConstraintDescr.Type.NAMED );
+            expr.setPosition( pattern.getConstraint().getDescrs().size() );
+            expr.setResource( resource );
+            pattern.addConstraint( expr );
+        }
+        return pattern;
+    }
+
+    private static String stripDelimiters( String value, String start, String end ) {
+        if ( value.length() >= start.length() + end.length() && value.startsWith( start ) && value.endsWith( end ) ) {
+            return value.substring( start.length(), value.length() - end.length() );
+        }
+        return value;
+    }
+}
@@ -16,12 +16,14 @@
 package org.drools.decisiontable;
 
 import org.drools.compiler.compiler.DecisionTableProvider;
+import org.drools.compiler.lang.descr.PackageDescr;
 import org.drools.core.util.StringUtils;
 import org.kie.api.io.Resource;
 import org.kie.internal.builder.DecisionTableConfiguration;
 import org.kie.internal.builder.DecisionTableInputType;
 import org.kie.internal.builder.KnowledgeBuilderFactory;
 import org.kie.internal.builder.RuleTemplateConfiguration;
+import org.kie.internal.builder.conf.LanguageLevelOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +39,13 @@ public class DecisionTableProviderImpl
 
     private static final transient Logger logger = LoggerFactory.getLogger( DecisionTableProviderImpl.class );
 
+    /**
+     * System property enabling the compilation of decision tables straight to PackageDescr, bypassing their DRL
+     */
+    public static final String DIRECT_DESCR_PROPERTY = "drools.decisiontable.directDescr";
+
+    private final boolean directDescr = Boolean.parseBoolean( System.getProperty( DIRECT_DESCR_PROPERTY ) );
+
     public String loadFromResource(Resource resource,
                                    DecisionTableConfiguration configuration) {
 
@@ -47,6 +56,35 @@ public class DecisionTableProviderImpl
         }
     }
 
+    @Override
+    public PackageDescr loadPackageDescrFromResource(Resource resource,
+                                                     DecisionTableConfiguration configuration,
+                                                     LanguageLevelOption languageLevel) {
+        if ( !directDescr ) {
+            return null;
+        }
+        SpreadsheetCompiler compiler = new SpreadsheetCompiler();
+        DecisionTableInputType inputType = configuration == null ? DecisionTableInputType.XLS : configuration.getInputType();
+        switch ( inputType ) {
+            case XLS :
+            case XLSX :
+                if ( configuration == null || StringUtils.isEmpty( configuration.getWorksheetName() ) ) {
+                    return compiler.compileToPackageDescr( resource,
+                                                           InputType.XLS,
+                                                           languageLevel );
+                } else {
+                    return compiler.compileToPackageDescr( resource,
+                                                           configuration.getWorksheetName(),
+                                                           languageLevel );
+                }
+            case CSV :
+                return compiler.compileToPackageDescr( resource,
+                                                       InputType.CSV,
+                                                       languageLevel );
+        }
+        return null;
+    }
+
     public List<String> loadFromInputStreamWithTemplates(Resource resource,
                                                          DecisionTableConfiguration configuration) {
         List<String> drls = new ArrayList<String>( configuration.getRuleTemplateConfigurations().size() );
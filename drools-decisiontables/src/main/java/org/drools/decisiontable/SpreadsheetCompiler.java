@@ -16,6 +16,8 @@
 
 package org.drools.decisiontable;
 
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.lang.descr.PackageDescr;
 import org.drools.core.io.impl.FileSystemResource;
 import org.drools.decisiontable.parser.DecisionTableParser;
 import org.drools.decisiontable.parser.DefaultRuleSheetListener;
@@ -25,6 +27,7 @@ import org.drools.template.model.DRLOutput;
 import org.drools.template.model.Package;
 import org.drools.template.parser.DataListener;
 import org.kie.api.io.Resource;
+import org.kie.internal.builder.conf.LanguageLevelOption;
 import org.kie.internal.io.ResourceFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -118,6 +121,55 @@ public class SpreadsheetCompiler {
         return out.getDRL();
     }
 
+    /**
+     * Compiles the spreadsheet straight to a PackageDescr, without rendering the DRL of the rules.
+     *
+     * @return the PackageDescr, or null if the generated rules cannot be parsed, in which case
+     *         {@link #compile(Resource, InputType)} has to be used in order to get the errors reported
+     */
+    public PackageDescr compileToPackageDescr(final Resource resource,
+                                              final InputType type) {
+        return compileToPackageDescr( resource, type, DrlParser.DEFAULT_LANGUAGE_LEVEL );
+    }
+
+    /**
+     * Compiles the spreadsheet straight to a PackageDescr, parsing the DRL still needed with the given language level.
+     *
+     * @see #compileToPackageDescr(Resource, InputType)
+     */
+    public PackageDescr compileToPackageDescr(final Resource resource,
+                                              final InputType type,
+                                              final LanguageLevelOption languageLevel) {
+        final RuleSheetListener listener = new DefaultRuleSheetListener();
+        parseResource( type.createParser( listener ), resource );
+        return listenerToPackageDescr( listener, resource, languageLevel );
+    }
+
+    /**
+     * Compiles the given worksheet straight to a PackageDescr, without rendering the DRL of the rules.
+     *
+     * @see #compileToPackageDescr(Resource, InputType)
+     */
+    public PackageDescr compileToPackageDescr(final Resource resource,
+                                              final String worksheetName) {
+        return compileToPackageDescr( resource, worksheetName, DrlParser.DEFAULT_LANGUAGE_LEVEL );
+    }
+
+    /**
+     * Compiles the given worksheet straight to a PackageDescr, parsing the DRL still needed with the given language level.
+     *
+     * @see #compileToPackageDescr(Resource, InputType)
+     */
+    public PackageDescr compileToPackageDescr(final Resource resource,
+                                              final String worksheetName,
+                                              final LanguageLevelOption languageLevel) {
+        return listenerToPackageDescr( getRuleSheetListener( resource, worksheetName ), resource, languageLevel );
+    }
+
+    public PackageDescr listenerToPackageDescr( RuleSheetListener listener, Resource resource, LanguageLevelOption languageLevel ) {
+        return new DecisionTableDescrCompiler( resource, languageLevel ).compile( listener.getRuleSet() );
+    }
+
     private void parseResource( DecisionTableParser parser, Resource resource ) {
         if (resource instanceof FileSystemResource) {
             parser.parseFile( ( (FileSystemResource) resource ).getFile() );
@@ -16,16 +16,23 @@
 
 package org.drools.decisiontable.parser.xls;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import javax.xml.parsers.ParserConfigurationException;
+
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CellValue;
@@ -42,6 +49,7 @@ import org.drools.template.parser.DataListener;
 import org.drools.template.parser.DecisionTableParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
 
 import static java.lang.String.format;
 
@@ -55,8 +63,17 @@ public class ExcelParser
     private static final Logger log = LoggerFactory.getLogger( ExcelParser.class );
 
     public static final String DEFAULT_RULESHEET_NAME = "Decision Tables";
+
+    /**
+     * System property that can be set to false in order to always parse xlsx files through the usermodel.
+     */
+    public static final String XLSX_STREAMING_PROPERTY = "drools.decisiontable.xlsx.streaming";
+
+    private static final byte[] ZIP_HEADER = { 'P', 'K', 3, 4 };
+
     private Map<String, List<DataListener>> _listeners = new HashMap<String, List<DataListener>>();
     private boolean _useFirstSheet;
+    private boolean _streaming = !"false".equalsIgnoreCase( System.getProperty( XLSX_STREAMING_PROPERTY ) );
 
     /**
      * Define a map of sheet name to listener handlers.
@@ -80,9 +97,35 @@ public class ExcelParser
         this._useFirstSheet = true;
     }
 
+    /**
+     * Enables or disables the streaming of xlsx files through the POI event API (enabled by default).
+     * Workbooks containing formulas are always parsed through the usermodel, as the formulas have to be evaluated.
+     */
+    public void setStreaming( boolean streaming ) {
+        this._streaming = streaming;
+    }
+
+    public boolean isStreaming() {
+        return _streaming;
+    }
+
     public void parseFile( InputStream inStream ) {
         try {
-            parseWorkbook( WorkbookFactory.create( inStream ) );
+            InputStream in = inStream.markSupported() ? inStream : new BufferedInputStream( inStream );
+            if ( _streaming && hasZipHeader( in ) ) {
+                // the OOXML package can only be read lazily from a file
+                File file = File.createTempFile( "drools-dtable", ".xlsx" );
+                try {
+                    Files.copy( in, file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+                    parseFile( file );
+                } finally {
+                    if ( !file.delete() ) {
+                        file.deleteOnExit();
+                    }
+                }
+            } else {
+                parseWorkbook( WorkbookFactory.create( in ) );
+            }
         } catch ( InvalidFormatException e ) {
             throw new DecisionTableParseException( "An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
                                                    e );
@@ -94,6 +137,9 @@ public class ExcelParser
 
     public void parseFile( File file ) {
         try {
+            if ( _streaming && hasZipHeader( file ) && parseXlsx( file ) ) {
+                return;
+            }
             parseWorkbook( WorkbookFactory.create( file, (String)null, true ) );
         } catch ( InvalidFormatException e ) {
             throw new DecisionTableParseException( "An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
@@ -104,6 +150,39 @@ public class ExcelParser
         }
     }
 
+    private boolean parseXlsx( File file ) throws IOException {
+        try {
+            if ( new XlsxStreamingParser( this, _listeners, _useFirstSheet ).parse( file ) ) {
+                return true;
+            }
+            log.debug( "The workbook contains formulas, parsing it through the usermodel" );
+            return false;
+        } catch ( OpenXML4JException | SAXException | ParserConfigurationException e ) {
+            throw new DecisionTableParseException( "An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
+                                                   e );
+        }
+    }
+
+    private boolean hasZipHeader( File file ) throws IOException {
+        try (InputStream in = new FileInputStream( file )) {
+            return hasZipHeader( in.markSupported() ? in : new BufferedInputStream( in ) );
+        }
+    }
+
+    private boolean hasZipHeader( InputStream in ) throws IOException {
+        in.mark( ZIP_HEADER.length );
+        try {
+            for ( byte b : ZIP_HEADER ) {
+                if ( in.read() != b ) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            in.reset();
+        }
+    }
+
     public void parseWorkbook( Workbook workbook ) {
         try {
             if ( _useFirstSheet ) {
@@ -280,15 +359,15 @@ public class ExcelParser
         return null;
     }
 
-    private void finishSheet( List<? extends DataListener> listeners ) {
+    void finishSheet( List<? extends DataListener> listeners ) {
         for ( DataListener listener : listeners ) {
             listener.finishSheet();
         }
     }
 
-    private void newRow( List<? extends DataListener> listeners,
-                         int row,
-                         int cols ) {
+    void newRow( List<? extends DataListener> listeners,
+                 int row,
+                 int cols ) {
         for ( DataListener listener : listeners ) {
             listener.newRow( row,
                              cols );
@@ -308,7 +387,7 @@ public class ExcelParser
         }
     }
 
-    private boolean isNumericDisabled( List<? extends DataListener> listeners ) {
+    boolean isNumericDisabled( List<? extends DataListener> listeners ) {
         for ( DataListener listener : listeners ) {
             if (listener instanceof DefaultRuleSheetListener) {
                 return ((DefaultRuleSheetListener)listener).isNumericDisabled();
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.decisiontable.parser.xls;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.drools.template.parser.DataListener;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the sheets of an xlsx workbook with the SAX based event API of POI, pushing the cells into the
+ * listeners one row at a time, so that the memory used does not depend on the size of the sheets.
+ * Cells are reported exactly as the {@link ExcelParser} does when walking the usermodel.
+ *
+ * Formulas can only be evaluated on the usermodel: when one of the sheets to be parsed contains a formula
+ * nothing is pushed to the listeners and {@link #parse(File)} returns false, so that the caller can fall back
+ * to {@link ExcelParser#parseWorkbook(org.apache.poi.ss.usermodel.Workbook)}.
+ */
+class XlsxStreamingParser {
+
+    private static final String SHEET_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private final Map<String, List<DataListener>> listeners;
+    private final boolean useFirstSheet;
+    private final ExcelParser parser;
+
+    XlsxStreamingParser( ExcelParser parser,
+                         Map<String, List<DataListener>> listeners,
+                         boolean useFirstSheet ) {
+        this.parser = parser;
+        this.listeners = listeners;
+        this.useFirstSheet = useFirstSheet;
+    }
+
+    /**
+     * @return false if the sheets contain formulas, meaning that the workbook has to be parsed through the usermodel
+     */
+    boolean parse( File file ) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        OPCPackage pkg = OPCPackage.open( file, PackageAccess.READ );
+        try {
+            XSSFReader reader = new XSSFReader( pkg );
+            Map<String, PackagePart> sheetParts = getSheetParts( reader );
+
+            Map<PackagePart, List<DataListener>> selected = new LinkedHashMap<PackagePart, List<DataListener>>();
+            if ( useFirstSheet ) {
+                if ( sheetParts.isEmpty() ) {
+                    throw new IllegalStateException( "The workbook does not contain any sheet." );
+                }
+                selected.put( sheetParts.values().iterator().next(),
+                              listeners.get( ExcelParser.DEFAULT_RULESHEET_NAME ) );
+            } else {
+                for ( String sheetName : listeners.keySet() ) {
+                    PackagePart part = sheetParts.get( sheetName );
+                    if ( part == null ) {
+                        throw new IllegalStateException( "Could not find the sheetName (" + sheetName
+                                                         + ") in the workbook sheetNames." );
+                    }
+                    selected.put( part, listeners.get( sheetName ) );
+                }
+            }
+
+            // the merged regions are stored after the cells, so a first pass is needed to collect them
+            Map<PackagePart, CellRangeAddress[]> mergedRanges = new HashMap<PackagePart, CellRangeAddress[]>();
+            for ( PackagePart part : selected.keySet() ) {
+                SheetScanner scanner = new SheetScanner();
+                read( part, scanner );
+                if ( scanner.hasFormulas ) {
+                    return false;
+                }
+                mergedRanges.put( part, scanner.mergedRanges.toArray( new CellRangeAddress[ scanner.mergedRanges.size() ] ) );
+            }
+
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable( pkg );
+            StylesTable styles = reader.getStylesTable();
+            for ( Map.Entry<PackagePart, List<DataListener>> entry : selected.entrySet() ) {
+                List<DataListener> sheetListeners = entry.getValue();
+                read( entry.getKey(),
+                      new SheetHandler( sheetListeners,
+                                        mergedRanges.get( entry.getKey() ),
+                                        strings,
+                                        styles,
+                                        parser.isNumericDisabled( sheetListeners ) ) );
+                parser.finishSheet( sheetListeners );
+            }
+            return true;
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private Map<String, PackagePart> getSheetParts( XSSFReader reader ) throws IOException, OpenXML4JException {
+        Map<String, PackagePart> parts = new LinkedHashMap<String, PackagePart>();
+        XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while ( iterator.hasNext() ) {
+            iterator.next().close();
+            parts.put( iterator.getSheetName(), iterator.getSheetPart() );
+        }
+        return parts;
+    }
+
+    private void read( PackagePart part, DefaultHandler handler ) throws IOException, SAXException, ParserConfigurationException {
+        XMLReader xmlReader = SAXHelper.newXMLReader();
+        xmlReader.setContentHandler( handler );
+        try (InputStream in = part.getInputStream()) {
+            xmlReader.parse( new InputSource( in ) );
+        }
+    }
+
+    private static boolean isSheetElement( String uri, String localName, String name ) {
+        return ( uri == null || uri.isEmpty() || SHEET_NS.equals( uri ) ) && name.equals( localName );
+    }
+
+    /**
+     * First pass over a sheet, looking for merged regions and formulas.
+     */
+    private static class SheetScanner extends DefaultHandler {
+
+        private final List<CellRangeAddress> mergedRanges = new ArrayList<CellRangeAddress>();
+        private boolean hasFormulas;
+
+        @Override
+        public void startElement( String uri, String localName, String qName, Attributes attributes ) {
+            if ( isSheetElement( uri, localName, "f" ) ) {
+                hasFormulas = true;
+            } else if ( isSheetElement( uri, localName, "mergeCell" ) ) {
+                mergedRanges.add( CellRangeAddress.valueOf( attributes.getValue( "ref" ) ) );
+            }
+        }
+    }
+
+    /**
+     * Second pass over a sheet, buffering the cells of the current row only.
+     */
+    private class SheetHandler extends DefaultHandler {
+
+        private final List<DataListener> sheetListeners;
+        private final CellRangeAddress[] mergedRanges;
+        private final Map<CellRangeAddress, String> mergedValues = new HashMap<CellRangeAddress, String>();
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final boolean numericDisabled;
+        private final DataFormatter formatter = new DataFormatter( Locale.ENGLISH );
+
+        private final List<Integer> rowColumns = new ArrayList<Integer>();
+        private final List<String> rowValues = new ArrayList<String>();
+        private int nextRow;
+        private int currentRow = -1;
+        private int currentColumn;
+
+        private String cellType;
+        private String cellStyle;
+        private final StringBuilder text = new StringBuilder();
+        private boolean collecting;
+        private boolean inPhonetic;
+
+        private SheetHandler( List<DataListener> sheetListeners,
+                              CellRangeAddress[] mergedRanges,
+                              ReadOnlySharedStringsTable strings,
+                              StylesTable styles,
+                              boolean numericDisabled ) {
+            this.sheetListeners = sheetListeners;
+            this.mergedRanges = mergedRanges;
+            this.strings = strings;
+            this.styles = styles;
+            this.numericDisabled = numericDisabled;
+        }
+
+        @Override
+        public void startElement( String uri, String localName, String qName, Attributes attributes ) {
+            if ( isSheetElement( uri, localName, "row" ) ) {
+                String r = attributes.getValue( "r" );
+                currentRow = r != null ? Integer.parseInt( r ) - 1 : currentRow + 1;
+                currentColumn = -1;
+            } else if ( isSheetElement( uri, localName, "c" ) ) {
+                String r = attributes.getValue( "r" );
+                currentColumn = r != null ? new CellReference( r ).getCol() : currentColumn + 1;
+                cellType = attributes.getValue( "t" );
+                cellStyle = attributes.getValue( "s" );
+                text.setLength( 0 );
+            } else if ( isSheetElement( uri, localName, "rPh" ) ) {
+                inPhonetic = true;
+            } else if ( isSheetElement( uri, localName, "v" ) || ( isSheetElement( uri, localName, "t" ) && !inPhonetic ) ) {
+                collecting = true;
+            }
+        }
+
+        @Override
+        public void endElement( String uri, String localName, String qName ) {
+            if ( isSheetElement( uri, localName, "v" ) || isSheetElement( uri, localName, "t" ) ) {
+                collecting = false;
+            } else if ( isSheetElement( uri, localName, "rPh" ) ) {
+                inPhonetic = false;
+            } else if ( isSheetElement( uri, localName, "c" ) ) {
+                rowColumns.add( currentColumn );
+                rowValues.add( getCellValue() );
+            } else if ( isSheetElement( uri, localName, "row" ) ) {
+                endRow();
+            }
+        }
+
+        @Override
+        public void characters( char[] ch, int start, int length ) {
+            if ( collecting ) {
+                text.append( ch, start, length );
+            }
+        }
+
+        private void endRow() {
+            // rows without any cell are not stored, but the listeners expect to be notified of them as well
+            for ( ; nextRow < currentRow; nextRow++ ) {
+                parser.newRow( sheetListeners, nextRow, 0 );
+            }
+            // like Row.getLastCellNum(), a stored row without any cell reports -1
+            int lastCellNum = rowColumns.isEmpty() ? -1 : rowColumns.get( rowColumns.size() - 1 ) + 1;
+            parser.newRow( sheetListeners, currentRow, lastCellNum );
+
+            for ( int i = 0; i < rowColumns.size(); i++ ) {
+                int column = rowColumns.get( i );
+                String value = rowValues.get( i );
+                int mergedColStart = DataListener.NON_MERGED;
+                CellRangeAddress merged = getRangeIfMerged( currentRow, column );
+                if ( merged != null ) {
+                    if ( merged.getFirstRow() == currentRow && merged.getFirstColumn() == column ) {
+                        mergedValues.put( merged, value );
+                    } else {
+                        value = mergedValues.get( merged );
+                    }
+                    mergedColStart = merged.getFirstColumn();
+                }
+                parser.newCell( sheetListeners, currentRow, column, value, mergedColStart );
+            }
+
+            rowColumns.clear();
+            rowValues.clear();
+            nextRow = currentRow + 1;
+        }
+
+        private CellRangeAddress getRangeIfMerged( int row, int column ) {
+            for ( CellRangeAddress r : mergedRanges ) {
+                if ( r.isInRange( row, column ) ) {
+                    return r;
+                }
+            }
+            return null;
+        }
+
+        private String getCellValue() {
+            String value = text.toString();
+            if ( "b".equals( cellType ) ) {
+                return "1".equals( value ) ? "true" : "false";
+            } else if ( "s".equals( cellType ) ) {
+                return value.isEmpty() ? "" : strings.getEntryAt( Integer.parseInt( value ) );
+            } else if ( "inlineStr".equals( cellType ) || "str".equals( cellType ) || "e".equals( cellType ) ) {
+                return value;
+            } else if ( value.isEmpty() ) {
+                return "";
+            }
+            double num = Double.parseDouble( value );
+            if ( !numericDisabled && num - Math.round( num ) != 0 ) {
+                return String.valueOf( num );
+            }
+            return formatNumber( num );
+        }
+
+        private String formatNumber( double num ) {
+            XSSFCellStyle style = null;
+            if ( cellStyle != null ) {
+                style = styles.getStyleAt( Integer.parseInt( cellStyle ) );
+            } else if ( styles.getNumCellStyles() > 0 ) {
+                style = styles.getStyleAt( 0 );
+            }
+            if ( style == null ) {
+                return formatter.formatRawCellContents( num, 0, "General" );
+            }
+            String formatString = style.getDataFormatString();
+            if ( formatString == null ) {
+                formatString = BuiltinFormats.getBuiltinFormat( style.getDataFormat() );
+            }
+            return formatter.formatRawCellContents( num, style.getDataFormat(), formatString );
+        }
+    }
+}
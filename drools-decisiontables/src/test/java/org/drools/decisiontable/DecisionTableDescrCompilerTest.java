@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.decisiontable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.lang.descr.BaseDescr;
+import org.drools.compiler.lang.descr.ExprConstraintDescr;
+import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.compiler.lang.descr.PatternDescr;
+import org.drools.compiler.lang.descr.RuleDescr;
+import org.drools.decisiontable.benchmark.DecisionTableCompilationBenchmark;
+import org.junit.Test;
+import org.kie.api.io.Resource;
+import org.kie.internal.builder.conf.LanguageLevelOption;
+import org.kie.internal.io.ResourceFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DecisionTableDescrCompilerTest {
+
+    @Test
+    public void testGeneratedTableMatchesDrl() throws Exception {
+        byte[] csv = DecisionTableCompilationBenchmark.generateDecisionTable( 20 ).getBytes( StandardCharsets.UTF_8 );
+        assertSameDescr( ResourceFactory.newByteArrayResource( csv ), InputType.CSV );
+    }
+
+    @Test
+    public void testWorkbooksMatchDrl() throws Exception {
+        assertSameDescr( ResourceFactory.newClassPathResource( "data/IntegrationExampleTest.xls" ), InputType.XLS );
+        assertSameDescr( ResourceFactory.newClassPathResource( "data/ExamplePolicyPricing.xls" ), InputType.XLS );
+    }
+
+    @Test
+    public void testUnparsableWorkbook() throws Exception {
+        // the DRL generated from this workbook does not parse, its errors have to be reported through the DRL path
+        assertNull( new SpreadsheetCompiler().compileToPackageDescr( ResourceFactory.newClassPathResource( "data/ComplexWorkbook.xls" ), InputType.XLS ) );
+    }
+
+    @Test
+    public void testLanguageLevel() throws Exception {
+        String csv = "\"RuleSet\",\"org.drools.decisiontable\"\n" +
+                     "\"Declare\",\"declare Foo @role(event) end\"\n" +
+                     ",\n" +
+                     "\"RuleTable Adults\"\n" +
+                     "\"CONDITION\",\"ACTION\"\n" +
+                     "\"Person\",\n" +
+                     "\"age > $param\",\"System.out.println( $param );\"\n" +
+                     "\"Age\",\"Output\"\n" +
+                     "18,1\n";
+        SpreadsheetCompiler compiler = new SpreadsheetCompiler();
+
+        assertNotNull( compiler.compileToPackageDescr( ResourceFactory.newByteArrayResource( csv.getBytes( StandardCharsets.UTF_8 ) ),
+                                                       InputType.CSV,
+                                                       LanguageLevelOption.DRL6 ) );
+        // the strict mode only accepts java annotations
+        assertNull( compiler.compileToPackageDescr( ResourceFactory.newByteArrayResource( csv.getBytes( StandardCharsets.UTF_8 ) ),
+                                                    InputType.CSV,
+                                                    LanguageLevelOption.DRL6_STRICT ) );
+    }
+
+    @Test
+    public void testPatterns() {
+        DecisionTableDescrCompiler compiler = new DecisionTableDescrCompiler();
+
+        PatternDescr pattern = compiler.toPatternDescr( "$p : Person( age > 18, name in (\"a, b\", \"c\"), list[0] == 1 )" );
+        assertEquals( "Person", pattern.getObjectType() );
+        assertEquals( "$p", pattern.getIdentifier() );
+        List<? extends BaseDescr> constraints = pattern.getConstraint().getDescrs();
+        assertEquals( 3, constraints.size() );
+        assertEquals( "age > 18", ( (ExprConstraintDescr) constraints.get( 0 ) ).getExpression() );
+        assertEquals( "name in (\"a, b\", \"c\")", ( (ExprConstraintDescr) constraints.get( 1 ) ).getExpression() );
+        assertEquals( "list[0] == 1", ( (ExprConstraintDescr) constraints.get( 2 ) ).getExpression() );
+
+        pattern = compiler.toPatternDescr( "org.example.Cheese()" );
+        assertEquals( "org.example.Cheese", pattern.getObjectType() );
+        assertNull( pattern.getIdentifier() );
+        assertEquals( 0, pattern.getConstraint().getDescrs().size() );
+
+        // anything but a plain pattern is left to the DRL parser
+        assertNull( compiler.toPatternDescr( "eval( true )" ) );
+        assertNull( compiler.toPatternDescr( "not Person()" ) );
+        assertNull( compiler.toPatternDescr( "Person() from $list" ) );
+        assertNull( compiler.toPatternDescr( "$p := Person()" ) );
+        assertNull( compiler.toPatternDescr( "Person( \"a\", 1; )" ) );
+        assertNull( compiler.toPatternDescr( "Person( age > 1, )" ) );
+        assertNull( compiler.toPatternDescr( "Person( age > 1 ) // comment" ) );
+        assertNull( compiler.toPatternDescr( "Person( age > 1 )\nCheese()" ) );
+    }
+
+    private void assertSameDescr( Resource resource, InputType type ) throws Exception {
+        SpreadsheetCompiler compiler = new SpreadsheetCompiler();
+        PackageDescr expected = new DrlParser().parse( resource, compiler.compile( resource, type ) );
+        PackageDescr actual = compiler.compileToPackageDescr( resource, type );
+        assertNotNull( actual );
+
+        assertEquals( expected.getName(), actual.getName() );
+        assertEquals( expected.getImports().size(), actual.getImports().size() );
+        assertEquals( expected.getGlobals().size(), actual.getGlobals().size() );
+        assertEquals( expected.getFunctions().size(), actual.getFunctions().size() );
+        assertEquals( expected.getRules().size(), actual.getRules().size() );
+        for ( int i = 0; i < expected.getRules().size(); i++ ) {
+            RuleDescr expectedRule = expected.getRules().get( i );
+            RuleDescr actualRule = actual.getRules().get( i );
+            assertEquals( expectedRule.getName(), actualRule.getName() );
+            assertEquals( expectedRule.getNamespace(), actualRule.getNamespace() );
+            assertEquals( expectedRule.getAttributes().keySet(), actualRule.getAttributes().keySet() );
+            for ( String attribute : expectedRule.getAttributes().keySet() ) {
+                assertEquals( expectedRule.getAttributes().get( attribute ).getValue(), actualRule.getAttributes().get( attribute ).getValue() );
+                assertEquals( expectedRule.getAttributes().get( attribute ).getType(), actualRule.getAttributes().get( attribute ).getType() );
+            }
+            assertEquals( expectedRule.getLhs().getDescrs().size(), actualRule.getLhs().getDescrs().size() );
+            for ( int j = 0; j < expectedRule.getLhs().getDescrs().size(); j++ ) {
+                assertSameLhs( expectedRule.getLhs().getDescrs().get( j ), actualRule.getLhs().getDescrs().get( j ) );
+            }
+            assertEquals( expectedRule.getConsequence().toString().trim(), actualRule.getConsequence().toString().trim() );
+        }
+    }
+
+    private void assertSameLhs( BaseDescr expected, BaseDescr actual ) {
+        assertEquals( expected.getClass(), actual.getClass() );
+        if ( expected instanceof PatternDescr ) {
+            PatternDescr expectedPattern = (PatternDescr) expected;
+            PatternDescr actualPattern = (PatternDescr) actual;
+            assertEquals( expectedPattern.getObjectType(), actualPattern.getObjectType() );
+            assertEquals( expectedPattern.getIdentifier(), actualPattern.getIdentifier() );
+            List<? extends BaseDescr> expectedConstraints = expectedPattern.getConstraint().getDescrs();
+            List<? extends BaseDescr> actualConstraints = actualPattern.getConstraint().getDescrs();
+            assertEquals( expectedConstraints.size(), actualConstraints.size() );
+            for ( int i = 0; i < expectedConstraints.size(); i++ ) {
+                assertEquals( expectedConstraints.get( i ).toString(), actualConstraints.get( i ).toString() );
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.decisiontable.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.compiler.DroolsParserException;
+import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.decisiontable.InputType;
+import org.drools.decisiontable.SpreadsheetCompiler;
+import org.kie.api.io.Resource;
+import org.kie.internal.io.ResourceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the compilation of a large decision table to a PackageDescr through its generated DRL
+ * with the direct compilation of its rules to descrs.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecisionTableCompilationBenchmark {
+
+    public enum CompilationType {
+        DRL, DESCR
+    }
+
+    @Param({"50000"})
+    private int numberOfRules;
+
+    @Param({"DRL", "DESCR"})
+    private CompilationType type;
+
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        csv = generateDecisionTable(numberOfRules).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PackageDescr compile() throws DroolsParserException {
+        Resource resource = ResourceFactory.newByteArrayResource(csv);
+        SpreadsheetCompiler compiler = new SpreadsheetCompiler();
+        if (type == CompilationType.DESCR) {
+            return compiler.compileToPackageDescr(resource, InputType.CSV);
+        }
+        return new DrlParser().parse(resource, compiler.compile(resource, InputType.CSV));
+    }
+
+    public static String generateDecisionTable(int numberOfRules) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\"RuleSet\",\"org.drools.decisiontable.benchmark\"\n");
+        sb.append("\"Import\",\"org.drools.decisiontable.Person, org.drools.decisiontable.Cheese\"\n");
+        sb.append("\"Variables\",\"java.util.List list\"\n");
+        sb.append(",\n");
+        sb.append("\"RuleTable Pricing\"\n");
+        sb.append("\"CONDITION\",\"CONDITION\",\"CONDITION\",\"ACTION\",\"PRIORITY\"\n");
+        sb.append("\"$p : Person...\",\"$p : Person...\",\"Cheese\",,\n");
+        sb.append("\"age >= $param\",\"name == \"\"$param\"\"\",\"type == \"\"$param\"\"\",\"list.add( $param );\",\n");
+        sb.append("\"Age\",\"Name\",\"Type\",\"Result\",\"Salience\"\n");
+        for (int i = 0; i < numberOfRules; i++) {
+            sb.append(i % 100).append(",\"name").append(i).append("\",\"type").append(i % 10).append("\",")
+                    .append("\"\"\"result").append(i).append("\"\"\",").append(i % 50).append('\n');
+        }
+        return sb.toString();
+    }
+}
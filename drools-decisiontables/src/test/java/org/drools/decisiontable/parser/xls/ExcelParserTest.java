@@ -18,11 +18,20 @@ package org.drools.decisiontable.parser.xls;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
@@ -70,4 +79,116 @@ public class ExcelParserTest {
         assertEquals(FIRST_CELL_CONTENT, sheet.getRow(rangeIfMerged.getFirstRow()).getCell(rangeIfMerged.getFirstColumn()).getStringCellValue());
     }
 
+    @Test
+    public void testStreamingMatchesUsermodel() throws Exception {
+        Workbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet( "Tables" );
+        Row row = sheet.createRow( 0 );
+        row.createCell( 0 ).setCellValue( "RuleTable Test" );
+        row.createCell( 3 ).setCellValue( true );
+        row = sheet.createRow( 3 );
+        row.createCell( 1 ).setCellValue( FIRST_CELL_CONTENT );
+        row.createCell( 2 );
+        row.createCell( 4 ).setCellValue( 42 );
+        row.createCell( 5 ).setCellValue( 3.25 );
+        row = sheet.createRow( 4 );
+        row.createCell( 1 );
+        row.createCell( 2 ).setCellValue( LAST_CELL_VALUE );
+        sheet.addMergedRegion( new CellRangeAddress( 3, 4, 1, 2 ) );
+        File file = writeWorkbook( workbook );
+
+        try {
+            List<String> streamed = parse( file, true );
+            assertEquals( parse( file, false ), streamed );
+            assertTrue( streamed.contains( "cell 4,2," + FIRST_CELL_CONTENT + ",1" ) );
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testStreamingEmptyRow() throws Exception {
+        Workbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet( "Tables" );
+        sheet.createRow( 0 ).createCell( 0 ).setCellValue( FIRST_CELL_CONTENT );
+        sheet.createRow( 1 );
+        sheet.createRow( 3 ).createCell( 1 ).setCellValue( LAST_CELL_VALUE );
+        File file = writeWorkbook( workbook );
+
+        try {
+            List<String> streamed = parse( file, true );
+            assertEquals( parse( file, false ), streamed );
+            assertTrue( streamed.contains( "row 1,-1" ) );
+            assertTrue( streamed.contains( "row 2,0" ) );
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testStreamingFallsBackOnFormulas() throws Exception {
+        Workbook workbook = new XSSFWorkbook();
+        Row row = workbook.createSheet( "Tables" ).createRow( 0 );
+        row.createCell( 0 ).setCellValue( 2 );
+        row.createCell( 1 ).setCellFormula( "A1*3" );
+        File file = writeWorkbook( workbook );
+
+        try {
+            List<String> streamed = parse( file, true );
+            assertEquals( parse( file, false ), streamed );
+            assertTrue( streamed.contains( "cell 0,1,6,-1" ) );
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testStreamingExistingWorkbook() throws Exception {
+        File file = File.createTempFile( "dtable", ".xlsx" );
+        try (InputStream in = getClass().getResourceAsStream( "/org/drools/decisiontable/integrationtests/xlsx/incrementalBuild.dtable.xlsx" )) {
+            Files.copy( in, file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+        try {
+            assertEquals( parse( file, false ), parse( file, true ) );
+        } finally {
+            file.delete();
+        }
+    }
+
+    private File writeWorkbook( Workbook workbook ) throws Exception {
+        File file = File.createTempFile( "dtable", ".xlsx" );
+        try (OutputStream out = new FileOutputStream( file )) {
+            workbook.write( out );
+        }
+        workbook.close();
+        return file;
+    }
+
+    private List<String> parse( File file, boolean streaming ) {
+        final List<String> events = new ArrayList<String>();
+        ExcelParser parser = new ExcelParser( new DataListener() {
+            @Override
+            public void startSheet( String name ) {
+            }
+
+            @Override
+            public void newRow( int rowNumber, int columns ) {
+                events.add( "row " + rowNumber + "," + columns );
+            }
+
+            @Override
+            public void newCell( int row, int column, String value, int mergedColStart ) {
+                events.add( "cell " + row + "," + column + "," + value + "," + mergedColStart );
+            }
+
+            @Override
+            public void finishSheet() {
+                events.add( "finish" );
+            }
+        } );
+        parser.setStreaming( streaming );
+        parser.parseFile( file );
+        return events;
+    }
+
 }
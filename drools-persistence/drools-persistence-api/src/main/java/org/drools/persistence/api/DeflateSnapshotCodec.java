@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.api;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the snapshots with {@link Deflater}, at its fastest level unless told otherwise.
+ */
+public class DeflateSnapshotCodec implements SnapshotCodec {
+
+    private final int level;
+
+    public DeflateSnapshotCodec() {
+        this( Deflater.BEST_SPEED );
+    }
+
+    public DeflateSnapshotCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte getId() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    @Override
+    public byte[] encode(byte[] data) {
+        Deflater deflater = new Deflater( level );
+        try {
+            deflater.setInput( data );
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream( Math.max( 64, data.length / 4 ) );
+            byte[] buffer = new byte[8192];
+            while ( !deflater.finished() ) {
+                int count = deflater.deflate( buffer );
+                out.write( buffer, 0, count );
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void decode(byte[] source, int offset, int length, byte[] target) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput( source, offset, length );
+            int read = 0;
+            while ( read < target.length ) {
+                int count = inflater.inflate( target, read, target.length - read );
+                if ( count == 0 && ( inflater.finished() || inflater.needsInput() || inflater.needsDictionary() ) ) {
+                    throw new IllegalStateException( "Truncated deflate stream" );
+                }
+                read += count;
+            }
+        } catch ( DataFormatException e ) {
+            throw new IllegalStateException( e );
+        } finally {
+            inflater.end();
+        }
+    }
+}
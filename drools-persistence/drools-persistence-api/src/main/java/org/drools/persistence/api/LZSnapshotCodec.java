@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.api;
+
+import java.util.Arrays;
+
+/**
+ * A fast LZ77 codec, trading compression ratio for speed, in the spirit of the LZ4 block format: a sequence is made
+ * of a token holding the number of literals and the match length (both extended by further bytes when they reach 15),
+ * the literals, and the little endian 16 bits offset of the match. The last sequence holds literals only.
+ * Matches are found through a hash table of the 4 bytes sequences seen so far, without any chaining.
+ */
+public class LZSnapshotCodec implements SnapshotCodec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_LOG = 14;
+    private static final int SKIP_TRIGGER = 6;
+
+    @Override
+    public byte getId() {
+        return 2;
+    }
+
+    @Override
+    public String getName() {
+        return "lz";
+    }
+
+    @Override
+    public byte[] encode(byte[] src) {
+        int length = src.length;
+        byte[] dst = new byte[length + length / 255 + 16];
+        int[] table = new int[1 << HASH_LOG];
+        Arrays.fill( table, -1 );
+
+        int ip = 0;
+        int anchor = 0;
+        int op = 0;
+        int limit = length - MIN_MATCH;
+        while ( ip <= limit ) {
+            int sequence = readInt( src, ip );
+            int hash = hash( sequence );
+            int ref = table[hash];
+            table[hash] = ip;
+            if ( ref < 0 || ip - ref > MAX_OFFSET || readInt( src, ref ) != sequence ) {
+                // incompressible data is skipped faster and faster
+                ip += 1 + ( ( ip - anchor ) >>> SKIP_TRIGGER );
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+            while ( ip + matchLength < length && src[ref + matchLength] == src[ip + matchLength] ) {
+                matchLength++;
+            }
+
+            op = writeSequence( src, anchor, ip - anchor, dst, op, matchLength - MIN_MATCH );
+            dst[op++] = (byte) ( ip - ref );
+            dst[op++] = (byte) ( ( ip - ref ) >>> 8 );
+            op = writeLength( dst, op, matchLength - MIN_MATCH );
+
+            ip += matchLength;
+            anchor = ip;
+        }
+
+        if ( anchor < length ) {
+            op = writeSequence( src, anchor, length - anchor, dst, op, 0 );
+        }
+        return Arrays.copyOf( dst, op );
+    }
+
+    @Override
+    public void decode(byte[] src, int offset, int length, byte[] dst) {
+        int ip = offset;
+        int end = offset + length;
+        int op = 0;
+        while ( op < dst.length ) {
+            int token = src[ip++] & 0xFF;
+
+            int literals = token >>> 4;
+            if ( literals == 15 ) {
+                int b;
+                do {
+                    b = src[ip++] & 0xFF;
+                    literals += b;
+                } while ( b == 255 );
+            }
+            System.arraycopy( src, ip, dst, op, literals );
+            ip += literals;
+            op += literals;
+            if ( op >= dst.length ) {
+                break;
+            }
+
+            int distance = ( src[ip++] & 0xFF ) | ( src[ip++] & 0xFF ) << 8;
+            int matchLength = token & 0x0F;
+            if ( matchLength == 15 ) {
+                int b;
+                do {
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while ( b == 255 );
+            }
+            matchLength += MIN_MATCH;
+
+            int ref = op - distance;
+            if ( distance == 0 || ref < 0 || op + matchLength > dst.length ) {
+                throw new IllegalStateException( "Malformed lz stream at " + ( ip - offset ) );
+            }
+            if ( distance >= matchLength ) {
+                System.arraycopy( dst, ref, dst, op, matchLength );
+                op += matchLength;
+            } else {
+                // overlapping match, repeating the last distance bytes
+                for ( int i = 0; i < matchLength; i++ ) {
+                    dst[op++] = dst[ref++];
+                }
+            }
+        }
+        if ( ip != end ) {
+            throw new IllegalStateException( "Malformed lz stream, " + ( end - ip ) + " trailing bytes" );
+        }
+    }
+
+    private static int writeSequence(byte[] src, int start, int literals, byte[] dst, int op, int matchLength) {
+        int token = ( Math.min( literals, 15 ) << 4 ) | Math.min( matchLength, 15 );
+        dst[op++] = (byte) token;
+        if ( literals >= 15 ) {
+            op = writeExtension( dst, op, literals - 15 );
+        }
+        System.arraycopy( src, start, dst, op, literals );
+        return op + literals;
+    }
+
+    private static int writeLength(byte[] dst, int op, int matchLength) {
+        return matchLength >= 15 ? writeExtension( dst, op, matchLength - 15 ) : op;
+    }
+
+    private static int writeExtension(byte[] dst, int op, int remaining) {
+        while ( remaining >= 255 ) {
+            dst[op++] = (byte) 255;
+            remaining -= 255;
+        }
+        dst[op++] = (byte) remaining;
+        return op;
+    }
+
+    private static int hash(int sequence) {
+        return ( sequence * -1640531535 ) >>> ( 32 - HASH_LOG );
+    }
+
+    private static int readInt(byte[] src, int i) {
+        return ( src[i] & 0xFF ) | ( src[i + 1] & 0xFF ) << 8 | ( src[i + 2] & 0xFF ) << 16 | ( src[i + 3] & 0xFF ) << 24;
+    }
+}
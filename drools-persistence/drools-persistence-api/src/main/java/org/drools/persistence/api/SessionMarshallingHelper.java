@@ -17,6 +17,7 @@ package org.drools.persistence.api;
 
 import org.drools.core.marshalling.impl.InternalMarshaller;
 import org.drools.core.marshalling.impl.KieSessionInitializer;
+import org.drools.core.util.ByteBufferInputStream;
 import org.kie.api.KieBase;
 import org.kie.api.marshalling.Marshaller;
 import org.kie.api.marshalling.ObjectMarshallingStrategy;
@@ -26,9 +27,9 @@ import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.KieSessionConfiguration;
 import org.kie.internal.marshalling.MarshallerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class SessionMarshallingHelper {
 
@@ -37,6 +38,7 @@ public class SessionMarshallingHelper {
     private KieSession      			  ksession;
     private InternalMarshaller            marshaller;
     private Environment                   env;
+    private SnapshotCodec                 codec;
 
     /**
      * Exist Info, so load session from here
@@ -53,6 +55,8 @@ public class SessionMarshallingHelper {
         this.marshaller = strategies != null ?
                           (InternalMarshaller) MarshallerFactory.newMarshaller( kbase, strategies ) :
                           (InternalMarshaller) MarshallerFactory.newMarshaller( kbase ) ;
+
+        this.codec = SnapshotCodecs.get( this.env );
     }
 
     /** 
@@ -70,6 +74,8 @@ public class SessionMarshallingHelper {
         this.marshaller = strategies != null ?
                           (InternalMarshaller) MarshallerFactory.newMarshaller( kbase, strategies ) :
                           (InternalMarshaller) MarshallerFactory.newMarshaller( kbase ) ;
+
+        this.codec = SnapshotCodecs.get( this.env );
     }
 
     public byte[] getSnapshot() {
@@ -82,15 +88,18 @@ public class SessionMarshallingHelper {
                                         e );
         }
 
-        return baos.toByteArray();
+        byte[] snapshot = baos.toByteArray();
+        return codec != null ? SnapshotCodecs.encode( codec, snapshot ) : snapshot;
     }
 
     public KieSession loadSnapshot( byte[] bytes,
                                     KieSession ksession,
                                     KieSessionInitializer initializer ) {
         this.ksession = ksession;
-        ByteArrayInputStream bais = new ByteArrayInputStream( bytes );
         try {
+            // snapshots written without a codec, or by older versions, are read as they are;
+            // through a buffer, the marshaller reads the snapshot without preloading it
+            ByteBufferInputStream bais = new ByteBufferInputStream( ByteBuffer.wrap( SnapshotCodecs.decode( bytes ) ) );
             this.marshaller.setInitializer( initializer );
             if ( this.ksession != null ) {
                 this.marshaller.unmarshall( bais,
@@ -109,6 +118,12 @@ public class SessionMarshallingHelper {
         return this.ksession;
     }
 
+    /**
+     * Binds this helper to a live session in the state of the snapshot it would have loaded, e.g. a cached one
+     */
+    public void setObject( KieSession ksession ) {
+        this.ksession = ksession;
+    }
 
     public KieSession getObject() {
         return ksession;
@@ -126,5 +141,16 @@ public class SessionMarshallingHelper {
     	return marshaller;
     }
 
+    /**
+     * @return the codec the snapshots are written with, or null when they are written as marshalled
+     */
+    public SnapshotCodec getCodec() {
+        return codec;
+    }
+
+    public void setCodec( SnapshotCodec codec ) {
+        this.codec = codec;
+    }
+
     
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.drools.core.marshalling.impl.ProtobufMessages;
+import org.drools.core.rule.EntryPointId;
+
+/**
+ * Summary of a session snapshot, read from its protobuf messages without unmarshalling the session itself,
+ * i.e. without resolving any fact nor rebuilding the network memories.
+ */
+public final class SessionSnapshotIndex {
+
+    private final Map<String, Integer> factCounts;
+    private final long time;
+
+    private SessionSnapshotIndex(Map<String, Integer> factCounts, long time) {
+        this.factCounts = factCounts;
+        this.time = time;
+    }
+
+    /**
+     * Indexes a snapshot as returned by {@link SessionMarshallingHelper#getSnapshot()}, possibly encoded with a {@link SnapshotCodec}
+     */
+    public static SessionSnapshotIndex of(byte[] snapshot) {
+        try {
+            ProtobufMessages.Header _header = ProtobufMessages.Header.parseFrom( unwrap( SnapshotCodecs.decode( snapshot ) ) );
+            ProtobufMessages.KnowledgeSession _session = ProtobufMessages.KnowledgeSession.parseFrom( _header.getPayload() );
+
+            Map<String, Integer> factCounts = new HashMap<String, Integer>();
+            for ( ProtobufMessages.EntryPoint _ep : _session.getRuleData().getEntryPointList() ) {
+                factCounts.put( _ep.getEntryPointId(), _ep.getHandleCount() );
+            }
+            return new SessionSnapshotIndex( Collections.unmodifiableMap( factCounts ), _session.hasTime() ? _session.getTime() : 0 );
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to index session snapshot", e );
+        }
+    }
+
+    /**
+     * The marshaller writes the protobuf header as block data of an object stream
+     */
+    private static byte[] unwrap(byte[] marshalled) throws IOException {
+        ObjectInputStream stream = new ObjectInputStream( new ByteArrayInputStream( marshalled ) );
+        ByteArrayOutputStream payload = new ByteArrayOutputStream( marshalled.length );
+        byte[] buf = new byte[4096];
+        int read;
+        while ( ( read = stream.read( buf ) ) != -1 ) {
+            payload.write( buf, 0, read );
+        }
+        return payload.toByteArray();
+    }
+
+    public long getFactCount() {
+        return getFactCount( EntryPointId.DEFAULT.getEntryPointId() );
+    }
+
+    public long getFactCount(String entryPointId) {
+        Integer count = factCounts.get( entryPointId );
+        return count != null ? count : 0;
+    }
+
+    public Set<String> getEntryPointIds() {
+        return factCounts.keySet();
+    }
+
+    /**
+     * @return the time of the session clock when the snapshot was taken
+     */
+    public long getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.api;
+
+/**
+ * Compresses the snapshots of persistent sessions. A codec is registered in {@link SnapshotCodecs} under a name,
+ * used to select it, and an id, recorded in the header of every snapshot it encodes so that it can be read back
+ * whatever codec is currently configured.
+ */
+public interface SnapshotCodec {
+
+    byte getId();
+
+    String getName();
+
+    byte[] encode(byte[] data);
+
+    /**
+     * Decodes length bytes of source, starting at offset, into target, which is sized after the original data
+     */
+    void decode(byte[] source, int offset, int length, byte[] target);
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.kie.api.runtime.Environment;
+
+/**
+ * Frames the session snapshots encoded by a {@link SnapshotCodec}. An encoded snapshot starts with a header made of
+ * a zero byte, the "KS" magic, the format version, the codec id, the length and the CRC32 checksum of the original
+ * snapshot. A protobuf message never starts with a zero byte, so snapshots written without any codec are still read
+ * as they are.
+ */
+public final class SnapshotCodecs {
+
+    /**
+     * Name of the codec used to write the snapshots: "stored", "deflate", "lz" or the name of a registered codec.
+     * It can be given as an environment entry or as a system property; when missing snapshots are written as before,
+     * without any header.
+     */
+    public static final String SNAPSHOT_CODEC_PROPERTY = "org.kie.persistence.snapshot.codec";
+
+    public static final SnapshotCodec STORED = new StoredSnapshotCodec();
+    public static final SnapshotCodec DEFLATE = new DeflateSnapshotCodec();
+    public static final SnapshotCodec LZ = new LZSnapshotCodec();
+
+    static final int HEADER_LENGTH = 13;
+    private static final byte MARKER = 0;
+    private static final byte MAGIC_1 = 'K';
+    private static final byte MAGIC_2 = 'S';
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final Map<String, SnapshotCodec> codecsByName = new ConcurrentHashMap<String, SnapshotCodec>();
+    private static final SnapshotCodec[] codecsById = new SnapshotCodec[256];
+
+    static {
+        register( STORED );
+        register( DEFLATE );
+        register( LZ );
+    }
+
+    private SnapshotCodecs() { }
+
+    public static synchronized void register(SnapshotCodec codec) {
+        int id = codec.getId() & 0xFF;
+        SnapshotCodec existing = codecsById[id];
+        if ( existing != null && existing != codec ) {
+            throw new IllegalArgumentException( "Codec id " + id + " is already used by " + existing.getName() );
+        }
+        codecsById[id] = codec;
+        codecsByName.put( codec.getName(), codec );
+    }
+
+    public static SnapshotCodec get(String name) {
+        SnapshotCodec codec = codecsByName.get( name.trim() );
+        if ( codec == null ) {
+            throw new IllegalArgumentException( "Unknown snapshot codec " + name );
+        }
+        return codec;
+    }
+
+    /**
+     * @return the codec configured for the given environment, or null if snapshots are to be written unframed
+     */
+    public static SnapshotCodec get(Environment env) {
+        Object value = env != null ? env.get( SNAPSHOT_CODEC_PROPERTY ) : null;
+        if ( value == null ) {
+            value = System.getProperty( SNAPSHOT_CODEC_PROPERTY );
+        }
+        if ( value == null ) {
+            return null;
+        }
+        return value instanceof SnapshotCodec ? (SnapshotCodec) value : get( value.toString() );
+    }
+
+    public static boolean isEncoded(byte[] snapshot) {
+        return snapshot != null && snapshot.length >= HEADER_LENGTH &&
+               snapshot[0] == MARKER && snapshot[1] == MAGIC_1 && snapshot[2] == MAGIC_2;
+    }
+
+    /**
+     * Encodes the snapshot with the given codec, falling back to the stored one when it would not get any smaller
+     */
+    public static byte[] encode(SnapshotCodec codec, byte[] snapshot) {
+        byte[] encoded = codec.encode( snapshot );
+        if ( encoded.length >= snapshot.length && codec != STORED ) {
+            codec = STORED;
+            encoded = snapshot;
+        }
+
+        byte[] result = new byte[HEADER_LENGTH + encoded.length];
+        result[0] = MARKER;
+        result[1] = MAGIC_1;
+        result[2] = MAGIC_2;
+        result[3] = FORMAT_VERSION;
+        result[4] = codec.getId();
+        writeInt( result, 5, snapshot.length );
+        writeInt( result, 9, checksum( snapshot ) );
+        System.arraycopy( encoded, 0, result, HEADER_LENGTH, encoded.length );
+        return result;
+    }
+
+    /**
+     * Decodes a snapshot written by {@link #encode(SnapshotCodec, byte[])}; snapshots without header are returned unchanged
+     */
+    public static byte[] decode(byte[] snapshot) {
+        if ( !isEncoded( snapshot ) ) {
+            return snapshot;
+        }
+        if ( snapshot[3] != FORMAT_VERSION ) {
+            throw new IllegalStateException( "Unsupported snapshot format version " + snapshot[3] );
+        }
+        SnapshotCodec codec = codecsById[snapshot[4] & 0xFF];
+        if ( codec == null ) {
+            throw new IllegalStateException( "Unknown snapshot codec id " + ( snapshot[4] & 0xFF ) );
+        }
+
+        byte[] result = new byte[readInt( snapshot, 5 )];
+        try {
+            codec.decode( snapshot, HEADER_LENGTH, snapshot.length - HEADER_LENGTH, result );
+        } catch ( RuntimeException e ) {
+            throw new IllegalStateException( "Corrupted session snapshot, unable to decode it with " + codec.getName(), e );
+        }
+        if ( checksum( result ) != readInt( snapshot, 9 ) ) {
+            throw new IllegalStateException( "Corrupted session snapshot, checksum mismatch after decoding it with " + codec.getName() );
+        }
+        return result;
+    }
+
+    private static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update( data, 0, data.length );
+        return (int) crc.getValue();
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) ( value >>> 24 );
+        target[offset + 1] = (byte) ( value >>> 16 );
+        target[offset + 2] = (byte) ( value >>> 8 );
+        target[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return ( source[offset] & 0xFF ) << 24 | ( source[offset + 1] & 0xFF ) << 16 |
+               ( source[offset + 2] & 0xFF ) << 8 | ( source[offset + 3] & 0xFF );
+    }
+
+    private static class StoredSnapshotCodec implements SnapshotCodec {
+
+        @Override
+        public byte getId() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "stored";
+        }
+
+        @Override
+        public byte[] encode(byte[] data) {
+            return data;
+        }
+
+        @Override
+        public void decode(byte[] source, int offset, int length, byte[] target) {
+            if ( length != target.length ) {
+                throw new IllegalStateException( "Expected " + target.length + " bytes but found " + length );
+            }
+            System.arraycopy( source, offset, target, 0, length );
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and latency figures of a {@link PersistableRunner} running in group commit mode.
+ * Latencies are measured from the moment a command is submitted until its transaction completed.
+ */
+public class GroupCommitStatistics {
+
+    private final AtomicLong groups = new AtomicLong();
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong failedGroups = new AtomicLong();
+    private final AtomicLong maxGroupSize = new AtomicLong();
+    private final AtomicLong totalCommitNanos = new AtomicLong();
+    private final AtomicLong completedCommands = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    void groupCommitted(int size, long commitNanos) {
+        groups.incrementAndGet();
+        commands.addAndGet( size );
+        maxGroupSize.accumulateAndGet( size, Math::max );
+        totalCommitNanos.addAndGet( commitNanos );
+    }
+
+    void groupFailed() {
+        failedGroups.incrementAndGet();
+    }
+
+    void commandCompleted(long latencyNanos) {
+        completedCommands.incrementAndGet();
+        totalLatencyNanos.addAndGet( latencyNanos );
+        maxLatencyNanos.accumulateAndGet( latencyNanos, Math::max );
+    }
+
+    /**
+     * @return the number of transactions committed on behalf of grouped commands
+     */
+    public long getGroupCount() {
+        return groups.get();
+    }
+
+    /**
+     * @return the number of commands committed as part of a group
+     */
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    /**
+     * @return the number of groups that were rolled back and whose commands were then run one transaction each
+     */
+    public long getFailedGroupCount() {
+        return failedGroups.get();
+    }
+
+    public double getAverageGroupSize() {
+        long count = groups.get();
+        return count == 0 ? 0 : (double) commands.get() / count;
+    }
+
+    public long getMaxGroupSize() {
+        return maxGroupSize.get();
+    }
+
+    /**
+     * @return the average time, in milliseconds, spent executing and committing a group
+     */
+    public double getAverageCommitTime() {
+        long count = groups.get();
+        return count == 0 ? 0 : toMillis( totalCommitNanos.get() ) / count;
+    }
+
+    /**
+     * @return the average time, in milliseconds, a caller waited for its command to be committed
+     */
+    public double getAverageLatency() {
+        long count = completedCommands.get();
+        return count == 0 ? 0 : toMillis( totalLatencyNanos.get() ) / count;
+    }
+
+    /**
+     * @return the longest time, in milliseconds, a caller waited for its command to be committed
+     */
+    public double getMaxLatency() {
+        return toMillis( maxLatencyNanos.get() );
+    }
+
+    public void reset() {
+        groups.set( 0 );
+        commands.set( 0 );
+        failedGroups.set( 0 );
+        maxGroupSize.set( 0 );
+        totalCommitNanos.set( 0 );
+        completedCommands.set( 0 );
+        totalLatencyNanos.set( 0 );
+        maxLatencyNanos.set( 0 );
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos( 1 );
+    }
+
+    @Override
+    public String toString() {
+        return "GroupCommitStatistics{" +
+               "groups=" + getGroupCount() +
+               ", commands=" + getCommandCount() +
+               ", failedGroups=" + getFailedGroupCount() +
+               ", averageGroupSize=" + getAverageGroupSize() +
+               ", averageLatency=" + getAverageLatency() + "ms" +
+               ", maxLatency=" + getMaxLatency() + "ms" +
+               '}';
+    }
+}
@@ -16,18 +16,28 @@
 package org.drools.persistence;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.drools.core.SessionConfiguration;
 import org.drools.core.command.EntryPointCreator;
 import org.drools.core.command.SingleSessionCommandService;
 import org.drools.core.command.impl.AbstractInterceptor;
 import org.drools.core.command.impl.CommandBasedEntryPoint;
+import org.drools.core.command.impl.RegistryContext;
+import org.drools.core.command.runtime.DisposeCommand;
+import org.drools.core.command.runtime.GetFactCountCommand;
+import org.drools.core.command.runtime.GetFactCountInEntryPointCommand;
+import org.drools.core.command.runtime.GetIdCommand;
+import org.drools.core.command.runtime.GetKieBaseCommand;
 import org.drools.core.common.EndOperationListener;
 import org.drools.core.common.InternalKnowledgeRuntime;
 import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.fluent.impl.Batch;
 import org.drools.core.fluent.impl.InternalExecutable;
 import org.drools.core.fluent.impl.PseudoClockRunner;
 import org.drools.core.impl.InternalKnowledgeBase;
@@ -43,14 +53,17 @@ import org.drools.persistence.api.PersistenceContext;
 import org.drools.persistence.api.PersistenceContextManager;
 import org.drools.persistence.api.SessionMarshallingHelper;
 import org.drools.persistence.api.SessionNotFoundException;
+import org.drools.persistence.api.SessionSnapshotIndex;
 import org.drools.persistence.api.TransactionAware;
 import org.drools.persistence.api.TransactionManager;
 import org.drools.persistence.api.TransactionManagerFactory;
 import org.drools.persistence.api.TransactionManagerHelper;
 import org.drools.persistence.info.SessionInfo;
 import org.drools.persistence.jpa.JpaPersistenceContextManager;
+import org.drools.persistence.jpa.JpaTimeJobFactoryManager;
 import org.drools.persistence.jpa.processinstance.JPAWorkItemManager;
 import org.kie.api.KieBase;
+import org.kie.api.command.Command;
 import org.kie.api.marshalling.ObjectMarshallingStrategy;
 import org.kie.api.runtime.Environment;
 import org.kie.api.runtime.EnvironmentName;
@@ -67,9 +80,39 @@ public class PersistableRunner implements SingleSessionCommandService {
 
     private static Logger              logger           = LoggerFactory.getLogger( PersistableRunner.class );
 
+    /**
+     * Maximum number of commands committed in a single transaction; any value above 1 enables group commit.
+     * It can be given as an environment entry or as a system property.
+     */
+    public static final String         GROUP_COMMIT_SIZE_PROPERTY   = "org.kie.persistence.groupcommit.size";
+
+    /**
+     * Milliseconds the first command of a group waits for further commands before the group is committed,
+     * 0 by default: a group is then made of the commands that arrived while the previous one was committing.
+     * It can be given as an environment entry or as a system property.
+     */
+    public static final String         GROUP_COMMIT_WINDOW_PROPERTY = "org.kie.persistence.groupcommit.window";
+
+    /**
+     * When true, loading a session only reads its SessionInfo: the snapshot is unmarshalled by the first command
+     * needing the session, while its identifier, kie base and fact counts are answered from the snapshot itself.
+     * Timers of the session are not scheduled until then.
+     * It can be given as an environment entry or as a system property.
+     */
+    public static final String         LAZY_LOAD_PROPERTY           = "org.kie.persistence.session.lazy";
+
+    /**
+     * Environment entry holding the {@link SessionCache} live sessions are released to when disposed, and looked
+     * up when loaded. Without it, the cache configured through {@link SessionCache#SIZE_PROPERTY} is used, if any.
+     */
+    public static final String         SESSION_CACHE                = "org.kie.persistence.session.cache";
+
     private SessionInfo                sessionInfo;
     private SessionMarshallingHelper   marshallingHelper;
 
+    // only set while a lazily loaded session has not been unmarshalled yet
+    private SessionSnapshotIndex       snapshotIndex;
+
     private KieSession                 ksession;
     private Environment                env;
     private ChainableRunner            runner;
@@ -79,6 +122,12 @@ public class PersistableRunner implements SingleSessionCommandService {
 
     private volatile boolean           doRollback;
 
+    private GroupCommitExecutor        groupCommit;
+
+    private SessionCache               sessionCache;
+
+    private SessionCache.SessionRegistrations registrations;
+
     private LinkedList<ChainableRunner> interceptors = new LinkedList<ChainableRunner>();
 
     public void checkEnvironment(Environment env) {
@@ -101,6 +150,10 @@ public class PersistableRunner implements SingleSessionCommandService {
 
         initTransactionManager( this.env );
 
+        initGroupCommit( this.env );
+
+        initSessionCache( this.env );
+
         initNewKnowledgeSession(kbase, conf);
 
         // Use the App scoped EntityManager if the user has provided it, and it is open.
@@ -136,6 +189,7 @@ public class PersistableRunner implements SingleSessionCommandService {
         // create session but bypass command service
         this.ksession = kbase.newKieSession( conf,
                                              this.env );
+        initRegistrations();
 
         initKieSessionMBeans(this.ksession);
 
@@ -151,9 +205,16 @@ public class PersistableRunner implements SingleSessionCommandService {
 
         this.runner = new TransactionInterceptor();
 
+        initTimerJobFactoryManager( this.ksession, this );
+    }
+
+    private void initTimerJobFactoryManager(KieSession ksession, PersistableRunner runner) {
         TimerJobFactoryManager timerJobFactoryManager = ((InternalKnowledgeRuntime) ksession ).getTimerService().getTimerJobFactoryManager();
         if (timerJobFactoryManager instanceof CommandServiceTimerJobFactoryManager) {
-           ( (CommandServiceTimerJobFactoryManager) timerJobFactoryManager ).setRunner( this );
+            ( (CommandServiceTimerJobFactoryManager) timerJobFactoryManager ).setRunner( runner );
+        }
+        if (timerJobFactoryManager instanceof JpaTimeJobFactoryManager && env.get( JpaTimeJobFactoryManager.TIMER_COALESCE_WINDOW_PROPERTY ) != null) {
+            ( (JpaTimeJobFactoryManager) timerJobFactoryManager ).setCoalesceWindow( getIntProperty( env, JpaTimeJobFactoryManager.TIMER_COALESCE_WINDOW_PROPERTY, 0 ) );
         }
     }
 
@@ -178,6 +239,10 @@ public class PersistableRunner implements SingleSessionCommandService {
 
         initTransactionManager( this.env );
 
+        initGroupCommit( this.env );
+
+        initSessionCache( this.env );
+
         // Open the entity manager before the transaction begins.
         PersistenceContext persistenceContext = jpm.getApplicationScopedPersistenceContext();
 
@@ -187,11 +252,18 @@ public class PersistableRunner implements SingleSessionCommandService {
             registerRollbackSync();
 
             persistenceContext.joinTransaction();
-            initExistingKnowledgeSession( sessionId,
-                          kbase,
-                          conf,
-                          persistenceContext );
-            registerUpdateSync();
+            if ( getBooleanProperty( env, LAZY_LOAD_PROPERTY ) ) {
+                initLazyKnowledgeSession( sessionId,
+                                          kbase,
+                                          conf,
+                                          persistenceContext );
+            } else {
+                initExistingKnowledgeSession( sessionId,
+                              kbase,
+                              conf,
+                              persistenceContext );
+                registerUpdateSync();
+            }
             txm.commit( transactionOwner );
         } catch (SessionNotFoundException e){
             // do not rollback transaction otherwise it will mark it as aborted
@@ -224,6 +296,51 @@ public class PersistableRunner implements SingleSessionCommandService {
         }
 
         this.doRollback = false;
+        findSessionInfo( sessionId,
+                         kbase,
+                         conf,
+                         persistenceContext );
+
+        this.sessionInfo.setJPASessionMashallingHelper(this.marshallingHelper);
+
+        SessionCache.CachedSession cached = this.ksession == null && this.sessionCache != null ?
+                                            this.sessionCache.take( this.sessionInfo.getId(), this.sessionInfo.getVersion(), this.marshallingHelper.getKbase(), this.env ) :
+                                            null;
+        if ( cached != null ) {
+            // the cached session is in the state of the snapshot found, as nobody committed it since it was released
+            this.ksession = cached.getKieSession();
+            this.registrations = cached.getRegistrations();
+            this.marshallingHelper.setObject( this.ksession );
+            initTimerJobFactoryManager( this.ksession, this );
+        } else {
+            boolean created = this.ksession == null;
+            // if this.ksession is null, it'll create a new one, else it'll use the existing one
+            this.ksession = this.marshallingHelper.loadSnapshot( this.sessionInfo.getData(), this.ksession, new JpaSessionInitializer(this) );
+            if ( created ) {
+                initRegistrations();
+            }
+        }
+
+        // update the session id to be the same as the session info id
+        InternalKnowledgeRuntime kruntime = ((InternalKnowledgeRuntime) ksession);
+        kruntime.setIdentifier( this.sessionInfo.getId() );
+        kruntime.setEndOperationListener( new EndOperationListenerImpl( this.txm, this.sessionInfo ) );
+
+        this.runner = new TransactionInterceptor();
+        // apply interceptors
+        Iterator<ChainableRunner> iterator = this.interceptors.descendingIterator();
+        while (iterator.hasNext()) {
+            addInterceptor(iterator.next(), false);
+        }
+
+        initKieSessionMBeans(this.ksession);
+        this.snapshotIndex = null;
+    }
+
+    private void findSessionInfo(Long sessionId,
+                                 KieBase kbase,
+                                 KieSessionConfiguration conf,
+                                 PersistenceContext persistenceContext) {
         try {
             // if locking is active, this will also lock the (found) SessionInfo instance
             this.sessionInfo = (SessionInfo) persistenceContext.findSession( sessionId );
@@ -245,25 +362,133 @@ public class PersistableRunner implements SingleSessionCommandService {
             config.setMarshallProcessInstances( false );
             config.setMarshallWorkItems( false );
         }
+    }
 
-        this.sessionInfo.setJPASessionMashallingHelper(this.marshallingHelper);
+    /**
+     * Reads the SessionInfo without unmarshalling its snapshot, which is left to the first transaction
+     * running a command that needs the session (see {@link #executeUnloaded(Executable, RequestContext)})
+     */
+    protected void initLazyKnowledgeSession(Long sessionId,
+                                            KieBase kbase,
+                                            KieSessionConfiguration conf,
+                                            PersistenceContext persistenceContext) {
+        findSessionInfo( sessionId,
+                         kbase,
+                         conf,
+                         persistenceContext );
+        this.snapshotIndex = SessionSnapshotIndex.of( this.sessionInfo.getData() );
+        this.runner = new TransactionInterceptor();
+    }
 
-        // if this.ksession is null, it'll create a new one, else it'll use the existing one
-        this.ksession = this.marshallingHelper.loadSnapshot( this.sessionInfo.getData(), this.ksession, new JpaSessionInitializer(this) );
+    /**
+     * Unmarshalls a lazily loaded session within its own transaction
+     */
+    private synchronized void materialize() {
+        if ( this.ksession != null ) {
+            return;
+        }
+        PersistenceContext persistenceContext = jpm.getApplicationScopedPersistenceContext();
 
-        // update the session id to be the same as the session info id
-        InternalKnowledgeRuntime kruntime = ((InternalKnowledgeRuntime) ksession);
-        kruntime.setIdentifier( this.sessionInfo.getId() );
-        kruntime.setEndOperationListener( new EndOperationListenerImpl( this.txm, this.sessionInfo ) );
+        boolean transactionOwner = false;
+        try {
+            transactionOwner = txm.begin();
+            registerRollbackSync();
 
-        this.runner = new TransactionInterceptor();
-        // apply interceptors
-        Iterator<ChainableRunner> iterator = this.interceptors.descendingIterator();
-        while (iterator.hasNext()) {
-            addInterceptor(iterator.next(), false);
+            persistenceContext.joinTransaction();
+            initExistingKnowledgeSession( this.sessionInfo.getId(),
+                                          this.marshallingHelper.getKbase(),
+                                          this.marshallingHelper.getConf(),
+                                          persistenceContext );
+            registerUpdateSync();
+            txm.commit( transactionOwner );
+        } catch ( RuntimeException re ) {
+            rollbackTransaction( re, transactionOwner );
+            throw re;
+        } catch ( Exception t1 ) {
+            rollbackTransaction( t1, transactionOwner );
+            throw new RuntimeException( "Wrapped exception see cause", t1 );
         }
+    }
 
-        initKieSessionMBeans(this.ksession);
+    /**
+     * Answers the single command of the given executable from the snapshot of a session that has not been
+     * unmarshalled yet, when that command only reads the metadata of the session.
+     * @return false when the command needs the session
+     */
+    private synchronized boolean executeUnloaded(Executable executable, RequestContext ctx) {
+        if ( this.ksession != null ) {
+            return false;
+        }
+        Command<?> command = getSingleCommand( executable );
+        Object result;
+        if ( command instanceof GetIdCommand ) {
+            result = this.sessionInfo.getId();
+        } else if ( command instanceof GetFactCountCommand ) {
+            result = this.snapshotIndex.getFactCount();
+        } else if ( command instanceof GetFactCountInEntryPointCommand ) {
+            String entryPoint = ( (GetFactCountInEntryPointCommand) command ).getEntryPoint();
+            if ( !this.snapshotIndex.getEntryPointIds().contains( entryPoint ) ) {
+                // let the session report the unknown entry point
+                return false;
+            }
+            result = this.snapshotIndex.getFactCount( entryPoint );
+        } else if ( command instanceof GetKieBaseCommand ) {
+            result = this.marshallingHelper.getKbase();
+        } else if ( command instanceof DisposeCommand ) {
+            dispose();
+            return true;
+        } else {
+            return false;
+        }
+        ctx.setResult( result );
+        return true;
+    }
+
+    private static Command<?> getSingleCommand(Executable executable) {
+        if ( !( executable instanceof InternalExecutable ) ) {
+            return null;
+        }
+        List<Batch> batches = ( (InternalExecutable) executable ).getBatches();
+        if ( batches.size() != 1 || batches.get( 0 ).getCommands().size() != 1 ) {
+            return null;
+        }
+        return batches.get( 0 ).getCommands().get( 0 );
+    }
+
+    /**
+     * Releases the session to the cache instead of disposing it, provided its state is the one last committed
+     * and it has no pending timer that could change it while cached
+     * @return false when the session has to be disposed
+     */
+    private synchronized boolean release() {
+        if ( this.ksession == null ) {
+            // already released, unless it is a lazily loaded session still to be unmarshalled
+            return this.snapshotIndex == null;
+        }
+        if ( this.doRollback || txm.getStatus() != TransactionManager.STATUS_NO_TRANSACTION ) {
+            return false;
+        }
+        InternalKnowledgeRuntime kruntime = (InternalKnowledgeRuntime) this.ksession;
+        if ( !kruntime.getTimerService().getTimerJobInstances( this.ksession.getIdentifier() ).isEmpty() ) {
+            return false;
+        }
+        if ( !this.sessionCache.release( this.sessionInfo.getId(), this.sessionInfo.getVersion(), this.ksession, this.registrations, this.marshallingHelper.getKbase(), this.env ) ) {
+            return false;
+        }
+        this.ksession = null;
+        this.interceptors.clear();
+        jpm.dispose();
+        return true;
+    }
+
+    /**
+     * Binds the session to a context created before the session was unmarshalled
+     */
+    private void bindContext(RequestContext context) {
+        if ( ( (RegistryContext) context ).lookup( KieSession.class ) == null ) {
+            context.with( this.ksession );
+            context.set( EntryPointCreator.class.getName(), new CommandBasedEntryPointCreator( runner ) );
+        }
     }
 
     public class JpaSessionInitializer implements KieSessionInitializer {
@@ -279,10 +504,7 @@ public class PersistableRunner implements SingleSessionCommandService {
             // The ExecutableRunner for the TimerJobFactoryManager must be set before any timer jobs are scheduled.
             // Otherwise, if overdue jobs are scheduled (and then run before the .executorDelegate field can be set),
             //  they will retrieve a null executorDelegate (instead of a reference to this) and fail.
-            TimerJobFactoryManager timerJobFactoryManager = ((InternalKnowledgeRuntime) ksession ).getTimerService().getTimerJobFactoryManager();
-            if (timerJobFactoryManager instanceof CommandServiceTimerJobFactoryManager) {
-                ( (CommandServiceTimerJobFactoryManager) timerJobFactoryManager ).setRunner( runner );
-            }
+            initTimerJobFactoryManager( ksession, runner );
         }
     }
 
@@ -344,6 +566,55 @@ public class PersistableRunner implements SingleSessionCommandService {
         }
     }
 
+    protected void initGroupCommit(Environment env) {
+        int size = getIntProperty( env, GROUP_COMMIT_SIZE_PROPERTY, 1 );
+        if ( size > 1 ) {
+            long window = getIntProperty( env, GROUP_COMMIT_WINDOW_PROPERTY, 0 );
+            this.groupCommit = new GroupCommitExecutor( size, TimeUnit.MILLISECONDS.toNanos( window ) );
+        }
+    }
+
+    private void initRegistrations() {
+        if ( this.sessionCache != null ) {
+            this.registrations = new SessionCache.SessionRegistrations( this.ksession );
+        }
+    }
+
+    protected void initSessionCache(Environment env) {
+        if ( Boolean.TRUE.equals( env.get( EnvironmentName.USE_PESSIMISTIC_LOCKING ) ) ) {
+            // the version of a SessionInfo is then incremented by every lookup, so it cannot tell whether it changed
+            return;
+        }
+        Object cache = env.get( SESSION_CACHE );
+        this.sessionCache = cache instanceof SessionCache ? (SessionCache) cache : SessionCache.getShared();
+    }
+
+    private static int getIntProperty(Environment env, String name, int defaultValue) {
+        Object value = env.get( name );
+        if ( value == null ) {
+            value = System.getProperty( name );
+        }
+        if ( value == null ) {
+            return defaultValue;
+        }
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt( value.toString().trim() );
+    }
+
+    private static boolean getBooleanProperty(Environment env, String name) {
+        Object value = env.get( name );
+        if ( value == null ) {
+            value = System.getProperty( name );
+        }
+        return value != null && Boolean.parseBoolean( value.toString().trim() );
+    }
+
+    /**
+     * @return the figures of the group commit mode, or null when it is not enabled
+     */
+    public GroupCommitStatistics getGroupCommitStatistics() {
+        return groupCommit != null ? groupCommit.statistics : null;
+    }
+
     private static String SPRING_TM_CLASSNAME = "org.springframework.transaction.support.AbstractPlatformTransactionManager";
 
     public static boolean isSpringTransactionManager( Class<?> clazz ) {
@@ -372,6 +643,10 @@ public class PersistableRunner implements SingleSessionCommandService {
     }
 
     public RequestContext createContext() {
+        if ( ksession == null ) {
+            // bound once the session gets unmarshalled, see bindContext
+            return RequestContext.create( getClass().getClassLoader() );
+        }
         RequestContext context = RequestContext.create(ksession.getClass().getClassLoader()).with( this.ksession );
         context.set( EntryPointCreator.class.getName(), new CommandBasedEntryPointCreator(runner) );
         return context;
@@ -394,8 +669,20 @@ public class PersistableRunner implements SingleSessionCommandService {
     }
 
     @Override
-    public synchronized RequestContext execute( Executable executable, RequestContext ctx ) {
-        runner.execute( executable, ctx );
+    public RequestContext execute( Executable executable, RequestContext ctx ) {
+        if ( snapshotIndex != null && executeUnloaded( executable, ctx ) ) {
+            return ctx;
+        }
+        if ( sessionCache != null && getSingleCommand( executable ) instanceof DisposeCommand && release() ) {
+            return ctx;
+        }
+        if ( groupCommit != null && groupCommit.accepts( executable ) ) {
+            groupCommit.submit( executable, ctx );
+            return ctx;
+        }
+        synchronized ( this ) {
+            runner.execute( executable, ctx );
+        }
         return ctx;
     }
 
@@ -530,7 +817,17 @@ public class PersistableRunner implements SingleSessionCommandService {
         }
     }
 
+    /**
+     * @return false while a lazily loaded session has not been unmarshalled yet
+     */
+    public synchronized boolean isLoaded() {
+        return this.ksession != null;
+    }
+
     public KieSession getKieSession() {
+        if ( this.ksession == null ) {
+            materialize();
+        }
         return this.ksession;
     }
 
@@ -567,6 +864,10 @@ public class PersistableRunner implements SingleSessionCommandService {
         @Override
         public RequestContext execute( Executable executable, RequestContext context ) {
             if ( !( (InternalExecutable) executable ).canRunInTransaction() ) {
+                if ( ksession == null ) {
+                    materialize();
+                }
+                bindContext( context );
                 executeNext(executable, context);
                 jpm.dispose();
                 return context;
@@ -585,6 +886,7 @@ public class PersistableRunner implements SingleSessionCommandService {
                         marshallingHelper.getKbase(),
                         marshallingHelper.getConf(),
                         persistenceContext );
+                bindContext( context );
 
                 jpm.beginCommandScopedEntityManager();
 
@@ -614,4 +916,208 @@ public class PersistableRunner implements SingleSessionCommandService {
         }
     }
 
+    /**
+     * Coalesces the commands submitted concurrently to this runner into fewer transactions, and so into fewer
+     * snapshots of the session. The first command of a group leads it: its caller waits up to the configured window
+     * for the group to fill, runs the commands of the group in arrival order within one transaction and then hands
+     * the lead over to the first command of the next group.
+     * <p>
+     * Durability is the same as without grouping: a caller returns only once the transaction holding its command has
+     * committed. When a group fails it is rolled back as a whole and its commands are run again, one transaction each,
+     * so that every caller gets the outcome of its own command; as with the optimistic lock retries, a command can
+     * then be executed twice. Commands issued within a transaction of the caller join that transaction and are never
+     * grouped.
+     */
+    private class GroupCommitExecutor {
+
+        private final int                       maxSize;
+        private final long                      windowNanos;
+        private final GroupCommitStatistics     statistics = new GroupCommitStatistics();
+
+        private final LinkedList<GroupedCommand> queue     = new LinkedList<GroupedCommand>();
+        private boolean                         leaderActive;
+
+        private GroupCommitExecutor(int maxSize, long windowNanos) {
+            this.maxSize = maxSize;
+            this.windowNanos = windowNanos;
+        }
+
+        private boolean accepts(Executable executable) {
+            return ( (InternalExecutable) executable ).canRunInTransaction() &&
+                   !Thread.holdsLock( PersistableRunner.this ) &&
+                   txm.getStatus() == TransactionManager.STATUS_NO_TRANSACTION;
+        }
+
+        private void submit(Executable executable, RequestContext context) {
+            GroupedCommand command = new GroupedCommand( executable, context );
+            synchronized ( queue ) {
+                queue.add( command );
+                if ( !leaderActive ) {
+                    leaderActive = true;
+                    command.leader = true;
+                } else if ( queue.size() >= maxSize ) {
+                    queue.notifyAll();
+                }
+            }
+
+            if ( command.awaitTurn() ) {
+                lead();
+            }
+            statistics.commandCompleted( System.nanoTime() - command.submitted );
+            command.rethrow();
+        }
+
+        private void lead() {
+            List<GroupedCommand> group = new ArrayList<GroupedCommand>( maxSize );
+            boolean interrupted = false;
+            synchronized ( queue ) {
+                long deadline = System.nanoTime() + windowNanos;
+                long remaining = windowNanos;
+                while ( queue.size() < maxSize && remaining > 0 ) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait( queue, remaining );
+                    } catch ( InterruptedException e ) {
+                        interrupted = true;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+                while ( group.size() < maxSize && !queue.isEmpty() ) {
+                    group.add( queue.poll() );
+                }
+            }
+
+            try {
+                commit( group );
+            } catch ( Throwable t ) {
+                for ( GroupedCommand command : group ) {
+                    if ( !command.committed && command.failure == null ) {
+                        command.failure = t;
+                    }
+                }
+            } finally {
+                GroupedCommand next;
+                synchronized ( queue ) {
+                    next = queue.peek();
+                    if ( next == null ) {
+                        leaderActive = false;
+                    }
+                }
+                for ( GroupedCommand command : group ) {
+                    command.complete();
+                }
+                if ( next != null ) {
+                    next.promote();
+                }
+                if ( interrupted ) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void commit(List<GroupedCommand> group) {
+            synchronized ( PersistableRunner.this ) {
+                if ( group.size() > 1 ) {
+                    if ( commitTogether( group ) ) {
+                        return;
+                    }
+                    statistics.groupFailed();
+                }
+                for ( GroupedCommand command : group ) {
+                    long start = System.nanoTime();
+                    try {
+                        runner.execute( command.executable, command.context );
+                        command.committed = true;
+                        statistics.groupCommitted( 1, System.nanoTime() - start );
+                    } catch ( Exception e ) {
+                        command.failure = e;
+                    }
+                }
+            }
+        }
+
+        private boolean commitTogether(List<GroupedCommand> group) {
+            long start = System.nanoTime();
+            PersistenceContext persistenceContext = jpm.getApplicationScopedPersistenceContext();
+            boolean transactionOwner = false;
+            try {
+                transactionOwner = txm.begin();
+
+                persistenceContext.joinTransaction();
+
+                for ( GroupedCommand command : group ) {
+                    // each command joins the transaction of the group through the TransactionInterceptor
+                    runner.execute( command.executable, command.context );
+                }
+
+                txm.commit( transactionOwner );
+            } catch ( Exception e ) {
+                rollbackTransaction( e, transactionOwner );
+                return false;
+            }
+
+            for ( GroupedCommand command : group ) {
+                command.committed = true;
+            }
+            statistics.groupCommitted( group.size(), System.nanoTime() - start );
+            return true;
+        }
+    }
+
+    private static class GroupedCommand {
+
+        private final Executable     executable;
+        private final RequestContext context;
+        private final long           submitted = System.nanoTime();
+
+        private boolean              leader;
+        private boolean              done;
+        private boolean              committed;
+        private Throwable            failure;
+
+        private GroupedCommand(Executable executable, RequestContext context) {
+            this.executable = executable;
+            this.context = context;
+        }
+
+        /**
+         * Waits until either this command has been committed by the leader of its group, or the lead has been
+         * handed over to it. Returns true in the latter case.
+         */
+        private synchronized boolean awaitTurn() {
+            boolean interrupted = false;
+            while ( !leader && !done ) {
+                try {
+                    wait();
+                } catch ( InterruptedException e ) {
+                    // the command may already be running, so it cannot be abandoned
+                    interrupted = true;
+                }
+            }
+            if ( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+            return !done;
+        }
+
+        private synchronized void promote() {
+            leader = true;
+            notifyAll();
+        }
+
+        private synchronized void complete() {
+            done = true;
+            notifyAll();
+        }
+
+        private void rethrow() {
+            if ( failure instanceof RuntimeException ) {
+                throw (RuntimeException) failure;
+            } else if ( failure instanceof Error ) {
+                throw (Error) failure;
+            } else if ( failure != null ) {
+                throw new RuntimeException( "Wrapped exception see cause", failure );
+            }
+        }
+    }
+
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.runtime.process.InternalProcessRuntime;
+import org.kie.api.KieBase;
+import org.kie.api.event.process.ProcessEventListener;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.KieSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the live sessions released by the {@link PersistableRunner}s sharing it, so that reloading one of them
+ * in the same JVM does not unmarshall its snapshot again.
+ * <p>
+ * Every session is cached along with the version of its SessionInfo at the time of its last commit: it is handed
+ * out again only if the SessionInfo found when reloading still has that version, i.e. if no other runner or node
+ * committed the session since, and only to a runner using the same kie base and environment. A session is owned
+ * by a single runner at a time, it is removed from the cache when handed out. Sessions idle for longer than the
+ * configured time, or exceeding the configured size in least recently used order, are disposed.
+ * <p>
+ * The event listeners, globals and channels registered by the runner releasing a session are removed from it,
+ * so that the next runner gets it as if it was unmarshalled from its snapshot.
+ */
+public class SessionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger( SessionCache.class );
+
+    /**
+     * Size of the cache shared by the runners whose environment does not provide its own cache, 0 by default
+     * meaning that such runners use no cache at all
+     */
+    public static final String SIZE_PROPERTY = "org.kie.persistence.session.cache.size";
+
+    /**
+     * Milliseconds after which an unused session is evicted from the shared cache, 5 minutes by default
+     */
+    public static final String IDLE_PROPERTY = "org.kie.persistence.session.cache.idle";
+
+    private static SessionCache shared;
+
+    private final int maxSize;
+    private final long maxIdleNanos;
+
+    private final LinkedHashMap<Long, CachedSession> sessions = new LinkedHashMap<Long, CachedSession>( 16, 0.75f, true );
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SessionCache(int maxSize, long maxIdle, TimeUnit unit) {
+        if ( maxSize < 1 ) {
+            throw new IllegalArgumentException( "The size of a session cache must be positive" );
+        }
+        this.maxSize = maxSize;
+        this.maxIdleNanos = unit.toNanos( maxIdle );
+    }
+
+    /**
+     * @return the cache configured through the system properties, or null when it is not enabled
+     */
+    public static synchronized SessionCache getShared() {
+        if ( shared == null ) {
+            int size = Integer.getInteger( SIZE_PROPERTY, 0 );
+            if ( size > 0 ) {
+                shared = new SessionCache( size, Long.getLong( IDLE_PROPERTY, TimeUnit.MINUTES.toMillis( 5 ) ), TimeUnit.MILLISECONDS );
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Removes the given session from the cache and returns it, if it was released at the given version
+     * of its SessionInfo by a runner sharing the given kie base and environment
+     * @return null when no matching session is cached
+     */
+    CachedSession take(Long sessionId, int version, KieBase kbase, Environment env) {
+        List<KieSession> evicted = new ArrayList<KieSession>();
+        CachedSession cached;
+        synchronized ( sessions ) {
+            evictIdle( System.nanoTime(), evicted );
+            cached = sessions.remove( sessionId );
+        }
+        if ( cached != null && cached.version == version && cached.kbase == kbase && cached.env == env ) {
+            hits.incrementAndGet();
+        } else {
+            if ( cached != null ) {
+                // modified elsewhere since it was released, or meant for another kie base or environment
+                evicted.add( cached.ksession );
+                cached = null;
+            }
+            misses.incrementAndGet();
+        }
+        dispose( evicted );
+        return cached;
+    }
+
+    /**
+     * Caches a session whose SessionInfo was committed at the given version, after removing the registrations
+     * made since it was loaded
+     * @return false when the registrations could not be removed, the session was not cached then
+     */
+    boolean release(Long sessionId, int version, KieSession ksession, SessionRegistrations registrations, KieBase kbase, Environment env) {
+        if ( !registrations.revert( ksession, env ) ) {
+            return false;
+        }
+        List<KieSession> evicted = new ArrayList<KieSession>();
+        synchronized ( sessions ) {
+            long now = System.nanoTime();
+            evictIdle( now, evicted );
+            CachedSession previous = sessions.put( sessionId, new CachedSession( version, ksession, registrations, kbase, env, now ) );
+            if ( previous != null && previous.ksession != ksession ) {
+                evicted.add( previous.ksession );
+            }
+            Iterator<CachedSession> iterator = sessions.values().iterator();
+            while ( sessions.size() > maxSize ) {
+                evicted.add( iterator.next().ksession );
+                iterator.remove();
+            }
+        }
+        dispose( evicted );
+        return true;
+    }
+
+    /**
+     * Disposes the sessions that have not been used for longer than the configured idle time
+     */
+    public void evictIdle() {
+        List<KieSession> evicted = new ArrayList<KieSession>();
+        synchronized ( sessions ) {
+            evictIdle( System.nanoTime(), evicted );
+        }
+        dispose( evicted );
+    }
+
+    private void evictIdle(long now, List<KieSession> evicted) {
+        // sessions are only ever put or removed, so iteration follows the release order
+        Iterator<CachedSession> iterator = sessions.values().iterator();
+        while ( iterator.hasNext() ) {
+            CachedSession cached = iterator.next();
+            if ( now - cached.released < maxIdleNanos ) {
+                break;
+            }
+            evicted.add( cached.ksession );
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Disposes all the cached sessions
+     */
+    public void clear() {
+        List<KieSession> evicted = new ArrayList<KieSession>();
+        synchronized ( sessions ) {
+            for ( CachedSession cached : sessions.values() ) {
+                evicted.add( cached.ksession );
+            }
+            sessions.clear();
+        }
+        dispose( evicted );
+    }
+
+    private void dispose(List<KieSession> evicted) {
+        for ( KieSession ksession : evicted ) {
+            evictions.incrementAndGet();
+            try {
+                ksession.dispose();
+            } catch ( RuntimeException e ) {
+                logger.warn( "Could not dispose evicted session", e );
+            }
+        }
+    }
+
+    public int size() {
+        synchronized ( sessions ) {
+            return sessions.size();
+        }
+    }
+
+    /**
+     * @return the number of reloads that reused a cached session
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of reloads that had to unmarshall the snapshot of the session
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of cached sessions that were disposed, either because they expired or were outdated
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    static class CachedSession {
+
+        private final int                  version;
+        private final KieSession           ksession;
+        private final SessionRegistrations registrations;
+        private final KieBase              kbase;
+        private final Environment          env;
+        private final long                 released;
+
+        private CachedSession(int version, KieSession ksession, SessionRegistrations registrations, KieBase kbase, Environment env, long released) {
+            this.version = version;
+            this.ksession = ksession;
+            this.registrations = registrations;
+            this.kbase = kbase;
+            this.env = env;
+            this.released = released;
+        }
+
+        KieSession getKieSession() {
+            return ksession;
+        }
+
+        SessionRegistrations getRegistrations() {
+            return registrations;
+        }
+    }
+
+    /**
+     * The event listeners a session had right after being loaded, e.g. the ones of its process runtime, as opposed
+     * to the ones registered by the runner using it
+     */
+    static class SessionRegistrations {
+
+        private final Set<AgendaEventListener>      agendaListeners;
+        private final Set<RuleRuntimeEventListener> ruleRuntimeListeners;
+        private final InternalProcessRuntime        processRuntime;
+        private final Set<ProcessEventListener>     processListeners;
+
+        SessionRegistrations(KieSession ksession) {
+            this.agendaListeners = identitySet( ksession.getAgendaEventListeners() );
+            this.ruleRuntimeListeners = identitySet( ksession.getRuleRuntimeEventListeners() );
+            this.processRuntime = ( (InternalWorkingMemory) ksession ).internalGetProcessRuntime();
+            this.processListeners = processRuntime != null ?
+                                    identitySet( processRuntime.getProcessEventListeners() ) :
+                                    Collections.<ProcessEventListener>emptySet();
+        }
+
+        /**
+         * Removes the listeners registered since the session was loaded, its globals, unless they are provided by
+         * the environment, and its channels
+         * @return false when the process runtime was started or got new listeners since, as its own listeners
+         * cannot be told from the ones registered by the runner
+         */
+        boolean revert(KieSession ksession, Environment env) {
+            InternalWorkingMemory wm = (InternalWorkingMemory) ksession;
+            InternalProcessRuntime currentProcessRuntime = wm.internalGetProcessRuntime();
+            if ( currentProcessRuntime != processRuntime ||
+                 ( processRuntime != null && !processListeners.containsAll( identitySet( processRuntime.getProcessEventListeners() ) ) ) ) {
+                return false;
+            }
+            for ( AgendaEventListener listener : new ArrayList<AgendaEventListener>( ksession.getAgendaEventListeners() ) ) {
+                if ( !agendaListeners.contains( listener ) ) {
+                    ksession.removeEventListener( listener );
+                }
+            }
+            for ( RuleRuntimeEventListener listener : new ArrayList<RuleRuntimeEventListener>( ksession.getRuleRuntimeEventListeners() ) ) {
+                if ( !ruleRuntimeListeners.contains( listener ) ) {
+                    ksession.removeEventListener( listener );
+                }
+            }
+            if ( env.get( EnvironmentName.GLOBALS ) == null ) {
+                wm.getGlobalResolver().clear();
+            }
+            for ( String channel : new ArrayList<String>( ksession.getChannels().keySet() ) ) {
+                ksession.unregisterChannel( channel );
+            }
+            return true;
+        }
+
+        private static <T> Set<T> identitySet(Collection<T> elements) {
+            Set<T> set = Collections.newSetFromMap( new IdentityHashMap<T, Boolean>() );
+            set.addAll( elements );
+            return set;
+        }
+    }
+}
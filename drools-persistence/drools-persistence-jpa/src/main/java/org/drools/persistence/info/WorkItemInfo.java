@@ -83,6 +83,18 @@ public class WorkItemInfo implements PersistentWorkItem {
         this.env = env;
     }
 
+    /**
+     * Restores a work item from the fields it was persisted with, for storages not backed by JPA
+     */
+    public WorkItemInfo(Long id, String name, Date creationDate, long processInstanceId, long state, byte[] workItemByteArray) {
+        this.workItemId = id;
+        this.name = name;
+        this.creationDate = creationDate;
+        this.processInstanceId = processInstanceId;
+        this.state = state;
+        this.workItemByteArray = workItemByteArray;
+    }
+
     public Long getId() {
         return workItemId;
     }
@@ -15,6 +15,9 @@
 
 package org.drools.persistence.jpa;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.kie.api.command.ExecutableCommand;
 import org.kie.api.runtime.Context;
 
@@ -24,15 +27,25 @@ public class JDKCallableJobCommand
 
     private static final long   serialVersionUID = 4L;
 
-    private JpaTimerJobInstance job;
+    private List<JpaTimerJobInstance> jobs;
 
     public JDKCallableJobCommand(JpaTimerJobInstance job) {
-        this.job = job;
+        this.jobs = Collections.singletonList( job );
+    }
+
+    /**
+     * Fires the given jobs, in order, within a single command
+     */
+    public JDKCallableJobCommand(List<JpaTimerJobInstance> jobs) {
+        this.jobs = jobs;
     }
 
     public Void execute(Context context) {
         try {
-            return job.internalCall();
+            for ( JpaTimerJobInstance job : jobs ) {
+                job.internalCall();
+            }
+            return null;
         } catch ( Exception e ) {
             throw new RuntimeException(e);
         }
@@ -15,6 +15,13 @@
 
 package org.drools.persistence.jpa;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Future;
+
 import org.kie.api.runtime.ExecutableRunner;
 import org.drools.core.time.InternalSchedulerService;
 import org.drools.core.time.Job;
@@ -23,15 +30,35 @@ import org.drools.core.time.JobHandle;
 import org.drools.core.time.SelfRemovalJob;
 import org.drools.core.time.Trigger;
 import org.drools.core.time.impl.CommandServiceTimerJobFactoryManager;
+import org.drools.core.time.impl.JDKTimerService.JDKJobHandle;
 import org.drools.core.time.impl.ThreadSafeTrackableTimeJobFactoryManager;
 import org.drools.core.time.impl.TimerJobInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JpaTimeJobFactoryManager
         extends ThreadSafeTrackableTimeJobFactoryManager
         implements CommandServiceTimerJobFactoryManager {
 
+    private static Logger logger = LoggerFactory.getLogger( JpaTimeJobFactoryManager.class );
+
+    /**
+     * Milliseconds ahead of its firing within which the other timers of the session are fired together with it,
+     * in a single command and then a single transaction and session snapshot. 0, the default, disables coalescing.
+     * It can be given as an environment entry or as a system property.
+     * <p>
+     * Coalesced timers fire early, by up to this window: it should be kept well below the precision the rules
+     * expect from their timers. Only the first pending occurrence of a timer can fire early; once a timer has
+     * fired, its later occurrences (e.g. those of an interval timer) are only coalesced when they are due.
+     */
+    public static final String TIMER_COALESCE_WINDOW_PROPERTY = "org.kie.persistence.timer.coalesce.window";
+
+    private static final Comparator<JpaTimerJobInstance> BY_FIRE_TIME = Comparator.comparing( JpaTimerJobInstance::getClaimedFireTime );
+
     private ExecutableRunner runner;
 
+    private volatile long coalesceWindow = Long.getLong( TIMER_COALESCE_WINDOW_PROPERTY, 0 );
+
     public void setRunner(ExecutableRunner runner ) {
         this.runner = runner;
     }
@@ -40,6 +67,14 @@ public class JpaTimeJobFactoryManager
         return runner;
     }
 
+    public long getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
     public TimerJobInstance createTimerJobInstance(Job job,
                                                    JobContext ctx,
                                                    Trigger trigger,
@@ -53,4 +88,58 @@ public class JpaTimeJobFactoryManager
                                         handle,
                                         scheduler );
     }
+
+    void fire(JpaTimerJobInstance job) {
+        // timers driven by a pseudo clock fire synchronously when the clock is advanced and are never coalesced
+        if ( coalesceWindow <= 0 || !(job.getJobHandle() instanceof JDKJobHandle) ) {
+            runner.execute( new JDKCallableJobCommand( job ) );
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long limit = now + coalesceWindow;
+        Date fireTime = job.getTrigger().hasNextFireTime();
+        if ( fireTime == null || fireTime.getTime() > limit || !job.claim( fireTime ) ) {
+            // already fired as part of the batch of another timer, possibly with its trigger moved to a later time
+            return;
+        }
+
+        List<JpaTimerJobInstance> batch = collectDueJobs( job, now, limit );
+        if ( batch.size() > 1 && logger.isDebugEnabled() ) {
+            logger.debug( "Firing {} coalesced timers in a single command", batch.size() );
+        }
+        runner.execute( new JDKCallableJobCommand( batch ) );
+    }
+
+    /**
+     * Claims the timers of this session due before the given limit, taking them off the scheduler. Timers that
+     * have already fired are only claimed when their next occurrence is due by now, so that an occurrence is
+     * never fired early after another one. The resulting batch starts with the given job, already claimed,
+     * and is sorted by fire time.
+     */
+    private List<JpaTimerJobInstance> collectDueJobs(JpaTimerJobInstance job, long now, long limit) {
+        List<JpaTimerJobInstance> batch = new ArrayList<JpaTimerJobInstance>();
+        for ( TimerJobInstance instance : getTimerJobInstances() ) {
+            if ( instance == job || !(instance instanceof JpaTimerJobInstance) || !(instance.getJobHandle() instanceof JDKJobHandle)
+                 || instance.getJobHandle().isCancel() ) {
+                continue;
+            }
+            JpaTimerJobInstance jpaInstance = (JpaTimerJobInstance) instance;
+            Date next = instance.getTrigger().hasNextFireTime();
+            if ( next == null || next.getTime() > (jpaInstance.getClaimedFireTime() != null ? now : limit) ) {
+                continue;
+            }
+            if ( jpaInstance.claim( next ) ) {
+                Future<?> future = ((JDKJobHandle) instance.getJobHandle()).getFuture();
+                if ( future != null ) {
+                    // if it is too late the job will find itself already claimed and skip its own firing
+                    future.cancel( false );
+                }
+                batch.add( jpaInstance );
+            }
+        }
+        Collections.sort( batch, BY_FIRE_TIME );
+        batch.add( 0, job );
+        return batch;
+    }
 }
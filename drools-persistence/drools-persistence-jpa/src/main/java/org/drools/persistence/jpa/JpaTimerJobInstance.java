@@ -15,6 +15,9 @@
 
 package org.drools.persistence.jpa;
 
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.kie.api.runtime.ExecutableRunner;
 import org.drools.core.time.InternalSchedulerService;
 import org.drools.core.time.Job;
@@ -30,6 +33,9 @@ import org.slf4j.LoggerFactory;
 public class JpaTimerJobInstance extends DefaultTimerJobInstance {       
 
     private static Logger logger = LoggerFactory.getLogger( JpaTimerJobInstance.class );
+
+    // the fire time this instance has last been claimed for, when timers are coalesced
+    private final AtomicReference<Date> claimedFireTime = new AtomicReference<Date>();
     
     public JpaTimerJobInstance(Job job,
                                JobContext ctx,
@@ -45,8 +51,13 @@ public class JpaTimerJobInstance extends DefaultTimerJobInstance {
 
     public Void call() throws Exception {
         try { 
+            CommandServiceTimerJobFactoryManager manager = (CommandServiceTimerJobFactoryManager) ( (TimerService) scheduler ).getTimerJobFactoryManager();
+            if ( manager instanceof JpaTimeJobFactoryManager ) {
+                ( (JpaTimeJobFactoryManager) manager ).fire( this );
+                return null;
+            }
             JDKCallableJobCommand command = new JDKCallableJobCommand( this );
-            ExecutableRunner runner = ( (CommandServiceTimerJobFactoryManager) ( (TimerService) scheduler ).getTimerJobFactoryManager() ).getRunner();
+            ExecutableRunner runner = manager.getRunner();
             runner.execute( command );
             return null;
         } catch( Exception e ) { 
@@ -58,4 +69,16 @@ public class JpaTimerJobInstance extends DefaultTimerJobInstance {
     Void internalCall() throws Exception {
         return super.call();
     }
+
+    /**
+     * @return true if this instance wasn't already claimed for the given fire time
+     */
+    boolean claim(Date fireTime) {
+        Date current = claimedFireTime.get();
+        return !fireTime.equals( current ) && claimedFireTime.compareAndSet( current, fireTime );
+    }
+
+    Date getClaimedFireTime() {
+        return claimedFireTime.get();
+    }
 }
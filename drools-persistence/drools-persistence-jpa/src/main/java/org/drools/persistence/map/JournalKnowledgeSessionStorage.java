@@ -0,0 +1,528 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.drools.persistence.api.PersistentSession;
+import org.drools.persistence.api.PersistentWorkItem;
+import org.drools.persistence.info.SessionInfo;
+import org.drools.persistence.info.WorkItemInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A durable {@link KnowledgeSessionStorage} appending the session snapshots and the work items to a local,
+ * memory-mapped journal file, to be used through a {@link KnowledgeSessionStorageEnvironmentBuilder} where a
+ * database is not available.
+ * <p>
+ * Every record holds its length and CRC32 checksum, so that an incomplete record left by a crash ends the journal
+ * when it is reopened. Only the latest record of each session and work item is live: the journal is rewritten with
+ * the live records alone once the superseded ones exceed the configured share of it, above a minimum size.
+ * <p>
+ * A write is in the page cache, and so survives a crash of the process, as soon as it returns. The {@link SyncPolicy}
+ * decides when it is also forced to the disk, to survive a crash of the machine. The journal is limited to 2GB and
+ * can be opened by a single storage at a time.
+ */
+public class JournalKnowledgeSessionStorage
+    implements
+    KnowledgeSessionStorage,
+    Closeable {
+
+    public enum SyncPolicy {
+        /** every write is forced to the disk before returning */
+        ALWAYS,
+        /** writes are forced to the disk by the first write following the sync interval, and when closing */
+        INTERVAL,
+        /** writes are forced to the disk only when closing, leaving the rest to the operating system */
+        NEVER
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger( JournalKnowledgeSessionStorage.class );
+
+    private static final int  MAGIC                 = 0x444A524E;
+    private static final int  FORMAT_VERSION        = 1;
+    // magic, version, next session id, next work item id
+    private static final int  FILE_HEADER_LENGTH    = 24;
+    // length and checksum of the body
+    private static final int  RECORD_HEADER_LENGTH  = 8;
+    // type and id
+    private static final int  BODY_HEADER_LENGTH    = 9;
+    private static final int  INITIAL_CAPACITY      = 1 << 20;
+
+    private static final byte SESSION               = 1;
+    private static final byte WORK_ITEM             = 2;
+    private static final byte WORK_ITEM_REMOVED     = 3;
+
+    private final File                file;
+    private RandomAccessFile          lockFile;
+    private FileLock                  lock;
+    private FileChannel               channel;
+    private MappedByteBuffer          buffer;
+    private int                       position;
+    private boolean                   closed;
+
+    private final Map<Long, Integer>  sessions          = new HashMap<Long, Integer>();
+    private final Map<Long, Integer>  workItems         = new HashMap<Long, Integer>();
+    private long                      liveBytes;
+    private long                      nextSessionId     = 1;
+    private long                      nextWorkItemId    = 1;
+
+    private SyncPolicy                syncPolicy        = SyncPolicy.ALWAYS;
+    private long                      syncInterval      = 1000;
+    private long                      lastSync;
+    private boolean                   dirty;
+
+    private double                    compactionRatio   = 0.5;
+    private int                       compactionMinSize = 4 * INITIAL_CAPACITY;
+
+    public JournalKnowledgeSessionStorage(File file) {
+        this.file = file;
+        try {
+            this.lockFile = new RandomAccessFile( new File( file.getPath() + ".lock" ), "rw" );
+            try {
+                this.lock = lockFile.getChannel().tryLock();
+            } catch ( OverlappingFileLockException e ) {
+                this.lock = null;
+            }
+            if ( this.lock == null ) {
+                lockFile.close();
+                throw new IllegalStateException( "Journal " + file + " is already in use" );
+            }
+            open();
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to open journal " + file, e );
+        }
+    }
+
+    private void open() throws IOException {
+        this.channel = FileChannel.open( file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+        long size = channel.size();
+        if ( size > Integer.MAX_VALUE ) {
+            throw new IllegalStateException( "Journal " + file + " exceeds 2GB" );
+        }
+        this.buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, Math.max( size, INITIAL_CAPACITY ) );
+        this.sessions.clear();
+        this.workItems.clear();
+        this.liveBytes = 0;
+
+        if ( size < FILE_HEADER_LENGTH ) {
+            buffer.putInt( 0, MAGIC );
+            buffer.putInt( 4, FORMAT_VERSION );
+            buffer.putLong( 8, nextSessionId );
+            buffer.putLong( 16, nextWorkItemId );
+            this.position = FILE_HEADER_LENGTH;
+            buffer.force();
+        } else {
+            if ( buffer.getInt( 0 ) != MAGIC ) {
+                throw new IllegalStateException( file + " is not a session journal" );
+            }
+            if ( buffer.getInt( 4 ) != FORMAT_VERSION ) {
+                throw new IllegalStateException( "Unsupported version " + buffer.getInt( 4 ) + " of journal " + file );
+            }
+            this.nextSessionId = Math.max( nextSessionId, buffer.getLong( 8 ) );
+            this.nextWorkItemId = Math.max( nextWorkItemId, buffer.getLong( 16 ) );
+            recover();
+        }
+        this.lastSync = System.currentTimeMillis();
+    }
+
+    private void recover() {
+        int offset = FILE_HEADER_LENGTH;
+        while ( offset + RECORD_HEADER_LENGTH <= buffer.capacity() ) {
+            int length = buffer.getInt( offset );
+            if ( length < BODY_HEADER_LENGTH || length > buffer.capacity() - offset - RECORD_HEADER_LENGTH ||
+                 buffer.getInt( offset + 4 ) != checksum( offset + RECORD_HEADER_LENGTH, length ) ) {
+                break;
+            }
+            index( offset );
+            offset += RECORD_HEADER_LENGTH + length;
+        }
+        this.position = offset;
+
+        // the pages of the file may reach the disk in any order, so anything following an incomplete record is
+        // wiped out, lest a later record gets appended right before a stale one
+        for ( int i = offset; i < buffer.capacity(); i++ ) {
+            if ( buffer.get( i ) != 0 ) {
+                logger.warn( "Discarding an incomplete record at offset {} of journal {}", offset, file );
+                for ( int j = i; j < buffer.capacity(); j++ ) {
+                    buffer.put( j, (byte) 0 );
+                }
+                buffer.force();
+                break;
+            }
+        }
+    }
+
+    private void index(int offset) {
+        byte type = buffer.get( offset + RECORD_HEADER_LENGTH );
+        long id = buffer.getLong( offset + RECORD_HEADER_LENGTH + 1 );
+        switch ( type ) {
+            case SESSION :
+                replace( sessions, id, offset );
+                nextSessionId = Math.max( nextSessionId, id + 1 );
+                break;
+            case WORK_ITEM :
+                replace( workItems, id, offset );
+                nextWorkItemId = Math.max( nextWorkItemId, id + 1 );
+                break;
+            case WORK_ITEM_REMOVED :
+                replace( workItems, id, null );
+                nextWorkItemId = Math.max( nextWorkItemId, id + 1 );
+                break;
+            default :
+                throw new IllegalStateException( "Unknown record type " + type + " at offset " + offset + " of journal " + file );
+        }
+    }
+
+    private void replace(Map<Long, Integer> index, long id, Integer offset) {
+        Integer previous = offset != null ? index.put( id, offset ) : index.remove( id );
+        if ( previous != null ) {
+            liveBytes -= recordLength( previous );
+        }
+        if ( offset != null ) {
+            liveBytes += recordLength( offset );
+        }
+    }
+
+    private int recordLength(int offset) {
+        return RECORD_HEADER_LENGTH + buffer.getInt( offset );
+    }
+
+    private int checksum(int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit( offset + length ).position( offset );
+        byte[] chunk = new byte[Math.min( length, 8192 )];
+        while ( body.hasRemaining() ) {
+            int count = Math.min( chunk.length, body.remaining() );
+            body.get( chunk, 0, count );
+            crc.update( chunk, 0, count );
+        }
+        return (int) crc.getValue();
+    }
+
+    private void append(byte[] body) {
+        checkOpen();
+        ensureCapacity( (long) position + RECORD_HEADER_LENGTH + body.length );
+        int offset = position;
+        buffer.position( offset + RECORD_HEADER_LENGTH );
+        buffer.put( body );
+        CRC32 crc = new CRC32();
+        crc.update( body, 0, body.length );
+        buffer.putInt( offset + 4, (int) crc.getValue() );
+        // the length goes last: until it is written the record is not part of the journal
+        buffer.putInt( offset, body.length );
+        position = offset + RECORD_HEADER_LENGTH + body.length;
+        index( offset );
+
+        dirty = true;
+        if ( syncPolicy == SyncPolicy.ALWAYS ||
+             ( syncPolicy == SyncPolicy.INTERVAL && System.currentTimeMillis() - lastSync >= syncInterval ) ) {
+            sync();
+        }
+        compactIfNeeded();
+    }
+
+    private void ensureCapacity(long required) {
+        if ( required <= buffer.capacity() ) {
+            return;
+        }
+        if ( required > Integer.MAX_VALUE ) {
+            throw new IllegalStateException( "Journal " + file + " cannot grow beyond 2GB" );
+        }
+        long capacity = Math.min( Math.max( 2L * buffer.capacity(), required ), Integer.MAX_VALUE );
+        try {
+            if ( dirty ) {
+                buffer.force();
+            }
+            buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, capacity );
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to grow journal " + file, e );
+        }
+    }
+
+    private static byte[] body(byte type, long id, byte[] payload) {
+        ByteBuffer body = ByteBuffer.allocate( BODY_HEADER_LENGTH + payload.length );
+        body.put( type ).putLong( id ).put( payload );
+        return body.array();
+    }
+
+    private byte[] payload(int offset) {
+        int length = buffer.getInt( offset ) - BODY_HEADER_LENGTH;
+        byte[] payload = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position( offset + RECORD_HEADER_LENGTH + BODY_HEADER_LENGTH );
+        source.get( payload );
+        return payload;
+    }
+
+    private void compactIfNeeded() {
+        long garbage = position - FILE_HEADER_LENGTH - liveBytes;
+        if ( position >= compactionMinSize && garbage > position * compactionRatio ) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the journal with its live records only
+     */
+    public synchronized void compact() {
+        checkOpen();
+        File target = new File( file.getPath() + ".compact" );
+        try {
+            try (FileChannel out = FileChannel.open( target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                     StandardOpenOption.READ, StandardOpenOption.WRITE )) {
+                long size = FILE_HEADER_LENGTH + liveBytes;
+                MappedByteBuffer compacted = out.map( FileChannel.MapMode.READ_WRITE, 0, Math.max( size, INITIAL_CAPACITY ) );
+                compacted.putInt( MAGIC ).putInt( FORMAT_VERSION ).putLong( nextSessionId ).putLong( nextWorkItemId );
+                copyRecords( sessions, compacted );
+                copyRecords( workItems, compacted );
+                compacted.force();
+            }
+
+            int before = position;
+            channel.close();
+            Files.move( target.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            syncDirectory();
+            open();
+            dirty = false;
+            logger.debug( "Compacted journal {} from {} to {} bytes", file, before, position );
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to compact journal " + file, e );
+        }
+    }
+
+    private void copyRecords(Map<Long, Integer> index, MappedByteBuffer target) {
+        for ( int offset : index.values() ) {
+            ByteBuffer record = buffer.duplicate();
+            record.limit( offset + recordLength( offset ) ).position( offset );
+            target.put( record );
+        }
+    }
+
+    private void syncDirectory() {
+        File directory = file.getAbsoluteFile().getParentFile();
+        try (FileChannel dir = FileChannel.open( directory.toPath(), StandardOpenOption.READ )) {
+            dir.force( true );
+        } catch ( IOException e ) {
+            // not supported by every platform
+            logger.debug( "Unable to sync directory {}", directory, e );
+        }
+    }
+
+    /**
+     * Forces the pending writes to the disk
+     */
+    public synchronized void sync() {
+        checkOpen();
+        if ( dirty ) {
+            buffer.force();
+            dirty = false;
+        }
+        lastSync = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void close() {
+        if ( closed ) {
+            return;
+        }
+        try {
+            sync();
+            closed = true;
+            channel.close();
+            lock.release();
+            lockFile.close();
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to close journal " + file, e );
+        }
+    }
+
+    private void checkOpen() {
+        if ( closed ) {
+            throw new IllegalStateException( "Journal " + file + " is closed" );
+        }
+    }
+
+    public synchronized PersistentSession findSessionInfo(Long sessionId) {
+        checkOpen();
+        Integer offset = sessions.get( sessionId );
+        if ( offset == null ) {
+            return null;
+        }
+        SessionInfo sessionInfo = new SessionInfo();
+        sessionInfo.setId( sessionId );
+        sessionInfo.setData( payload( offset ) );
+        return sessionInfo;
+    }
+
+    public synchronized void saveOrUpdate(PersistentSession storedObject) {
+        byte[] data = storedObject.getData();
+        append( body( SESSION, storedObject.getId(), data != null ? data : new byte[0] ) );
+    }
+
+    public synchronized void saveOrUpdate(PersistentWorkItem workItem) {
+        if ( !( workItem instanceof WorkItemInfo ) ) {
+            throw new IllegalArgumentException( "Unsupported work item " + workItem.getClass().getName() );
+        }
+        WorkItemInfo info = (WorkItemInfo) workItem;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream( baos )) {
+            out.writeBoolean( info.getName() != null );
+            if ( info.getName() != null ) {
+                out.writeUTF( info.getName() );
+            }
+            out.writeLong( info.getCreationDate() != null ? info.getCreationDate().getTime() : -1 );
+            out.writeLong( info.getProcessInstanceId() );
+            out.writeLong( info.getState() );
+            byte[] data = info.getWorkItemByteArray();
+            out.writeInt( data != null ? data.length : -1 );
+            if ( data != null ) {
+                out.write( data );
+            }
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to write work item " + info.getId(), e );
+        }
+        append( body( WORK_ITEM, info.getId(), baos.toByteArray() ) );
+    }
+
+    public synchronized PersistentWorkItem findWorkItemInfo(Long id) {
+        checkOpen();
+        Integer offset = workItems.get( id );
+        if ( offset == null ) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream( new ByteArrayInputStream( payload( offset ) ) )) {
+            String name = in.readBoolean() ? in.readUTF() : null;
+            long creationDate = in.readLong();
+            long processInstanceId = in.readLong();
+            long state = in.readLong();
+            int length = in.readInt();
+            byte[] data = null;
+            if ( length >= 0 ) {
+                data = new byte[length];
+                in.readFully( data );
+            }
+            return new WorkItemInfo( id, name, creationDate >= 0 ? new Date( creationDate ) : null, processInstanceId, state, data );
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to read work item " + id, e );
+        }
+    }
+
+    public synchronized void remove(PersistentWorkItem workItem) {
+        if ( workItems.containsKey( workItem.getId() ) ) {
+            append( body( WORK_ITEM_REMOVED, workItem.getId(), new byte[0] ) );
+        }
+    }
+
+    public synchronized Long getNextWorkItemId() {
+        return nextWorkItemId++;
+    }
+
+    public synchronized Long getNextStatefulKnowledgeSessionId() {
+        return nextSessionId++;
+    }
+
+    public void lock(PersistentSession session) {
+        throw new UnsupportedOperationException( "Journal based persistence does not support locking." );
+    }
+
+    public void lock(PersistentWorkItem workItem) {
+        throw new UnsupportedOperationException( "Journal based persistence does not support locking." );
+    }
+
+    public synchronized int getSessionCount() {
+        return sessions.size();
+    }
+
+    public synchronized int getWorkItemCount() {
+        return workItems.size();
+    }
+
+    /**
+     * @return the number of bytes used by the journal, live and superseded records included
+     */
+    public synchronized int getLength() {
+        return position;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    public void setSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    /**
+     * @return the milliseconds between two syncs of the {@link SyncPolicy#INTERVAL} policy
+     */
+    public long getSyncInterval() {
+        return syncInterval;
+    }
+
+    public void setSyncInterval(long syncInterval) {
+        this.syncInterval = syncInterval;
+    }
+
+    /**
+     * @return the share of superseded records above which the journal is compacted
+     */
+    public double getCompactionRatio() {
+        return compactionRatio;
+    }
+
+    public void setCompactionRatio(double compactionRatio) {
+        this.compactionRatio = compactionRatio;
+    }
+
+    /**
+     * @return the length in bytes below which the journal is never compacted
+     */
+    public int getCompactionMinSize() {
+        return compactionMinSize;
+    }
+
+    public void setCompactionMinSize(int compactionMinSize) {
+        this.compactionMinSize = compactionMinSize;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.persistence.api.SessionMarshallingHelper;
+import org.drools.persistence.api.SnapshotCodec;
+import org.drools.persistence.api.SnapshotCodecs;
+import org.drools.persistence.util.DroolsPersistenceUtil;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.drools.persistence.util.DroolsPersistenceUtil.DROOLS_PERSISTENCE_UNIT_NAME;
+import static org.drools.persistence.util.DroolsPersistenceUtil.createEnvironment;
+
+@RunWith(Parameterized.class)
+public class SnapshotCodecTest {
+
+    private final SnapshotCodec codec;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> codecs() {
+        return Arrays.asList(new Object[][]{
+                {SnapshotCodecs.STORED.getName()},
+                {SnapshotCodecs.DEFLATE.getName()},
+                {SnapshotCodecs.LZ.getName()}
+        });
+    }
+
+    public SnapshotCodecTest(final String codec) {
+        this.codec = SnapshotCodecs.get(codec);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Random random = new Random(0);
+        for (final int size : new int[]{0, 1, 7, 100, 4096, 100000}) {
+            final byte[] noise = new byte[size];
+            random.nextBytes(noise);
+            assertRoundTrip(noise);
+
+            final StringBuilder sb = new StringBuilder();
+            while (sb.length() < size) {
+                sb.append("org.drools.compiler.Person name=").append(random.nextInt(50)).append(' ');
+            }
+            assertRoundTrip(Arrays.copyOf(sb.toString().getBytes(StandardCharsets.UTF_8), size));
+            assertRoundTrip(new byte[size]);
+        }
+    }
+
+    private void assertRoundTrip(final byte[] data) {
+        final byte[] encoded = SnapshotCodecs.encode(codec, data);
+        assertThat(SnapshotCodecs.isEncoded(encoded)).isTrue();
+        assertThat(SnapshotCodecs.decode(encoded)).isEqualTo(data);
+    }
+
+    @Test
+    public void testCompression() {
+        final byte[] data = new byte[10000];
+        Arrays.fill(data, (byte) 'x');
+        final byte[] encoded = SnapshotCodecs.encode(codec, data);
+        if (codec == SnapshotCodecs.STORED) {
+            assertThat(encoded.length).isGreaterThan(data.length);
+        } else {
+            assertThat(encoded.length).isLessThan(data.length / 10);
+        }
+    }
+
+    @Test
+    public void testUnencodedSnapshotIsReadAsItIs() {
+        // a protobuf message never starts with a zero byte
+        final byte[] data = new byte[]{0x0A, 0x00, 'K', 'S', 1, 2, 0, 0, 0, 0, 0, 0, 0, 0};
+        assertThat(SnapshotCodecs.isEncoded(data)).isFalse();
+        assertThat(SnapshotCodecs.decode(data)).isSameAs(data);
+    }
+
+    @Test
+    public void testCorruptionIsDetected() {
+        final byte[] data = new byte[1000];
+        new Random(1).nextBytes(data);
+        Arrays.fill(data, 500, 1000, (byte) 7);
+        final byte[] encoded = SnapshotCodecs.encode(codec, data);
+        encoded[encoded.length - 1] ^= 0x10;
+        try {
+            SnapshotCodecs.decode(encoded);
+            fail("A corrupted snapshot should be detected");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).contains("Corrupted session snapshot");
+        }
+    }
+
+    @Test
+    public void testPersistentSession() throws Exception {
+        final Map<String, Object> context = DroolsPersistenceUtil.setupWithPoolingDataSource(DROOLS_PERSISTENCE_UNIT_NAME);
+        try {
+            final Environment env = createEnvironment(context);
+            env.set(SnapshotCodecs.SNAPSHOT_CODEC_PROPERTY, codec.getName());
+
+            final KieBase kbase = new KieHelper().addContent("package org.kie.test\n", ResourceType.DRL).build();
+            final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+            for (int i = 0; i < 100; i++) {
+                ksession.insert("fact" + i);
+            }
+
+            final PersistableRunner runner = (PersistableRunner) ((CommandBasedStatefulKnowledgeSession) ksession).getRunner();
+            final byte[] snapshot = new SessionMarshallingHelper(runner.getKieSession(), null).getSnapshot();
+            assertThat(SnapshotCodecs.isEncoded(snapshot)).isTrue();
+
+            final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(ksession.getIdentifier(), kbase, null, env);
+            assertThat(reloaded.getFactCount()).isEqualTo(100);
+
+            // rows written without codec are still read once a codec is configured
+            final Environment plainEnv = createEnvironment(context);
+            final KieSession plain = KieServices.get().getStoreServices().newKieSession(kbase, null, plainEnv);
+            plain.insert("fact");
+            assertThat(KieServices.get().getStoreServices().loadKieSession(plain.getIdentifier(), kbase, null, env).getFactCount()).isEqualTo(1);
+        } finally {
+            DroolsPersistenceUtil.cleanUp(context);
+        }
+    }
+}
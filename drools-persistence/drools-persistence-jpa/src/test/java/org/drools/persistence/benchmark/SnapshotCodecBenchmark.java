@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.compiler.Person;
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.persistence.PersistableRunner;
+import org.drools.persistence.api.SessionMarshallingHelper;
+import org.drools.persistence.api.SnapshotCodec;
+import org.drools.persistence.api.SnapshotCodecs;
+import org.drools.persistence.util.DroolsPersistenceUtil;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.utils.KieHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.drools.persistence.util.DroolsPersistenceUtil.DROOLS_PERSISTENCE_UNIT_NAME;
+import static org.drools.persistence.util.DroolsPersistenceUtil.createEnvironment;
+
+/**
+ * Measures the latency of a command committed on a persistent session holding the given number of facts,
+ * whose snapshot is written without codec or compressed by one of the built-in codecs.
+ * The size of the snapshot written by each codec is printed when the session is set up.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotCodecBenchmark {
+
+    public enum Codec {
+        NONE, DEFLATE, LZ
+    }
+
+    @Param({"NONE", "DEFLATE", "LZ"})
+    private Codec codec;
+
+    @Param({"1000", "10000"})
+    private int facts;
+
+    private Map<String, Object> context;
+    private KieSession ksession;
+    private List<FactHandle> handles;
+    private List<Person> persons;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = DroolsPersistenceUtil.setupWithPoolingDataSource(DROOLS_PERSISTENCE_UNIT_NAME);
+        Environment env = createEnvironment(context);
+        if (codec != Codec.NONE) {
+            env.set(SnapshotCodecs.SNAPSHOT_CODEC_PROPERTY, codec.name().toLowerCase());
+        }
+
+        String drl = "package org.drools.persistence.benchmark\n" +
+                "import " + Person.class.getCanonicalName() + "\n" +
+                "rule Adult when\n" +
+                "  $p : Person( age >= 18 )\n" +
+                "then\n" +
+                "end\n";
+        KieBase kbase = new KieHelper().addContent(drl, ResourceType.DRL).build();
+        ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+
+        persons = new ArrayList<>();
+        for (int i = 0; i < facts; i++) {
+            persons.add(new Person("person" + i, i % 80));
+        }
+        ksession.execute(KieServices.get().getCommands().newInsertElements(persons));
+        handles = new ArrayList<>(ksession.getFactHandles());
+        persons.clear();
+        for (FactHandle handle : handles) {
+            persons.add((Person) ksession.getObject(handle));
+        }
+
+        printSnapshotSizes();
+    }
+
+    private void printSnapshotSizes() {
+        KieSession session = ((PersistableRunner) ((CommandBasedStatefulKnowledgeSession) ksession).getRunner()).getKieSession();
+        SessionMarshallingHelper helper = new SessionMarshallingHelper(session, null);
+        helper.setCodec(null);
+        byte[] snapshot = helper.getSnapshot();
+        StringBuilder sb = new StringBuilder("Snapshot of " + facts + " facts: " + snapshot.length + " bytes");
+        for (SnapshotCodec each : new SnapshotCodec[]{SnapshotCodecs.DEFLATE, SnapshotCodecs.LZ}) {
+            sb.append(", ").append(each.getName()).append(" ").append(SnapshotCodecs.encode(each, snapshot).length).append(" bytes");
+        }
+        System.out.println(sb);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ksession.dispose();
+        DroolsPersistenceUtil.cleanUp(context);
+    }
+
+    @Benchmark
+    public void updateAndCommit() {
+        int i = next++ % handles.size();
+        FactHandle handle = handles.get(i);
+        Person person = persons.get(i);
+        person.setAge((person.getAge() + 1) % 80);
+        ksession.update(handle, person);
+    }
+}
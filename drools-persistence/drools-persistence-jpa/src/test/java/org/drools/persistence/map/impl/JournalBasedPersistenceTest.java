@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.map.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.drools.core.impl.KnowledgeBaseFactory;
+import org.drools.persistence.map.EnvironmentBuilder;
+import org.drools.persistence.map.JournalKnowledgeSessionStorage;
+import org.drools.persistence.map.KnowledgeSessionStorageEnvironmentBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.persistence.jpa.JPAKnowledgeService;
+
+public class JournalBasedPersistenceTest extends MapPersistenceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File journal;
+    private JournalKnowledgeSessionStorage storage;
+
+    @Before
+    public void createStorage() throws IOException {
+        journal = new File( folder.getRoot(), "sessions.journal" );
+        storage = new JournalKnowledgeSessionStorage( journal );
+    }
+
+    @After
+    public void closeStorage() {
+        storage.close();
+    }
+
+    @Override
+    protected KieSession createSession(KieBase kbase) {
+        return JPAKnowledgeService.newStatefulKnowledgeSession( kbase,
+                                                                null,
+                                                                createEnvironment() );
+    }
+
+    @Override
+    protected KieSession disposeAndReloadSession(KieSession ksession, KieBase kbase) {
+        long sessionId = ksession.getIdentifier();
+        ksession.dispose();
+
+        // reopen the journal, so that the session is read back from the file
+        storage.close();
+        storage = new JournalKnowledgeSessionStorage( journal );
+
+        return loadSession( sessionId, kbase );
+    }
+
+    private KieSession loadSession(long sessionId, KieBase kbase) {
+        return JPAKnowledgeService.loadStatefulKnowledgeSession( sessionId, kbase, null, createEnvironment() );
+    }
+
+    private Environment createEnvironment() {
+        EnvironmentBuilder envBuilder = new KnowledgeSessionStorageEnvironmentBuilder( storage );
+        Environment env = KieServices.Factory.get().newEnvironment();
+        env.set( EnvironmentName.TRANSACTION_MANAGER,
+                 envBuilder.getTransactionManager() );
+        env.set( EnvironmentName.PERSISTENCE_CONTEXT_MANAGER,
+                 envBuilder.getPersistenceContextManager() );
+        return env;
+    }
+
+    @Override
+    protected long getSavedSessionsCount() {
+        return storage.getSessionCount();
+    }
+
+    @Test
+    public void compactedJournalKeepsLatestSnapshots() {
+        storage.setCompactionMinSize( 16 * 1024 );
+        KieBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+
+        KieSession ksession = createSession( kbase );
+        for ( int i = 0; i < 500; i++ ) {
+            ksession.insert( new Buddy( "buddy" + i ) );
+        }
+        // the 500 snapshots written add up to megabytes
+        Assert.assertTrue( storage.getLength() < 1024 * 1024 );
+
+        ksession = disposeAndReloadSession( ksession, kbase );
+        Assert.assertEquals( 500, ksession.getObjects().size() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void corruptedLastRecordIsDiscarded() throws IOException {
+        KieBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+
+        KieSession first = createSession( kbase );
+        first.insert( new Buddy( "first" ) );
+        long firstId = first.getIdentifier();
+        first.dispose();
+
+        KieSession second = createSession( kbase );
+        second.insert( new Buddy( "second" ) );
+        long secondId = second.getIdentifier();
+        int lastRecord = storage.getLength();
+        second.insert( new Buddy( "lost" ) );
+        int end = storage.getLength();
+        second.dispose();
+        Assert.assertEquals( end, storage.getLength() );
+        storage.close();
+
+        // a crash in the middle of the last write leaves a record whose checksum doesn't match
+        try ( RandomAccessFile file = new RandomAccessFile( journal, "rw" ) ) {
+            file.seek( end - 1 );
+            int last = file.read();
+            file.seek( end - 1 );
+            file.write( last ^ 0xFF );
+        }
+
+        storage = new JournalKnowledgeSessionStorage( journal );
+        Assert.assertEquals( lastRecord, storage.getLength() );
+        Assert.assertEquals( 2, storage.getSessionCount() );
+        try ( RandomAccessFile file = new RandomAccessFile( journal, "r" ) ) {
+            file.seek( lastRecord );
+            for ( int i = lastRecord; i < end; i++ ) {
+                Assert.assertEquals( 0, file.read() );
+            }
+        }
+
+        KieSession reloadedFirst = loadSession( firstId, kbase );
+        Assert.assertEquals( 1, reloadedFirst.getObjects().size() );
+        Assert.assertEquals( "first", ( (Buddy) reloadedFirst.getObjects().iterator().next() ).getName() );
+        reloadedFirst.dispose();
+
+        // the second session is back to its snapshot before the lost write
+        KieSession reloadedSecond = loadSession( secondId, kbase );
+        Assert.assertEquals( 1, reloadedSecond.getObjects().size() );
+        Assert.assertEquals( "second", ( (Buddy) reloadedSecond.getObjects().iterator().next() ).getName() );
+        reloadedSecond.dispose();
+    }
+
+    @Test
+    public void journalCannotBeOpenedTwice() {
+        try {
+            new JournalKnowledgeSessionStorage( journal );
+            Assert.fail( "A journal in use should not be opened again" );
+        } catch ( IllegalStateException e ) {
+            // expected
+        }
+    }
+}
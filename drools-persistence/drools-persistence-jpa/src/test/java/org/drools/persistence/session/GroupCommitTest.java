@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.persistence.GroupCommitStatistics;
+import org.drools.persistence.PersistableRunner;
+import org.drools.persistence.util.DroolsPersistenceUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.command.ExecutableCommand;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Context;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.drools.persistence.util.DroolsPersistenceUtil.DROOLS_PERSISTENCE_UNIT_NAME;
+import static org.drools.persistence.util.DroolsPersistenceUtil.createEnvironment;
+
+public class GroupCommitTest {
+
+    private static final int THREADS = 4;
+    private static final int INSERTS = 25;
+
+    private Map<String, Object> context;
+    private Environment env;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        context = DroolsPersistenceUtil.setupWithPoolingDataSource(DROOLS_PERSISTENCE_UNIT_NAME);
+        env = createEnvironment(context);
+        env.set(PersistableRunner.GROUP_COMMIT_SIZE_PROPERTY, 10);
+        env.set(PersistableRunner.GROUP_COMMIT_WINDOW_PROPERTY, 5);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        DroolsPersistenceUtil.cleanUp(context);
+    }
+
+    @Test
+    public void testConcurrentInsertsAreAllCommitted() throws Exception {
+        final KieBase kbase = new KieHelper().addContent("package org.kie.test\n", ResourceType.DRL).build();
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < INSERTS; i++) {
+                    ksession.insert("fact-" + thread + "-" + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        final GroupCommitStatistics statistics = getRunner(ksession).getGroupCommitStatistics();
+        assertThat(statistics.getCommandCount()).isEqualTo(THREADS * INSERTS);
+        assertThat(statistics.getFailedGroupCount()).isZero();
+        assertThat(statistics.getGroupCount()).isBetween(1L, (long) THREADS * INSERTS);
+        assertThat(statistics.getMaxGroupSize()).isLessThanOrEqualTo(10);
+
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(ksession.getIdentifier(), kbase, null, env);
+        assertThat(reloaded.getFactCount()).isEqualTo(THREADS * INSERTS);
+    }
+
+    @Test
+    public void testFailingCommandDoesNotAffectItsGroup() throws Exception {
+        final KieBase kbase = new KieHelper().addContent("package org.kie.test\n", ResourceType.DRL).build();
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            futures.add(executor.submit((Callable<Boolean>) () -> {
+                start.await();
+                if (thread == 0) {
+                    try {
+                        ksession.execute(new FailingCommand());
+                        return false;
+                    } catch (RuntimeException e) {
+                        return true;
+                    }
+                }
+                ksession.insert("fact-" + thread);
+                return true;
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> future : futures) {
+            if (!future.get()) {
+                fail("The failing command should have thrown its own exception");
+            }
+        }
+
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(ksession.getIdentifier(), kbase, null, env);
+        assertThat(reloaded.getFactCount()).isEqualTo(THREADS - 1);
+    }
+
+    private static PersistableRunner getRunner(KieSession ksession) {
+        return (PersistableRunner) ((CommandBasedStatefulKnowledgeSession) ksession).getRunner();
+    }
+
+    private static class FailingCommand implements ExecutableCommand<Void> {
+
+        @Override
+        public Void execute(Context context) {
+            throw new IllegalStateException("Failing on purpose");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.persistence.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.persistence.PersistableRunner;
+import org.drools.persistence.api.SessionNotFoundException;
+import org.drools.persistence.util.DroolsPersistenceUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.drools.persistence.util.DroolsPersistenceUtil.DROOLS_PERSISTENCE_UNIT_NAME;
+import static org.drools.persistence.util.DroolsPersistenceUtil.createEnvironment;
+
+public class LazySessionLoadTest {
+
+    private static final String DRL =
+            "package org.kie.test\n" +
+            "global java.util.List list\n" +
+            "rule R when\n" +
+            "    $s : String()\n" +
+            "then\n" +
+            "    list.add($s);\n" +
+            "end\n";
+
+    private Map<String, Object> context;
+    private Environment env;
+
+    @Before
+    public void setUp() throws Exception {
+        context = DroolsPersistenceUtil.setupWithPoolingDataSource(DROOLS_PERSISTENCE_UNIT_NAME);
+        env = createEnvironment(context);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DroolsPersistenceUtil.cleanUp(context);
+    }
+
+    @Test
+    public void testMetadataIsReadWithoutUnmarshalling() {
+        final KieBase kbase = new KieHelper().addContent(DRL, ResourceType.DRL).build();
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+        ksession.setGlobal("list", new ArrayList<String>());
+        ksession.insert("a");
+        ksession.insert("b");
+        ksession.insert("c");
+        final long id = ksession.getIdentifier();
+
+        env.set(PersistableRunner.LAZY_LOAD_PROPERTY, true);
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, env);
+
+        assertThat(reloaded.getIdentifier()).isEqualTo(id);
+        assertThat(reloaded.getFactCount()).isEqualTo(3);
+        assertThat(reloaded.getKieBase()).isSameAs(kbase);
+        assertThat(getRunner(reloaded).isLoaded()).isFalse();
+    }
+
+    @Test
+    public void testFirstCommandUnmarshallsSession() {
+        final KieBase kbase = new KieHelper().addContent(DRL, ResourceType.DRL).build();
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+        ksession.insert("a");
+        ksession.insert("b");
+        final long id = ksession.getIdentifier();
+
+        env.set(PersistableRunner.LAZY_LOAD_PROPERTY, true);
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, env);
+        final List<String> list = new ArrayList<>();
+        reloaded.setGlobal("list", list);
+        assertThat(getRunner(reloaded).isLoaded()).isTrue();
+
+        reloaded.insert("c");
+        assertThat(reloaded.fireAllRules()).isEqualTo(3);
+        assertThat(list).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(reloaded.getFactCount()).isEqualTo(3);
+
+        env.set(PersistableRunner.LAZY_LOAD_PROPERTY, false);
+        final KieSession eager = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, env);
+        assertThat(eager.getFactCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testDisposeDoesNotUnmarshall() {
+        final KieBase kbase = new KieHelper().addContent(DRL, ResourceType.DRL).build();
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+        ksession.insert("a");
+
+        env.set(PersistableRunner.LAZY_LOAD_PROPERTY, true);
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(ksession.getIdentifier(), kbase, null, env);
+        reloaded.dispose();
+        assertThat(getRunner(reloaded).isLoaded()).isFalse();
+    }
+
+    @Test
+    public void testMissingSessionIsReported() {
+        final KieBase kbase = new KieHelper().addContent(DRL, ResourceType.DRL).build();
+        env.set(PersistableRunner.LAZY_LOAD_PROPERTY, true);
+        try {
+            KieServices.get().getStoreServices().loadKieSession(-1L, kbase, null, env);
+            fail("Loading a missing session should fail");
+        } catch (IllegalStateException e) {
+            assertThat(e.getCause().getCause()).isInstanceOf(SessionNotFoundException.class);
+        }
+    }
+
+    private static PersistableRunner getRunner(KieSession ksession) {
+        return (PersistableRunner) ((CommandBasedStatefulKnowledgeSession) ksession).getRunner();
+    }
+}
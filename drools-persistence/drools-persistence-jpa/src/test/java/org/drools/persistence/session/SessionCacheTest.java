@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.persistence.session;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.persistence.PersistableRunner;
+import org.drools.persistence.SessionCache;
+import org.drools.persistence.util.DroolsPersistenceUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.drools.persistence.util.DroolsPersistenceUtil.DROOLS_PERSISTENCE_UNIT_NAME;
+import static org.drools.persistence.util.DroolsPersistenceUtil.createEnvironment;
+
+public class SessionCacheTest {
+
+    private Map<String, Object> context;
+    private Environment env;
+    private SessionCache cache;
+    private KieBase kbase;
+
+    @Before
+    public void setUp() throws Exception {
+        context = DroolsPersistenceUtil.setupWithPoolingDataSource(DROOLS_PERSISTENCE_UNIT_NAME);
+        env = createEnvironment(context);
+        cache = new SessionCache(2, 1, TimeUnit.MINUTES);
+        env.set(PersistableRunner.SESSION_CACHE, cache);
+        kbase = new KieHelper().addContent("package org.kie.test\n", ResourceType.DRL).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.clear();
+        DroolsPersistenceUtil.cleanUp(context);
+    }
+
+    @Test
+    public void testReloadReusesReleasedSession() {
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+        ksession.insert("a");
+        ksession.insert("b");
+        final long id = ksession.getIdentifier();
+        final KieSession live = getRunner(ksession).getKieSession();
+        ksession.dispose();
+        assertThat(cache.size()).isEqualTo(1);
+
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, env);
+        assertThat(reloaded.getFactCount()).isEqualTo(2);
+        assertThat(getRunner(reloaded).getKieSession()).isSameAs(live);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.size()).isZero();
+
+        reloaded.insert("c");
+        reloaded.dispose();
+
+        final Environment uncached = createEnvironment(context);
+        final KieSession check = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, uncached);
+        assertThat(check.getFactCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testReleasedSessionForgetsRegistrations() {
+        // globals provided by the environment are shared by all its sessions, unlike the ones set on a session
+        env.set(EnvironmentName.GLOBALS, null);
+        final KieBase kbase = new KieHelper().addContent("package org.kie.test\nglobal java.util.List list\n", ResourceType.DRL).build();
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+        final AtomicInteger firstInserts = new AtomicInteger();
+        ksession.addEventListener(countInserts(firstInserts));
+        ksession.setGlobal("list", new ArrayList<Object>());
+        ksession.registerChannel("channel", object -> { });
+        ksession.insert("a");
+        final long id = ksession.getIdentifier();
+        ksession.dispose();
+        assertThat(cache.size()).isEqualTo(1);
+
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, env);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        final AtomicInteger secondInserts = new AtomicInteger();
+        reloaded.addEventListener(countInserts(secondInserts));
+        reloaded.insert("b");
+
+        assertThat(firstInserts.get()).isEqualTo(1);
+        assertThat(secondInserts.get()).isEqualTo(1);
+        assertThat(reloaded.getGlobal("list")).isNull();
+        assertThat(reloaded.getChannels()).isEmpty();
+        reloaded.dispose();
+    }
+
+    @Test
+    public void testSessionCommittedElsewhereIsNotReused() {
+        final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+        ksession.insert("a");
+        final long id = ksession.getIdentifier();
+        ksession.dispose();
+
+        final Environment uncached = createEnvironment(context);
+        final KieSession other = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, uncached);
+        other.insert("b");
+        other.dispose();
+
+        final KieSession reloaded = KieServices.get().getStoreServices().loadKieSession(id, kbase, null, env);
+        assertThat(reloaded.getFactCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLeastRecentlyReleasedSessionIsEvicted() {
+        for (int i = 0; i < 3; i++) {
+            final KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+            ksession.insert("fact-" + i);
+            ksession.dispose();
+        }
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    private static RuleRuntimeEventListener countInserts(final AtomicInteger inserts) {
+        return new DefaultRuleRuntimeEventListener() {
+            @Override
+            public void objectInserted(ObjectInsertedEvent event) {
+                inserts.incrementAndGet();
+            }
+        };
+    }
+
+    private static PersistableRunner getRunner(KieSession ksession) {
+        return (PersistableRunner) ((CommandBasedStatefulKnowledgeSession) ksession).getRunner();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.persistence.timer.integrationtests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.drools.core.command.impl.AbstractInterceptor;
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.persistence.PersistableRunner;
+import org.drools.persistence.jpa.JpaTimeJobFactoryManager;
+import org.drools.persistence.util.DroolsPersistenceUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.Executable;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.RequestContext;
+import org.kie.internal.utils.KieHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.drools.persistence.util.DroolsPersistenceUtil.DROOLS_PERSISTENCE_UNIT_NAME;
+import static org.drools.persistence.util.DroolsPersistenceUtil.createEnvironment;
+
+public class TimerCoalescingTest {
+
+    private static final int TIMERS = 20;
+
+    private static final String DRL =
+            "package org.drools.test\n" +
+            "global java.util.List list\n" +
+            "rule TimerRule\n" +
+            "    timer (int: 500)\n" +
+            "when\n" +
+            "    $s : String()\n" +
+            "then\n" +
+            "    list.add( $s );\n" +
+            "end\n";
+
+    private static final String REPEATING_DRL =
+            "package org.drools.test\n" +
+            "global java.util.List list\n" +
+            "rule SlowTimerRule\n" +
+            "    timer (int: 500 200)\n" +
+            "when\n" +
+            "    String()\n" +
+            "then\n" +
+            "    list.add( System.currentTimeMillis() );\n" +
+            "end\n" +
+            "rule FastTimerRule\n" +
+            "    timer (int: 500 30)\n" +
+            "when\n" +
+            "    Integer()\n" +
+            "then\n" +
+            "end\n";
+
+    private Map<String, Object> context;
+    private Environment env;
+
+    @Before
+    public void setUp() throws Exception {
+        context = DroolsPersistenceUtil.setupWithPoolingDataSource(DROOLS_PERSISTENCE_UNIT_NAME);
+        env = createEnvironment(context);
+        env.set(JpaTimeJobFactoryManager.TIMER_COALESCE_WINDOW_PROPERTY, 2000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DroolsPersistenceUtil.cleanUp(context);
+    }
+
+    @Test(timeout = 20000)
+    public void testTimersDueTogetherFireInOneCommand() throws Exception {
+        KieBase kbase = new KieHelper().addContent(DRL, ResourceType.DRL).build();
+        KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+
+        List<String> list = Collections.synchronizedList(new ArrayList<String>());
+        ksession.setGlobal("list", list);
+
+        // counts the commands run by the timer threads
+        final Thread testThread = Thread.currentThread();
+        final AtomicInteger timerCommands = new AtomicInteger();
+        PersistableRunner runner = (PersistableRunner) ((CommandBasedStatefulKnowledgeSession) ksession).getRunner();
+        runner.addInterceptor(new AbstractInterceptor() {
+            @Override
+            public RequestContext execute(Executable executable, RequestContext ctx) {
+                if (Thread.currentThread() != testThread) {
+                    timerCommands.incrementAndGet();
+                }
+                executeNext(executable, ctx);
+                return ctx;
+            }
+        });
+
+        for (int i = 0; i < TIMERS; i++) {
+            ksession.insert("fact" + i);
+        }
+        ksession.fireAllRules();
+
+        while (list.size() < TIMERS) {
+            Thread.sleep(100);
+            ksession.fireAllRules();
+        }
+
+        assertThat(list).hasSize(TIMERS);
+        // every insert was done well within the window, so the first expiring timer takes all the others with it
+        assertThat(timerCommands.get()).isLessThan(TIMERS);
+
+        ksession.dispose();
+    }
+
+    @Test(timeout = 20000)
+    public void testLaterOccurrencesOfRepeatingTimersDoNotFireEarly() throws Exception {
+        KieBase kbase = new KieHelper().addContent(REPEATING_DRL, ResourceType.DRL).build();
+        KieSession ksession = KieServices.get().getStoreServices().newKieSession(kbase, null, env);
+
+        List<Long> fireTimes = Collections.synchronizedList(new ArrayList<Long>());
+        ksession.setGlobal("list", fireTimes);
+        ksession.insert("slow");
+        ksession.insert(1);
+        ksession.fireAllRules();
+
+        while (fireTimes.size() < 5) {
+            Thread.sleep(50);
+            ksession.fireAllRules();
+        }
+        ksession.dispose();
+
+        // the first occurrence may fire early, within the coalescing window, the following ones only fire when due,
+        // though the fast timer fires every 30ms and would otherwise take the next occurrence along every time
+        for (int i = 1; i < 5; i++) {
+            assertThat(fireTimes.get(i) - fireTimes.get(i - 1)).isGreaterThanOrEqualTo(100);
+        }
+    }
+}
@@ -20,6 +20,8 @@ import org.dmg.pmml.pmml_4_2.descr.PMML;
 import org.drools.core.util.IoUtils;
 import org.kie.pmml.pmml_4_2.PMML4Compiler;
 import org.kie.pmml.pmml_4_2.PMML4Unit;
+import org.kie.pmml.pmml_4_2.evaluator.PMML4Evaluator;
+import org.kie.pmml.pmml_4_2.evaluator.PMML4EvaluatorFactory;
 import org.kie.pmml.pmml_4_2.model.PMML4UnitImpl;
 import org.drools.scorecards.parser.AbstractScorecardParser;
 import org.drools.scorecards.parser.ScorecardParseException;
@@ -33,7 +35,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ScorecardCompiler {
 
@@ -140,6 +144,27 @@ public class ScorecardCompiler {
         return drl;
     }
 
+    /**
+     * Compiles the scorecards of the current PMML document into evaluators, which look up the matching attribute
+     * of every characteristic instead of running the generated rules, and populate the same result variables.
+     * Scorecards using features which can't be compiled (e.g. non additive scoring strategies) are left out,
+     * and have to be executed through the rules.
+     * @return the evaluators by model name
+     */
+    public Map<String, PMML4Evaluator> getEvaluators() {
+        if (pmmlDocument == null) {
+            return Collections.emptyMap();
+        }
+        return PMML4EvaluatorFactory.compile(pmmlDocument);
+    }
+
+    /**
+     * @return the evaluator of the given scorecard, or null if it can't be compiled
+     */
+    public PMML4Evaluator getEvaluator(final String modelName) {
+        return getEvaluators().get(modelName);
+    }
+
     /* convienence method for use from Guvnor*/
     public static String convertToDRL(PMML pmml, DrlType drlType) {
         if (pmml != null) {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.scorecards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.builder.conf.impl.ScoreCardConfigurationImpl;
+import org.junit.Test;
+import org.kie.api.io.Resource;
+import org.kie.api.io.ResourceType;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.internal.builder.ScoreCardConfiguration;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.pmml.pmml_4_2.PMML4ExecutionHelper;
+import org.kie.pmml.pmml_4_2.PMML4ExecutionHelper.PMML4ExecutionHelperFactory;
+import org.kie.pmml.pmml_4_2.PMMLRequestDataBuilder;
+import org.kie.pmml.pmml_4_2.evaluator.PMML4Evaluator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CompiledScorecardTest {
+
+    private static final String MODEL_NAME = "Sample Score";
+
+    @Test
+    public void testReasonCodes() {
+        PMML4Evaluator evaluator = compile("/scoremodel_reasoncodes.xls", ScorecardCompiler.DEFAULT_SHEET_NAME);
+        PMML4Result result = evaluator.evaluate(new PMMLRequestDataBuilder("123", MODEL_NAME)
+                                                        .addParameter("age", 10.0, Double.class)
+                                                        .addParameter("validLicense", false, Boolean.class)
+                                                        .build());
+        assertEquals("OK", result.getResultCode());
+        assertEquals(129.0, result.getResultValue("CalculatedScore", "value", Double.class).orElse(null), 1e-6);
+        assertEquals("VL002", result.getResultValue("ReasonCode", "value", String.class).orElse(null));
+        Map<String, Object> ranking = (Map<String, Object>) result.getResultValue("ScoreCard", "ranking");
+        assertEquals(Arrays.asList("VL002", "AGE02"), new ArrayList<>(ranking.keySet()));
+        assertEquals(16.0, ranking.get("VL002"));
+        assertEquals(-20.0, ranking.get("AGE02"));
+    }
+
+    @Test
+    public void testSameResultsAsRules() {
+        for (String sheet : Arrays.asList(ScorecardCompiler.DEFAULT_SHEET_NAME, "scorecards_pointsAbove", "scorecards_pointsBelow")) {
+            PMML4Evaluator evaluator = compile("/scoremodel_reasoncodes.xls", sheet);
+            PMML4ExecutionHelper helper = PMML4ExecutionHelperFactory.getExecutionHelper("SampleScore", newResource(sheet), null);
+            helper.addPossiblePackageName("org.drools.scorecards.example");
+
+            for (PMMLRequestData request : requests()) {
+                PMML4Result expected = helper.submitRequest(request);
+                PMML4Result actual = evaluator.evaluate(request);
+                assertEquals(expected.getResultValue("CalculatedScore", "value", Double.class).orElse(null),
+                             actual.getResultValue("CalculatedScore", "value", Double.class).orElse(null),
+                             1e-6);
+                assertEquals(expected.getResultValue("ReasonCode", "value", String.class).orElse(null),
+                             actual.getResultValue("ReasonCode", "value", String.class).orElse(null));
+                assertEquals(expected.getResultValue("ScoreCard", "ranking"), actual.getResultValue("ScoreCard", "ranking"));
+            }
+        }
+    }
+
+    @Test
+    public void testNonAdditiveScoringStrategy() {
+        assertNotNull(compile("/scoremodel_scoring_strategies.xls", "scorecards"));
+        ScorecardCompiler scorecardCompiler = new ScorecardCompiler();
+        scorecardCompiler.compileFromExcel(CompiledScorecardTest.class.getResourceAsStream("/scoremodel_scoring_strategies.xls"), "scorecards_avg");
+        assertNull(scorecardCompiler.getEvaluator(MODEL_NAME));
+    }
+
+    private static PMML4Evaluator compile(String xls, String sheet) {
+        ScorecardCompiler scorecardCompiler = new ScorecardCompiler();
+        scorecardCompiler.compileFromExcel(CompiledScorecardTest.class.getResourceAsStream(xls), sheet);
+        PMML4Evaluator evaluator = scorecardCompiler.getEvaluator(MODEL_NAME);
+        assertNotNull(evaluator);
+        return evaluator;
+    }
+
+    private static Resource newResource(String sheet) {
+        Resource resource = ResourceFactory.newClassPathResource("scoremodel_reasoncodes.xls").setResourceType(ResourceType.SCARD);
+        ScoreCardConfiguration resConf = new ScoreCardConfigurationImpl();
+        resConf.setWorksheetName(sheet);
+        resource.setConfiguration(resConf);
+        return resource;
+    }
+
+    private static List<PMMLRequestData> requests() {
+        List<PMMLRequestData> requests = new ArrayList<>();
+        String[] occupations = {"SKYDIVER", "TEACHER", "ASTRONAUT", "PROGRAMMER"};
+        String[] states = {"AP", "KN", "TN"};
+        for (int i = 0; i < 24; i++) {
+            requests.add(new PMMLRequestDataBuilder(String.valueOf(i), "SampleScore")
+                                 .addParameter("age", (double) (i * 3), Double.class)
+                                 .addParameter("occupation", occupations[i % occupations.length], String.class)
+                                 .addParameter("residenceState", states[i % states.length], String.class)
+                                 .addParameter("validLicense", i % 2 == 0, Boolean.class)
+                                 .build());
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.scorecards.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.drools.scorecards.ScorecardCompiler;
+import org.kie.api.io.Resource;
+import org.kie.api.io.ResourceType;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.pmml.pmml_4_2.PMML4ExecutionHelper;
+import org.kie.pmml.pmml_4_2.PMML4ExecutionHelper.PMML4ExecutionHelperFactory;
+import org.kie.pmml.pmml_4_2.PMMLRequestDataBuilder;
+import org.kie.pmml.pmml_4_2.evaluator.PMML4Evaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scoring of a scorecard with reason codes through its generated rules
+ * with the compiled evaluator returned by the ScorecardCompiler.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScorecardEvaluationBenchmark {
+
+    public enum ExecutionType {
+        RULES, COMPILED
+    }
+
+    private static final String[] OCCUPATIONS = {"SKYDIVER", "TEACHER", "ASTRONAUT", "PROGRAMMER"};
+    private static final String[] STATES = {"AP", "KN", "TN"};
+
+    @Param({"RULES", "COMPILED"})
+    private ExecutionType type;
+
+    private PMML4ExecutionHelper helper;
+    private PMML4Evaluator evaluator;
+    private PMMLRequestData[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (type == ExecutionType.COMPILED) {
+            ScorecardCompiler compiler = new ScorecardCompiler();
+            compiler.compileFromExcel(ScorecardEvaluationBenchmark.class.getResourceAsStream("/scoremodel_reasoncodes.xls"));
+            evaluator = compiler.getEvaluator("Sample Score");
+        } else {
+            Resource resource = ResourceFactory.newClassPathResource("scoremodel_reasoncodes.xls").setResourceType(ResourceType.SCARD);
+            helper = PMML4ExecutionHelperFactory.getExecutionHelper("SampleScore", resource, null);
+            helper.addPossiblePackageName("org.drools.scorecards.example");
+        }
+        requests = new PMMLRequestData[100];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new PMMLRequestDataBuilder(String.valueOf(i), "SampleScore")
+                    .addParameter("age", (double) (i % 60), Double.class)
+                    .addParameter("occupation", OCCUPATIONS[i % OCCUPATIONS.length], String.class)
+                    .addParameter("residenceState", STATES[i % STATES.length], String.class)
+                    .addParameter("validLicense", i % 2 == 0, Boolean.class)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public PMML4Result score() {
+        PMMLRequestData request = requests[next++ % requests.length];
+        if (type == ExecutionType.COMPILED) {
+            return evaluator.evaluate(request);
+        }
+        return helper.submitRequest(request);
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.drools.template.model;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -121,6 +122,13 @@ public abstract class AttributedDRLElement extends DRLElement {
         return this._attr2value.get(name).toString();
     }
 
+    /**
+     * @return the attributes of this element, mapped to their values as rendered in DRL
+     */
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(this._attr2value);
+    }
+
     public String getSalience() {
         return this._attr2value.get("salience");
     }
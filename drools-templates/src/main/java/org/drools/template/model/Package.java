@@ -93,6 +93,16 @@ public class Package extends AttributedDRLElement
     }
 
     public void renderDRL(final DRLOutput out) {
+        renderHeaderDRL(out);
+        renderDRL(this._rules,
+                  out);
+
+    }
+
+    /**
+     * Renders everything but the rules, i.e. the declarations that are shared by all of them.
+     */
+    public void renderHeaderDRL(final DRLOutput out) {
         if (_name != null) {
             out.writeLine("package " + this._name.replace(' ',
                                                           '_') + ";");
@@ -108,10 +118,6 @@ public class Package extends AttributedDRLElement
 
         // attributes
         super.renderDRL(out);
-
-        renderDRL(this._rules,
-                  out);
-
     }
 
     private void renderDRL(final List<? extends DRLJavaEmitter> list,
@@ -37,8 +37,15 @@ public class DefaultGenerator
         implements
         Generator {
 
+    /**
+     * System property enabling the sharing of the rules generated from a template, see {@link #setShareRules(boolean)}
+     */
+    public static final String SHARE_RULES_PROPERTY = "drools.template.shareRules";
+
     private Map<String, RuleTemplate> ruleTemplates;
 
+    private boolean shareRules = Boolean.getBoolean( SHARE_RULES_PROPERTY );
+
     private TemplateRegistry registry = new SimpleTemplateRegistry();
 
     private List<String> rules = new ArrayList<String>();
@@ -47,6 +54,33 @@ public class DefaultGenerator
         ruleTemplates = t;
     }
 
+    public DefaultGenerator( final Map<String, RuleTemplate> t,
+                             final boolean shareRules ) {
+        this( t );
+        this.shareRules = shareRules;
+    }
+
+    /**
+     * When enabled, the rules generated from many rows that only differ in the literals of their conditions,
+     * consequence and salience are merged into a single rule joining a declared row type, whose facts are inserted
+     * by generated rules. This keeps the size of the network constant as the number of rows grows, at the cost of
+     * the names of the generated rules.
+     * <p>
+     * The row facts belong to the sessions, not to the KieBase: every new session inserts all of them on its first
+     * fireAllRules, which costs time and memory proportional to the number of rows for each session. It pays off
+     * for long lived sessions or a KieBase that is built often, while many short lived sessions on a KieBase built
+     * once are better served by the unshared rules, whose network is built once for all of them. Looking the rows up
+     * from a global instead would avoid the insertions, but evaluate every row for every match, without the hashed
+     * memories the row facts are indexed by.
+     */
+    public void setShareRules( boolean shareRules ) {
+        this.shareRules = shareRules;
+    }
+
+    public boolean isShareRules() {
+        return shareRules;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -114,6 +148,9 @@ public class DefaultGenerator
      * @see org.kie.decisiontable.parser.Generator#getDrl()
      */
     public String getDrl() {
+        if ( shareRules ) {
+            return new SharedTemplateRules().render( rules );
+        }
         StringBuffer sb = new StringBuffer();
         for ( String rule : rules ) {
             sb.append( rule ).append( "\n" );
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.template.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Merges the rules generated from a template that have the same shape, i.e. that only differ in the
+ * literals of their conditions, consequence and salience, into a single rule. The literals that change from
+ * row to row are moved into a declared row type, whose instances are inserted by a few generated rules, so that
+ * the network size doesn't grow with the number of rows and the values are looked up through the (hashed)
+ * beta memories instead of one network per row.
+ *
+ * The row facts are inserted in a dedicated entry point, so that they are not visible to the patterns and the
+ * queries of the default one. They are inserted again in every session, see {@link DefaultGenerator#setShareRules(boolean)}.
+ *
+ * Rules that cannot be analysed, whose shape is shared by less than the given number of rows, or whose attributes
+ * depend on the identity of the rule, e.g. lock-on-active, are rendered unchanged.
+ */
+class SharedTemplateRules {
+
+    static final int DEFAULT_MIN_ROWS = 10;
+
+    static final int ROWS_PER_RULE = 200;
+
+    private static final String VARIABLE_PREFIX = "$__p";
+
+    static final String ROWS_ENTRY_POINT = "TemplateRows";
+
+    private static final Pattern GROUP_ATTRIBUTE = Pattern.compile( "(?:agenda|ruleflow)-group\\s+\"[^\"]*\"" );
+
+    /**
+     * Attributes behaving differently once the rows are merged into a single rule: lock-on-active would discard the
+     * activations caused by the row facts, inserted while the group is active, auto-focus would never be triggered,
+     * as the row facts are inserted by rules of that group, and no-loop would also block the activations for other rows.
+     */
+    private static final Pattern RULE_IDENTITY_ATTRIBUTE = Pattern.compile( "(?:lock-on-active|auto-focus|no-loop)(?!\\s+false)" );
+
+    private final int minRows;
+
+    SharedTemplateRules() {
+        this( DEFAULT_MIN_ROWS );
+    }
+
+    SharedTemplateRules( int minRows ) {
+        this.minRows = minRows;
+    }
+
+    String render( List<String> rules ) {
+        List<RuleShape> shapes = new ArrayList<RuleShape>( rules.size() );
+        Map<String, List<RuleShape>> groups = new HashMap<String, List<RuleShape>>();
+        for ( String rule : rules ) {
+            RuleShape shape = RuleShape.parse( rule );
+            if ( shape != null && RULE_IDENTITY_ATTRIBUTE.matcher( shape.header() ).find() ) {
+                shape = null;
+            }
+            shapes.add( shape );
+            if ( shape != null ) {
+                List<RuleShape> group = groups.get( shape.key );
+                if ( group == null ) {
+                    group = new ArrayList<RuleShape>();
+                    groups.put( shape.key, group );
+                }
+                group.add( shape );
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < rules.size(); i++ ) {
+            RuleShape shape = shapes.get( i );
+            List<RuleShape> group = shape != null ? groups.get( shape.key ) : null;
+            if ( group == null || group.size() < minRows ) {
+                sb.append( rules.get( i ) ).append( "\n" );
+            } else if ( group.get( 0 ) == shape ) {
+                renderShared( group, sb );
+            }
+        }
+        return sb.toString();
+    }
+
+    private void renderShared( List<RuleShape> group, StringBuilder sb ) {
+        RuleShape first = group.get( 0 );
+        int literals = first.literalCount();
+        boolean[] varying = new boolean[ literals ];
+        boolean[] wide = new boolean[ literals ];
+        for ( RuleShape shape : group ) {
+            for ( int i = 0; i < literals; i++ ) {
+                varying[ i ] |= !shape.literal( i ).equals( first.literal( i ) );
+                wide[ i ] |= shape.literalKind( i ) == LiteralKind.INT && !fitsInt( shape.literal( i ) );
+            }
+        }
+
+        String name = first.name();
+        String typeName = "TemplateRow_" + toIdentifier( name );
+
+        sb.append( "declare " ).append( typeName ).append( "\n" );
+        StringBuilder bindings = new StringBuilder();
+        for ( int i = 0; i < literals; i++ ) {
+            if ( varying[ i ] ) {
+                String type = wide[ i ] ? LiteralKind.LONG.javaType : first.literalKind( i ).javaType;
+                sb.append( "\tp" ).append( i ).append( " : " ).append( type ).append( "\n" );
+                bindings.append( bindings.length() == 0 ? " " : ", " ).append( VARIABLE_PREFIX ).append( i ).append( " : p" ).append( i );
+            }
+        }
+        sb.append( "end\n\n" );
+
+        String rowPattern = "\n\t\t$__row : " + typeName + "(" + bindings + ( bindings.length() > 0 ? " " : "" ) + ")" +
+                            " from entry-point \"" + ROWS_ENTRY_POINT + "\"";
+        int literal = 0;
+        for ( int i = 0; i <= first.tokens.size(); i++ ) {
+            if ( i == first.whenIndex ) {
+                sb.append( rowPattern );
+            }
+            if ( i == first.tokens.size() ) {
+                break;
+            }
+            Token token = first.tokens.get( i );
+            if ( token.type == TokenType.NAME ) {
+                sb.append( '"' ).append( name ).append( "_shared\"" );
+            } else if ( token.type == TokenType.LITERAL ) {
+                sb.append( varying[ literal ] ? VARIABLE_PREFIX + literal : token.text );
+                literal++;
+            } else {
+                sb.append( token.text );
+            }
+        }
+        sb.append( "\n" );
+
+        // the row facts go in the same agenda or ruleflow group of the shared rule, in order to be inserted before it fires
+        StringBuilder attributes = new StringBuilder( "\tsalience " ).append( Integer.MAX_VALUE ).append( "\n" );
+        Matcher matcher = GROUP_ATTRIBUTE.matcher( first.header() );
+        while ( matcher.find() ) {
+            attributes.append( "\t" ).append( matcher.group() ).append( "\n" );
+        }
+        for ( int start = 0; start < group.size(); start += ROWS_PER_RULE ) {
+            sb.append( "rule \"" ).append( name ).append( "_rows_" ).append( start / ROWS_PER_RULE ).append( "\"\n" );
+            sb.append( attributes );
+            sb.append( "\twhen\n\tthen\n" );
+            for ( RuleShape shape : group.subList( start, Math.min( start + ROWS_PER_RULE, group.size() ) ) ) {
+                sb.append( "\t\tdrools.getEntryPoint( \"" ).append( ROWS_ENTRY_POINT ).append( "\" ).insert( new " ).append( typeName ).append( "(" );
+                String sep = " ";
+                for ( int i = 0; i < literals; i++ ) {
+                    if ( varying[ i ] ) {
+                        sb.append( sep ).append( shape.literal( i ) );
+                        if ( shape.literalKind( i ) == LiteralKind.INT && !fitsInt( shape.literal( i ) ) ) {
+                            // a java literal out of the int range needs the long suffix
+                            sb.append( 'L' );
+                        }
+                        sep = ", ";
+                    }
+                }
+                sb.append( sep.equals( " " ) ? "" : " " ).append( ") );\n" );
+            }
+            sb.append( "end\n\n" );
+        }
+    }
+
+    private static boolean fitsInt( String literal ) {
+        try {
+            Integer.parseInt( literal );
+            return true;
+        } catch ( NumberFormatException e ) {
+            return false;
+        }
+    }
+
+    private static String toIdentifier( String name ) {
+        StringBuilder sb = new StringBuilder( name.length() );
+        for ( char c : name.toCharArray() ) {
+            sb.append( Character.isJavaIdentifierPart( c ) && c != '$' ? c : '_' );
+        }
+        return sb.toString();
+    }
+
+    enum TokenType {
+        RAW, NAME, LITERAL
+    }
+
+    enum LiteralKind {
+        STRING( "String" ), INT( "int" ), LONG( "long" ), FLOAT( "float" ), DOUBLE( "double" );
+
+        private final String javaType;
+
+        LiteralKind( String javaType ) {
+            this.javaType = javaType;
+        }
+    }
+
+    static final class Token {
+
+        final TokenType type;
+        final String text;
+        final LiteralKind kind;
+
+        Token( TokenType type, String text, LiteralKind kind ) {
+            this.type = type;
+            this.text = text;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * A generated rule split into the literals that can be replaced by variables and the text around them.
+     */
+    static final class RuleShape {
+
+        final List<Token> tokens;
+        final int whenIndex;
+        final String key;
+        private final List<Token> literals = new ArrayList<Token>();
+
+        private RuleShape( List<Token> tokens, int whenIndex ) {
+            this.tokens = tokens;
+            this.whenIndex = whenIndex;
+            StringBuilder sb = new StringBuilder();
+            for ( Token token : tokens ) {
+                if ( token.type == TokenType.RAW ) {
+                    sb.append( token.text );
+                } else if ( token.type == TokenType.NAME ) {
+                    sb.append( "\u0000name" );
+                } else {
+                    sb.append( '\u0000' ).append( token.kind );
+                    literals.add( token );
+                }
+            }
+            this.key = sb.toString();
+        }
+
+        int literalCount() {
+            return literals.size();
+        }
+
+        String literal( int i ) {
+            return literals.get( i ).text;
+        }
+
+        LiteralKind literalKind( int i ) {
+            return literals.get( i ).kind;
+        }
+
+        String name() {
+            for ( Token token : tokens ) {
+                if ( token.type == TokenType.NAME ) {
+                    String name = token.text;
+                    return name.startsWith( "\"" ) ? name.substring( 1, name.length() - 1 ) : name;
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        String header() {
+            StringBuilder sb = new StringBuilder();
+            for ( Token token : tokens.subList( 0, whenIndex ) ) {
+                sb.append( token.text );
+            }
+            return sb.toString();
+        }
+
+        /**
+         * @return the shape of the given DRL, or null if it isn't made of a single rule with conditions
+         */
+        static RuleShape parse( String drl ) {
+            List<Token> tokens = new ArrayList<Token>();
+            StringBuilder raw = new StringBuilder();
+            int whenIndex = -1;
+            boolean expectName = false;
+            String firstWord = null;
+            String lastWord = null;
+            String previousWord = null;
+            int rules = 0;
+
+            int i = 0;
+            int n = drl.length();
+            while ( i < n ) {
+                char c = drl.charAt( i );
+                if ( c == '/' && i + 1 < n && drl.charAt( i + 1 ) == '/' ) {
+                    int end = drl.indexOf( '\n', i );
+                    end = end < 0 ? n : end;
+                    raw.append( drl, i, end );
+                    i = end;
+                } else if ( c == '/' && i + 1 < n && drl.charAt( i + 1 ) == '*' ) {
+                    int end = drl.indexOf( "*/", i + 2 );
+                    if ( end < 0 ) {
+                        return null;
+                    }
+                    raw.append( drl, i, end + 2 );
+                    i = end + 2;
+                } else if ( c == '"' || c == '\'' ) {
+                    int end = endOfString( drl, i, c );
+                    if ( end < 0 ) {
+                        return null;
+                    }
+                    String literal = drl.substring( i, end );
+                    if ( expectName && c == '"' ) {
+                        flush( raw, tokens );
+                        tokens.add( new Token( TokenType.NAME, literal, null ) );
+                        expectName = false;
+                    } else if ( c == '"' && whenIndex >= 0 && !isLiteralOnly( raw ) ) {
+                        flush( raw, tokens );
+                        tokens.add( new Token( TokenType.LITERAL, literal, LiteralKind.STRING ) );
+                    } else {
+                        raw.append( literal );
+                    }
+                    previousWord = null;
+                    i = end;
+                } else if ( Character.isJavaIdentifierStart( c ) ) {
+                    int end = i + 1;
+                    while ( end < n && Character.isJavaIdentifierPart( drl.charAt( end ) ) ) {
+                        end++;
+                    }
+                    String word = drl.substring( i, end );
+                    raw.append( word );
+                    if ( expectName ) {
+                        // unquoted rule name
+                        raw.setLength( raw.length() - word.length() );
+                        flush( raw, tokens );
+                        tokens.add( new Token( TokenType.NAME, word, null ) );
+                        expectName = false;
+                    } else if ( "rule".equals( word ) && startsLine( drl, i ) ) {
+                        rules++;
+                        expectName = whenIndex < 0;
+                    } else if ( whenIndex < 0 && "when".equals( word ) ) {
+                        flush( raw, tokens );
+                        whenIndex = tokens.size();
+                    }
+                    if ( firstWord == null ) {
+                        firstWord = word;
+                    }
+                    lastWord = word;
+                    previousWord = word;
+                    i = end;
+                } else if ( Character.isDigit( c ) || ( c == '.' && i + 1 < n && Character.isDigit( drl.charAt( i + 1 ) ) ) ) {
+                    int end = endOfNumber( drl, i );
+                    String number = drl.substring( i, end );
+                    LiteralKind kind = numberKind( number );
+                    boolean parameter = whenIndex >= 0 ? !isLiteralOnly( raw ) : "salience".equals( previousWord );
+                    if ( kind != null && parameter && ( end == n || !Character.isJavaIdentifierPart( drl.charAt( end ) ) ) ) {
+                        flush( raw, tokens );
+                        tokens.add( new Token( TokenType.LITERAL, number, kind ) );
+                    } else {
+                        raw.append( number );
+                    }
+                    previousWord = null;
+                    i = end;
+                } else {
+                    raw.append( c );
+                    if ( !Character.isWhitespace( c ) && c != '-' ) {
+                        previousWord = null;
+                    }
+                    i++;
+                }
+            }
+            flush( raw, tokens );
+
+            if ( rules != 1 || whenIndex < 0 || expectName || !"rule".equals( firstWord ) || !"end".equals( lastWord ) ) {
+                return null;
+            }
+            return new RuleShape( tokens, whenIndex );
+        }
+
+        /**
+         * Literals that can't be replaced by a variable, e.g. <code>from entry-point "stream"</code>
+         */
+        private static boolean isLiteralOnly( StringBuilder raw ) {
+            String before = raw.toString().trim();
+            return before.endsWith( "entry-point" ) || before.matches( "(?s).*window\\s*:\\s*length\\s*\\($" );
+        }
+
+        private static boolean startsLine( String drl, int index ) {
+            for ( int i = index - 1; i >= 0 && drl.charAt( i ) != '\n'; i-- ) {
+                if ( !Character.isWhitespace( drl.charAt( i ) ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static void flush( StringBuilder raw, List<Token> tokens ) {
+            if ( raw.length() > 0 ) {
+                tokens.add( new Token( TokenType.RAW, raw.toString(), null ) );
+                raw.setLength( 0 );
+            }
+        }
+
+        private static int endOfString( String drl, int start, char quote ) {
+            for ( int i = start + 1; i < drl.length(); i++ ) {
+                char c = drl.charAt( i );
+                if ( c == '\\' ) {
+                    i++;
+                } else if ( c == quote ) {
+                    return i + 1;
+                } else if ( c == '\n' ) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private static int endOfNumber( String drl, int start ) {
+            int i = start;
+            while ( i < drl.length() && ( Character.isLetterOrDigit( drl.charAt( i ) ) || drl.charAt( i ) == '.'
+                    || ( ( drl.charAt( i ) == '+' || drl.charAt( i ) == '-' ) && ( drl.charAt( i - 1 ) == 'e' || drl.charAt( i - 1 ) == 'E' ) ) ) ) {
+                i++;
+            }
+            return i;
+        }
+
+        private static LiteralKind numberKind( String number ) {
+            if ( number.matches( "[0-9]+" ) ) {
+                return LiteralKind.INT;
+            } else if ( number.matches( "[0-9]+[lL]" ) ) {
+                return LiteralKind.LONG;
+            } else if ( number.matches( "([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][+-]?[0-9]+)?[fF]" ) ) {
+                return LiteralKind.FLOAT;
+            } else if ( number.matches( "([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][+-]?[0-9]+)?[dD]?" ) ) {
+                return LiteralKind.DOUBLE;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.template.parser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.drools.template.DataProvider;
+import org.drools.template.DataProviderCompiler;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SharedTemplateRulesTest {
+
+    private static final String TEMPLATE =
+            "template header\n" +
+            "code\n" +
+            "result\n" +
+            "\n" +
+            "package org.drools.template.shared;\n" +
+            "\n" +
+            "global java.util.List list;\n" +
+            "\n" +
+            "template \"shared\"\n" +
+            "code\n" +
+            "result\n" +
+            "rule \"Shared_@{row.rowNumber}\"\n" +
+            "    salience @{row.rowNumber}\n" +
+            "    %s\n" +
+            "    when\n" +
+            "        %s( %s == @{code} )\n" +
+            "    then\n" +
+            "        list.add( \"@{result}\" );\n" +
+            "end\n" +
+            "end template\n";
+
+    private static final Object[] INTEGERS = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+    @Test
+    public void testSharedRulesBehaveLikeTheGeneratedOnes() {
+        String drl = compile( "", false );
+        String sharedDrl = compile( "", true );
+        assertTrue( sharedDrl.contains( "declare TemplateRow_Shared_" ) );
+        assertTrue( sharedDrl.contains( "_shared\"" ) );
+        assertTrue( sharedDrl.contains( "$__row : TemplateRow_Shared_" ) );
+
+        KieBase kbase = new KieHelper().addContent( drl, ResourceType.DRL ).build();
+        KieBase sharedKbase = new KieHelper().addContent( sharedDrl, ResourceType.DRL ).build();
+        assertEquals( 30, kbase.getKiePackage( "org.drools.template.shared" ).getRules().size() );
+        assertEquals( 2, sharedKbase.getKiePackage( "org.drools.template.shared" ).getRules().size() );
+
+        List<String> results = fire( kbase, INTEGERS );
+        assertEquals( 30, results.size() );
+        assertEquals( results, fire( sharedKbase, INTEGERS ) );
+    }
+
+    @Test
+    public void testRowFactsAreNotVisible() {
+        KieBase sharedKbase = new KieHelper().addContent( compile( "", true ), ResourceType.DRL ).build();
+        KieSession ksession = sharedKbase.newKieSession();
+        ksession.setGlobal( "list", new ArrayList<String>() );
+        for ( Object fact : INTEGERS ) {
+            ksession.insert( fact );
+        }
+        ksession.fireAllRules();
+        assertEquals( 10, ksession.getFactCount() );
+        assertEquals( 10, ksession.getObjects().size() );
+        assertEquals( 30, ksession.getEntryPoint( SharedTemplateRules.ROWS_ENTRY_POINT ).getFactCount() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testRuleIdentityAttributesAreNotShared() {
+        for ( String attribute : new String[]{ "agenda-group \"g\" lock-on-active", "agenda-group \"g\" auto-focus", "no-loop" } ) {
+            String drl = compile( attribute, false );
+            assertEquals( drl, compile( attribute, true ) );
+        }
+        assertTrue( compile( "lock-on-active false", true ).contains( "declare TemplateRow_Shared_" ) );
+
+        KieBase kbase = new KieHelper().addContent( compile( "agenda-group \"g\" auto-focus", true ), ResourceType.DRL ).build();
+        assertEquals( 30, fire( kbase, INTEGERS ).size() );
+    }
+
+    @Test
+    public void testWideIntegerLiterals() {
+        String drl = compile( "", false, "Long", "longValue", 3000000000L );
+        String sharedDrl = compile( "", true, "Long", "longValue", 3000000000L );
+        assertTrue( sharedDrl.contains( "p1 : long" ) );
+
+        Object[] longs = new Object[ 10 ];
+        for ( int i = 0; i < longs.length; i++ ) {
+            longs[ i ] = 3000000000L + i;
+        }
+        KieBase kbase = new KieHelper().addContent( drl, ResourceType.DRL ).build();
+        KieBase sharedKbase = new KieHelper().addContent( sharedDrl, ResourceType.DRL ).build();
+        assertEquals( 2, sharedKbase.getKiePackage( "org.drools.template.shared" ).getRules().size() );
+
+        List<String> results = fire( kbase, longs );
+        assertEquals( 30, results.size() );
+        assertEquals( results, fire( sharedKbase, longs ) );
+    }
+
+    @Test
+    public void testUnsharedRules() {
+        List<String> rules = new ArrayList<String>();
+        rules.add( "Test template 2\n" );
+        rules.add( "rule \"a\"\nwhen\n\tFoo( x == 1 )\nthen\nend\nrule \"b\"\nwhen\nthen\nend\n" );
+        rules.add( "rule \"c\"\nwhen\n\tFoo( x == 1 )\nthen\nend\n" );
+        rules.add( "rule \"d\"\nwhen\n\tFoo( x == 2 )\nthen\nend\n" );
+        rules.add( "rule \"e\"\nwhen\n\tFoo( x == 3.5 )\nthen\nend\n" );
+
+        assertEquals( "Test template 2\n\n" +
+                      "rule \"a\"\nwhen\n\tFoo( x == 1 )\nthen\nend\nrule \"b\"\nwhen\nthen\nend\n\n" +
+                      "rule \"c\"\nwhen\n\tFoo( x == 1 )\nthen\nend\n\n" +
+                      "rule \"d\"\nwhen\n\tFoo( x == 2 )\nthen\nend\n\n" +
+                      "rule \"e\"\nwhen\n\tFoo( x == 3.5 )\nthen\nend\n\n",
+                      new SharedTemplateRules( 3 ).render( rules ) );
+    }
+
+    @Test
+    public void testRuleShape() {
+        SharedTemplateRules.RuleShape shape = SharedTemplateRules.RuleShape.parse(
+                "rule \"r\"\n\tsalience 10\n\tduration 100\nwhen\n" +
+                "\tFoo( x == 1, y > 2.5, z == \"a\" ) from entry-point \"s\" // 3\n" +
+                "\tBar( w < 5L ) over window:time( 30s )\nthen\n\tSystem.out.println( \"fired\" );\nend\n" );
+        assertEquals( "r", shape.name() );
+        assertEquals( Arrays.asList( "10", "1", "2.5", "\"a\"", "5L", "\"fired\"" ), literals( shape ) );
+        assertEquals( SharedTemplateRules.LiteralKind.LONG, shape.literalKind( 4 ) );
+
+        assertNull( SharedTemplateRules.RuleShape.parse( "query q( int x )\nend\n" ) );
+        assertNull( SharedTemplateRules.RuleShape.parse( "rule \"r\"\nthen\nend\n" ) );
+    }
+
+    private List<String> literals( SharedTemplateRules.RuleShape shape ) {
+        List<String> literals = new ArrayList<String>();
+        for ( int i = 0; i < shape.literalCount(); i++ ) {
+            literals.add( shape.literal( i ) );
+        }
+        return literals;
+    }
+
+    private List<String> fire( KieBase kbase, Object[] facts ) {
+        KieSession ksession = kbase.newKieSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        for ( Object fact : facts ) {
+            ksession.insert( fact );
+        }
+        ksession.fireAllRules();
+        ksession.dispose();
+        Collections.sort( list );
+        return list;
+    }
+
+    private String compile( String attributes, boolean shareRules ) {
+        return compile( attributes, shareRules, "Integer", "intValue", 0 );
+    }
+
+    private String compile( String attributes, boolean shareRules, String type, String field, long firstCode ) {
+        String template = String.format( TEMPLATE, attributes, type, field );
+        DefaultTemplateContainer tc = new DefaultTemplateContainer( new ByteArrayInputStream( template.getBytes( StandardCharsets.UTF_8 ) ) );
+        TemplateDataListener listener = new TemplateDataListener( 1,
+                                                                  1,
+                                                                  tc,
+                                                                  new DefaultTemplateRuleBase( tc ),
+                                                                  new DefaultGenerator( tc.getTemplates(), shareRules ) );
+        return new DataProviderCompiler().compile( new RowProvider( 30, firstCode ), listener );
+    }
+
+    private static class RowProvider implements DataProvider {
+
+        private final Iterator<String[]> rows;
+
+        private RowProvider( int size, long firstCode ) {
+            List<String[]> data = new ArrayList<String[]>();
+            for ( int i = 0; i < size; i++ ) {
+                data.add( new String[]{ String.valueOf( firstCode + i % 7 ), "result" + i } );
+            }
+            rows = data.iterator();
+        }
+
+        public boolean hasNext() {
+            return rows.hasNext();
+        }
+
+        public String[] next() {
+            return rows.next();
+        }
+    }
+}
@@ -38,6 +38,29 @@ public interface Verifier {
     public void addResourcesToVerify(Resource resource,
             ResourceType type, ResourceConfiguration config);
 
+    /**
+     * Replaces the rules defined in the resource: rules already verified under the same package and name are
+     * removed before the new definitions are added, and so are the rules that the previous version of the
+     * resource defined and this one no longer does. A resource is recognized by its source path or, when it has
+     * none, by its package. The verifier session is kept, so the next analysis only
+     * verifies what changed, see {@link VerifierReport#getAddedMessages()} and
+     * {@link VerifierReport#getRemovedMessages()}.
+     */
+    public void updateResourcesToVerify(Resource resource,
+                                        ResourceType type);
+
+    public void updateResourcesToVerify(Resource resource,
+                                        ResourceType type,
+                                        ResourceConfiguration config);
+
+    /**
+     * Removes a rule, and the messages caused by it, from the verification on the next analysis.
+     *
+     * @return false if no such rule was verified
+     */
+    public boolean removeRuleToVerify(String packageName,
+                                      String ruleName);
+
     /**
      * Give model info optionally as a jar. This way verifier doesn't have to figure out the field types.
      */
@@ -26,6 +26,14 @@ public interface VerifierConfiguration
     extends
     PropertiesConfiguration {
 
+    /**
+     * Number of threads used to verify independent partitions of the rules concurrently, or "true" for one per
+     * available processor. Rules only end up in different partitions when they don't have patterns on a common
+     * object type. A parallel analysis always verifies everything again, it doesn't keep a session between
+     * analyses.
+     */
+    String PARALLEL_ANALYSIS_PROPERTY = "drools.verifier.parallelAnalysis";
+
     /**
      * Add external analyzing rules to verifier.
      * 
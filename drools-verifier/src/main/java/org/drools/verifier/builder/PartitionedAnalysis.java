@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.drools.verifier.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.drools.verifier.components.Field;
+import org.drools.verifier.components.ObjectType;
+import org.drools.verifier.components.Pattern;
+import org.drools.verifier.components.RuleComponent;
+import org.drools.verifier.components.VerifierComponentType;
+import org.drools.verifier.components.VerifierRule;
+import org.drools.verifier.data.VerifierComponent;
+import org.drools.verifier.data.VerifierData;
+import org.drools.verifier.data.VerifierReport;
+import org.drools.verifier.data.VerifierReportFactory;
+import org.drools.verifier.report.components.Gap;
+import org.drools.verifier.report.components.MissingNumberPattern;
+import org.drools.verifier.report.components.MissingRange;
+import org.drools.verifier.report.components.Severity;
+import org.drools.verifier.report.components.VerifierMessageBase;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.AgendaFilter;
+
+/**
+ * Runs the verifier rules over independent partitions of the verifier data concurrently.
+ * <p>
+ * Two rules end up in the same partition when they have patterns on the same object type, together with the
+ * object types, their fields and all the rule components. Every check relates components on the same fields or
+ * object types, so no check crosses partitions. The components that don't belong to a rule or an object type
+ * (packages, imports, entry points...) are only matched together with rule components and are shared by all the
+ * partitions.
+ */
+class PartitionedAnalysis {
+
+    private static final String RULES_WITHOUT_PATTERNS = "";
+
+    private final KieBase verifierKnowledgeBase;
+    private final int     threads;
+
+    PartitionedAnalysis(KieBase verifierKnowledgeBase,
+                        int threads) {
+        this.verifierKnowledgeBase = verifierKnowledgeBase;
+        this.threads = threads;
+    }
+
+    /**
+     * Verifies the data and merges the results of all the partitions into the given report.
+     */
+    void analyse(VerifierData data,
+                 VerifierReport result,
+                 AgendaFilter agendaFilter) throws InterruptedException,
+                                                   ExecutionException {
+        List<VerifierComponent> shared = new ArrayList<VerifierComponent>();
+        List<List<VerifierComponent>> partitions = partition( data,
+                                                              shared );
+
+        ExecutorService executor = Executors.newFixedThreadPool( Math.min( threads,
+                                                                           Math.max( 1,
+                                                                                     partitions.size() ) ) );
+        try {
+            List<Future<VerifierReport>> reports = new ArrayList<Future<VerifierReport>>();
+            for ( List<VerifierComponent> partition : partitions ) {
+                reports.add( executor.submit( newPartitionAnalysis( data,
+                                                                    partition,
+                                                                    shared,
+                                                                    agendaFilter ) ) );
+            }
+
+            for ( Future<VerifierReport> report : reports ) {
+                merge( report.get(),
+                       result );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<VerifierReport> newPartitionAnalysis(final VerifierData data,
+                                                          final List<VerifierComponent> partition,
+                                                          final List<VerifierComponent> shared,
+                                                          final AgendaFilter agendaFilter) {
+        return new Callable<VerifierReport>() {
+            public VerifierReport call() {
+                VerifierReport report = VerifierReportFactory.newVerifierReport( data );
+                KieSession ksession = verifierKnowledgeBase.newKieSession();
+                try {
+                    for ( VerifierComponent component : partition ) {
+                        ksession.insert( component );
+                    }
+                    for ( VerifierComponent component : shared ) {
+                        ksession.insert( component );
+                    }
+                    ksession.setGlobal( "result",
+                                        report );
+                    ksession.fireAllRules( agendaFilter );
+                } finally {
+                    ksession.dispose();
+                }
+                return report;
+            }
+        };
+    }
+
+    private static void merge(VerifierReport report,
+                              VerifierReport result) {
+        for ( Severity severity : Severity.values() ) {
+            for ( VerifierMessageBase message : report.getBySeverity( severity ) ) {
+                result.add( message );
+            }
+        }
+        for ( MissingRange missingRange : report.getRangeCheckCauses() ) {
+            if ( missingRange instanceof Gap ) {
+                result.add( (Gap) missingRange );
+            } else if ( missingRange instanceof MissingNumberPattern ) {
+                result.add( (MissingNumberPattern) missingRange );
+            }
+        }
+    }
+
+    /**
+     * Splits the components in groups that can be verified independently, balanced over a few partitions per
+     * thread. The components that are needed by every partition are added to the shared list.
+     */
+    List<List<VerifierComponent>> partition(VerifierData data,
+                                            List<VerifierComponent> shared) {
+        Map<String, String> parents = new HashMap<String, String>();
+        Set<String> rulesWithPatterns = new HashSet<String>();
+        for ( VerifierComponent component : data.getAll( VerifierComponentType.PATTERN ) ) {
+            Pattern pattern = (Pattern) component;
+            rulesWithPatterns.add( pattern.getRulePath() );
+            if ( pattern.getObjectTypePath() != null ) {
+                union( parents,
+                       pattern.getRulePath(),
+                       pattern.getObjectTypePath() );
+            }
+        }
+        // rules without patterns, e.g. with evals only, can still be equivalent to each other
+        for ( VerifierComponent component : data.getAll( VerifierComponentType.RULE ) ) {
+            if ( !rulesWithPatterns.contains( component.getPath() ) ) {
+                union( parents,
+                       component.getPath(),
+                       RULES_WITHOUT_PATTERNS );
+            }
+        }
+
+        Map<String, List<VerifierComponent>> groups = new LinkedHashMap<String, List<VerifierComponent>>();
+        for ( VerifierComponent component : data.getAll() ) {
+            String key;
+            if ( component instanceof RuleComponent ) {
+                key = ((RuleComponent) component).getRulePath();
+            } else if ( component instanceof VerifierRule || component instanceof ObjectType ) {
+                key = component.getPath();
+            } else if ( component instanceof Field && ((Field) component).getObjectTypePath() != null ) {
+                key = ((Field) component).getObjectTypePath();
+            } else {
+                shared.add( component );
+                continue;
+            }
+
+            String root = find( parents,
+                                key );
+            List<VerifierComponent> group = groups.get( root );
+            if ( group == null ) {
+                group = new ArrayList<VerifierComponent>();
+                groups.put( root,
+                            group );
+            }
+            group.add( component );
+        }
+
+        List<List<VerifierComponent>> sorted = new ArrayList<List<VerifierComponent>>( groups.values() );
+        Collections.sort( sorted,
+                          new Comparator<List<VerifierComponent>>() {
+                              public int compare(List<VerifierComponent> a,
+                                                 List<VerifierComponent> b) {
+                                  return b.size() - a.size();
+                              }
+                          } );
+
+        // largest groups first, each one to the smallest partition so far
+        int count = Math.min( sorted.size(),
+                              threads * 4 );
+        List<List<VerifierComponent>> partitions = new ArrayList<List<VerifierComponent>>( count );
+        for ( int i = 0; i < count; i++ ) {
+            partitions.add( new ArrayList<VerifierComponent>() );
+        }
+        for ( List<VerifierComponent> group : sorted ) {
+            List<VerifierComponent> smallest = partitions.get( 0 );
+            for ( List<VerifierComponent> partition : partitions ) {
+                if ( partition.size() < smallest.size() ) {
+                    smallest = partition;
+                }
+            }
+            smallest.addAll( group );
+        }
+        return partitions;
+    }
+
+    private static String find(Map<String, String> parents,
+                               String key) {
+        String root = key;
+        String parent = parents.get( root );
+        while ( parent != null ) {
+            root = parent;
+            parent = parents.get( root );
+        }
+        // path compression
+        while ( !key.equals( root ) ) {
+            String next = parents.get( key );
+            parents.put( key,
+                         root );
+            key = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<String, String> parents,
+                              String a,
+                              String b) {
+        String rootA = find( parents,
+                             a );
+        String rootB = find( parents,
+                             b );
+        if ( !rootA.equals( rootB ) ) {
+            parents.put( rootA,
+                         rootB );
+        }
+    }
+}
@@ -18,21 +18,42 @@ package org.drools.verifier.builder;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.jar.JarInputStream;
 
 import org.drools.compiler.compiler.PackageBuilderErrors;
 import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.compiler.lang.descr.RuleDescr;
 import org.drools.verifier.DefaultVerifierConfiguration;
 import org.drools.verifier.Verifier;
 import org.drools.verifier.VerifierConfiguration;
 import org.drools.verifier.VerifierError;
+import org.drools.verifier.components.Field;
+import org.drools.verifier.components.Restriction;
+import org.drools.verifier.components.RuleComponent;
 import org.drools.verifier.components.RulePackage;
+import org.drools.verifier.components.VerifierComponentType;
 import org.drools.verifier.components.VerifierRule;
+import org.drools.verifier.data.VerifierComponent;
+import org.drools.verifier.data.VerifierData;
 import org.drools.verifier.data.VerifierReport;
 import org.drools.verifier.data.VerifierReportFactory;
 import org.drools.verifier.misc.DrlPackageParser;
 import org.drools.verifier.misc.DrlRuleParser;
+import org.drools.verifier.report.components.Cause;
+import org.drools.verifier.report.components.Gap;
+import org.drools.verifier.report.components.MissingNumberPattern;
+import org.drools.verifier.report.components.MissingRange;
+import org.drools.verifier.report.components.Severity;
+import org.drools.verifier.report.components.VerifierMessageBase;
+import org.drools.verifier.report.components.VerifierRangeCheckMessage;
 import org.drools.verifier.visitor.PackageDescrVisitor;
 import org.kie.internal.builder.KnowledgeBuilderError;
 import org.kie.api.KieBase;
@@ -40,6 +61,8 @@ import org.kie.api.io.Resource;
 import org.kie.api.io.ResourceConfiguration;
 import org.kie.api.io.ResourceType;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.ObjectFilter;
+import org.kie.api.runtime.rule.FactHandle;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
 
 /**
@@ -63,6 +86,12 @@ public class VerifierImpl
 
     private VerifierPackageBuilder      verifierPackageBuilder = new VerifierPackageBuilder();
 
+    // the components inserted in the verifier session, by identity, so only the changed ones are reinserted
+    private final Map<VerifierComponent, FactHandle> factHandles = new IdentityHashMap<VerifierComponent, FactHandle>();
+
+    // the names of the rules defined by each resource, so the ones deleted from an updated resource are removed
+    private final Map<String, Set<String>> ruleNamesByResource = new HashMap<String, Set<String>>();
+
     public VerifierImpl(VerifierConfiguration conf) {
         this.conf = conf;
     }
@@ -131,8 +160,22 @@ public class VerifierImpl
                 }
             }
 
-            for ( Object object : result.getVerifierData().getAll() ) {
-                ksession.insert( object );
+            result.clearChanges();
+
+            int threads = getParallelAnalysisThreads();
+            if ( threads > 1 ) {
+                analyseInParallel( scopesAgendaFilter,
+                                   threads );
+                return true;
+            }
+
+            if ( factHandles.isEmpty() ) {
+                for ( VerifierComponent object : result.getVerifierData().getAll() ) {
+                    factHandles.put( object,
+                                     ksession.insert( object ) );
+                }
+            } else {
+                updateChangedComponents();
             }
 
             // Object that returns the results.
@@ -148,6 +191,44 @@ public class VerifierImpl
         return true;
     }
 
+    /**
+     * Replaces all the results with the ones of a new analysis of the partitions of the verifier data.
+     */
+    private void analyseInParallel(ScopesAgendaFilter scopesAgendaFilter,
+                                   int threads) throws Exception {
+        for ( Severity severity : Severity.values() ) {
+            for ( VerifierMessageBase message : new ArrayList<VerifierMessageBase>( result.getBySeverity( severity ) ) ) {
+                result.remove( message );
+            }
+        }
+        for ( MissingRange missingRange : result.getRangeCheckCauses() ) {
+            if ( missingRange instanceof Gap ) {
+                result.remove( (Gap) missingRange );
+            } else if ( missingRange instanceof MissingNumberPattern ) {
+                result.remove( (MissingNumberPattern) missingRange );
+            }
+        }
+
+        new PartitionedAnalysis( verifierKnowledgeBase,
+                                 threads ).analyse( result.getVerifierData(),
+                                                    result,
+                                                    scopesAgendaFilter );
+    }
+
+    private int getParallelAnalysisThreads() {
+        String value = conf.getProperty( VerifierConfiguration.PARALLEL_ANALYSIS_PROPERTY );
+        if ( value == null ) {
+            value = System.getProperty( VerifierConfiguration.PARALLEL_ANALYSIS_PROPERTY );
+        }
+        if ( value == null || value.trim().isEmpty() || "false".equalsIgnoreCase( value.trim() ) ) {
+            return 1;
+        }
+        if ( "true".equalsIgnoreCase( value.trim() ) ) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Integer.parseInt( value.trim() );
+    }
+
     public void flushKnowledgeSession() {
         updateKnowledgeSession();
     }
@@ -158,6 +239,154 @@ public class VerifierImpl
         }
 
         ksession = verifierKnowledgeBase.newKieSession();
+        factHandles.clear();
+    }
+
+    /**
+     * Retracts the components that are no longer verified, together with the conclusions and messages that were
+     * derived from them, and inserts the new ones. The restrictions on the fields that changed are reinserted as
+     * well, as the range checks of a field are computed over all its restrictions.
+     */
+    private void updateChangedComponents() {
+        Set<VerifierComponent> current = newIdentitySet();
+        current.addAll( result.getVerifierData().getAll() );
+
+        Set<Object> retracted = newIdentitySet();
+        List<VerifierComponent> inserted = new ArrayList<VerifierComponent>();
+        Set<String> changedFields = new HashSet<String>();
+        for ( VerifierComponent component : factHandles.keySet() ) {
+            if ( !current.contains( component ) ) {
+                retracted.add( component );
+                addFieldPath( changedFields,
+                              component );
+            }
+        }
+        for ( VerifierComponent component : current ) {
+            if ( !factHandles.containsKey( component ) ) {
+                inserted.add( component );
+                addFieldPath( changedFields,
+                              component );
+            }
+        }
+        if ( retracted.isEmpty() && inserted.isEmpty() ) {
+            return;
+        }
+
+        List<VerifierComponent> reinserted = new ArrayList<VerifierComponent>();
+        for ( VerifierComponent component : current ) {
+            if ( component instanceof Restriction && factHandles.containsKey( component )
+                 && changedFields.contains( ((Restriction) component).getFieldPath() ) ) {
+                reinserted.add( component );
+            }
+        }
+        retracted.addAll( reinserted );
+
+        Collection<? extends Object> conclusions = ksession.getObjects( new ObjectFilter() {
+            public boolean accept(Object object) {
+                return !(object instanceof VerifierComponent);
+            }
+        } );
+        List<Object> staleConclusions = new ArrayList<Object>();
+        for ( Object conclusion : conclusions ) {
+            if ( isStale( conclusion,
+                          retracted,
+                          changedFields ) ) {
+                staleConclusions.add( conclusion );
+            }
+        }
+        retracted.addAll( staleConclusions );
+
+        for ( Severity severity : Severity.values() ) {
+            for ( VerifierMessageBase message : new ArrayList<VerifierMessageBase>( result.getBySeverity( severity ) ) ) {
+                if ( isStale( message,
+                              retracted,
+                              changedFields ) ) {
+                    result.remove( message );
+                }
+            }
+        }
+
+        for ( Object conclusion : staleConclusions ) {
+            if ( conclusion instanceof Gap ) {
+                result.remove( (Gap) conclusion );
+            } else if ( conclusion instanceof MissingNumberPattern ) {
+                result.remove( (MissingNumberPattern) conclusion );
+            }
+            ksession.delete( ksession.getFactHandle( conclusion ) );
+        }
+        for ( Object component : retracted ) {
+            FactHandle handle = factHandles.remove( component );
+            if ( handle != null ) {
+                ksession.delete( handle );
+            }
+        }
+
+        inserted.addAll( reinserted );
+        for ( VerifierComponent component : inserted ) {
+            factHandles.put( component,
+                             ksession.insert( component ) );
+        }
+    }
+
+    private static void addFieldPath(Set<String> fieldPaths,
+                                     VerifierComponent component) {
+        if ( component instanceof Restriction ) {
+            fieldPaths.add( ((Restriction) component).getFieldPath() );
+        }
+    }
+
+    private static boolean isStale(Object object,
+                                   Set<Object> retracted,
+                                   Set<String> changedFields) {
+        if ( object instanceof MissingRange ) {
+            return changedFields.contains( ((MissingRange) object).getField().getPath() )
+                   || (object instanceof Gap && retracted.contains( ((Gap) object).getRestriction() ));
+        } else if ( object instanceof VerifierMessageBase ) {
+            VerifierMessageBase message = (VerifierMessageBase) object;
+            if ( message instanceof VerifierRangeCheckMessage && message.getFaulty() instanceof Field
+                 && changedFields.contains( ((Field) message.getFaulty()).getPath() ) ) {
+                return true;
+            }
+            return dependsOn( message.getFaulty(),
+                              retracted ) || dependsOn( message.getCauses(),
+                                                        retracted );
+        } else if ( object instanceof Cause ) {
+            return dependsOn( ((Cause) object).getCauses(),
+                              retracted );
+        }
+        return false;
+    }
+
+    private static boolean dependsOn(Collection<Cause> causes,
+                                     Set<Object> retracted) {
+        if ( causes != null ) {
+            for ( Cause cause : causes ) {
+                if ( dependsOn( cause,
+                                retracted ) ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean dependsOn(Cause cause,
+                                     Set<Object> retracted) {
+        if ( cause == null ) {
+            return false;
+        }
+        if ( retracted.contains( cause ) ) {
+            return true;
+        }
+        if ( cause instanceof Gap && retracted.contains( ((Gap) cause).getRestriction() ) ) {
+            return true;
+        }
+        return !(cause instanceof VerifierComponent) && dependsOn( cause.getCauses(),
+                                                                   retracted );
+    }
+
+    private static <T> Set<T> newIdentitySet() {
+        return Collections.newSetFromMap( new IdentityHashMap<T, Boolean>() );
     }
 
     /**
@@ -208,6 +437,9 @@ public class VerifierImpl
             PackageDescr pkg = verifierPackageBuilder.getPackageDescr();
             if ( pkg != null ) {
                 addPackageDescr( pkg );
+                ruleNamesByResource.put( resourceKey( resource,
+                                                      pkg ),
+                                         ruleNames( pkg ) );
             } else {
                 errors.add( new VerifierError( "Verifier could not form a PackageDescr from the resources that it was trying to verify." ) );
             }
@@ -228,12 +460,100 @@ public class VerifierImpl
         PackageDescr pkg = verifierPackageBuilder.getPackageDescr();
         if ( pkg != null ) {
             addPackageDescr( pkg );
+            ruleNamesByResource.put( resourceKey( resource,
+                                                  pkg ),
+                                     ruleNames( pkg ) );
+        } else {
+            errors.add( new VerifierError( "Verifier could not form a PackageDescr from the resources that it was trying to verify." ) );
+        }
+    }
+
+    public void updateResourcesToVerify(Resource resource,
+                                        ResourceType type) {
+        updateResourcesToVerify( resource,
+                                 type,
+                                 null );
+    }
 
+    public void updateResourcesToVerify(Resource resource,
+                                        ResourceType type,
+                                        ResourceConfiguration config) {
+        verifierPackageBuilder.addKnowledgeResource( resource,
+                                                     type,
+                                                     config );
+
+        if ( verifierPackageBuilder.hasErrors() ) {
+            addVerifierErrors( verifierPackageBuilder.getErrors() );
+        }
+
+        PackageDescr pkg = verifierPackageBuilder.getPackageDescr();
+        if ( pkg != null ) {
+            Set<String> ruleNames = ruleNames( pkg );
+            Set<String> previousRuleNames = ruleNamesByResource.put( resourceKey( resource,
+                                                                                  pkg ),
+                                                                     ruleNames );
+            if ( previousRuleNames != null ) {
+                ruleNames = new HashSet<String>( ruleNames );
+                ruleNames.addAll( previousRuleNames );
+            }
+            for ( String ruleName : ruleNames ) {
+                removeRuleToVerify( pkg.getName(),
+                                    ruleName );
+            }
+            addPackageDescr( pkg );
         } else {
             errors.add( new VerifierError( "Verifier could not form a PackageDescr from the resources that it was trying to verify." ) );
         }
     }
 
+    /**
+     * A resource is identified by its source path; the rules of a resource without one, e.g. a byte array,
+     * are the ones of its package.
+     */
+    private static String resourceKey(Resource resource,
+                                      PackageDescr pkg) {
+        return resource.getSourcePath() != null ? resource.getSourcePath() : pkg.getName();
+    }
+
+    private static Set<String> ruleNames(PackageDescr pkg) {
+        Set<String> ruleNames = new HashSet<String>();
+        for ( RuleDescr rule : pkg.getRules() ) {
+            ruleNames.add( rule.getName() );
+        }
+        return ruleNames;
+    }
+
+    public boolean removeRuleToVerify(String packageName,
+                                      String ruleName) {
+        VerifierData data = result.getVerifierData();
+
+        VerifierRule rule = null;
+        for ( VerifierComponent component : data.getAll( VerifierComponentType.RULE ) ) {
+            VerifierRule candidate = (VerifierRule) component;
+            if ( ruleName.equals( candidate.getName() ) && packageName.equals( candidate.getPackageName() ) ) {
+                rule = candidate;
+                break;
+            }
+        }
+        if ( rule == null ) {
+            return false;
+        }
+
+        String rulePath = rule.getPath();
+        for ( VerifierComponent component : data.getAll() ) {
+            if ( component instanceof RuleComponent && rulePath.equals( ((RuleComponent) component).getRulePath() ) ) {
+                data.remove( component );
+            }
+        }
+        data.remove( rule );
+
+        RulePackage rulePackage = data.getPackageByName( packageName );
+        if ( rulePackage != null ) {
+            rulePackage.getRules().remove( rule );
+        }
+        return true;
+    }
+
     private void addVerifierErrors(PackageBuilderErrors packageBuilderErrors) {
         for ( KnowledgeBuilderError knowledgeBuilderError : packageBuilderErrors ) {
             errors.add( new VerifierError( knowledgeBuilderError.getMessage() ) );
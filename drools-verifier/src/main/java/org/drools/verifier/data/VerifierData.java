@@ -25,6 +25,11 @@ public interface VerifierData {
 
     public void add(VerifierComponent object);
 
+    /**
+     * Removes a component and its index entries, if it is still the one stored for its path.
+     */
+    public void remove(VerifierComponent object);
+
     public <T extends VerifierComponent> T getVerifierObject(VerifierComponentType type,
                                                              String path);
 
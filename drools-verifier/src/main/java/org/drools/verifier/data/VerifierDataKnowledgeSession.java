@@ -34,6 +34,7 @@ import org.drools.verifier.components.VerifierComponentType;
 import org.drools.verifier.components.VerifierRule;
 import org.kie.api.definition.KiePackage;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
 import org.kie.internal.builder.KnowledgeBuilder;
 import org.kie.internal.builder.KnowledgeBuilderFactory;
 
@@ -110,6 +111,13 @@ class VerifierDataKnowledgeSession
         kSession.insert( object );
     }
 
+    public void remove(VerifierComponent object) {
+        FactHandle handle = kSession.getFactHandle( object );
+        if ( handle != null ) {
+            kSession.delete( handle );
+        }
+    }
+
     //    public <T extends VerifierComponent> Collection<T> getAll(VerifierComponentType type) {
     public Collection< ? extends VerifierComponent> getAll(VerifierComponentType type) {
         return null;
@@ -182,6 +182,82 @@ class VerifierDataMaps
 
     }
 
+    public void remove(VerifierComponent object) {
+        Map<String, VerifierComponent> map = all.get(object.getVerifierComponentType());
+        if (map == null || map.get(object.getPath()) != object) {
+            return;
+        }
+        map.remove(object.getPath());
+
+        if (VerifierComponentType.FIELD.equals(object.getVerifierComponentType())) {
+            Field field = (Field) object;
+            ObjectType objectType = (ObjectType) getVerifierObject(VerifierComponentType.OBJECT_TYPE,
+                    field.getObjectTypePath());
+            if (objectType != null) {
+                removeIfSame(fieldsByObjectTypeAndFieldName,
+                        objectType.getFullName() + "." + field.getName(),
+                        field);
+            }
+            fieldsByObjectTypeId.remove(field.getObjectTypePath(),
+                    field);
+        } else if (VerifierComponentType.RULE.equals(object.getVerifierComponentType())) {
+            VerifierRule rule = (VerifierRule) object;
+            removeIfSame(rulesByName,
+                    rule.getName(),
+                    rule);
+            if (rule.getMetadata().containsKey("category")) {
+                rulesByCategory.remove(rule.getMetaAttribute("category"),
+                        rule);
+            }
+        } else if (isAVariable(object)) {
+            Variable variable = (Variable) object;
+            removeIfSame(variablesByRuleAndVariableName,
+                    variable.getRuleName() + "." + variable.getName(),
+                    variable);
+        } else if (VerifierComponentType.PATTERN.equals(object.getVerifierComponentType())) {
+            Pattern pattern = (Pattern) object;
+
+            patternsByObjectTypeId.remove(pattern.getObjectTypePath(),
+                    pattern);
+            patternsByRuleName.remove(pattern.getRuleName(),
+                    pattern);
+        } else if (VerifierComponentType.RESTRICTION.equals(object.getVerifierComponentType())) {
+            Restriction restriction = (Restriction) object;
+
+            restrictionsByFieldId.remove(restriction.getFieldPath(),
+                    restriction);
+        } else if (VerifierComponentType.RULE_PACKAGE.equals(object.getVerifierComponentType())) {
+            RulePackage rulePackage = (RulePackage) object;
+
+            removeIfSame(packagesByName,
+                    rulePackage.getName(),
+                    rulePackage);
+        } else if (VerifierComponentType.IMPORT.equals(object.getVerifierComponentType())) {
+            Import objectImport = (Import) object;
+            removeIfSame(importsByName,
+                    objectImport.getName(),
+                    objectImport);
+        } else if (VerifierComponentType.OBJECT_TYPE.equals(object.getVerifierComponentType())) {
+            ObjectType objectType = (ObjectType) object;
+            removeIfSame(objectTypesByFullName,
+                    objectType.getFullName(),
+                    objectType);
+        } else if (VerifierComponentType.ENTRY_POINT_DESCR.equals(object.getVerifierComponentType())) {
+            EntryPoint entryPoint = (EntryPoint) object;
+            removeIfSame(entryPointsByEntryId,
+                    entryPoint.getEntryPointName(),
+                    entryPoint);
+        }
+    }
+
+    private static <T> void removeIfSame(Map<String, T> map,
+                                         String key,
+                                         Object value) {
+        if (map.get(key) == value) {
+            map.remove(key);
+        }
+    }
+
     private boolean isAVariable(VerifierComponent object) {
         return VerifierComponentType.PATTERN_LEVEL_VARIABLE.equals(object.getVerifierComponentType()) || VerifierComponentType.FIELD_LEVEL_VARIABLE.equals(object.getVerifierComponentType());
     }
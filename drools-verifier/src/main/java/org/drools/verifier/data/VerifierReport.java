@@ -32,6 +32,8 @@ public interface VerifierReport {
 
     public void add(MissingNumberPattern missingNumberPattern);
 
+    public void remove(MissingNumberPattern missingNumberPattern);
+
     public VerifierData getVerifierData(VerifierData data);
 
     public VerifierData getVerifierData();
@@ -42,6 +44,24 @@ public interface VerifierReport {
 
     public void add(VerifierMessageBase note);
 
+    public void remove(VerifierMessageBase note);
+
+    /**
+     * Starts recording a new set of changes, see {@link #getAddedMessages()} and {@link #getRemovedMessages()}.
+     */
+    public void clearChanges();
+
+    /**
+     * Messages added since the last {@link #clearChanges()}, i.e. by the last analysis. A message that was removed
+     * and derived again in the same analysis is neither reported as added nor as removed.
+     */
+    public Collection<VerifierMessageBase> getAddedMessages();
+
+    /**
+     * Messages removed since the last {@link #clearChanges()}, i.e. by the last analysis.
+     */
+    public Collection<VerifierMessageBase> getRemovedMessages();
+
     /**
      * Return all the items that have given severity value.
      * 
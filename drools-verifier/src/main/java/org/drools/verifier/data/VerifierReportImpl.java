@@ -19,10 +19,12 @@ package org.drools.verifier.data;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.drools.verifier.report.components.Cause;
 import org.drools.verifier.report.components.Gap;
 import org.drools.verifier.report.components.MissingNumberPattern;
 import org.drools.verifier.report.components.MissingRange;
@@ -45,6 +47,9 @@ public class VerifierReportImpl
     private List<VerifierMessageBase>               messages                       = new ArrayList<VerifierMessageBase>();
     private Multimap<Severity, VerifierMessageBase> messagesBySeverity             = TreeMultimap.create();
 
+    private List<VerifierMessageBase>               addedMessages                  = new ArrayList<VerifierMessageBase>();
+    private List<VerifierMessageBase>               removedMessages                = new ArrayList<VerifierMessageBase>();
+
     private VerifierData                            data;
 
     public VerifierReportImpl(VerifierData data) {
@@ -55,6 +60,98 @@ public class VerifierReportImpl
         messages.add( message );
         messagesBySeverity.put( message.getSeverity(),
                                 message );
+        addedMessages.add( message );
+    }
+
+    public void remove(VerifierMessageBase message) {
+        if ( !messagesBySeverity.remove( message.getSeverity(),
+                                         message ) ) {
+            return;
+        }
+        messages.remove( message );
+        if ( !addedMessages.remove( message ) ) {
+            removedMessages.add( message );
+        }
+    }
+
+    public void clearChanges() {
+        addedMessages.clear();
+        removedMessages.clear();
+    }
+
+    public Collection<VerifierMessageBase> getAddedMessages() {
+        return netChanges( addedMessages,
+                           removedMessages );
+    }
+
+    public Collection<VerifierMessageBase> getRemovedMessages() {
+        return netChanges( removedMessages,
+                           addedMessages );
+    }
+
+    /**
+     * Filters out the changes that have an identical counterpart, i.e. messages that were removed and derived again.
+     */
+    private static Collection<VerifierMessageBase> netChanges(List<VerifierMessageBase> changes,
+                                                              List<VerifierMessageBase> counterparts) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for ( VerifierMessageBase counterpart : counterparts ) {
+            String signature = signature( counterpart );
+            Integer count = counts.get( signature );
+            counts.put( signature,
+                        count == null ? 1 : count + 1 );
+        }
+
+        List<VerifierMessageBase> result = new ArrayList<VerifierMessageBase>();
+        for ( VerifierMessageBase change : changes ) {
+            String signature = signature( change );
+            Integer count = counts.get( signature );
+            if ( count == null ) {
+                result.add( change );
+            } else if ( count == 1 ) {
+                counts.remove( signature );
+            } else {
+                counts.put( signature,
+                            count - 1 );
+            }
+        }
+        return result;
+    }
+
+    private static String signature(VerifierMessageBase message) {
+        StringBuilder signature = new StringBuilder();
+        signature.append( message.getMessageType() ).append( '|' );
+        signature.append( message.getSeverity() ).append( '|' );
+        signature.append( message.getMessage() ).append( '|' );
+        appendSignature( signature,
+                         message.getFaulty() );
+        if ( message.getCauses() != null ) {
+            for ( Cause cause : message.getCauses() ) {
+                appendSignature( signature,
+                                 cause );
+            }
+        }
+        return signature.toString();
+    }
+
+    private static void appendSignature(StringBuilder signature,
+                                        Cause cause) {
+        if ( cause == null ) {
+            return;
+        }
+        signature.append( '(' );
+        if ( cause instanceof VerifierComponent ) {
+            signature.append( ((VerifierComponent) cause).getPath() );
+        } else if ( cause.getCauses() == null || cause.getCauses().isEmpty() ) {
+            signature.append( cause );
+        } else {
+            signature.append( cause.getClass().getSimpleName() );
+            for ( Cause child : cause.getCauses() ) {
+                appendSignature( signature,
+                                 child );
+            }
+        }
+        signature.append( ')' );
     }
 
     public Collection<VerifierMessageBase> getBySeverity(Severity severity) {
@@ -105,6 +202,13 @@ public class VerifierReportImpl
                                             missingNumberPattern );
     }
 
+    public void remove(MissingNumberPattern missingNumberPattern) {
+        missingNumberPatternsById.remove( missingNumberPattern.getGuid() );
+
+        missingNumberPatternsByFieldId.remove( missingNumberPattern.getField().getPath(),
+                                               missingNumberPattern );
+    }
+
     public Collection<MissingRange> getRangeCheckCausesByFieldPath(String id) {
         Collection<MissingRange> result = new ArrayList<MissingRange>();
 
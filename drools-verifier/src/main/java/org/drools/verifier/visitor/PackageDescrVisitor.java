@@ -72,10 +72,14 @@ public class PackageDescrVisitor {
 
             imports.add(fullName);
 
-            Import objectImport = new Import(i, rulePackage);
-            objectImport.setName(fullName);
-            objectImport.setShortName(name);
-            data.add(objectImport);
+            // an updated resource keeps the imports that were already verified
+            Import objectImport = data.getImportByName(fullName);
+            if (objectImport == null || !rulePackage.getName().equals(objectImport.getPackageName())) {
+                objectImport = new Import(i, rulePackage);
+                objectImport.setName(fullName);
+                objectImport.setShortName(name);
+                data.add(objectImport);
+            }
 
             ObjectType objectType = this.data.getObjectTypeByFullName(fullName);
 
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2010 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.verifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.verifier.builder.VerifierBuilderFactory;
+import org.drools.verifier.components.VerifierComponentType;
+import org.drools.verifier.data.VerifierComponent;
+import org.drools.verifier.data.VerifierReport;
+import org.drools.verifier.report.components.Severity;
+import org.drools.verifier.report.components.VerifierMessageBase;
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.io.ResourceFactory;
+
+public class IncrementalVerifierTest {
+
+    private static final String HEADER = "package com.misc.incremental\n\n";
+
+    private static final String OVER_10 = "rule \"Age over 10\"\n" +
+                                          "    when\n" +
+                                          "        Person( age > 10 )\n" +
+                                          "    then\n" +
+                                          "        System.out.println( \"adult\" );\n" +
+                                          "end\n";
+
+    private static final String OVER_20 = "rule \"Age over 20\"\n" +
+                                          "    when\n" +
+                                          "        Person( age > 20 )\n" +
+                                          "    then\n" +
+                                          "        System.out.println( \"adult\" );\n" +
+                                          "end\n";
+
+    private static final String UNDER_5 = "rule \"Age under 5\"\n" +
+                                          "    when\n" +
+                                          "        Person( age < 5 )\n" +
+                                          "    then\n" +
+                                          "        System.out.println( \"child\" );\n" +
+                                          "end\n";
+
+    private static final String UNDER_5_CHANGED = "rule \"Age under 5\"\n" +
+                                                  "    when\n" +
+                                                  "        Person( age <= 10 )\n" +
+                                                  "        Address( street == \"main\" )\n" +
+                                                  "    then\n" +
+                                                  "        System.out.println( \"child\" );\n" +
+                                                  "end\n";
+
+    @Test
+    public void testUpdateRule() {
+        Verifier verifier = newVerifier( OVER_10 + OVER_20 + UNDER_5 );
+        assertTrue( verifier.fireAnalysis() );
+        List<String> before = messages( verifier.getResult() );
+
+        verifier.updateResourcesToVerify( ResourceFactory.newByteArrayResource( (HEADER + UNDER_5_CHANGED).getBytes() ),
+                                          ResourceType.DRL );
+        assertFalse( verifier.hasErrors() );
+        assertTrue( verifier.fireAnalysis() );
+
+        VerifierReport result = verifier.getResult();
+        List<String> after = messages( result );
+        assertEquals( messages( newVerifierAndAnalyse( OVER_10 + OVER_20 + UNDER_5_CHANGED ) ),
+                      after );
+
+        // the changes reported take from the previous messages to the current ones
+        List<String> expected = new ArrayList<String>( before );
+        for ( String removed : messages( result.getRemovedMessages() ) ) {
+            assertTrue( expected.remove( removed ) );
+        }
+        expected.addAll( messages( result.getAddedMessages() ) );
+        Collections.sort( expected );
+        assertEquals( after,
+                      expected );
+
+        verifier.dispose();
+    }
+
+    @Test
+    public void testUpdateResourceWithoutRule() {
+        Verifier verifier = newVerifier( OVER_10 + OVER_20 + UNDER_5 );
+        assertTrue( verifier.fireAnalysis() );
+
+        // "Age over 20" is deleted from the resource
+        verifier.updateResourcesToVerify( ResourceFactory.newByteArrayResource( (HEADER + OVER_10 + UNDER_5_CHANGED).getBytes() ),
+                                          ResourceType.DRL );
+        assertFalse( verifier.hasErrors() );
+        assertTrue( verifier.fireAnalysis() );
+
+        assertNull( verifier.getResult().getVerifierData().getRuleByName( "Age over 20" ) );
+        assertEquals( messages( newVerifierAndAnalyse( OVER_10 + UNDER_5_CHANGED ) ),
+                      messages( verifier.getResult() ) );
+
+        verifier.dispose();
+    }
+
+    @Test
+    public void testUpdateResourceKeepsImports() {
+        String listImportDrl = "import java.util.List\n\n";
+        Verifier verifier = newVerifier( listImportDrl + OVER_10 );
+        assertTrue( verifier.fireAnalysis() );
+        Collection<VerifierComponent> imports = verifier.getResult().getVerifierData().getAll( VerifierComponentType.IMPORT );
+        assertEquals( 1,
+                      imports.size() );
+        VerifierComponent listImport = imports.iterator().next();
+
+        verifier.updateResourcesToVerify( ResourceFactory.newByteArrayResource( (HEADER + listImportDrl + OVER_20).getBytes() ),
+                                          ResourceType.DRL );
+        assertTrue( verifier.fireAnalysis() );
+
+        imports = verifier.getResult().getVerifierData().getAll( VerifierComponentType.IMPORT );
+        assertEquals( 1,
+                      imports.size() );
+        assertSame( listImport,
+                    imports.iterator().next() );
+
+        verifier.dispose();
+    }
+
+    @Test
+    public void testRemoveRule() {
+        Verifier verifier = newVerifier( OVER_10 + OVER_20 + UNDER_5 );
+        assertTrue( verifier.fireAnalysis() );
+
+        assertFalse( verifier.removeRuleToVerify( "com.misc.incremental",
+                                                  "Missing rule" ) );
+        assertTrue( verifier.removeRuleToVerify( "com.misc.incremental",
+                                                 "Age over 20" ) );
+        assertTrue( verifier.fireAnalysis() );
+
+        assertEquals( messages( newVerifierAndAnalyse( OVER_10 + UNDER_5 ) ),
+                      messages( verifier.getResult() ) );
+
+        verifier.dispose();
+    }
+
+    @Test
+    public void testAnalyseWithoutChanges() {
+        Verifier verifier = newVerifier( OVER_10 + OVER_20 + UNDER_5 );
+        assertTrue( verifier.fireAnalysis() );
+        List<String> before = messages( verifier.getResult() );
+
+        assertTrue( verifier.fireAnalysis() );
+
+        assertEquals( before,
+                      messages( verifier.getResult() ) );
+        assertTrue( verifier.getResult().getAddedMessages().isEmpty() );
+        assertTrue( verifier.getResult().getRemovedMessages().isEmpty() );
+
+        verifier.dispose();
+    }
+
+    private Verifier newVerifier(String rules) {
+        Verifier verifier = VerifierBuilderFactory.newVerifierBuilder().newVerifier();
+        verifier.addResourcesToVerify( ResourceFactory.newByteArrayResource( (HEADER + rules).getBytes() ),
+                                       ResourceType.DRL );
+        assertFalse( verifier.hasErrors() );
+        return verifier;
+    }
+
+    private VerifierReport newVerifierAndAnalyse(String rules) {
+        Verifier verifier = newVerifier( rules );
+        assertTrue( verifier.fireAnalysis() );
+        verifier.dispose();
+        return verifier.getResult();
+    }
+
+    private static List<String> messages(VerifierReport report) {
+        List<VerifierMessageBase> messages = new ArrayList<VerifierMessageBase>();
+        for ( Severity severity : Severity.values() ) {
+            messages.addAll( report.getBySeverity( severity ) );
+        }
+        return messages( messages );
+    }
+
+    private static List<String> messages(Collection<VerifierMessageBase> messages) {
+        List<String> result = new ArrayList<String>();
+        for ( VerifierMessageBase message : messages ) {
+            result.add( message.getSeverity() + " " + message.getMessageType() + ": " + message.getMessage() );
+        }
+        Collections.sort( result );
+        return result;
+    }
+}
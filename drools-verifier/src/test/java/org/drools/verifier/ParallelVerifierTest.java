@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.verifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.core.io.impl.ClassPathResource;
+import org.drools.verifier.builder.VerifierBuilder;
+import org.drools.verifier.builder.VerifierBuilderFactory;
+import org.drools.verifier.data.VerifierReport;
+import org.drools.verifier.report.components.MissingRange;
+import org.drools.verifier.report.components.Severity;
+import org.drools.verifier.report.components.VerifierMessageBase;
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+
+public class ParallelVerifierTest {
+
+    @Test
+    public void testParallelAnalysisFindsTheSameIssues() {
+        VerifierReport sequential = analyse( null );
+        VerifierReport parallel = analyse( "4" );
+
+        assertFalse( messages( sequential ).isEmpty() );
+        assertEquals( messages( sequential ),
+                      messages( parallel ) );
+        assertEquals( rangeCheckCauses( sequential ),
+                      rangeCheckCauses( parallel ) );
+    }
+
+    @Test
+    public void testReanalyseInParallel() {
+        VerifierBuilder vBuilder = VerifierBuilderFactory.newVerifierBuilder();
+        VerifierConfiguration vConfiguration = new DefaultVerifierConfiguration();
+        vConfiguration.setProperty( VerifierConfiguration.PARALLEL_ANALYSIS_PROPERTY,
+                                    "2" );
+        Verifier verifier = vBuilder.newVerifier( vConfiguration );
+        verifier.addResourcesToVerify( new ClassPathResource( "Misc3.drl",
+                                                              Verifier.class ),
+                                       ResourceType.DRL );
+
+        assertTrue( verifier.fireAnalysis() );
+        List<String> messages = messages( verifier.getResult() );
+
+        // results are replaced, not duplicated
+        assertTrue( verifier.fireAnalysis() );
+        assertEquals( messages,
+                      messages( verifier.getResult() ) );
+        assertTrue( verifier.getResult().getAddedMessages().isEmpty() );
+        assertTrue( verifier.getResult().getRemovedMessages().isEmpty() );
+
+        verifier.dispose();
+    }
+
+    private VerifierReport analyse(String threads) {
+        VerifierBuilder vBuilder = VerifierBuilderFactory.newVerifierBuilder();
+        VerifierConfiguration vConfiguration = new DefaultVerifierConfiguration();
+        if ( threads != null ) {
+            vConfiguration.setProperty( VerifierConfiguration.PARALLEL_ANALYSIS_PROPERTY,
+                                        threads );
+        }
+
+        Verifier verifier = vBuilder.newVerifier( vConfiguration );
+        for ( String drl : new String[]{"Misc3.drl", "MissingRangesForInts.drl", "Overlap.drl"} ) {
+            verifier.addResourcesToVerify( new ClassPathResource( drl,
+                                                                  Verifier.class ),
+                                           ResourceType.DRL );
+        }
+        assertFalse( verifier.hasErrors() );
+
+        assertTrue( verifier.fireAnalysis() );
+        verifier.dispose();
+        return verifier.getResult();
+    }
+
+    private static List<String> messages(VerifierReport report) {
+        List<String> result = new ArrayList<String>();
+        for ( Severity severity : Severity.values() ) {
+            for ( VerifierMessageBase message : report.getBySeverity( severity ) ) {
+                result.add( severity + " " + message.getMessageType() + ": " + message.getMessage() );
+            }
+        }
+        Collections.sort( result );
+        return result;
+    }
+
+    private static List<String> rangeCheckCauses(VerifierReport report) {
+        List<String> result = new ArrayList<String>();
+        for ( MissingRange missingRange : report.getRangeCheckCauses() ) {
+            result.add( missingRange.toString() );
+        }
+        Collections.sort( result );
+        return result;
+    }
+}
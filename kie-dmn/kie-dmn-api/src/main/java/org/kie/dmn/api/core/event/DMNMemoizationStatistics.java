@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.api.core.event;
+
+/**
+ * Hit/miss statistics of the memoized invocations of pure business knowledge models and decision services
+ */
+public interface DMNMemoizationStatistics {
+
+    /**
+     * Returns the number of invocations of the given business knowledge model or decision service served from the memoized results
+     */
+    long getHits(String name);
+
+    /**
+     * Returns the number of invocations of the given business knowledge model or decision service which needed to be evaluated
+     */
+    long getMisses(String name);
+
+    long getTotalHits();
+
+    long getTotalMisses();
+
+    /**
+     * Resets all the counters
+     */
+    void reset();
+
+}
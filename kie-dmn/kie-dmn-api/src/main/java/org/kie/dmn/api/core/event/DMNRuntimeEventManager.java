@@ -48,4 +48,13 @@ public interface DMNRuntimeEventManager {
 
     DMNRuntime getRuntime();
 
+    /**
+     * Returns the hit/miss statistics of the memoized invocations of pure business knowledge models and decision services
+     *
+     * @return the memoization statistics of this runtime, or null if the implementation doesn't record them
+     */
+    default DMNMemoizationStatistics getMemoizationStatistics() {
+        return null;
+    }
+
 }
@@ -17,6 +17,7 @@
 package org.kie.dmn.backend.marshalling.v1_1;
 
 import org.kie.dmn.api.marshalling.v1_1.DMNExtensionRegister;
+import org.kie.dmn.backend.marshalling.v1_1.stax.StaxDMNMarshaller;
 import org.kie.dmn.backend.marshalling.v1_1.xstream.XStreamMarshaller;
 import org.kie.dmn.api.marshalling.v1_1.DMNMarshaller;
 
@@ -32,6 +33,14 @@ public final class DMNMarshallerFactory {
         return new XStreamMarshaller(extensionElementRegisters);
     }
 
+    /**
+     * Returns a marshaller unmarshalling the DMN XML directly through StAX, without the XStream converters.
+     * Content of extensionElements is skipped: use {@link #newMarshallerWithExtensions(List)} when extensions are required.
+     */
+    public static DMNMarshaller newStaxMarshaller() {
+        return new StaxDMNMarshaller();
+    }
+
     private DMNMarshallerFactory() {
         // Constructing instances is not allowed for this class
     }
@@ -0,0 +1,645 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.backend.marshalling.v1_1.stax;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.kie.dmn.api.marshalling.v1_1.DMNMarshaller;
+import org.kie.dmn.backend.marshalling.v1_1.xstream.MarshallingUtils;
+import org.kie.dmn.backend.marshalling.v1_1.xstream.XStreamMarshaller;
+import org.kie.dmn.model.v1_1.Artifact;
+import org.kie.dmn.model.v1_1.Association;
+import org.kie.dmn.model.v1_1.AssociationDirection;
+import org.kie.dmn.model.v1_1.AuthorityRequirement;
+import org.kie.dmn.model.v1_1.Binding;
+import org.kie.dmn.model.v1_1.BuiltinAggregator;
+import org.kie.dmn.model.v1_1.BusinessContextElement;
+import org.kie.dmn.model.v1_1.BusinessKnowledgeModel;
+import org.kie.dmn.model.v1_1.Context;
+import org.kie.dmn.model.v1_1.ContextEntry;
+import org.kie.dmn.model.v1_1.DMNElement;
+import org.kie.dmn.model.v1_1.DMNElementReference;
+import org.kie.dmn.model.v1_1.DMNModelInstrumentedBase;
+import org.kie.dmn.model.v1_1.DRGElement;
+import org.kie.dmn.model.v1_1.Decision;
+import org.kie.dmn.model.v1_1.DecisionRule;
+import org.kie.dmn.model.v1_1.DecisionService;
+import org.kie.dmn.model.v1_1.DecisionTable;
+import org.kie.dmn.model.v1_1.DecisionTableOrientation;
+import org.kie.dmn.model.v1_1.Definitions;
+import org.kie.dmn.model.v1_1.ElementCollection;
+import org.kie.dmn.model.v1_1.Expression;
+import org.kie.dmn.model.v1_1.FunctionDefinition;
+import org.kie.dmn.model.v1_1.HitPolicy;
+import org.kie.dmn.model.v1_1.Import;
+import org.kie.dmn.model.v1_1.ImportedValues;
+import org.kie.dmn.model.v1_1.InformationItem;
+import org.kie.dmn.model.v1_1.InformationRequirement;
+import org.kie.dmn.model.v1_1.InputClause;
+import org.kie.dmn.model.v1_1.InputData;
+import org.kie.dmn.model.v1_1.Invocation;
+import org.kie.dmn.model.v1_1.ItemDefinition;
+import org.kie.dmn.model.v1_1.KnowledgeRequirement;
+import org.kie.dmn.model.v1_1.KnowledgeSource;
+import org.kie.dmn.model.v1_1.LiteralExpression;
+import org.kie.dmn.model.v1_1.NamedElement;
+import org.kie.dmn.model.v1_1.OrganizationUnit;
+import org.kie.dmn.model.v1_1.OutputClause;
+import org.kie.dmn.model.v1_1.PerformanceIndicator;
+import org.kie.dmn.model.v1_1.Relation;
+import org.kie.dmn.model.v1_1.TextAnnotation;
+import org.kie.dmn.model.v1_1.UnaryTests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A DMN marshaller which unmarshals the DMN XML with a single pass over a StAX {@link XMLStreamReader}, building the
+ * kie-dmn-model objects directly instead of going through the XStream converters.
+ * It produces the same object graph as the {@link XStreamMarshaller} (attributes, namespace context, location,
+ * parent/children links); unknown elements and the content of extensionElements are skipped, hence models requiring
+ * DMNExtensionRegister(s) must keep using the XStream based marshaller.
+ * Marshalling to XML is delegated to the {@link XStreamMarshaller}.
+ */
+public class StaxDMNMarshaller
+        implements DMNMarshaller {
+
+    private static final Logger logger = LoggerFactory.getLogger( StaxDMNMarshaller.class );
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    static {
+        INPUT_FACTORY.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, true );
+        INPUT_FACTORY.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+        INPUT_FACTORY.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+    }
+
+    private final XStreamMarshaller xmlWriter = new XStreamMarshaller();
+
+    @Override
+    public Definitions unmarshal(String xml) {
+        return unmarshal( new StringReader( xml ) );
+    }
+
+    @Override
+    public Definitions unmarshal(Reader isr) {
+        XMLStreamReader in = null;
+        try {
+            in = INPUT_FACTORY.createXMLStreamReader( isr );
+            in.nextTag();
+            Object root = readElement( in );
+            if ( root instanceof Definitions ) {
+                return (Definitions) root;
+            }
+            logger.error( "Error unmarshalling DMN model from reader: root element is not a DMN definitions but {}", root );
+        } catch ( Exception e ) {
+            logger.error( "Error unmarshalling DMN model from reader.", e );
+        } finally {
+            if ( in != null ) {
+                try {
+                    in.close();
+                } catch ( XMLStreamException e ) {
+                    // nothing to do.
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String marshal(Object o) {
+        return xmlWriter.marshal( o );
+    }
+
+    @Override
+    public void marshal(Object o, Writer out) {
+        xmlWriter.marshal( o, out );
+    }
+
+    /**
+     * Reads the element the reader is positioned on, leaving the reader on its END_ELEMENT.
+     * @return the model object, a String for text-only elements, a QName for typeRef or null for an unknown element.
+     */
+    private Object readElement(XMLStreamReader in) throws XMLStreamException {
+        String nodeName = in.getLocalName();
+        switch ( nodeName ) {
+            case "text":
+            case "description":
+            case "question":
+            case "allowedAnswers":
+            case "type":
+            case "importedElement":
+                return in.getElementText();
+            case "typeRef":
+                return readQName( in );
+            case "extensionElements":
+                DMNElement.ExtensionElements ext = new DMNElement.ExtensionElements();
+                assignAttributes( in, ext );
+                skipChildren( in );
+                return ext;
+            default:
+                DMNModelInstrumentedBase obj = createModelObject( nodeName );
+                if ( obj == null ) {
+                    skipChildren( in );
+                    return null;
+                }
+                assignAttributes( in, obj );
+                parseElements( in, obj );
+                return obj;
+        }
+    }
+
+    private void parseElements(XMLStreamReader in, DMNModelInstrumentedBase parent) throws XMLStreamException {
+        while ( in.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            String nodeName = in.getLocalName();
+            Object child;
+            if ( parent instanceof DecisionService && "inputData".equals( nodeName ) ) {
+                // the tag name inputData is used in both decision services and as a DRG Element
+                DMNElementReference ref = new DMNElementReference();
+                ref.setHref( getAttribute( in, "href" ) );
+                skipChildren( in );
+                child = ref;
+            } else {
+                child = readElement( in );
+            }
+            if ( child instanceof DMNModelInstrumentedBase ) {
+                ((DMNModelInstrumentedBase) child).setParent( parent );
+                parent.addChildren( (DMNModelInstrumentedBase) child );
+            }
+            if ( child != null ) {
+                assignChildElement( parent, nodeName, child );
+            }
+        }
+    }
+
+    private static DMNModelInstrumentedBase createModelObject(String nodeName) {
+        switch ( nodeName ) {
+            case "definitions":                  return new Definitions();
+            case "import":                       return new Import();
+            case "importedValues":               return new ImportedValues();
+            case "itemDefinition":
+            case "itemComponent":                return new ItemDefinition();
+            case "allowedValues":
+            case "inputValues":
+            case "outputValues":
+            case "inputEntry":                   return new UnaryTests();
+            case "inputData":                    return new InputData();
+            case "decision":                     return new Decision();
+            case "businessKnowledgeModel":       return new BusinessKnowledgeModel();
+            case "decisionService":              return new DecisionService();
+            case "knowledgeSource":              return new KnowledgeSource();
+            case "variable":
+            case "formalParameter":
+            case "parameter":
+            case "column":
+            case "informationItem":              return new InformationItem();
+            case "informationRequirement":       return new InformationRequirement();
+            case "knowledgeRequirement":         return new KnowledgeRequirement();
+            case "authorityRequirement":         return new AuthorityRequirement();
+            case "requiredInput":
+            case "requiredDecision":
+            case "requiredKnowledge":
+            case "requiredAuthority":
+            case "decisionMade":
+            case "decisionMaker":
+            case "decisionOwned":
+            case "decisionOwner":
+            case "drgElement":
+            case "encapsulatedDecision":
+            case "inputDecision":
+            case "outputDecision":
+            case "impactedPerformanceIndicator":
+            case "impactingDecision":
+            case "owner":
+            case "sourceRef":
+            case "targetRef":
+            case "supportedObjective":
+            case "usingProcess":
+            case "usingTask":                    return new DMNElementReference();
+            case "literalExpression":
+            case "inputExpression":
+            case "outputEntry":
+            case "defaultOutputEntry":           return new LiteralExpression();
+            case "decisionTable":                return new DecisionTable();
+            case "input":                        return new InputClause();
+            case "output":                       return new OutputClause();
+            case "rule":                         return new DecisionRule();
+            case "context":                      return new Context();
+            case "contextEntry":                 return new ContextEntry();
+            case "functionDefinition":
+            case "encapsulatedLogic":            return new FunctionDefinition();
+            case "invocation":                   return new Invocation();
+            case "binding":                      return new Binding();
+            case "relation":                     return new Relation();
+            case "list":
+            case "row":                          return new org.kie.dmn.model.v1_1.List();
+            case "elementCollection":            return new ElementCollection();
+            case "organizationUnit":             return new OrganizationUnit();
+            case "performanceIndicator":         return new PerformanceIndicator();
+            case "association":                  return new Association();
+            case "textAnnotation":               return new TextAnnotation();
+            default:                             return null;
+        }
+    }
+
+    private static void assignAttributes(XMLStreamReader in, DMNModelInstrumentedBase mib) {
+        mib.getNsContext().putAll( getNsContext( in ) );
+        mib.setLocation( in.getLocation() );
+        mib.setAdditionalAttributes( getAdditionalAttributes( in ) );
+
+        if ( mib instanceof DMNElement ) {
+            DMNElement dmne = (DMNElement) mib;
+            dmne.setId( getAttribute( in, "id" ) );
+            dmne.setLabel( getAttribute( in, "label" ) );
+        }
+        if ( mib instanceof NamedElement ) {
+            ((NamedElement) mib).setName( getAttribute( in, "name" ) );
+        }
+        if ( mib instanceof BusinessContextElement ) {
+            ((BusinessContextElement) mib).setURI( getAttribute( in, "URI" ) );
+        }
+        if ( mib instanceof Expression ) {
+            ((Expression) mib).setTypeRef( MarshallingUtils.parseQNameString( getAttribute( in, "typeRef" ) ) );
+        }
+        if ( mib instanceof Import ) {
+            Import i = (Import) mib;
+            i.setNamespace( getAttribute( in, "namespace" ) );
+            i.setLocationURI( getAttribute( in, "locationURI" ) );
+            i.setImportType( getAttribute( in, "importType" ) );
+        }
+
+        if ( mib instanceof Definitions ) {
+            Definitions def = (Definitions) mib;
+            def.setExpressionLanguage( getAttribute( in, "expressionLanguage" ) );
+            def.setTypeLanguage( getAttribute( in, "typeLanguage" ) );
+            def.setNamespace( getAttribute( in, "namespace" ) );
+            def.setExporter( getAttribute( in, "exporter" ) );
+            def.setExporterVersion( getAttribute( in, "exporterVersion" ) );
+        } else if ( mib instanceof DecisionTable ) {
+            DecisionTable dt = (DecisionTable) mib;
+            String hitPolicyValue = getAttribute( in, "hitPolicy" );
+            String aggregationValue = getAttribute( in, "aggregation" );
+            String preferredOrientationValue = getAttribute( in, "preferredOrientation" );
+            if ( hitPolicyValue != null ) dt.setHitPolicy( HitPolicy.fromValue( hitPolicyValue ) );
+            if ( aggregationValue != null ) dt.setAggregation( BuiltinAggregator.fromValue( aggregationValue ) );
+            if ( preferredOrientationValue != null ) dt.setPreferredOrientation( DecisionTableOrientation.fromValue( preferredOrientationValue ) );
+            dt.setOutputLabel( getAttribute( in, "outputLabel" ) );
+        } else if ( mib instanceof LiteralExpression ) {
+            ((LiteralExpression) mib).setExpressionLanguage( getAttribute( in, "expressionLanguage" ) );
+        } else if ( mib instanceof UnaryTests ) {
+            ((UnaryTests) mib).setExpressionLanguage( getAttribute( in, "expressionLanguage" ) );
+        } else if ( mib instanceof ImportedValues ) {
+            ((ImportedValues) mib).setExpressionLanguage( getAttribute( in, "expressionLanguage" ) );
+        } else if ( mib instanceof InformationItem ) {
+            ((InformationItem) mib).setTypeRef( MarshallingUtils.parseQNameString( getAttribute( in, "typeRef" ) ) );
+        } else if ( mib instanceof ItemDefinition ) {
+            ItemDefinition id = (ItemDefinition) mib;
+            id.setTypeLanguage( getAttribute( in, "typeLanguage" ) );
+            id.setIsCollection( Boolean.valueOf( getAttribute( in, "isCollection" ) ) );
+        } else if ( mib instanceof OutputClause ) {
+            OutputClause oc = (OutputClause) mib;
+            String typeRefValue = getAttribute( in, "typeRef" );
+            oc.setName( getAttribute( in, "name" ) );
+            if ( typeRefValue != null ) oc.setTypeRef( MarshallingUtils.parseQNameString( typeRefValue ) );
+        } else if ( mib instanceof KnowledgeSource ) {
+            ((KnowledgeSource) mib).setLocationURI( getAttribute( in, "locationURI" ) );
+        } else if ( mib instanceof TextAnnotation ) {
+            ((TextAnnotation) mib).setTextFormat( getAttribute( in, "textFormat" ) );
+        } else if ( mib instanceof Association ) {
+            String associationDirectionValue = getAttribute( in, "associationDirection" );
+            if ( associationDirectionValue != null ) ((Association) mib).setAssociationDirection( AssociationDirection.fromValue( associationDirectionValue ) );
+        } else if ( mib instanceof DMNElementReference ) {
+            ((DMNElementReference) mib).setHref( getAttribute( in, "href" ) );
+        }
+    }
+
+    private static void assignChildElement(DMNModelInstrumentedBase parent, String nodeName, Object child) {
+        if ( parent instanceof Definitions ) {
+            Definitions def = (Definitions) parent;
+            if ( "import".equals( nodeName ) ) {
+                def.getImport().add( (Import) child );
+                return;
+            } else if ( "itemDefinition".equals( nodeName ) ) {
+                def.getItemDefinition().add( (ItemDefinition) child );
+                return;
+            } else if ( child instanceof DRGElement ) {
+                def.getDrgElement().add( (DRGElement) child );
+                return;
+            } else if ( child instanceof Artifact ) {
+                def.getArtifact().add( (Artifact) child );
+                return;
+            } else if ( "elementCollection".equals( nodeName ) ) {
+                def.getElementCollection().add( (ElementCollection) child );
+                return;
+            } else if ( child instanceof BusinessContextElement ) {
+                def.getBusinessContextElement().add( (BusinessContextElement) child );
+                return;
+            }
+        } else if ( parent instanceof Decision ) {
+            Decision dec = (Decision) parent;
+            switch ( nodeName ) {
+                case "question":                     dec.setQuestion( (String) child ); return;
+                case "allowedAnswers":               dec.setAllowedAnswers( (String) child ); return;
+                case "variable":                     dec.setVariable( (InformationItem) child ); return;
+                case "informationRequirement":       dec.getInformationRequirement().add( (InformationRequirement) child ); return;
+                case "knowledgeRequirement":         dec.getKnowledgeRequirement().add( (KnowledgeRequirement) child ); return;
+                case "authorityRequirement":         dec.getAuthorityRequirement().add( (AuthorityRequirement) child ); return;
+                case "supportedObjective":           dec.getSupportedObjective().add( (DMNElementReference) child ); return;
+                case "impactedPerformanceIndicator": dec.getImpactedPerformanceIndicator().add( (DMNElementReference) child ); return;
+                case "decisionMaker":                dec.getDecisionMaker().add( (DMNElementReference) child ); return;
+                case "decisionOwner":                dec.getDecisionOwner().add( (DMNElementReference) child ); return;
+                case "usingProcess":                 dec.getUsingProcess().add( (DMNElementReference) child ); return;
+                case "usingTask":                    dec.getUsingTask().add( (DMNElementReference) child ); return;
+                default:
+                    if ( child instanceof Expression ) {
+                        dec.setExpression( (Expression) child );
+                        return;
+                    }
+            }
+        } else if ( parent instanceof BusinessKnowledgeModel ) {
+            BusinessKnowledgeModel bkm = (BusinessKnowledgeModel) parent;
+            switch ( nodeName ) {
+                case "encapsulatedLogic":    bkm.setEncapsulatedLogic( (FunctionDefinition) child ); return;
+                case "variable":             bkm.setVariable( (InformationItem) child ); return;
+                case "knowledgeRequirement": bkm.getKnowledgeRequirement().add( (KnowledgeRequirement) child ); return;
+                case "authorityRequirement": bkm.getAuthorityRequirement().add( (AuthorityRequirement) child ); return;
+                default:
+            }
+        } else if ( parent instanceof InputData ) {
+            if ( "variable".equals( nodeName ) ) {
+                ((InputData) parent).setVariable( (InformationItem) child );
+                return;
+            }
+        } else if ( parent instanceof DecisionService ) {
+            DecisionService decisionService = (DecisionService) parent;
+            switch ( nodeName ) {
+                case "outputDecision":       decisionService.getOutputDecision().add( (DMNElementReference) child ); return;
+                case "encapsulatedDecision": decisionService.getEncapsulatedDecision().add( (DMNElementReference) child ); return;
+                case "inputDecision":        decisionService.getInputDecision().add( (DMNElementReference) child ); return;
+                case "inputData":            decisionService.getInputData().add( (DMNElementReference) child ); return;
+                default:
+            }
+        } else if ( parent instanceof KnowledgeSource ) {
+            KnowledgeSource ks = (KnowledgeSource) parent;
+            switch ( nodeName ) {
+                case "authorityRequirement": ks.getAuthorityRequirement().add( (AuthorityRequirement) child ); return;
+                case "type":                 ks.setType( (String) child ); return;
+                case "owner":                ks.setOwner( (DMNElementReference) child ); return;
+                default:
+            }
+        } else if ( parent instanceof ItemDefinition ) {
+            ItemDefinition id = (ItemDefinition) parent;
+            switch ( nodeName ) {
+                case "typeRef":       id.setTypeRef( (QName) child ); return;
+                case "allowedValues": id.setAllowedValues( (UnaryTests) child ); return;
+                case "itemComponent": id.getItemComponent().add( (ItemDefinition) child ); return;
+                default:
+            }
+        } else if ( parent instanceof InformationRequirement ) {
+            InformationRequirement ir = (InformationRequirement) parent;
+            if ( "requiredInput".equals( nodeName ) ) {
+                ir.setRequiredInput( (DMNElementReference) child );
+            } else if ( "requiredDecision".equals( nodeName ) ) {
+                ir.setRequiredDecision( (DMNElementReference) child );
+            }
+            return;
+        } else if ( parent instanceof KnowledgeRequirement ) {
+            if ( "requiredKnowledge".equals( nodeName ) ) {
+                ((KnowledgeRequirement) parent).setRequiredKnowledge( (DMNElementReference) child );
+            }
+            return;
+        } else if ( parent instanceof AuthorityRequirement ) {
+            AuthorityRequirement ar = (AuthorityRequirement) parent;
+            if ( "requiredDecision".equals( nodeName ) ) {
+                ar.setRequiredDecision( (DMNElementReference) child );
+            } else if ( "requiredInput".equals( nodeName ) ) {
+                ar.setRequiredInput( (DMNElementReference) child );
+            } else if ( "requiredAuthority".equals( nodeName ) ) {
+                ar.setRequiredAuthority( (DMNElementReference) child );
+            }
+            return;
+        } else if ( parent instanceof LiteralExpression ) {
+            LiteralExpression le = (LiteralExpression) parent;
+            if ( "text".equals( nodeName ) ) {
+                le.setText( (String) child );
+                return;
+            } else if ( "importedValues".equals( nodeName ) ) {
+                le.setImportedValues( (ImportedValues) child );
+                return;
+            }
+        } else if ( parent instanceof UnaryTests ) {
+            if ( "text".equals( nodeName ) ) {
+                ((UnaryTests) parent).setText( (String) child );
+                return;
+            }
+        } else if ( parent instanceof DecisionTable ) {
+            DecisionTable dt = (DecisionTable) parent;
+            switch ( nodeName ) {
+                case "input":  dt.getInput().add( (InputClause) child ); return;
+                case "output": dt.getOutput().add( (OutputClause) child ); return;
+                case "rule":   dt.getRule().add( (DecisionRule) child ); return;
+                default:
+            }
+        } else if ( parent instanceof InputClause ) {
+            InputClause ic = (InputClause) parent;
+            if ( "inputExpression".equals( nodeName ) ) {
+                ic.setInputExpression( (LiteralExpression) child );
+                return;
+            } else if ( "inputValues".equals( nodeName ) ) {
+                ic.setInputValues( (UnaryTests) child );
+                return;
+            }
+        } else if ( parent instanceof OutputClause ) {
+            OutputClause oc = (OutputClause) parent;
+            if ( "outputValues".equals( nodeName ) ) {
+                oc.setOutputValues( (UnaryTests) child );
+                return;
+            } else if ( "defaultOutputEntry".equals( nodeName ) ) {
+                oc.setDefaultOutputEntry( (LiteralExpression) child );
+                return;
+            }
+        } else if ( parent instanceof DecisionRule ) {
+            DecisionRule dr = (DecisionRule) parent;
+            if ( "inputEntry".equals( nodeName ) ) {
+                dr.getInputEntry().add( (UnaryTests) child );
+                return;
+            } else if ( "outputEntry".equals( nodeName ) ) {
+                dr.getOutputEntry().add( (LiteralExpression) child );
+                return;
+            }
+        } else if ( parent instanceof Context ) {
+            if ( "contextEntry".equals( nodeName ) ) {
+                ((Context) parent).getContextEntry().add( (ContextEntry) child );
+                return;
+            }
+        } else if ( parent instanceof ContextEntry ) {
+            ContextEntry ce = (ContextEntry) parent;
+            if ( "variable".equals( nodeName ) ) {
+                ce.setVariable( (InformationItem) child );
+            } else if ( child instanceof Expression ) {
+                ce.setExpression( (Expression) child );
+            }
+            return;
+        } else if ( parent instanceof FunctionDefinition ) {
+            FunctionDefinition fd = (FunctionDefinition) parent;
+            if ( "formalParameter".equals( nodeName ) ) {
+                fd.getFormalParameter().add( (InformationItem) child );
+                return;
+            } else if ( child instanceof Expression ) {
+                fd.setExpression( (Expression) child );
+                return;
+            }
+        } else if ( parent instanceof Invocation ) {
+            Invocation i = (Invocation) parent;
+            if ( child instanceof Expression ) {
+                i.setExpression( (Expression) child );
+                return;
+            } else if ( "binding".equals( nodeName ) ) {
+                i.getBinding().add( (Binding) child );
+                return;
+            }
+        } else if ( parent instanceof Binding ) {
+            Binding b = (Binding) parent;
+            if ( "parameter".equals( nodeName ) ) {
+                b.setParameter( (InformationItem) child );
+            } else if ( child instanceof Expression ) {
+                b.setExpression( (Expression) child );
+            }
+            return;
+        } else if ( parent instanceof Relation ) {
+            Relation r = (Relation) parent;
+            if ( "column".equals( nodeName ) ) {
+                r.getColumn().add( (InformationItem) child );
+                return;
+            } else if ( "row".equals( nodeName ) ) {
+                r.getRow().add( (org.kie.dmn.model.v1_1.List) child );
+                return;
+            }
+        } else if ( parent instanceof org.kie.dmn.model.v1_1.List ) {
+            if ( child instanceof Expression ) {
+                ((org.kie.dmn.model.v1_1.List) parent).getExpression().add( (Expression) child );
+                return;
+            }
+        } else if ( parent instanceof ImportedValues ) {
+            if ( "importedElement".equals( nodeName ) ) {
+                ((ImportedValues) parent).setImportedElement( (String) child );
+            }
+            return;
+        } else if ( parent instanceof ElementCollection ) {
+            if ( "drgElement".equals( nodeName ) ) {
+                ((ElementCollection) parent).getDrgElement().add( (DMNElementReference) child );
+                return;
+            }
+        } else if ( parent instanceof OrganizationUnit ) {
+            OrganizationUnit ou = (OrganizationUnit) parent;
+            if ( "decisionMade".equals( nodeName ) ) {
+                ou.getDecisionMade().add( (DMNElementReference) child );
+                return;
+            } else if ( "decisionOwned".equals( nodeName ) ) {
+                ou.getDecisionOwned().add( (DMNElementReference) child );
+                return;
+            }
+        } else if ( parent instanceof PerformanceIndicator ) {
+            if ( "impactingDecision".equals( nodeName ) ) {
+                ((PerformanceIndicator) parent).getImpactingDecision().add( (DMNElementReference) child );
+                return;
+            }
+        } else if ( parent instanceof Association ) {
+            Association a = (Association) parent;
+            if ( "sourceRef".equals( nodeName ) ) {
+                a.setSourceRef( (DMNElementReference) child );
+                return;
+            } else if ( "targetRef".equals( nodeName ) ) {
+                a.setTargetRef( (DMNElementReference) child );
+                return;
+            }
+        } else if ( parent instanceof TextAnnotation ) {
+            if ( "text".equals( nodeName ) ) {
+                ((TextAnnotation) parent).setText( (String) child );
+                return;
+            }
+        }
+
+        if ( parent instanceof DMNElement ) {
+            if ( "description".equals( nodeName ) && child instanceof String ) {
+                ((DMNElement) parent).setDescription( (String) child );
+            } else if ( "extensionElements".equals( nodeName ) && child instanceof DMNElement.ExtensionElements ) {
+                ((DMNElement) parent).setExtensionElements( (DMNElement.ExtensionElements) child );
+            }
+        }
+    }
+
+    private static QName readQName(XMLStreamReader in) throws XMLStreamException {
+        Map<String, String> currentNSCtx = getNsContext( in );
+        QName qname = MarshallingUtils.parseQNameString( in.getElementText() );
+        String qnameURI = currentNSCtx.get( qname.getPrefix() );
+        if ( qnameURI != null ) {
+            return new QName( qnameURI, qname.getLocalPart(), qname.getPrefix() );
+        }
+        return qname;
+    }
+
+    private static void skipChildren(XMLStreamReader in) throws XMLStreamException {
+        int depth = 1;
+        while ( depth > 0 ) {
+            int event = in.next();
+            if ( event == XMLStreamConstants.START_ELEMENT ) {
+                depth++;
+            } else if ( event == XMLStreamConstants.END_ELEMENT ) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Attributes are read without an explicit namespace prefix, see CustomStaxReader#getAttribute(String) (DROOLS-1622)
+     */
+    private static String getAttribute(XMLStreamReader in, String name) {
+        return in.getAttributeValue( XMLConstants.NULL_NS_URI, name );
+    }
+
+    private static Map<String, String> getNsContext(XMLStreamReader in) {
+        Map<String, String> nsContext = new HashMap<>();
+        for ( int nsIndex = 0; nsIndex < in.getNamespaceCount(); nsIndex++ ) {
+            String nsPrefix = in.getNamespacePrefix( nsIndex );
+            nsContext.put( nsPrefix != null ? nsPrefix : XMLConstants.DEFAULT_NS_PREFIX, in.getNamespaceURI( nsIndex ) );
+        }
+        return nsContext;
+    }
+
+    private static Map<QName, String> getAdditionalAttributes(XMLStreamReader in) {
+        Map<QName, String> result = new HashMap<>();
+        for ( int aIndex = 0; aIndex < in.getAttributeCount(); aIndex++ ) {
+            String attributePrefix = in.getAttributePrefix( aIndex );
+            // DROOLS-1695 : IBM JDK would return a null instead of an empty String
+            if ( attributePrefix != null && !XMLConstants.DEFAULT_NS_PREFIX.equals( attributePrefix ) ) {
+                result.put( new QName( in.getAttributeNamespace( aIndex ), in.getAttributeLocalName( aIndex ), attributePrefix ), in.getAttributeValue( aIndex ) );
+            }
+        }
+        return result;
+    }
+
+}
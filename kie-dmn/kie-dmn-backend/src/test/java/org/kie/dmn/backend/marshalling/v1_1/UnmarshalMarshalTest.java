@@ -141,6 +141,41 @@ public class UnmarshalMarshalTest {
         testRoundTrip("", "hardcoded_function_definition.dmn");
     }
 
+    @Test
+    public void testStax0001() throws Exception {
+        testRoundTrip("org/kie/dmn/backend/marshalling/v1_1/", "0001-input-data-string.dmn", DMNMarshallerFactory.newStaxMarshaller());
+    }
+
+    @Test
+    public void testStax0003() throws Exception {
+        testRoundTrip("org/kie/dmn/backend/marshalling/v1_1/", "0003-input-data-string-allowed-values.dmn", DMNMarshallerFactory.newStaxMarshaller());
+    }
+
+    @Test
+    public void testStaxDish() throws Exception {
+        testRoundTrip("", "dish-decision.xml", DMNMarshallerFactory.newStaxMarshaller());
+    }
+
+    @Test
+    public void testStaxDummyRelation() throws Exception {
+        testRoundTrip("", "dummy-relation.xml", DMNMarshallerFactory.newStaxMarshaller());
+    }
+
+    @Test
+    public void testStaxCh11() throws Exception {
+        testRoundTrip("", "ch11example.xml", DMNMarshallerFactory.newStaxMarshaller());
+    }
+
+    @Test
+    public void testStaxSemanticNamespace() throws Exception {
+        testRoundTrip("", "semantic-namespace.xml", DMNMarshallerFactory.newStaxMarshaller());
+    }
+
+    @Test
+    public void testStaxQNameSerialization() throws Exception {
+        testRoundTrip("", "hardcoded_function_definition.dmn", DMNMarshallerFactory.newStaxMarshaller());
+    }
+
     @Ignore("A problem with the StaxDriver has still to be resolved.")
     @Test
     public void testFAILforMissingNamespaces() {
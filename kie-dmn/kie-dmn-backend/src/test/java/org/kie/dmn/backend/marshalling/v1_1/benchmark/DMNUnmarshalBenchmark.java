@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.backend.marshalling.v1_1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.kie.dmn.api.marshalling.v1_1.DMNMarshaller;
+import org.kie.dmn.backend.marshalling.v1_1.DMNMarshallerFactory;
+import org.kie.dmn.model.v1_1.Definitions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the XStream and the StAX based DMN unmarshalling of a model containing a large decision table.
+ * Run with the JMH "-prof gc" option to compare the allocation rate as well.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DMNUnmarshalBenchmark {
+
+    public enum MarshallerType {
+        XSTREAM, STAX
+    }
+
+    @Param({"5000"})
+    private int numberOfRules;
+
+    @Param({"XSTREAM", "STAX"})
+    private MarshallerType type;
+
+    private DMNMarshaller marshaller;
+    private String xml;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        marshaller = type == MarshallerType.STAX ? DMNMarshallerFactory.newStaxMarshaller() : DMNMarshallerFactory.newDefaultMarshaller();
+        xml = generateDecisionTableModel(numberOfRules);
+    }
+
+    @Benchmark
+    public Definitions unmarshal() {
+        return marshaller.unmarshal(xml);
+    }
+
+    public static String generateDecisionTableModel(int numberOfRules) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<definitions id=\"_benchmark\" name=\"benchmark\" namespace=\"https://github.com/kiegroup/kie-dmn/benchmark\"\n");
+        sb.append("  xmlns=\"http://www.omg.org/spec/DMN/20151101/dmn.xsd\" xmlns:feel=\"http://www.omg.org/spec/FEEL/20140401\">\n");
+        sb.append("  <inputData id=\"i_Age\" name=\"Age\"><variable name=\"Age\" typeRef=\"feel:number\"/></inputData>\n");
+        sb.append("  <inputData id=\"i_Code\" name=\"Code\"><variable name=\"Code\" typeRef=\"feel:string\"/></inputData>\n");
+        sb.append("  <decision id=\"d_Score\" name=\"Score\">\n");
+        sb.append("    <variable name=\"Score\" typeRef=\"feel:number\"/>\n");
+        sb.append("    <informationRequirement><requiredInput href=\"#i_Age\"/></informationRequirement>\n");
+        sb.append("    <informationRequirement><requiredInput href=\"#i_Code\"/></informationRequirement>\n");
+        sb.append("    <decisionTable id=\"dt_Score\" hitPolicy=\"FIRST\">\n");
+        sb.append("      <input id=\"in_Age\"><inputExpression typeRef=\"feel:number\"><text>Age</text></inputExpression></input>\n");
+        sb.append("      <input id=\"in_Code\"><inputExpression typeRef=\"feel:string\"><text>Code</text></inputExpression></input>\n");
+        sb.append("      <output id=\"out_Score\"/>\n");
+        for (int i = 0; i < numberOfRules; i++) {
+            sb.append("      <rule id=\"r").append(i).append("\">");
+            sb.append("<inputEntry id=\"r").append(i).append("_1\"><text>[").append(i).append("..").append(i + 1).append(")</text></inputEntry>");
+            sb.append("<inputEntry id=\"r").append(i).append("_2\"><text>\"C").append(i % 100).append("\"</text></inputEntry>");
+            sb.append("<outputEntry id=\"r").append(i).append("_3\"><text>").append(i).append("</text></outputEntry>");
+            sb.append("</rule>\n");
+        }
+        sb.append("    </decisionTable>\n");
+        sb.append("  </decision>\n");
+        sb.append("</definitions>\n");
+        return sb.toString();
+    }
+}
@@ -30,6 +30,7 @@ import org.kie.dmn.core.api.DMNExpressionEvaluator;
 import org.kie.dmn.core.api.EvaluatorResult;
 import org.kie.dmn.core.api.EvaluatorResult.ResultType;
 import org.kie.dmn.core.ast.DMNFunctionDefinitionEvaluator.FormalParameter;
+import org.kie.dmn.core.impl.DMNContextImpl;
 import org.kie.dmn.core.impl.DMNResultImpl;
 import org.kie.dmn.core.util.Msg;
 import org.kie.dmn.core.util.MsgUtil;
@@ -44,6 +45,7 @@ public class DMNDecisionServiceFunctionDefinitionEvaluator implements DMNExpress
     private DecisionServiceNode dsNode;
     private List<FormalParameter> parameters;
     private boolean coerceSingletonResult;
+    private int memoizationSize;
 
     public DMNDecisionServiceFunctionDefinitionEvaluator(DecisionServiceNode dsNode, List<FormalParameter> parameters, boolean coerceSingletonResult) {
         this.dsNode = dsNode;
@@ -51,10 +53,19 @@ public class DMNDecisionServiceFunctionDefinitionEvaluator implements DMNExpress
         this.coerceSingletonResult = coerceSingletonResult;
     }
 
+    /**
+     * Memoizes, for each evaluation, up to the given number of results of the decision service by actual parameters;
+     * only meant for pure decision services. A size of 0 disables memoization.
+     */
+    public void setMemoizationSize(int memoizationSize) {
+        this.memoizationSize = memoizationSize;
+    }
+
     @Override
     public EvaluatorResult evaluate(DMNRuntimeEventManager eventManager, DMNResult dmnr) {
         DMNResultImpl result = (DMNResultImpl) dmnr;
-        DMNDSFunction function = new DMNDSFunction(dsNode.getName(), parameters, new DMNDecisionServiceEvaluator(dsNode, false, coerceSingletonResult), eventManager, result);
+        MemoizationCache memoizationCache = memoizationSize > 0 ? new MemoizationCache(dsNode.getName(), memoizationSize, eventManager) : null;
+        DMNDSFunction function = new DMNDSFunction(dsNode.getName(), parameters, new DMNDecisionServiceEvaluator(dsNode, false, coerceSingletonResult), eventManager, result, memoizationCache);
         return new EvaluatorResultImpl(function, ResultType.SUCCESS);
     }
 
@@ -63,9 +74,15 @@ public class DMNDecisionServiceFunctionDefinitionEvaluator implements DMNExpress
         private final DMNExpressionEvaluator evaluator;
         private final DMNRuntimeEventManager eventManager;
         private final DMNResultImpl resultContext;
+        private final MemoizationCache memoizationCache;
 
         public DMNDSFunction(String name, List<FormalParameter> parameters, DMNExpressionEvaluator evaluator, DMNRuntimeEventManager eventManager, DMNResultImpl result) {
+            this(name, parameters, evaluator, eventManager, result, null);
+        }
+
+        public DMNDSFunction(String name, List<FormalParameter> parameters, DMNExpressionEvaluator evaluator, DMNRuntimeEventManager eventManager, DMNResultImpl result, MemoizationCache memoizationCache) {
             super(name);
+            this.memoizationCache = memoizationCache;
             this.parameters = parameters;
             this.evaluator = evaluator;
             this.eventManager = eventManager;
@@ -73,9 +90,15 @@ public class DMNDecisionServiceFunctionDefinitionEvaluator implements DMNExpress
         }
 
         public Object invoke(EvaluationContext ctx, Object[] params) {
+            if (memoizationCache != null) {
+                Object memoized = memoizationCache.get(params);
+                if (memoized != MemoizationCache.MISS) {
+                    return memoized;
+                }
+            }
             DMNContext previousContext = resultContext.getContext();
 
-            DMNContext dmnContext = eventManager.getRuntime().newContext();
+            DMNContext dmnContext = new DMNContextImpl(params.length);
             try {
                 for (int i = 0; i < params.length; i++) {
                     dmnContext.set(parameters.get(i).name, params[i]);
@@ -83,6 +106,9 @@ public class DMNDecisionServiceFunctionDefinitionEvaluator implements DMNExpress
                 resultContext.setContext(dmnContext);
                 EvaluatorResult result = evaluator.evaluate(eventManager, resultContext);
                 if (result.getResultType() == ResultType.SUCCESS) {
+                    if (memoizationCache != null) {
+                        memoizationCache.put(params, result.getResult());
+                    }
                     return result.getResult();
                 }
                 return null;
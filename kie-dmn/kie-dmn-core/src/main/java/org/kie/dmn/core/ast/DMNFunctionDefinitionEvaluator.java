@@ -47,6 +47,7 @@ public class DMNFunctionDefinitionEvaluator
     private final FunctionDefinition functionDefinition;
     private List<FormalParameter> parameters = new ArrayList<>(  );
     private DMNExpressionEvaluator evaluator;
+    private int memoizationSize;
 
     public DMNFunctionDefinitionEvaluator(String name, FunctionDefinition fdef ) {
         this.name = name;
@@ -82,11 +83,20 @@ public class DMNFunctionDefinitionEvaluator
         return this.evaluator;
     }
 
+    /**
+     * Memoizes, for each evaluation, up to the given number of results of the function by actual parameters;
+     * only meant for pure functions. A size of 0 disables memoization.
+     */
+    public void setMemoizationSize(int memoizationSize) {
+        this.memoizationSize = memoizationSize;
+    }
+
     @Override
     public EvaluatorResult evaluate(DMNRuntimeEventManager eventManager, DMNResult dmnr) {
         DMNResultImpl result = (DMNResultImpl) dmnr;
         // when this evaluator is executed, it should return a "FEEL function" to register in the context
-        DMNFunction function = new DMNFunction( name, parameters, functionDefinition, evaluator, eventManager, result );
+        MemoizationCache memoizationCache = memoizationSize > 0 ? new MemoizationCache( name, memoizationSize, eventManager ) : null;
+        DMNFunction function = new DMNFunction( name, parameters, functionDefinition, evaluator, eventManager, result, memoizationCache );
         return new EvaluatorResultImpl( function, ResultType.SUCCESS );
     }
 
@@ -107,9 +117,15 @@ public class DMNFunctionDefinitionEvaluator
         private final DMNRuntimeEventManager eventManager;
         private final DMNResultImpl resultContext;
         private final FunctionDefinition functionDefinition;
+        private final MemoizationCache memoizationCache;
 
         public DMNFunction(String name, List<FormalParameter> parameters, FunctionDefinition functionDefinition, DMNExpressionEvaluator evaluator, DMNRuntimeEventManager eventManager, DMNResultImpl result) {
+            this( name, parameters, functionDefinition, evaluator, eventManager, result, null );
+        }
+
+        public DMNFunction(String name, List<FormalParameter> parameters, FunctionDefinition functionDefinition, DMNExpressionEvaluator evaluator, DMNRuntimeEventManager eventManager, DMNResultImpl result, MemoizationCache memoizationCache) {
             super( name );
+            this.memoizationCache = memoizationCache;
             this.functionDefinition = functionDefinition;
             this.parameters = parameters;
             this.evaluator = evaluator;
@@ -125,6 +141,12 @@ public class DMNFunctionDefinitionEvaluator
             dmnContext.enterFrame();
             try {
                 if( evaluator != null ) {
+                    if( memoizationCache != null ) {
+                        Object memoized = memoizationCache.get( params );
+                        if( memoized != MemoizationCache.MISS ) {
+                            return memoized;
+                        }
+                    }
                     previousContext.getAll().forEach(dmnContext::set);
                     for( int i = 0; i < params.length; i++ ) {
                         dmnContext.set( parameters.get( i ).name, params[i] );
@@ -132,6 +154,9 @@ public class DMNFunctionDefinitionEvaluator
                     resultContext.setContext( dmnContext );
                     EvaluatorResult result = evaluator.evaluate( eventManager, resultContext );
                     if( result.getResultType() == ResultType.SUCCESS ) {
+                        if( memoizationCache != null ) {
+                            memoizationCache.put( params, result.getResult() );
+                        }
                         return result.getResult();
                     }
                     return null;
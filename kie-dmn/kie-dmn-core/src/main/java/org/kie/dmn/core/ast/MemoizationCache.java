@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.core.ast;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kie.dmn.api.core.event.DMNMemoizationStatistics;
+import org.kie.dmn.api.core.event.DMNRuntimeEventManager;
+import org.kie.dmn.core.impl.DMNMemoizationStatisticsImpl;
+
+/**
+ * Bounded, least recently used, cache of the results of a pure business knowledge model or decision service keyed by
+ * the actual parameters of the invocation.
+ * An instance lives as long as the function registered in the context for a single evaluation, hence it is not thread safe.
+ */
+public class MemoizationCache {
+
+    /**
+     * Returned by {@link #get(Object[])} when no result was memoized for the parameters, as null is a legitimate result.
+     */
+    public static final Object MISS = new Object();
+
+    private final String name;
+    private final Map<List<Object>, Object> results;
+    private final DMNMemoizationStatisticsImpl statistics;
+
+    public MemoizationCache(String name, int maxSize, DMNRuntimeEventManager eventManager) {
+        this.name = name;
+        this.results = new LinkedHashMap<List<Object>, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+                return size() > maxSize;
+            }
+        };
+        DMNMemoizationStatistics stats = eventManager != null ? eventManager.getMemoizationStatistics() : null;
+        this.statistics = stats instanceof DMNMemoizationStatisticsImpl ? (DMNMemoizationStatisticsImpl) stats : null;
+    }
+
+    public Object get(Object[] params) {
+        List<Object> key = Arrays.asList(params);
+        Object result = results.get(key);
+        if (result == null && !results.containsKey(key)) {
+            if (statistics != null) {
+                statistics.recordMiss(name);
+            }
+            return MISS;
+        }
+        if (statistics != null) {
+            statistics.recordHit(name);
+        }
+        return result;
+    }
+
+    public void put(Object[] params, Object result) {
+        results.put(Arrays.asList(params.clone()), result);
+    }
+
+    public int size() {
+        return results.size();
+    }
+}
@@ -22,6 +22,7 @@ import org.kie.dmn.api.core.ast.DMNNode;
 import org.kie.dmn.api.core.ast.DecisionServiceNode;
 import org.kie.dmn.core.api.DMNExpressionEvaluator;
 import org.kie.dmn.core.ast.BusinessKnowledgeModelNodeImpl;
+import org.kie.dmn.core.ast.DMNFunctionDefinitionEvaluator;
 import org.kie.dmn.core.impl.DMNModelImpl;
 import org.kie.dmn.core.util.Msg;
 import org.kie.dmn.model.v1_1.BusinessKnowledgeModel;
@@ -75,6 +76,10 @@ public class BusinessKnowledgeModelCompiler implements DRGElementCompiler {
             ctx.setVariable(bkmi.getName(), bkmi.getResultType());
             FunctionDefinition funcDef = bkmi.getBusinessKnowledModel().getEncapsulatedLogic();
             DMNExpressionEvaluator exprEvaluator = compiler.getEvaluatorCompiler().compileExpression( ctx, model, bkmi, bkmi.getName(), funcDef );
+            DMNCompilerConfigurationImpl dmnCompilerConfig = (DMNCompilerConfigurationImpl) compiler.getDmnCompilerConfig();
+            if ( exprEvaluator instanceof DMNFunctionDefinitionEvaluator && dmnCompilerConfig.getOption( MemoizationOption.class ).isMemoized( bkmi.getName() ) ) {
+                ((DMNFunctionDefinitionEvaluator) exprEvaluator).setMemoizationSize( dmnCompilerConfig.getOption( MemoizationSizeOption.class ).getSize() );
+            }
             bkmi.setEvaluator( exprEvaluator );
         } finally {
             ctx.exitFrame();
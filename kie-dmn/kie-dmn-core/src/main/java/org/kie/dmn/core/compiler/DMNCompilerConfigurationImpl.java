@@ -62,6 +62,12 @@ public class DMNCompilerConfigurationImpl implements DMNCompilerConfiguration {
             return (T) new RuntimeTypeCheckOption(properties.get(RuntimeTypeCheckOption.PROPERTY_NAME));
         } else if (CoerceDecisionServiceSingletonOutputOption.class.equals(option)) {
             return (T) new CoerceDecisionServiceSingletonOutputOption(properties.get(CoerceDecisionServiceSingletonOutputOption.PROPERTY_NAME));
+        } else if (DecisionTableStrictModeOption.class.equals(option)) {
+            return (T) new DecisionTableStrictModeOption(properties.get(DecisionTableStrictModeOption.PROPERTY_NAME));
+        } else if (MemoizationOption.class.equals(option)) {
+            return (T) new MemoizationOption(properties.get(MemoizationOption.PROPERTY_NAME));
+        } else if (MemoizationSizeOption.class.equals(option)) {
+            return (T) new MemoizationSizeOption(properties.get(MemoizationSizeOption.PROPERTY_NAME));
         }
         return null;
     }
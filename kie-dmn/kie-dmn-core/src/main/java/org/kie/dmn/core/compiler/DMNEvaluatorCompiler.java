@@ -606,7 +606,8 @@ public class DMNEvaluatorCompiler {
         // creates a FEEL instance which will be used by the invoker/impl (s)
         FEEL feelInstance = feel.newFEELInstance();
 
-        DecisionTableImpl dti = new DecisionTableImpl(dtName, parameterNames, inputs, outputs, rules, hp, feelInstance);
+        boolean strictMode = ((DMNCompilerConfigurationImpl) compiler.getDmnCompilerConfig()).getOption(DecisionTableStrictModeOption.class).isStrictMode();
+        DecisionTableImpl dti = new DecisionTableImpl(dtName, parameterNames, inputs, outputs, rules, hp, feelInstance, strictMode);
         DTInvokerFunction dtf = new DTInvokerFunction( dti );
         DMNDTExpressionEvaluator dtee = new DMNDTExpressionEvaluator(node, feelInstance, dtf);
         return dtee;
@@ -140,6 +140,10 @@ public class DecisionServiceCompiler {
         boolean coerceSingleton = ((DMNCompilerConfigurationImpl) compiler.getDmnCompilerConfig()).getOption(CoerceDecisionServiceSingletonOutputOption.class).isCoerceSingleton();
 
         DMNDecisionServiceFunctionDefinitionEvaluator exprEvaluator = new DMNDecisionServiceFunctionDefinitionEvaluator(ni, parameters, coerceSingleton);
+        DMNCompilerConfigurationImpl dmnCompilerConfig = (DMNCompilerConfigurationImpl) compiler.getDmnCompilerConfig();
+        if (dmnCompilerConfig.getOption(MemoizationOption.class).isMemoized(ni.getName())) {
+            exprEvaluator.setMemoizationSize(dmnCompilerConfig.getOption(MemoizationSizeOption.class).getSize());
+        }
         ni.setEvaluator(exprEvaluator);
     }
 }
\ No newline at end of file
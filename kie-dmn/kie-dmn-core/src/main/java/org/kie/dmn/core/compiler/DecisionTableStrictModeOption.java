@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.core.compiler;
+
+import org.kie.dmn.core.assembler.DMNAssemblerService;
+
+/**
+ * evaluate decision tables in strict mode: all the rules are evaluated, so that the hit policy can be fully validated (eg: UNIQUE, ANY);
+ * when disabled, UNIQUE, FIRST and ANY decision tables stop at the first matching rule and only evaluate its output entries.
+ */
+public class DecisionTableStrictModeOption implements DMNOption {
+
+    private static final long serialVersionUID = 510l;
+
+    public static final String PROPERTY_NAME = DMNAssemblerService.ORG_KIE_DMN_PREFIX + ".decisiontable.strictmode";
+
+    /**
+     * The default value for this option
+     */
+    public static final boolean DEFAULT_VALUE = true;
+
+    private final boolean strictMode;
+
+    public DecisionTableStrictModeOption(boolean value) {
+        this.strictMode = value;
+    }
+
+    public DecisionTableStrictModeOption(String value) {
+        this.strictMode = value == null ? DEFAULT_VALUE : Boolean.valueOf(value);
+    }
+
+    @Override
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isStrictMode() {
+        return strictMode;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.core.compiler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.kie.dmn.core.assembler.DMNAssemblerService;
+
+/**
+ * comma separated names of the business knowledge models and decision services to be considered pure, so that their
+ * results can be memoized by actual parameters for the duration of an evaluation; "*" marks all of them as pure.
+ */
+public class MemoizationOption implements DMNOption {
+
+    private static final long serialVersionUID = 510l;
+
+    public static final String PROPERTY_NAME = DMNAssemblerService.ORG_KIE_DMN_PREFIX + ".memoization.pure";
+
+    /**
+     * The default value for this option
+     */
+    public static final String DEFAULT_VALUE = "";
+
+    public static final String ALL = "*";
+
+    private final Set<String> pureNames;
+
+    public MemoizationOption(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            this.pureNames = Collections.emptySet();
+        } else {
+            this.pureNames = Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isMemoized(String nodeName) {
+        return pureNames.contains(ALL) || pureNames.contains(nodeName);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.core.compiler;
+
+import org.kie.dmn.core.assembler.DMNAssemblerService;
+
+/**
+ * maximum number of memoized results kept, in least recently used order, for each pure business knowledge model or
+ * decision service (see {@link MemoizationOption}).
+ */
+public class MemoizationSizeOption implements DMNOption {
+
+    private static final long serialVersionUID = 510l;
+
+    public static final String PROPERTY_NAME = DMNAssemblerService.ORG_KIE_DMN_PREFIX + ".memoization.size";
+
+    /**
+     * The default value for this option
+     */
+    public static final int DEFAULT_VALUE = 1000;
+
+    private final int size;
+
+    public MemoizationSizeOption(int value) {
+        this.size = value;
+    }
+
+    public MemoizationSizeOption(String value) {
+        this.size = value == null ? DEFAULT_VALUE : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+}
@@ -27,14 +27,27 @@ import org.kie.dmn.api.core.DMNContext;
 public class DMNContextImpl implements DMNContext {
     private static final String DEFAULT_IDENT = "    ";
 
-    private Map<String, Object> entries    = new LinkedHashMap<String, Object>();
+    private final Map<String, Object> entries;
     private Deque<ScopeReference> stack    = new LinkedList<>();
 
     public DMNContextImpl() {
+        this.entries = new LinkedHashMap<>();
     }
 
     public DMNContextImpl(Map<String, Object> entries) {
-        this.entries.putAll(entries);
+        this.entries = new LinkedHashMap<>(entries);
+    }
+
+    /**
+     * Creates an empty context sized to hold the given number of entries without rehashing,
+     * e.g. the number of input data of the model it is going to be used with.
+     */
+    public DMNContextImpl(int expectedSize) {
+        this.entries = new LinkedHashMap<>(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        return expectedSize < 3 ? expectedSize + 1 : (int) (expectedSize / 0.75f + 1.0f);
     }
 
     @Override
@@ -87,7 +100,7 @@ public class DMNContextImpl implements DMNContext {
 
     @Override
     public DMNContext clone() {
-        DMNContextImpl newCtx = new DMNContextImpl(new LinkedHashMap<>(entries));
+        DMNContextImpl newCtx = new DMNContextImpl(entries);
         for (ScopeReference e : stack) {
             newCtx.pushScope(e.getName(), e.getNamespace());
         }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.core.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.kie.dmn.api.core.event.DMNMemoizationStatistics;
+
+public class DMNMemoizationStatisticsImpl implements DMNMemoizationStatistics {
+
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> misses = new ConcurrentHashMap<>();
+
+    public void recordHit(String name) {
+        hits.computeIfAbsent(name, n -> new LongAdder()).increment();
+    }
+
+    public void recordMiss(String name) {
+        misses.computeIfAbsent(name, n -> new LongAdder()).increment();
+    }
+
+    @Override
+    public long getHits(String name) {
+        LongAdder counter = hits.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    @Override
+    public long getMisses(String name) {
+        LongAdder counter = misses.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    @Override
+    public long getTotalHits() {
+        return hits.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public long getTotalMisses() {
+        return misses.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public void reset() {
+        hits.clear();
+        misses.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "DMNMemoizationStatistics [hits=" + getTotalHits() + ", misses=" + getTotalMisses() + "]";
+    }
+}
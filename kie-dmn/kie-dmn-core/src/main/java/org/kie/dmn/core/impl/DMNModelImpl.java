@@ -88,6 +88,11 @@ public class DMNModelImpl
 
     private Map<String, QName> importAliases = new HashMap<>();
 
+    /**
+     * the DMN XML this model was read from, if any, so it is not marshalled again when serialized back.
+     */
+    private transient String serializedDefinitions;
+
     public DMNModelImpl() {
     }
 
@@ -376,7 +381,10 @@ public class DMNModelImpl
         DMNCompilerImpl compiler = (DMNCompilerImpl) os.getCustomExtensions().get(DMNAssemblerService.DMN_COMPILER_CACHE_KEY);
         List<DMNExtensionRegister> dmnRegisteredExtensions = compiler.getRegisteredExtensions();
         
-        String output = DMNMarshallerFactory.newMarshallerWithExtensions(dmnRegisteredExtensions).marshal(this.definitions);
+        String output = serializedDefinitions;
+        if (output == null) {
+            output = DMNMarshallerFactory.newMarshallerWithExtensions(dmnRegisteredExtensions).marshal(this.definitions);
+        }
 
         out.writeObject(output);
     }
@@ -399,11 +407,13 @@ public class DMNModelImpl
         Definitions definitions = DMNMarshallerFactory.newMarshallerWithExtensions(dmnRegisteredExtensions).unmarshal(xml);
         
         this.definitions = definitions;
+        this.serializedDefinitions = xml;
         
         DMNModelImpl compiledModel = (DMNModelImpl) compiler.compile(definitions);
         this.inputs    = compiledModel.inputs    ;
         this.decisions = compiledModel.decisions ;
         this.bkms      = compiledModel.bkms      ;
+        this.decisionServices = compiledModel.decisionServices;
         this.itemDefs  = compiledModel.itemDefs  ;
         this.messages  = compiledModel.messages  ;
         this.types     = compiledModel.types     ;
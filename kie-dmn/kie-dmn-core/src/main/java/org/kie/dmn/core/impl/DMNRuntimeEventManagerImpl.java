@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.kie.dmn.api.core.DMNRuntime;
+import org.kie.dmn.api.core.event.DMNMemoizationStatistics;
 import org.kie.dmn.api.core.event.DMNRuntimeEventListener;
 import org.kie.dmn.api.core.event.DMNRuntimeEventManager;
 
@@ -29,6 +30,8 @@ public class DMNRuntimeEventManagerImpl implements DMNRuntimeEventManager {
 
     private DMNRuntime dmnRuntime;
 
+    private final DMNMemoizationStatisticsImpl memoizationStatistics = new DMNMemoizationStatisticsImpl();
+
     public DMNRuntimeEventManagerImpl() {
 
     }
@@ -59,4 +62,9 @@ public class DMNRuntimeEventManagerImpl implements DMNRuntimeEventManager {
         return dmnRuntime;
     }
 
+    @Override
+    public DMNMemoizationStatistics getMemoizationStatistics() {
+        return memoizationStatistics;
+    }
+
 }
@@ -43,6 +43,7 @@ import org.kie.dmn.api.core.ast.DMNNode;
 import org.kie.dmn.api.core.ast.DecisionNode;
 import org.kie.dmn.api.core.ast.DecisionServiceNode;
 import org.kie.dmn.api.core.ast.InputDataNode;
+import org.kie.dmn.api.core.event.DMNMemoizationStatistics;
 import org.kie.dmn.api.core.event.DMNRuntimeEventListener;
 import org.kie.dmn.core.api.DMNFactory;
 import org.kie.dmn.core.api.EvaluatorResult;
@@ -202,6 +203,11 @@ public class DMNRuntimeImpl
         return this.eventManager.getListeners();
     }
 
+    @Override
+    public DMNMemoizationStatistics getMemoizationStatistics() {
+        return this.eventManager.getMemoizationStatistics();
+    }
+
     private DMNResultImpl createResult(DMNModel model, DMNContext context) {
         DMNResultImpl result = new DMNResultImpl(model);
         result.setContext( context.clone() );
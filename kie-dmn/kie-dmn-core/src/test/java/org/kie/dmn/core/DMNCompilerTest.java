@@ -16,17 +16,30 @@
 
 package org.kie.dmn.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.common.DroolsObjectOutputStream;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.kie.dmn.api.core.DMNContext;
 import org.kie.dmn.api.core.DMNMessage;
+import org.kie.dmn.api.core.DMNMessageType;
 import org.kie.dmn.api.core.DMNModel;
 import org.kie.dmn.api.core.DMNResult;
 import org.kie.dmn.api.core.DMNRuntime;
 import org.kie.dmn.api.core.DMNType;
 import org.kie.dmn.api.core.ast.ItemDefNode;
 import org.kie.dmn.core.api.DMNFactory;
+import org.kie.dmn.core.assembler.DMNAssemblerService;
+import org.kie.dmn.core.compiler.DMNCompilerImpl;
 import org.kie.dmn.core.impl.CompositeTypeImpl;
+import org.kie.dmn.core.impl.DMNModelImpl;
 import org.kie.dmn.core.impl.SimpleTypeImpl;
 import org.kie.dmn.core.util.DMNRuntimeUtil;
 import org.kie.dmn.feel.lang.EvaluationContext;
@@ -42,6 +55,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThat;
 import static org.kie.dmn.core.util.DynamicTypeUtils.entry;
 import static org.kie.dmn.core.util.DynamicTypeUtils.mapOf;
@@ -165,4 +179,34 @@ public class DMNCompilerTest {
         assertThat(evaluateAll.getDecisionResultByName("Greeting").getResult(), is("Hello John!"));
     }
 
+    @Test
+    public void testSerializedModelsDontShareState() throws Exception {
+        String xml = new String(Files.readAllBytes(Paths.get(this.getClass().getResource("0008-LX-arithmetic.dmn").toURI())), StandardCharsets.UTF_8);
+        DMNCompilerImpl compiler = (DMNCompilerImpl) DMNFactory.newCompiler();
+        DMNModelImpl model = (DMNModelImpl) compiler.compile(new StringReader(xml));
+
+        DMNModelImpl first = serializeAndRead(model, compiler);
+        DMNModelImpl second = serializeAndRead(model, compiler);
+        first.setImportAliasForNS("alias", "http://www.example.com/imported", "imported");
+        first.addMessage(DMNMessage.Severity.WARN, "added to the first model only", DMNMessageType.UNSUPPORTED_ELEMENT, null);
+
+        assertThat(first.getImportAliasesForNS().size(), is(1));
+        assertTrue(second.getImportAliasesForNS().isEmpty());
+        assertTrue(model.getImportAliasesForNS().isEmpty());
+        assertThat(second.getMessages().size(), is(model.getMessages().size()));
+        assertThat(first.getMessages().size(), is(model.getMessages().size() + 1));
+    }
+
+    private static DMNModelImpl serializeAndRead(DMNModelImpl model, DMNCompilerImpl compiler) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DroolsObjectOutputStream out = new DroolsObjectOutputStream(baos);
+        out.addCustomExtensions(DMNAssemblerService.DMN_COMPILER_CACHE_KEY, compiler);
+        out.writeObject(model);
+        out.close();
+
+        DroolsObjectInputStream in = new DroolsObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        in.addCustomExtensions(DMNAssemblerService.DMN_COMPILER_CACHE_KEY, compiler);
+        return (DMNModelImpl) in.readObject();
+    }
+
 }
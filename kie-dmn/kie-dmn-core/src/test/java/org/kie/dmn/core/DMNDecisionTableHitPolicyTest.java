@@ -26,6 +26,8 @@ import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.Test;
@@ -36,7 +38,14 @@ import org.kie.dmn.api.core.DMNResult;
 import org.kie.dmn.api.core.DMNRuntime;
 import org.kie.dmn.api.feel.runtime.events.FEELEvent;
 import org.kie.dmn.core.api.DMNFactory;
+import org.kie.dmn.core.ast.DMNDTExpressionEvaluator;
+import org.kie.dmn.core.ast.DecisionNodeImpl;
+import org.kie.dmn.core.compiler.DecisionTableStrictModeOption;
 import org.kie.dmn.core.util.DMNRuntimeUtil;
+import org.kie.dmn.feel.FEEL;
+import org.kie.dmn.feel.lang.impl.EvaluationContextImpl;
+import org.kie.dmn.feel.lang.impl.FEELImpl;
+import org.kie.dmn.feel.runtime.events.DecisionTableRulesMatchedEvent;
 import org.kie.dmn.feel.runtime.events.HitPolicyViolationEvent;
 
 public class DMNDecisionTableHitPolicyTest {
@@ -122,6 +131,61 @@ public class DMNDecisionTableHitPolicyTest {
         testSimpleDecisionTableHitPolicyAny("0004-simpletable-A-non-equal.dmn", "0004-simpletable-A-non-equal", false);
     }
 
+    @Test
+    public void testSimpleDecisionTableHitPolicyAnyNonStrictStopsAtFirstMatch() {
+        System.setProperty(DecisionTableStrictModeOption.PROPERTY_NAME, "false");
+        try {
+            final DMNRuntime runtime = DMNRuntimeUtil.createRuntime("0004-simpletable-A-non-equal.dmn", this.getClass());
+            final DMNModel dmnModel = runtime.getModel("https://github.com/kiegroup/kie-dmn", "0004-simpletable-A-non-equal");
+            assertThat(dmnModel, notNullValue());
+
+            final DMNContext context = getSimpleTableContext(BigDecimal.valueOf(18), "Medium", true);
+            final DMNResult dmnResult = runtime.evaluateAll(dmnModel, context);
+            assertThat(dmnResult.hasErrors(), is(false));
+            assertThat(dmnResult.getContext().get("Approval Status"), is("Approved"));
+        } finally {
+            System.clearProperty(DecisionTableStrictModeOption.PROPERTY_NAME);
+        }
+    }
+
+    @Test
+    public void testSimpleDecisionTableHitPolicyAnySkippedRules() {
+        final DecisionTableRulesMatchedEvent nonStrict = evaluateRulesMatched(false);
+        assertThat(nonStrict.getMatches(), contains(1));
+        assertThat(nonStrict.getSkippedRules(), is(1));
+
+        final DecisionTableRulesMatchedEvent strict = evaluateRulesMatched(true);
+        assertThat(strict.getMatches(), contains(1, 2));
+        assertThat(strict.getSkippedRules(), is(0));
+    }
+
+    private DecisionTableRulesMatchedEvent evaluateRulesMatched(final boolean strictMode) {
+        System.setProperty(DecisionTableStrictModeOption.PROPERTY_NAME, String.valueOf(strictMode));
+        try {
+            final DMNRuntime runtime = DMNRuntimeUtil.createRuntime("0004-simpletable-A-non-equal.dmn", this.getClass());
+            final DMNModel dmnModel = runtime.getModel("https://github.com/kiegroup/kie-dmn", "0004-simpletable-A-non-equal");
+            assertThat(dmnModel, notNullValue());
+            final DecisionNodeImpl decision = (DecisionNodeImpl) dmnModel.getDecisionByName("_0004-simpletable-A-non-equal");
+
+            final List<DecisionTableRulesMatchedEvent> events = new ArrayList<>();
+            final EvaluationContextImpl ctx = ((FEELImpl) FEEL.newInstance()).newEvaluationContext(
+                    Collections.singletonList(e -> {
+                        if (e instanceof DecisionTableRulesMatchedEvent) {
+                            events.add((DecisionTableRulesMatchedEvent) e);
+                        }
+                    }),
+                    Collections.emptyMap());
+            ctx.enterFrame();
+            getSimpleTableContext(BigDecimal.valueOf(18), "Medium", true).getAll().forEach(ctx::setValue);
+            ((DMNDTExpressionEvaluator) decision.getEvaluator()).getDecisionTable().invoke(ctx, new Object[0]);
+
+            assertThat(events, hasSize(1));
+            return events.get(0);
+        } finally {
+            System.clearProperty(DecisionTableStrictModeOption.PROPERTY_NAME);
+        }
+    }
+
     private void testSimpleDecisionTableHitPolicyAny(final String resurceName, final String modelName, final boolean equalRules) {
         final DMNRuntime runtime = DMNRuntimeUtil.createRuntime(resurceName, this.getClass());
         final DMNModel dmnModel = runtime.getModel("https://github.com/kiegroup/kie-dmn", modelName);
@@ -52,6 +52,7 @@ import org.kie.dmn.api.core.event.BeforeEvaluateDecisionTableEvent;
 import org.kie.dmn.api.core.event.DMNRuntimeEventListener;
 import org.kie.dmn.core.api.DMNFactory;
 import org.kie.dmn.core.ast.DecisionNodeImpl;
+import org.kie.dmn.core.compiler.MemoizationOption;
 import org.kie.dmn.core.impl.DMNModelImpl;
 import org.kie.dmn.core.util.DMNRuntimeUtil;
 import org.kie.dmn.core.util.KieHelper;
@@ -1970,6 +1971,27 @@ public class DMNRuntimeTest {
         assertThat(result.get("just say"), is(Arrays.asList("Hello", "Hello", "Hello")));
     }
 
+    @Test
+    public void testMemoizedPureBKMInIteration() {
+        System.setProperty(MemoizationOption.PROPERTY_NAME, "prefix say for hello");
+        try {
+            DMNRuntime runtime = DMNRuntimeUtil.createRuntime("say_for_hello.dmn", this.getClass());
+            DMNModel dmnModel = runtime.getModel("http://www.trisotech.com/dmn/definitions/_b6f2a9ca-a246-4f27-896a-e8ef04ea439c", "say for hello");
+            assertThat(dmnModel, notNullValue());
+            assertThat(DMNRuntimeUtil.formatMessages(dmnModel.getMessages()), dmnModel.hasErrors(), is(false));
+
+            DMNResult dmnResult = runtime.evaluateAll(dmnModel, DMNFactory.newContext());
+            assertThat(DMNRuntimeUtil.formatMessages(dmnResult.getMessages()), dmnResult.hasErrors(), is(false));
+            assertThat(dmnResult.getContext().get("just say"), is(Arrays.asList("Hello", "Hello", "Hello")));
+
+            assertThat(runtime.getMemoizationStatistics().getMisses("prefix say for hello"), is(1L));
+            assertThat(runtime.getMemoizationStatistics().getHits("prefix say for hello"), is(2L));
+            assertThat(runtime.getMemoizationStatistics().getTotalMisses(), is(1L));
+        } finally {
+            System.clearProperty(MemoizationOption.PROPERTY_NAME);
+        }
+    }
+
     @Test
     public void testProductFunction() {
         DMNRuntime runtime = DMNRuntimeUtil.createRuntime( "product.dmn", this.getClass() );
@@ -27,7 +27,8 @@ public class ExecutionFrameImpl
 
     private ExecutionFrame parentFrame;
 
-    private Map<String, Object> variables = new HashMap<>();
+    // frames usually hold only a handful of variables (function parameters, iteration variables, context entries)
+    private Map<String, Object> variables = new HashMap<>( 8 );
     private Object rootObject;
 
     public ExecutionFrameImpl(ExecutionFrame parentFrame) {
@@ -44,15 +45,25 @@ public class ExecutionFrameImpl
 
     @Override
     public Object getValue(String symbol) {
-        symbol = EvalHelper.normalizeVariableName( symbol );
+        return getNormalizedValue( EvalHelper.normalizeVariableName( symbol ) );
+    }
+
+    /**
+     * Resolves an already normalized symbol, walking the parent frames without normalizing it again at each level.
+     */
+    private Object getNormalizedValue(String symbol) {
         if (rootObject != null) {
             PropertyValueResult dv = EvalHelper.getDefinedValue(rootObject, symbol);
             if (dv.isDefined()) {
                 return dv.getValueResult().getOrElse(null);
             }
         }
-        if ( variables.containsKey( symbol ) ) {
-            return variables.get( symbol );
+        Object value = variables.get( symbol );
+        if ( value != null || variables.containsKey( symbol ) ) {
+            return value;
+        }
+        if ( parentFrame instanceof ExecutionFrameImpl ) {
+            return ((ExecutionFrameImpl) parentFrame).getNormalizedValue( symbol );
         }
         if ( parentFrame != null ) {
             return parentFrame.getValue( symbol );
@@ -62,7 +73,10 @@ public class ExecutionFrameImpl
 
     @Override
     public boolean isDefined(String symbol) {
-        symbol = EvalHelper.normalizeVariableName( symbol );
+        return isNormalizedDefined( EvalHelper.normalizeVariableName( symbol ) );
+    }
+
+    private boolean isNormalizedDefined(String symbol) {
         if (rootObject != null) {
             if (EvalHelper.getDefinedValue(rootObject, symbol).isDefined()) {
                 return true;
@@ -73,6 +87,9 @@ public class ExecutionFrameImpl
         if ( variables.containsKey( symbol ) ) {
             return true;
         }
+        if ( parentFrame instanceof ExecutionFrameImpl ) {
+            return ((ExecutionFrameImpl) parentFrame).isNormalizedDefined( symbol );
+        }
         if ( parentFrame != null ) {
             return parentFrame.isDefined( symbol );
         }
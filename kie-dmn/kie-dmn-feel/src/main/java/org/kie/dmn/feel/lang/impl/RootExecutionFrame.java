@@ -44,11 +44,7 @@ public class RootExecutionFrame implements ExecutionFrame {
     }
 
     public Object getValue(String symbol) {
-        symbol = EvalHelper.normalizeVariableName( symbol );
-        if ( functions.containsKey( symbol ) ) {
-            return functions.get( symbol );
-        }
-        return null;
+        return functions.get( EvalHelper.normalizeVariableName( symbol ) );
     }
 
     public boolean isDefined( String symbol ) {
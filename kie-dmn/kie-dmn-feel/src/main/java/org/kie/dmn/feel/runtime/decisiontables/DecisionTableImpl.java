@@ -55,6 +55,10 @@ public class DecisionTableImpl {
     private List<DTDecisionRule> decisionRules;
     private HitPolicy            hitPolicy;
     private boolean              hasDefaultValues;
+    /**
+     * when true, evaluation stops at the first matching rule, as the hit policy only needs a single match.
+     */
+    private boolean              stopAtFirstMatch;
 
     private FEEL feel;
 
@@ -65,6 +69,21 @@ public class DecisionTableImpl {
                              List<DTDecisionRule> decisionRules,
                              HitPolicy hitPolicy,
                              FEEL feel) {
+        this( name, parameterNames, inputs, outputs, decisionRules, hitPolicy, feel, true );
+    }
+
+    /**
+     * @param strictMode when false, decision tables with a UNIQUE, FIRST or ANY hit policy stop evaluating rules at the first
+     *                   match and only evaluate its output entries; the hit policy is then not validated against other matching rules.
+     */
+    public DecisionTableImpl(String name,
+                             List<String> parameterNames,
+                             List<DTInputClause> inputs,
+                             List<DTOutputClause> outputs,
+                             List<DTDecisionRule> decisionRules,
+                             HitPolicy hitPolicy,
+                             FEEL feel,
+                             boolean strictMode) {
         this.name = name;
         this.parameterNames = parameterNames;
         this.inputs = inputs;
@@ -72,6 +91,7 @@ public class DecisionTableImpl {
         this.decisionRules = decisionRules;
         this.hitPolicy = hitPolicy;
         this.hasDefaultValues = outputs.stream().allMatch( o -> o.getDefaultValue() != null );
+        this.stopAtFirstMatch = !strictMode && (hitPolicy == HitPolicy.UNIQUE || hitPolicy == HitPolicy.FIRST || hitPolicy == HitPolicy.ANY);
         this.feel = feel;
     }
 
@@ -238,18 +258,26 @@ public class DecisionTableImpl {
      */
     private List<DTDecisionRule> findMatches(EvaluationContext ctx, Object[] params) {
         List<DTDecisionRule> matchingDecisionRules = new ArrayList<>();
+        int evaluatedRules = 0;
         for ( DTDecisionRule decisionRule : decisionRules ) {
+            evaluatedRules++;
             if ( matches( ctx, params, decisionRule ) ) {
                 matchingDecisionRules.add( decisionRule );
+                if ( stopAtFirstMatch ) {
+                    break;
+                }
             }
         }
+        int skippedRules = decisionRules.size() - evaluatedRules;
         ctx.notifyEvt( () -> {
             List<Integer> matches = matchingDecisionRules.stream().map( dr -> dr.getIndex() + 1 ).collect( Collectors.toList() );
             return new DecisionTableRulesMatchedEvent(FEELEvent.Severity.INFO,
-                                                      "Rules matched for decision table '" + getName() + "': " + matches.toString(),
+                                                      "Rules matched for decision table '" + getName() + "': " + matches.toString() +
+                                                      (skippedRules > 0 ? " (" + skippedRules + " rules skipped)" : ""),
                                                       getName(),
                                                       getName(),
-                                                      matches );
+                                                      matches,
+                                                      skippedRules );
             }
         );
         return matchingDecisionRules;
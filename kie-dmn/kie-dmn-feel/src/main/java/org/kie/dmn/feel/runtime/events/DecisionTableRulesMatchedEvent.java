@@ -30,12 +30,18 @@ public class DecisionTableRulesMatchedEvent
     private final String        nodeName;
     private final String        dtName;
     private final List<Integer> matches;
+    private final int           skippedRules;
 
     public DecisionTableRulesMatchedEvent(Severity severity, String msg, String nodeName, String dtName, List<Integer> matches) {
+        this( severity, msg, nodeName, dtName, matches, 0 );
+    }
+
+    public DecisionTableRulesMatchedEvent(Severity severity, String msg, String nodeName, String dtName, List<Integer> matches, int skippedRules) {
         super( severity, msg, null );
         this.nodeName = nodeName;
         this.dtName = dtName;
         this.matches = matches;
+        this.skippedRules = skippedRules;
     }
 
     public String getNodeName() {
@@ -50,6 +56,13 @@ public class DecisionTableRulesMatchedEvent
         return matches;
     }
 
+    /**
+     * @return the number of rules which were not evaluated, as the decision table stopped at the first match.
+     */
+    public int getSkippedRules() {
+        return skippedRules;
+    }
+
     @Override
     public String toString() {
         return "DecisionTableRulesMatchedEvent{" +
@@ -58,6 +71,7 @@ public class DecisionTableRulesMatchedEvent
                ", nodeName='" + nodeName + '\'' +
                ", dtName='" + dtName + '\'' +
                ", matches='" + matches + '\'' +
+               ", skippedRules=" + skippedRules +
                '}';
     }
 }
@@ -49,9 +49,42 @@ public class EvalHelper {
     private static final Pattern SPACES_PATTERN = Pattern.compile( "[\\s\u00A0]+" );
 
     public static String normalizeVariableName(String name) {
+        if ( isNormalizedVariableName( name ) ) {
+            // most symbols are already normalized, avoid the regex matching on every variable lookup
+            return name;
+        }
         return SPACES_PATTERN.matcher( name.trim() ).replaceAll( " " );
     }
 
+    /**
+     * Returns true if normalizing the given name would leave it unchanged, i.e. it has no leading or trailing
+     * whitespace and every whitespace character in it is a single plain space.
+     */
+    private static boolean isNormalizedVariableName(String name) {
+        int length = name.length();
+        if ( length == 0 ) {
+            return true;
+        }
+        if ( name.charAt( 0 ) <= ' ' || name.charAt( length - 1 ) <= ' ' ) {
+            return false;
+        }
+        boolean previousSpace = false;
+        for ( int i = 0; i < length; i++ ) {
+            char c = name.charAt( i );
+            if ( c == ' ' ) {
+                if ( previousSpace ) {
+                    return false;
+                }
+                previousSpace = true;
+            } else if ( c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == '\u00A0' ) {
+                return false;
+            } else {
+                previousSpace = false;
+            }
+        }
+        return true;
+    }
+
     public static BigDecimal getBigDecimalOrNull(Object value) {
         if ( !(value instanceof Number
                 || value instanceof String)
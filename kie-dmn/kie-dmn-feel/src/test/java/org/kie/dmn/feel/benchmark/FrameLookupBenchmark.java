@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.feel.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.kie.dmn.feel.lang.impl.ExecutionFrame;
+import org.kie.dmn.feel.lang.impl.ExecutionFrameImpl;
+import org.kie.dmn.feel.lang.impl.RootExecutionFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the variable lookup of the ExecutionFrameImpl with the previous implementation, which normalized the
+ * symbol with a regex at every frame and did a containsKey followed by a get, resolving variables defined in the
+ * outermost frame from the innermost one of a chain of nested frames, as in a chain of BKM invocations.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameLookupBenchmark {
+
+    public enum FrameType {
+        PREVIOUS, CURRENT
+    }
+
+    private static final String[] SYMBOLS = {"Monthly Salary", "Applicant Age", "Credit Score", "Requested Amount"};
+
+    @Param({"1", "5", "10"})
+    private int depth;
+
+    @Param({"PREVIOUS", "CURRENT"})
+    private FrameType type;
+
+    private ExecutionFrame frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExecutionFrame global = newFrame( RootExecutionFrame.INSTANCE );
+        for ( int i = 0; i < SYMBOLS.length; i++ ) {
+            global.setValue( SYMBOLS[i], i );
+        }
+        frame = global;
+        for ( int i = 1; i < depth; i++ ) {
+            frame = newFrame( frame );
+            frame.setValue( "param" + i, i );
+        }
+    }
+
+    private ExecutionFrame newFrame(ExecutionFrame parent) {
+        return type == FrameType.CURRENT ? new ExecutionFrameImpl( parent ) : new PreviousExecutionFrame( parent );
+    }
+
+    @Benchmark
+    public int lookup() {
+        int sum = 0;
+        for ( String symbol : SYMBOLS ) {
+            sum += (Integer) frame.getValue( symbol );
+        }
+        return sum;
+    }
+
+    /**
+     * The variable lookup of ExecutionFrameImpl before the per-lookup normalization and double map lookup were removed.
+     */
+    private static class PreviousExecutionFrame implements ExecutionFrame {
+
+        private static final Pattern SPACES_PATTERN = Pattern.compile( "[\\s\u00A0]+" );
+
+        private final ExecutionFrame parentFrame;
+        private final Map<String, Object> variables = new HashMap<>();
+        private Object rootObject;
+
+        private PreviousExecutionFrame(ExecutionFrame parentFrame) {
+            this.parentFrame = parentFrame;
+        }
+
+        private static String normalizeVariableName(String name) {
+            return SPACES_PATTERN.matcher( name.trim() ).replaceAll( " " );
+        }
+
+        @Override
+        public Object getValue(String symbol) {
+            symbol = normalizeVariableName( symbol );
+            if ( variables.containsKey( symbol ) ) {
+                return variables.get( symbol );
+            }
+            if ( parentFrame != null ) {
+                return parentFrame.getValue( symbol );
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isDefined(String symbol) {
+            symbol = normalizeVariableName( symbol );
+            if ( variables.containsKey( symbol ) ) {
+                return true;
+            }
+            return parentFrame != null && parentFrame.isDefined( symbol );
+        }
+
+        @Override
+        public void setValue(String symbol, Object value) {
+            variables.put( normalizeVariableName( symbol ), value );
+        }
+
+        @Override
+        public Map<String, Object> getAllValues() {
+            return variables;
+        }
+
+        @Override
+        public void setRootObject(Object v) {
+            this.rootObject = v;
+        }
+
+        @Override
+        public Object getRootObject() {
+            return rootObject;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.dmn.feel.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class EvalHelperTest {
+
+    @Test
+    public void testNormalizeVariableNameAlreadyNormalized() {
+        String name = "Monthly Salary";
+        assertThat( EvalHelper.normalizeVariableName( name ), sameInstance( name ) );
+        assertThat( EvalHelper.normalizeVariableName( "" ), is( "" ) );
+    }
+
+    @Test
+    public void testNormalizeVariableName() {
+        assertThat( EvalHelper.normalizeVariableName( "  Monthly Salary " ), is( "Monthly Salary" ) );
+        assertThat( EvalHelper.normalizeVariableName( "Monthly   Salary" ), is( "Monthly Salary" ) );
+        assertThat( EvalHelper.normalizeVariableName( "Monthly\tSalary" ), is( "Monthly Salary" ) );
+        assertThat( EvalHelper.normalizeVariableName( "Monthly\u00A0Salary" ), is( "Monthly Salary" ) );
+        assertThat( EvalHelper.normalizeVariableName( "\u00A0Monthly Salary" ), is( " Monthly Salary" ) );
+        assertThat( EvalHelper.normalizeVariableName( "Monthly \n Salary" ), is( "Monthly Salary" ) );
+    }
+}
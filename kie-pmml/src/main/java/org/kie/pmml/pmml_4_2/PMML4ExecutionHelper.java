@@ -23,6 +23,7 @@ import java.util.Map;
 import org.drools.core.definitions.InternalKnowledgePackage;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.InternalRuleUnitExecutor;
 import org.drools.core.ruleunit.RuleUnitDescr;
 import org.drools.core.ruleunit.RuleUnitRegistry;
 import org.kie.api.KieBase;
@@ -150,13 +151,15 @@ public class PMML4ExecutionHelper {
         requestData = executor.newDataSource("request");
         resultData = executor.newDataSource("results");
         pmmlData = executor.newDataSource("pmmlData");
-        String startingRuleName = "RuleUnitIndicator";
         if (includeMiningDataSources) {
             childModelSegments = executor.newDataSource("childModelSegments");
             miningModelPojo = executor.newDataSource("miningModelPojo");
-            startingRuleName = "Start Mining - " + modelName;
         }
+        initRuleUnitClass();
+    }
 
+    private void initRuleUnitClass() {
+        String startingRuleName = includeMiningDataSources ? "Start Mining - " + modelName : "RuleUnitIndicator";
         ruleUnitClass = getStartingRuleUnit(startingRuleName);
     }
 
@@ -191,13 +194,13 @@ public class PMML4ExecutionHelper {
 
     public boolean addPossiblePackageName(String packageName) {
         boolean retval = possiblePackageNames.add(packageName);
-        initRuleUnitExecutor();
+        initRuleUnitClass();
         return retval;
     }
 
     public void setPossiblePackageNames(List<String> possiblePackageNames) {
         this.possiblePackageNames = possiblePackageNames;
-        initRuleUnitExecutor();
+        initRuleUnitClass();
     }
 
     public Class<? extends RuleUnit> getRuleUnitClass() {
@@ -243,7 +246,9 @@ public class PMML4ExecutionHelper {
 
     /**
      * Submits a request to the rule unit executor and the model gets applied
-     * NOTE: The results of previous submissions will be overwritten
+     * NOTE: The results of previous submissions will be overwritten, the executor and its KieSession are reset
+     * and reused
+     * NOTE: Requests are applied one at a time; use a PMML4ScoringService to score requests concurrently
      * @param request
      * @return
      * @throws InvalidParameterException
@@ -258,11 +263,10 @@ public class PMML4ExecutionHelper {
             throw new IllegalStateException("PMML model cannot be applied. Missing ruleUnitClass.");
         }
         /*
-         * If the executor was previously used then we need to re-initialize it
+         * If the executor was previously used then it is reset, removing the data of that request
          */
         if (used) {
-            used = false;
-            initRuleUnitExecutor();
+            ((InternalRuleUnitExecutor) executor).reset();
         }
         requestData.insert(request);
         baseResultHolder = new PMML4Result(request.getCorrelationId());
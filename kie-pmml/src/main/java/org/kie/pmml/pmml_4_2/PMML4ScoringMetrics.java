@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency metrics of the requests scored against a single model by a {@link PMML4ScoringService}
+ */
+public class PMML4ScoringMetrics {
+
+    private final String modelName;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public PMML4ScoringMetrics(String modelName) {
+        this.modelName = modelName;
+    }
+
+    void record(long nanos, boolean failed) {
+        requests.increment();
+        if (failed) {
+            failures.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getTotalLatency(TimeUnit unit) {
+        return unit.convert(totalNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxLatency(TimeUnit unit) {
+        return unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public double getAverageLatency(TimeUnit unit) {
+        long count = requests.sum();
+        return count == 0 ? 0.0 : (double) totalNanos.sum() / count / unit.toNanos(1);
+    }
+
+    public void reset() {
+        requests.reset();
+        failures.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "PMML4ScoringMetrics [modelName=" + modelName + ", requests=" + getRequestCount() + ", failures=" + getFailureCount()
+                + ", averageLatency(us)=" + getAverageLatency(TimeUnit.MICROSECONDS) + ", maxLatency(us)=" + getMaxLatency(TimeUnit.MICROSECONDS) + "]";
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kie.api.KieBase;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.pmml.pmml_4_2.PMML4ExecutionHelper.PMML4ExecutionHelperFactory;
+
+/**
+ * Thread-safe scoring of PMML requests against the models of a single KieBase.
+ * A PMML4ExecutionHelper can only apply one request at a time, so the service keeps, for every model,
+ * a pool of helpers bound to the same KieBase: concurrent requests are served by different helpers,
+ * instead of queueing on a single one. At most pool size helpers are in use at the same time for a model,
+ * further requests wait for one of them to be released. An idle helper keeps its RuleUnitExecutor and KieSession
+ * across requests, they are reset before serving the next one. Latency metrics are collected per model.
+ */
+public class PMML4ScoringService implements AutoCloseable {
+
+    private final KieBase kbase;
+    private final int poolSize;
+    private final boolean includeMiningDataSources;
+    private final List<String> possiblePackageNames;
+    private final Map<String, HelperPool> helperPools = new ConcurrentHashMap<>();
+    private final Map<String, PMML4ScoringMetrics> metrics = new ConcurrentHashMap<>();
+    private final ExecutorService batchExecutor;
+
+    public PMML4ScoringService(KieBase kbase, String... possiblePackageNames) {
+        this(kbase, Runtime.getRuntime().availableProcessors(), false, possiblePackageNames);
+    }
+
+    /**
+     * @param kbase the KieBase containing the compiled models
+     * @param poolSize the maximum number of helpers in use per model, as well as the number of threads used to score batches
+     * @param includeMiningDataSources whether the helpers are meant to apply mining models
+     * @param possiblePackageNames the additional packages where the rules of the models may be found
+     */
+    public PMML4ScoringService(KieBase kbase, int poolSize, boolean includeMiningDataSources, String... possiblePackageNames) {
+        if (kbase == null) {
+            throw new IllegalArgumentException("Unable to create scoring service: KieBase is null");
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Invalid pool size " + poolSize);
+        }
+        this.kbase = kbase;
+        this.poolSize = poolSize;
+        this.includeMiningDataSources = includeMiningDataSources;
+        this.possiblePackageNames = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(possiblePackageNames)));
+        this.batchExecutor = Executors.newFixedThreadPool(poolSize, new ScoringThreadFactory());
+    }
+
+    public KieBase getKbase() {
+        return kbase;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Applies the model named by the request; can be invoked concurrently, blocking while all the helpers
+     * of the model are in use
+     * @param request
+     * @return the result of the request
+     * @throws InvalidParameterException
+     * @throws IllegalStateException if interrupted while waiting for a helper
+     */
+    public PMML4Result submitRequest(PMMLRequestData request) throws InvalidParameterException, IllegalStateException {
+        if (request == null) {
+            throw new InvalidParameterException("PMML model cannot be applied to a null request");
+        }
+        String modelName = request.getModelName();
+        if (modelName == null) {
+            throw new InvalidParameterException("PMML model cannot be applied to a request without model name");
+        }
+        PMML4ScoringMetrics modelMetrics = metrics.computeIfAbsent(modelName, PMML4ScoringMetrics::new);
+        HelperPool pool = helperPools.computeIfAbsent(modelName, n -> new HelperPool(poolSize));
+
+        long start = System.nanoTime();
+        try {
+            pool.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a helper of model " + modelName, e);
+        }
+        boolean failed = true;
+        PMML4ExecutionHelper helper = pool.idle.poll();
+        try {
+            if (helper == null) {
+                helper = newHelper(modelName);
+            }
+            PMML4Result result = helper.submitRequest(request);
+            failed = false;
+            return result;
+        } finally {
+            modelMetrics.record(System.nanoTime() - start, failed);
+            if (helper != null) {
+                if (failed) {
+                    // a failed helper may be left in an inconsistent state
+                    helper.getExecutor().dispose();
+                } else {
+                    pool.idle.offer(helper);
+                }
+            }
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * Applies the requests concurrently, using up to pool size threads
+     * @param requests
+     * @return the results, in the same order as the requests
+     */
+    public List<PMML4Result> submitRequests(Iterable<PMMLRequestData> requests) {
+        List<CompletableFuture<PMML4Result>> futures = new ArrayList<>();
+        for (PMMLRequestData request : requests) {
+            futures.add(CompletableFuture.supplyAsync(() -> submitRequest(request), batchExecutor));
+        }
+        List<PMML4Result> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<PMML4Result> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the metrics of the given model, or null if no request has been submitted for it
+     */
+    public PMML4ScoringMetrics getMetrics(String modelName) {
+        return metrics.get(modelName);
+    }
+
+    public Map<String, PMML4ScoringMetrics> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    @Override
+    public void close() {
+        batchExecutor.shutdown();
+        for (HelperPool pool : helperPools.values()) {
+            PMML4ExecutionHelper helper;
+            while ((helper = pool.idle.poll()) != null) {
+                helper.getExecutor().dispose();
+            }
+        }
+    }
+
+    /**
+     * Creates a helper for the given model, invoked when no idle helper is available
+     */
+    protected PMML4ExecutionHelper newHelper(String modelName) {
+        PMML4ExecutionHelper helper = PMML4ExecutionHelperFactory.getExecutionHelper(modelName, kbase, includeMiningDataSources);
+        if (!possiblePackageNames.isEmpty()) {
+            helper.setPossiblePackageNames(new ArrayList<>(possiblePackageNames));
+        }
+        return helper;
+    }
+
+    private static class HelperPool {
+
+        private final Semaphore permits;
+        private final BlockingQueue<PMML4ExecutionHelper> idle;
+
+        private HelperPool(int poolSize) {
+            this.permits = new Semaphore(poolSize);
+            this.idle = new ArrayBlockingQueue<>(poolSize);
+        }
+    }
+
+    private static class ScoringThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger poolCounter = new AtomicInteger();
+        private final int poolId = poolCounter.incrementAndGet();
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "pmml-scoring-" + poolId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
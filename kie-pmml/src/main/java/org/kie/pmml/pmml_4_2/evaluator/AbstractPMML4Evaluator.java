@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.FIELDUSAGETYPE;
+import org.dmg.pmml.pmml_4_2.descr.MiningField;
+import org.dmg.pmml.pmml_4_2.descr.MiningSchema;
+import org.dmg.pmml.pmml_4_2.descr.Output;
+import org.dmg.pmml.pmml_4_2.descr.OutputField;
+import org.dmg.pmml.pmml_4_2.descr.RESULTFEATURE;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.ParameterInfo;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.pmml.pmml_4_2.PMML4Helper;
+
+/**
+ * Common input preparation and result population for the compiled evaluators
+ */
+public abstract class AbstractPMML4Evaluator implements PMML4Evaluator {
+
+    /**
+     * Outcome of applying a model to a single input record
+     */
+    protected static class Prediction {
+
+        final Object value;
+        final double weight;
+        final Map<Object, Double> probabilities;
+        final List<String> reasonCodes;
+
+        Prediction(Object value, double weight) {
+            this(value, weight, Collections.emptyMap(), Collections.emptyList());
+        }
+
+        Prediction(Object value, double weight, Map<Object, Double> probabilities, List<String> reasonCodes) {
+            this.value = value;
+            this.weight = weight;
+            this.probabilities = probabilities;
+            this.reasonCodes = reasonCodes;
+        }
+    }
+
+    private static final class InputField {
+
+        final String name;
+        final DATATYPE type;
+        final Object replacement;
+
+        InputField(String name, DATATYPE type, Object replacement) {
+            this.name = name;
+            this.type = type;
+            this.replacement = replacement;
+        }
+    }
+
+    private static final class CompiledOutput {
+
+        final String name;
+        final String variableName;
+        final RESULTFEATURE feature;
+        final Object value;
+        final int rank;
+
+        CompiledOutput(String name, String variableName, RESULTFEATURE feature, Object value, int rank) {
+            this.name = name;
+            this.variableName = variableName;
+            this.feature = feature;
+            this.value = value;
+            this.rank = rank;
+        }
+    }
+
+    private final String modelName;
+    private final String context;
+    private final Map<String, DATATYPE> fieldTypes;
+    private final InputField[] inputs;
+    private final String targetField;
+    private final String targetVariableName;
+    private final CompiledOutput[] outputs;
+
+    protected AbstractPMML4Evaluator(String modelName, Map<String, DATATYPE> fieldTypes, MiningSchema miningSchema, Output output) {
+        PMML4Helper helper = new PMML4Helper();
+        this.modelName = modelName;
+        this.context = helper.compactUpperCase(modelName);
+        this.fieldTypes = fieldTypes;
+
+        List<InputField> inputList = new ArrayList<>();
+        String target = null;
+        for (MiningField field : miningSchema.getMiningFields()) {
+            FIELDUSAGETYPE usage = field.getUsageType();
+            if (usage == FIELDUSAGETYPE.PREDICTED || usage == FIELDUSAGETYPE.TARGET) {
+                target = field.getName();
+            } else if (usage == null || usage == FIELDUSAGETYPE.ACTIVE) {
+                DATATYPE type = CompiledPredicate.fieldType(field.getName(), fieldTypes);
+                Object replacement = PMML4Values.convert(field.getMissingValueReplacement(), type);
+                inputList.add(new InputField(field.getName(), type, replacement));
+            }
+        }
+        this.inputs = inputList.toArray(new InputField[inputList.size()]);
+        this.targetField = target;
+        this.targetVariableName = target != null ? helper.compactUpperCase(target) : null;
+
+        List<CompiledOutput> outputList = new ArrayList<>();
+        if (output != null) {
+            for (OutputField field : output.getOutputFields()) {
+                RESULTFEATURE feature = field.getFeature() != null ? field.getFeature() : RESULTFEATURE.PREDICTED_VALUE;
+                if (feature != RESULTFEATURE.PREDICTED_VALUE && feature != RESULTFEATURE.PROBABILITY && feature != RESULTFEATURE.REASON_CODE) {
+                    throw new UnsupportedOperationException("Unsupported output feature " + feature);
+                }
+                if (field.getTargetField() != null && !field.getTargetField().equals(target)) {
+                    throw new UnsupportedOperationException("Output field " + field.getName() + " refers to an unknown target");
+                }
+                Object value = field.getValue() != null && target != null
+                        ? PMML4Values.convert(field.getValue(), fieldTypes.get(target))
+                        : field.getValue();
+                int rank = field.getRank() != null ? field.getRank().intValue() : 1;
+                outputList.add(new CompiledOutput(field.getName(), helper.compactUpperCase(field.getName()), feature, value, rank));
+            }
+        }
+        this.outputs = outputList.toArray(new CompiledOutput[outputList.size()]);
+    }
+
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+
+    protected String getContext() {
+        return context;
+    }
+
+    protected String getTargetField() {
+        return targetField;
+    }
+
+    protected Map<String, DATATYPE> getFieldTypes() {
+        return fieldTypes;
+    }
+
+    protected DATATYPE getTargetType() {
+        return targetField != null ? fieldTypes.get(targetField) : null;
+    }
+
+    @Override
+    public PMML4Result evaluate(PMMLRequestData request) {
+        if (request == null) {
+            throw new IllegalArgumentException("PMML model cannot be applied to a null request");
+        }
+        PMML4Result result = new PMML4Result(request.getCorrelationId());
+        Prediction prediction = apply(request, result);
+        if (targetVariableName != null) {
+            result.addResultVariable(targetVariableName, new PMML4TargetValue(context, prediction.value, prediction.weight));
+        }
+        for (CompiledOutput output : outputs) {
+            result.addResultVariable(output.variableName, new PMML4TargetValue(context, outputValue(output, prediction), prediction.weight));
+        }
+        result.setResultCode("OK");
+        return result;
+    }
+
+    /**
+     * Prepares the input of this model from the request, according to its own mining schema, and applies the model
+     */
+    protected Prediction apply(PMMLRequestData request, PMML4Result result) {
+        return predict(request, prepareInput(request), result);
+    }
+
+    /**
+     * Applies the model to the prepared input; implementations may add model specific variables to the result.
+     * The request is only needed by models, like the mining ones, whose child models prepare their own input
+     */
+    protected abstract Prediction predict(PMMLRequestData request, Map<String, Object> input, PMML4Result result);
+
+    private Map<String, Object> prepareInput(PMMLRequestData request) {
+        Map<String, ParameterInfo> params = request.getMappedRequestParams();
+        Map<String, Object> input = new HashMap<>(inputs.length * 2);
+        for (InputField field : inputs) {
+            ParameterInfo param = params.get(field.name);
+            Object value = param != null ? PMML4Values.convert(param.getValue(), field.type) : null;
+            input.put(field.name, value != null ? value : field.replacement);
+        }
+        return input;
+    }
+
+    private static Object outputValue(CompiledOutput output, Prediction prediction) {
+        switch (output.feature) {
+            case PROBABILITY:
+                Object category = output.value != null ? output.value : prediction.value;
+                return prediction.probabilities.get(PMML4Values.normalize(category));
+            case REASON_CODE:
+                return output.rank <= prediction.reasonCodes.size() ? prediction.reasonCodes.get(output.rank - 1) : null;
+            default:
+                return prediction.value;
+        }
+    }
+}
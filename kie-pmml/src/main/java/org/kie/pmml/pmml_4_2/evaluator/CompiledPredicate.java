@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dmg.pmml.pmml_4_2.descr.Array;
+import org.dmg.pmml.pmml_4_2.descr.CompoundPredicate;
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.False;
+import org.dmg.pmml.pmml_4_2.descr.SimplePredicate;
+import org.dmg.pmml.pmml_4_2.descr.SimpleSetPredicate;
+import org.dmg.pmml.pmml_4_2.descr.True;
+
+/**
+ * A PMML predicate compiled against the types of the data dictionary.
+ * Evaluation follows the PMML three-valued logic: null stands for UNKNOWN, i.e. a missing input was involved.
+ */
+@FunctionalInterface
+public interface CompiledPredicate {
+
+    CompiledPredicate TRUE = data -> Boolean.TRUE;
+    CompiledPredicate FALSE = data -> Boolean.FALSE;
+
+    Boolean evaluate(Map<String, Object> data);
+
+    /**
+     * Compiles the first predicate found in the given JAXB content
+     */
+    static CompiledPredicate compile(List<?> content, Map<String, DATATYPE> fieldTypes) {
+        for (Object o : content) {
+            if (o instanceof SimplePredicate || o instanceof CompoundPredicate || o instanceof SimpleSetPredicate
+                    || o instanceof True || o instanceof False) {
+                return compile(o, fieldTypes);
+            }
+        }
+        throw new UnsupportedOperationException("Missing predicate");
+    }
+
+    static CompiledPredicate compile(Object predicate, Map<String, DATATYPE> fieldTypes) {
+        if (predicate instanceof True) {
+            return TRUE;
+        } else if (predicate instanceof False) {
+            return FALSE;
+        } else if (predicate instanceof SimplePredicate) {
+            return compileSimple((SimplePredicate) predicate, fieldTypes);
+        } else if (predicate instanceof SimpleSetPredicate) {
+            return compileSimpleSet((SimpleSetPredicate) predicate, fieldTypes);
+        } else if (predicate instanceof CompoundPredicate) {
+            return compileCompound((CompoundPredicate) predicate, fieldTypes);
+        }
+        throw new UnsupportedOperationException("Unsupported predicate " + predicate);
+    }
+
+    static CompiledPredicate compileSimple(SimplePredicate predicate, Map<String, DATATYPE> fieldTypes) {
+        String field = predicate.getField();
+        String operator = predicate.getOperator();
+        if ("isMissing".equals(operator)) {
+            return data -> data.get(field) == null;
+        } else if ("isNotMissing".equals(operator)) {
+            return data -> data.get(field) != null;
+        }
+        Object value = PMML4Values.convert(predicate.getValue(), fieldType(field, fieldTypes));
+        switch (operator) {
+            case "equal":
+                return data -> {
+                    Object actual = data.get(field);
+                    return actual == null ? null : PMML4Values.compare(actual, value) == 0;
+                };
+            case "notEqual":
+                return data -> {
+                    Object actual = data.get(field);
+                    return actual == null ? null : PMML4Values.compare(actual, value) != 0;
+                };
+            case "lessThan":
+                return data -> {
+                    Object actual = data.get(field);
+                    return actual == null ? null : PMML4Values.compare(actual, value) < 0;
+                };
+            case "lessOrEqual":
+                return data -> {
+                    Object actual = data.get(field);
+                    return actual == null ? null : PMML4Values.compare(actual, value) <= 0;
+                };
+            case "greaterThan":
+                return data -> {
+                    Object actual = data.get(field);
+                    return actual == null ? null : PMML4Values.compare(actual, value) > 0;
+                };
+            case "greaterOrEqual":
+                return data -> {
+                    Object actual = data.get(field);
+                    return actual == null ? null : PMML4Values.compare(actual, value) >= 0;
+                };
+            default:
+                throw new UnsupportedOperationException("Unsupported operator " + operator);
+        }
+    }
+
+    static CompiledPredicate compileSimpleSet(SimpleSetPredicate predicate, Map<String, DATATYPE> fieldTypes) {
+        String field = predicate.getField();
+        DATATYPE type = fieldType(field, fieldTypes);
+        Set<Object> values = new HashSet<>();
+        for (String token : parseArray(predicate.getArray())) {
+            values.add(PMML4Values.normalize(PMML4Values.convert(token, type)));
+        }
+        boolean in = "isIn".equals(predicate.getBooleanOperator());
+        return data -> {
+            Object actual = data.get(field);
+            return actual == null ? null : values.contains(PMML4Values.normalize(actual)) == in;
+        };
+    }
+
+    static CompiledPredicate compileCompound(CompoundPredicate predicate, Map<String, DATATYPE> fieldTypes) {
+        List<CompiledPredicate> list = new ArrayList<>();
+        for (Object o : predicate.getSimplePredicatesAndCompoundPredicatesAndSimpleSetPredicates()) {
+            list.add(compile(o, fieldTypes));
+        }
+        CompiledPredicate[] preds = list.toArray(new CompiledPredicate[list.size()]);
+        switch (predicate.getBooleanOperator()) {
+            case "and":
+                return data -> {
+                    Boolean result = Boolean.TRUE;
+                    for (CompiledPredicate p : preds) {
+                        Boolean b = p.evaluate(data);
+                        if (b == null) {
+                            result = null;
+                        } else if (!b) {
+                            return Boolean.FALSE;
+                        }
+                    }
+                    return result;
+                };
+            case "or":
+                return data -> {
+                    Boolean result = Boolean.FALSE;
+                    for (CompiledPredicate p : preds) {
+                        Boolean b = p.evaluate(data);
+                        if (b == null) {
+                            result = null;
+                        } else if (b) {
+                            return Boolean.TRUE;
+                        }
+                    }
+                    return result;
+                };
+            case "xor":
+                return data -> {
+                    boolean result = false;
+                    for (CompiledPredicate p : preds) {
+                        Boolean b = p.evaluate(data);
+                        if (b == null) {
+                            return null;
+                        }
+                        result ^= b;
+                    }
+                    return result;
+                };
+            case "surrogate":
+                return data -> {
+                    for (CompiledPredicate p : preds) {
+                        Boolean b = p.evaluate(data);
+                        if (b != null) {
+                            return b;
+                        }
+                    }
+                    return null;
+                };
+            default:
+                throw new UnsupportedOperationException("Unsupported boolean operator " + predicate.getBooleanOperator());
+        }
+    }
+
+    static DATATYPE fieldType(String field, Map<String, DATATYPE> fieldTypes) {
+        DATATYPE type = fieldTypes.get(field);
+        if (type == null) {
+            // derived fields require the transformations, which are only supported by the rule based execution
+            throw new UnsupportedOperationException("Unknown field " + field);
+        }
+        return type;
+    }
+
+    /**
+     * Splits the content of a PMML Array, honouring double quoted values containing spaces
+     */
+    static List<String> parseArray(Array array) {
+        List<String> tokens = new ArrayList<>();
+        String content = array.getContent() != null ? array.getContent().trim() : "";
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '\\' && quoted && i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                current.append('"');
+                i++;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.LocalTransformations;
+import org.dmg.pmml.pmml_4_2.descr.MULTIPLEMODELMETHOD;
+import org.dmg.pmml.pmml_4_2.descr.MiningModel;
+import org.dmg.pmml.pmml_4_2.descr.MiningSchema;
+import org.dmg.pmml.pmml_4_2.descr.Output;
+import org.dmg.pmml.pmml_4_2.descr.Segment;
+import org.dmg.pmml.pmml_4_2.descr.Segmentation;
+import org.dmg.pmml.pmml_4_2.descr.Targets;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.pmml.pmml_4_2.PMML4Helper;
+
+/**
+ * Compiled evaluator of a PMML MiningModel whose segments are independent of each other, i.e. combined with the
+ * sum, average, weighted average, majority vote or weighted majority vote methods. The segments are evaluated in
+ * parallel, on the common fork join pool, when there are at least {@link #DEFAULT_PARALLEL_THRESHOLD} of them;
+ * their predictions are then aggregated in segment order, so that the result does not depend on the scheduling.
+ * Other multiple model methods (select first, select all, model chain...) are only supported by the rule based execution.
+ */
+public class MiningModelEvaluator extends AbstractPMML4Evaluator {
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8;
+
+    private static final class CompiledSegment {
+
+        final CompiledPredicate predicate;
+        final AbstractPMML4Evaluator model;
+        final double weight;
+
+        CompiledSegment(CompiledPredicate predicate, AbstractPMML4Evaluator model, double weight) {
+            this.predicate = predicate;
+            this.model = model;
+            this.weight = weight;
+        }
+    }
+
+    private final MULTIPLEMODELMETHOD method;
+    private final CompiledSegment[] segments;
+    private final int parallelThreshold;
+    private final String aggregateVariableName;
+
+    public MiningModelEvaluator(MiningModel model, Map<String, DATATYPE> fieldTypes) {
+        this(model, fieldTypes, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param parallelThreshold the minimum number of segments for which the segments are evaluated in parallel
+     */
+    public MiningModelEvaluator(MiningModel model, Map<String, DATATYPE> fieldTypes, int parallelThreshold) {
+        super(model.getModelName(),
+              fieldTypes,
+              PMML4EvaluatorFactory.find(model.getExtensionsAndMiningSchemasAndOutputs(), MiningSchema.class),
+              PMML4EvaluatorFactory.find(model.getExtensionsAndMiningSchemasAndOutputs(), Output.class));
+        PMML4EvaluatorFactory.checkAbsent(model.getExtensionsAndMiningSchemasAndOutputs(), LocalTransformations.class, Targets.class);
+        this.parallelThreshold = parallelThreshold;
+
+        Segmentation segmentation = PMML4EvaluatorFactory.find(model.getExtensionsAndMiningSchemasAndOutputs(), Segmentation.class);
+        if (segmentation == null) {
+            throw new UnsupportedOperationException("Missing segmentation");
+        }
+        this.method = segmentation.getMultipleModelMethod();
+        String aggregatePrefix;
+        switch (method) {
+            case SUM:
+                aggregatePrefix = "Sum_";
+                break;
+            case WEIGHTED_AVERAGE:
+                aggregatePrefix = "WeightedAvg_";
+                break;
+            case AVERAGE:
+            case MAJORITY_VOTE:
+            case WEIGHTED_MAJORITY_VOTE:
+                aggregatePrefix = null;
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported multiple model method " + method);
+        }
+        // same variable names used by the rule based aggregation of the segments
+        this.aggregateVariableName = aggregatePrefix != null && getTargetField() != null
+                ? aggregatePrefix + new PMML4Helper().compactUpperCase(getTargetField())
+                : null;
+
+        List<CompiledSegment> compiled = new ArrayList<>();
+        for (Segment segment : segmentation.getSegments()) {
+            PMML4Evaluator child = PMML4EvaluatorFactory.newEvaluator(segmentModel(segment), fieldTypes);
+            if (!(child instanceof AbstractPMML4Evaluator)) {
+                throw new UnsupportedOperationException("Unsupported model in segment " + segment.getId());
+            }
+            compiled.add(new CompiledSegment(CompiledPredicate.compile(segmentPredicate(segment), fieldTypes),
+                                             (AbstractPMML4Evaluator) child,
+                                             segment.getWeight()));
+        }
+        this.segments = compiled.toArray(new CompiledSegment[compiled.size()]);
+    }
+
+    private static Object segmentModel(Segment segment) {
+        if (segment.getTreeModel() != null) {
+            return segment.getTreeModel();
+        } else if (segment.getRegressionModel() != null) {
+            return segment.getRegressionModel();
+        } else if (segment.getScorecard() != null) {
+            return segment.getScorecard();
+        } else if (segment.getMiningModel() != null) {
+            return segment.getMiningModel();
+        }
+        throw new UnsupportedOperationException("Unsupported model in segment " + segment.getId());
+    }
+
+    private static Object segmentPredicate(Segment segment) {
+        if (segment.getSimplePredicate() != null) {
+            return segment.getSimplePredicate();
+        } else if (segment.getCompoundPredicate() != null) {
+            return segment.getCompoundPredicate();
+        } else if (segment.getSimpleSetPredicate() != null) {
+            return segment.getSimpleSetPredicate();
+        } else if (segment.getFalse() != null) {
+            return segment.getFalse();
+        }
+        return segment.getTrue();
+    }
+
+    @Override
+    protected Prediction predict(PMMLRequestData request, Map<String, Object> input, PMML4Result result) {
+        Prediction[] predictions = new Prediction[segments.length];
+        if (segments.length >= parallelThreshold) {
+            IntStream.range(0, segments.length).parallel().forEach(i -> predictions[i] = predictSegment(segments[i], request, input));
+        } else {
+            for (int i = 0; i < segments.length; i++) {
+                predictions[i] = predictSegment(segments[i], request, input);
+            }
+        }
+
+        Prediction prediction;
+        switch (method) {
+            case MAJORITY_VOTE:
+            case WEIGHTED_MAJORITY_VOTE:
+                prediction = vote(predictions);
+                break;
+            default:
+                prediction = average(predictions);
+        }
+        if (aggregateVariableName != null) {
+            result.addResultVariable(aggregateVariableName, new PMML4TargetValue(getContext(), prediction.value, prediction.weight));
+        }
+        return prediction;
+    }
+
+    private static Prediction predictSegment(CompiledSegment segment, PMMLRequestData request, Map<String, Object> input) {
+        if (!Boolean.TRUE.equals(segment.predicate.evaluate(input))) {
+            return null;
+        }
+        // the child model prepares its input from the request, applying the missing value replacements of its
+        // own mining schema; it only adds variables of its own (e.g. the scorecard holder), which are not exposed
+        return segment.model.apply(request, new PMML4Result());
+    }
+
+    /**
+     * Sum, average and weighted average; the weight of the prediction is the total weight of the segments involved
+     */
+    private Prediction average(Prediction[] predictions) {
+        double sum = 0.0;
+        double weightedSum = 0.0;
+        double totalWeight = 0.0;
+        int count = 0;
+        for (int i = 0; i < predictions.length; i++) {
+            if (predictions[i] == null || predictions[i].value == null) {
+                continue;
+            }
+            double value = PMML4Values.toDouble(predictions[i].value);
+            sum += value;
+            weightedSum += value * segments[i].weight;
+            totalWeight += segments[i].weight;
+            count++;
+        }
+        if (count == 0) {
+            return new Prediction(null, 0.0);
+        }
+        switch (method) {
+            case SUM:
+                return new Prediction(sum, totalWeight);
+            case AVERAGE:
+                return new Prediction(sum / count, totalWeight);
+            default:
+                return new Prediction(weightedSum / totalWeight, totalWeight);
+        }
+    }
+
+    /**
+     * Majority and weighted majority vote; ties are won by the category first predicted in segment order
+     */
+    private Prediction vote(Prediction[] predictions) {
+        Map<Object, Double> votes = new LinkedHashMap<>();
+        Map<Object, Object> categories = new LinkedHashMap<>();
+        double total = 0.0;
+        for (int i = 0; i < predictions.length; i++) {
+            if (predictions[i] == null || predictions[i].value == null) {
+                continue;
+            }
+            Object key = PMML4Values.normalize(predictions[i].value);
+            double vote = method == MULTIPLEMODELMETHOD.WEIGHTED_MAJORITY_VOTE ? segments[i].weight : 1.0;
+            votes.merge(key, vote, Double::sum);
+            categories.putIfAbsent(key, predictions[i].value);
+            total += vote;
+        }
+        if (votes.isEmpty()) {
+            return new Prediction(null, 0.0);
+        }
+        Object winner = null;
+        double best = Double.NEGATIVE_INFINITY;
+        Map<Object, Double> probabilities = new LinkedHashMap<>();
+        for (Map.Entry<Object, Double> entry : votes.entrySet()) {
+            probabilities.put(entry.getKey(), entry.getValue() / total);
+            if (entry.getValue() > best) {
+                best = entry.getValue();
+                winner = entry.getKey();
+            }
+        }
+        return new Prediction(categories.get(winner), best / total, probabilities, Collections.emptyList());
+    }
+}
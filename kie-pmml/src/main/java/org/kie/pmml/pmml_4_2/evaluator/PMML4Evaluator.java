@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+
+/**
+ * A PMML model compiled into plain Java structures, which scores a request directly instead of running
+ * the rules generated from the model. Implementations are immutable and can be shared across threads.
+ */
+public interface PMML4Evaluator {
+
+    String getModelName();
+
+    /**
+     * Applies the model to the request, populating the result variables the same way the rule based
+     * execution does (target field, output fields and, for scorecards, the "ScoreCard" holder)
+     */
+    PMML4Result evaluate(PMMLRequestData request);
+}
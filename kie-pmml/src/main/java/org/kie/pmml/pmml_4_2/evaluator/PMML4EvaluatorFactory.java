@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.DataField;
+import org.dmg.pmml.pmml_4_2.descr.MiningModel;
+import org.dmg.pmml.pmml_4_2.descr.PMML;
+import org.dmg.pmml.pmml_4_2.descr.RegressionModel;
+import org.dmg.pmml.pmml_4_2.descr.Scorecard;
+import org.dmg.pmml.pmml_4_2.descr.TreeModel;
+import org.kie.api.io.Resource;
+import org.kie.pmml.pmml_4_2.PMML4Compiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles the tree, regression, scorecard and (ensemble) mining models of a PMML document into {@link PMML4Evaluator}s,
+ * which apply the model directly, without translating it into rules. Models using features which are not supported
+ * by the compiled evaluators (e.g. transformations, model chains or unsupported missing value strategies) are
+ * skipped, and should be executed through the rule based PMML4ExecutionHelper instead.
+ * The execution mode is therefore selected per model, by asking the factory for an evaluator.
+ */
+public final class PMML4EvaluatorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PMML4EvaluatorFactory.class);
+
+    private PMML4EvaluatorFactory() {
+    }
+
+    /**
+     * @return the evaluator for the given model, or null if the model is not found or not supported
+     */
+    public static PMML4Evaluator getEvaluator(String modelName, Resource resource) {
+        try (InputStream is = resource.getInputStream()) {
+            return getEvaluator(modelName, is);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the evaluator for the given model, or null if the model is not found or not supported
+     */
+    public static PMML4Evaluator getEvaluator(String modelName, InputStream source) {
+        return compile(source).get(modelName);
+    }
+
+    /**
+     * @return the evaluators of the supported models, by model name
+     */
+    public static Map<String, PMML4Evaluator> compile(InputStream source) {
+        PMML pmml = new PMML4Compiler().loadModel(PMML4Compiler.PMML, source);
+        return pmml != null ? compile(pmml) : Collections.emptyMap();
+    }
+
+    /**
+     * @return the evaluators of the supported models, by model name
+     */
+    public static Map<String, PMML4Evaluator> compile(PMML pmml) {
+        Map<String, DATATYPE> fieldTypes = new HashMap<>();
+        for (DataField field : pmml.getDataDictionary().getDataFields()) {
+            fieldTypes.put(field.getName(), field.getDataType());
+        }
+        Map<String, PMML4Evaluator> evaluators = new LinkedHashMap<>();
+        for (Object model : pmml.getAssociationModelsAndBaselineModelsAndClusteringModels()) {
+            try {
+                PMML4Evaluator evaluator = newEvaluator(model, fieldTypes);
+                if (evaluator != null) {
+                    evaluators.put(evaluator.getModelName(), evaluator);
+                }
+            } catch (UnsupportedOperationException e) {
+                logger.debug("Model can't be compiled, rule based execution is required: {}", e.getMessage());
+            }
+        }
+        return evaluators;
+    }
+
+    static PMML4Evaluator newEvaluator(Object model, Map<String, DATATYPE> fieldTypes) {
+        if (model instanceof TreeModel) {
+            return new TreeModelEvaluator((TreeModel) model, fieldTypes);
+        } else if (model instanceof RegressionModel) {
+            return new RegressionModelEvaluator((RegressionModel) model, fieldTypes);
+        } else if (model instanceof Scorecard) {
+            return new ScorecardEvaluator((Scorecard) model, fieldTypes);
+        } else if (model instanceof MiningModel) {
+            return new MiningModelEvaluator((MiningModel) model, fieldTypes);
+        }
+        return null;
+    }
+
+    static <T> T find(List<?> content, Class<T> type) {
+        for (Object o : content) {
+            if (type.isInstance(o)) {
+                return type.cast(o);
+            }
+        }
+        return null;
+    }
+
+    static void checkAbsent(List<?> content, Class<?>... types) {
+        for (Class<?> type : types) {
+            if (find(content, type) != null) {
+                throw new UnsupportedOperationException("Unsupported element " + type.getSimpleName());
+            }
+        }
+    }
+}
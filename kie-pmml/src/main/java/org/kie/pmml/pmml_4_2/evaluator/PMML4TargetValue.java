@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.io.Serializable;
+
+/**
+ * Value of a target or output field computed by a {@link PMML4Evaluator}. It exposes the same properties
+ * as the field types declared by the rule based execution, so that PMML4Result.getResultValue(name, "value")
+ * works the same way with both.
+ */
+public class PMML4TargetValue implements Serializable {
+
+    private static final long serialVersionUID = 510l;
+
+    private final String context;
+    private final Object value;
+    private final double weight;
+
+    public PMML4TargetValue(String context, Object value, double weight) {
+        this.context = context;
+        this.value = value;
+        this.weight = weight;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Double getWeight() {
+        return weight;
+    }
+
+    public Boolean getValid() {
+        return value != null;
+    }
+
+    public Boolean getMissing() {
+        return value == null;
+    }
+
+    @Override
+    public String toString() {
+        return "PMML4TargetValue [context=" + context + ", value=" + value + ", weight=" + weight + "]";
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+
+/**
+ * Conversion and comparison of field values for the compiled PMML evaluators
+ */
+final class PMML4Values {
+
+    private PMML4Values() {
+    }
+
+    static Object convert(Object value, DATATYPE type) {
+        if (value == null || type == null) {
+            return value;
+        }
+        switch (type) {
+            case INTEGER:
+                if (value instanceof Number) {
+                    return ((Number) value).intValue();
+                }
+                return Integer.valueOf(value.toString().trim());
+            case FLOAT:
+            case DOUBLE:
+                if (value instanceof Number) {
+                    return ((Number) value).doubleValue();
+                }
+                return Double.valueOf(value.toString().trim());
+            case BOOLEAN:
+                if (value instanceof Boolean) {
+                    return value;
+                }
+                return Boolean.valueOf(value.toString().trim());
+            case STRING:
+                return value.toString();
+            default:
+                throw new UnsupportedOperationException("Unsupported data type " + type);
+        }
+    }
+
+    /**
+     * Numbers are compared by their double value, everything else by its natural order
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(Object actual, Object expected) {
+        if (actual instanceof Number && expected instanceof Number) {
+            return Double.compare(((Number) actual).doubleValue(), ((Number) expected).doubleValue());
+        }
+        if (actual instanceof Comparable && actual.getClass() == expected.getClass()) {
+            return ((Comparable<Object>) actual).compareTo(expected);
+        }
+        return actual.toString().compareTo(expected.toString());
+    }
+
+    /**
+     * Normalizes numbers to doubles, so that they can be used as hash keys regardless of their boxed type
+     */
+    static Object normalize(Object value) {
+        return value instanceof Number ? (Object) ((Number) value).doubleValue() : value;
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1.0 : 0.0;
+        }
+        return Double.parseDouble(value.toString().trim());
+    }
+}
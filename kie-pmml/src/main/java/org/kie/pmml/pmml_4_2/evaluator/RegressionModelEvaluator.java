@@ -0,0 +1,254 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.pmml_4_2.descr.CategoricalPredictor;
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.FieldRef;
+import org.dmg.pmml.pmml_4_2.descr.LocalTransformations;
+import org.dmg.pmml.pmml_4_2.descr.MININGFUNCTION;
+import org.dmg.pmml.pmml_4_2.descr.MiningSchema;
+import org.dmg.pmml.pmml_4_2.descr.NumericPredictor;
+import org.dmg.pmml.pmml_4_2.descr.Output;
+import org.dmg.pmml.pmml_4_2.descr.PredictorTerm;
+import org.dmg.pmml.pmml_4_2.descr.REGRESSIONNORMALIZATIONMETHOD;
+import org.dmg.pmml.pmml_4_2.descr.RegressionModel;
+import org.dmg.pmml.pmml_4_2.descr.RegressionTable;
+import org.dmg.pmml.pmml_4_2.descr.Targets;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+
+/**
+ * Compiled evaluator of a PMML RegressionModel: each regression table becomes a set of coefficient arrays,
+ * normalized the same way as the rule based execution does (see PMML4Helper.mapRegModel*Normalization).
+ * Ordinal targets are not supported.
+ */
+public class RegressionModelEvaluator extends AbstractPMML4Evaluator {
+
+    private static final class CompiledTable {
+
+        final Object category;
+        final double intercept;
+        final String[] numericFields;
+        final int[] exponents;
+        final double[] numericCoefficients;
+        final String[] categoricalFields;
+        final Object[] categoricalValues;
+        final double[] categoricalCoefficients;
+        final String[][] termFields;
+        final double[] termCoefficients;
+
+        CompiledTable(RegressionTable table, Map<String, DATATYPE> fieldTypes, DATATYPE targetType) {
+            this.category = PMML4Values.normalize(PMML4Values.convert(table.getTargetCategory(), targetType));
+            this.intercept = table.getIntercept();
+
+            List<NumericPredictor> numerics = table.getNumericPredictors();
+            numericFields = new String[numerics.size()];
+            exponents = new int[numerics.size()];
+            numericCoefficients = new double[numerics.size()];
+            for (int i = 0; i < numerics.size(); i++) {
+                NumericPredictor predictor = numerics.get(i);
+                CompiledPredicate.fieldType(predictor.getName(), fieldTypes);
+                numericFields[i] = predictor.getName();
+                exponents[i] = predictor.getExponent() != null ? predictor.getExponent().intValue() : 1;
+                numericCoefficients[i] = predictor.getCoefficient();
+            }
+
+            List<CategoricalPredictor> categoricals = table.getCategoricalPredictors();
+            categoricalFields = new String[categoricals.size()];
+            categoricalValues = new Object[categoricals.size()];
+            categoricalCoefficients = new double[categoricals.size()];
+            for (int i = 0; i < categoricals.size(); i++) {
+                CategoricalPredictor predictor = categoricals.get(i);
+                categoricalFields[i] = predictor.getName();
+                categoricalValues[i] = PMML4Values.normalize(PMML4Values.convert(predictor.getValue(),
+                                                                                  CompiledPredicate.fieldType(predictor.getName(), fieldTypes)));
+                categoricalCoefficients[i] = predictor.getCoefficient();
+            }
+
+            List<PredictorTerm> terms = table.getPredictorTerms();
+            termFields = new String[terms.size()][];
+            termCoefficients = new double[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                List<FieldRef> refs = terms.get(i).getFieldReves();
+                termFields[i] = new String[refs.size()];
+                for (int j = 0; j < refs.size(); j++) {
+                    termFields[i][j] = refs.get(j).getField();
+                    CompiledPredicate.fieldType(termFields[i][j], fieldTypes);
+                }
+                termCoefficients[i] = terms.get(i).getCoefficient();
+            }
+        }
+
+        /**
+         * @return the linear combination of the predictors, or NaN when a numeric input is missing
+         */
+        double apply(Map<String, Object> input) {
+            double y = intercept;
+            for (int i = 0; i < numericFields.length; i++) {
+                Object value = input.get(numericFields[i]);
+                if (value == null) {
+                    return Double.NaN;
+                }
+                y += numericCoefficients[i] * Math.pow(PMML4Values.toDouble(value), exponents[i]);
+            }
+            for (int i = 0; i < categoricalFields.length; i++) {
+                Object value = input.get(categoricalFields[i]);
+                if (value != null && categoricalValues[i].equals(PMML4Values.normalize(value))) {
+                    y += categoricalCoefficients[i];
+                }
+            }
+            for (int i = 0; i < termFields.length; i++) {
+                double product = termCoefficients[i];
+                for (String field : termFields[i]) {
+                    Object value = input.get(field);
+                    if (value == null) {
+                        return Double.NaN;
+                    }
+                    product *= PMML4Values.toDouble(value);
+                }
+                y += product;
+            }
+            return y;
+        }
+    }
+
+    private final boolean classification;
+    private final REGRESSIONNORMALIZATIONMETHOD normalization;
+    private final CompiledTable[] tables;
+
+    public RegressionModelEvaluator(RegressionModel model, Map<String, DATATYPE> fieldTypes) {
+        super(model.getModelName(),
+              fieldTypes,
+              PMML4EvaluatorFactory.find(model.getExtensionsAndRegressionTablesAndMiningSchemas(), MiningSchema.class),
+              PMML4EvaluatorFactory.find(model.getExtensionsAndRegressionTablesAndMiningSchemas(), Output.class));
+        PMML4EvaluatorFactory.checkAbsent(model.getExtensionsAndRegressionTablesAndMiningSchemas(), LocalTransformations.class, Targets.class);
+        this.classification = model.getFunctionName() == MININGFUNCTION.CLASSIFICATION;
+        this.normalization = model.getNormalizationMethod() != null ? model.getNormalizationMethod() : REGRESSIONNORMALIZATIONMETHOD.NONE;
+        if (!classification) {
+            if (model.getFunctionName() != MININGFUNCTION.REGRESSION) {
+                throw new UnsupportedOperationException("Unsupported mining function " + model.getFunctionName());
+            }
+            switch (normalization) {
+                case NONE:
+                case EXP:
+                case SOFTMAX:
+                case LOGIT:
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Regression models can't support " + normalization);
+            }
+        }
+
+        List<CompiledTable> compiled = new ArrayList<>();
+        for (Object o : model.getExtensionsAndRegressionTablesAndMiningSchemas()) {
+            if (o instanceof RegressionTable) {
+                compiled.add(new CompiledTable((RegressionTable) o, fieldTypes, getTargetType()));
+            }
+        }
+        if (compiled.isEmpty() || (!classification && compiled.size() > 1)) {
+            throw new UnsupportedOperationException("Unexpected number of regression tables " + compiled.size());
+        }
+        this.tables = compiled.toArray(new CompiledTable[compiled.size()]);
+    }
+
+    @Override
+    protected Prediction predict(PMMLRequestData request, Map<String, Object> input, PMML4Result result) {
+        if (!classification) {
+            double y = tables[0].apply(input);
+            return Double.isNaN(y) ? new Prediction(null, 0.0) : new Prediction(normalizeRegression(y), 1.0);
+        }
+
+        double[] scores = new double[tables.length];
+        double sum = 0.0;
+        for (int i = 0; i < tables.length; i++) {
+            double y = tables[i].apply(input);
+            if (Double.isNaN(y)) {
+                return new Prediction(null, 0.0);
+            }
+            scores[i] = normalizeClassification(y);
+            sum += scores[i];
+        }
+        Map<Object, Double> probabilities = new HashMap<>(tables.length * 2);
+        int best = 0;
+        for (int i = 0; i < tables.length; i++) {
+            probabilities.put(tables[i].category, scores[i] / sum);
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        Object predicted = PMML4Values.convert(tables[best].category, getTargetType());
+        return new Prediction(predicted, scores[best] / sum, probabilities, Collections.emptyList());
+    }
+
+    private double normalizeRegression(double y) {
+        switch (normalization) {
+            case EXP:
+                return Math.exp(y);
+            case SOFTMAX:
+            case LOGIT:
+                return 1.0 / (1.0 + Math.exp(-y));
+            default:
+                return y;
+        }
+    }
+
+    private double normalizeClassification(double y) {
+        switch (normalization) {
+            case EXP:
+            case SOFTMAX:
+                return Math.exp(y);
+            case LOGIT:
+                return 1.0 / (1.0 + Math.exp(-y));
+            case PROBIT:
+                return probitPhi(y);
+            case CLOGLOG:
+                return 1.0 - Math.exp(-Math.exp(y));
+            case LOGLOG:
+                return Math.exp(-Math.exp(-y));
+            case CAUCHIT:
+                return 0.5 + Math.atan(y) / Math.PI;
+            default:
+                return y;
+        }
+    }
+
+    /**
+     * Same series expansion of the standard normal cumulative distribution used by the regression rule templates
+     */
+    static double probitPhi(double z) {
+        if (z < -8.0) {
+            return 0.0;
+        }
+        if (z > 8.0) {
+            return 1.0;
+        }
+        double sum = 0.0;
+        double term = z;
+        for (int i = 3; sum + term != sum; i += 2) {
+            sum = sum + term;
+            term = term * z * z / i;
+        }
+        return 0.5 + sum * Math.exp(-z * z / 2.0) / Math.sqrt(2 * Math.PI);
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.dmg.pmml.pmml_4_2.descr.Attribute;
+import org.dmg.pmml.pmml_4_2.descr.Characteristic;
+import org.dmg.pmml.pmml_4_2.descr.Characteristics;
+import org.dmg.pmml.pmml_4_2.descr.CompoundPredicate;
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.Extension;
+import org.dmg.pmml.pmml_4_2.descr.False;
+import org.dmg.pmml.pmml_4_2.descr.LocalTransformations;
+import org.dmg.pmml.pmml_4_2.descr.MiningSchema;
+import org.dmg.pmml.pmml_4_2.descr.Output;
+import org.dmg.pmml.pmml_4_2.descr.Scorecard;
+import org.dmg.pmml.pmml_4_2.descr.SimplePredicate;
+import org.dmg.pmml.pmml_4_2.descr.SimpleSetPredicate;
+import org.dmg.pmml.pmml_4_2.descr.Targets;
+import org.dmg.pmml.pmml_4_2.descr.True;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.pmml.pmml_4_2.PMML4Helper;
+import org.kie.pmml.pmml_4_2.extensions.AggregationStrategy;
+import org.kie.pmml.pmml_4_2.model.ScoreCard;
+
+/**
+ * Compiled evaluator of a PMML Scorecard. The attributes of a characteristic testing a single field are
+ * turned into a lookup, resolving the first matching attribute without evaluating the predicates: numeric
+ * fields are binned on the constants of the predicates and searched with a binary search, categorical
+ * fields are hashed on their values. Characteristics over several fields, as well as missing inputs,
+ * go through the attribute predicates in document order.
+ * Reason code points are accumulated in an array indexed by reason code and ranked in place.
+ * Complex partial scores and scoring strategies other than the plain sum are not supported.
+ */
+public class ScorecardEvaluator extends AbstractPMML4Evaluator {
+
+    private static final String SCORING_STRATEGY = "scoringStrategy";
+
+    private static final int NO_MATCH = -1;
+
+    private static final class CompiledAttribute {
+
+        final CompiledPredicate predicate;
+        final double partialScore;
+        final int reasonCode;
+        final double reasonPoints;
+
+        CompiledAttribute(CompiledPredicate predicate, double partialScore, int reasonCode, double reasonPoints) {
+            this.predicate = predicate;
+            this.partialScore = partialScore;
+            this.reasonCode = reasonCode;
+            this.reasonPoints = reasonPoints;
+        }
+    }
+
+    /**
+     * Resolves the index of the first attribute matching a (non missing) value of the characteristic field
+     */
+    @FunctionalInterface
+    private interface AttributeLookup {
+
+        int find(Object value);
+    }
+
+    private static final class CompiledCharacteristic {
+
+        final CompiledAttribute[] attributes;
+        final String field;
+        final AttributeLookup lookup;
+
+        CompiledCharacteristic(CompiledAttribute[] attributes, String field, AttributeLookup lookup) {
+            this.attributes = attributes;
+            this.field = field;
+            this.lookup = lookup;
+        }
+
+        CompiledAttribute match(Map<String, Object> input) {
+            int index;
+            Object value = lookup != null ? input.get(field) : null;
+            if (value != null) {
+                index = lookup.find(value);
+            } else {
+                index = scan(attributes, input);
+            }
+            return index != NO_MATCH ? attributes[index] : null;
+        }
+    }
+
+    private final double initialScore;
+    private final boolean useReasonCodes;
+    private final boolean pointsBelow;
+    private final CompiledCharacteristic[] characteristics;
+    private final String[] reasonCodes;
+
+    public ScorecardEvaluator(Scorecard model, Map<String, DATATYPE> fieldTypes) {
+        super(model.getModelName(),
+              fieldTypes,
+              PMML4EvaluatorFactory.find(model.getExtensionsAndCharacteristicsAndMiningSchemas(), MiningSchema.class),
+              PMML4EvaluatorFactory.find(model.getExtensionsAndCharacteristicsAndMiningSchemas(), Output.class));
+        PMML4EvaluatorFactory.checkAbsent(model.getExtensionsAndCharacteristicsAndMiningSchemas(), LocalTransformations.class, Targets.class);
+        checkScoringStrategy(model);
+        this.initialScore = model.getInitialScore();
+        this.useReasonCodes = model.getUseReasonCodes();
+        this.pointsBelow = "pointsBelow".equals(model.getReasonCodeAlgorithm());
+        double modelBaseline = model.getBaselineScore() != null ? model.getBaselineScore() : 0.0;
+
+        Characteristics chars = PMML4EvaluatorFactory.find(model.getExtensionsAndCharacteristicsAndMiningSchemas(), Characteristics.class);
+        if (chars == null) {
+            throw new UnsupportedOperationException("Missing characteristics");
+        }
+        Map<String, Integer> reasonCodeIndex = new LinkedHashMap<>();
+        List<CompiledCharacteristic> compiled = new ArrayList<>();
+        for (Characteristic characteristic : chars.getCharacteristics()) {
+            double baseline = characteristic.getBaselineScore() != null ? characteristic.getBaselineScore() : modelBaseline;
+            List<CompiledAttribute> attributes = new ArrayList<>();
+            List<Object> predicates = new ArrayList<>();
+            for (Attribute attribute : characteristic.getAttributes()) {
+                if (attribute.getComplexPartialScore() != null) {
+                    throw new UnsupportedOperationException("Unsupported complex partial score in " + characteristic.getName());
+                }
+                String reasonCode = attribute.getReasonCode() != null ? attribute.getReasonCode() : characteristic.getReasonCode();
+                int reasonIndex = NO_MATCH;
+                if (useReasonCodes && reasonCode != null) {
+                    reasonIndex = reasonCodeIndex.computeIfAbsent(reasonCode, k -> reasonCodeIndex.size());
+                }
+                double partialScore = attribute.getPartialScore() != null ? attribute.getPartialScore() : 0.0;
+                Object predicate = attributePredicate(attribute);
+                predicates.add(predicate);
+                attributes.add(new CompiledAttribute(CompiledPredicate.compile(predicate, fieldTypes),
+                                                     partialScore,
+                                                     reasonIndex,
+                                                     pointsBelow ? baseline - partialScore : partialScore - baseline));
+            }
+            compiled.add(compileCharacteristic(attributes.toArray(new CompiledAttribute[attributes.size()]), predicates, fieldTypes));
+        }
+        this.characteristics = compiled.toArray(new CompiledCharacteristic[compiled.size()]);
+        this.reasonCodes = reasonCodeIndex.keySet().toArray(new String[reasonCodeIndex.size()]);
+    }
+
+    private static void checkScoringStrategy(Scorecard model) {
+        for (Object o : model.getExtensionsAndCharacteristicsAndMiningSchemas()) {
+            if (o instanceof Extension && SCORING_STRATEGY.equals(((Extension) o).getName())
+                    && PMML4Helper.resolveAggregationStrategy(((Extension) o).getValue()) != AggregationStrategy.AGGREGATE_SCORE) {
+                throw new UnsupportedOperationException("Unsupported scoring strategy " + ((Extension) o).getValue());
+            }
+        }
+    }
+
+    private static Object attributePredicate(Attribute attribute) {
+        Object predicate = attribute.getSimplePredicate();
+        if (predicate == null) {
+            predicate = attribute.getCompoundPredicate();
+        }
+        if (predicate == null) {
+            predicate = attribute.getSimpleSetPredicate();
+        }
+        if (predicate == null) {
+            predicate = attribute.getTrue();
+        }
+        if (predicate == null) {
+            predicate = attribute.getFalse();
+        }
+        return predicate;
+    }
+
+    private static int scan(CompiledAttribute[] attributes, Map<String, Object> input) {
+        for (int i = 0; i < attributes.length; i++) {
+            if (Boolean.TRUE.equals(attributes[i].predicate.evaluate(input))) {
+                return i;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * Builds the lookup of a characteristic whose predicates test a single field against constants.
+     * Within a bin (a constant, or the open interval between two consecutive constants) or for a given category
+     * every predicate has the same outcome, so the first matching attribute is found once, with a representative value.
+     */
+    private static CompiledCharacteristic compileCharacteristic(CompiledAttribute[] attributes, List<Object> predicates, Map<String, DATATYPE> fieldTypes) {
+        Set<String> fields = new HashSet<>();
+        List<String> constants = new ArrayList<>();
+        boolean[] ordered = new boolean[1];
+        for (Object predicate : predicates) {
+            if (!collectConstants(predicate, fields, constants, ordered)) {
+                return new CompiledCharacteristic(attributes, null, null);
+            }
+        }
+        if (fields.size() != 1) {
+            return new CompiledCharacteristic(attributes, null, null);
+        }
+        String field = fields.iterator().next();
+        DATATYPE type = fieldTypes.get(field);
+        if (type == DATATYPE.INTEGER || type == DATATYPE.FLOAT || type == DATATYPE.DOUBLE) {
+            return new CompiledCharacteristic(attributes, field, intervalLookup(attributes, field, type, constants));
+        } else if ((type == DATATYPE.STRING || type == DATATYPE.BOOLEAN) && !ordered[0]) {
+            return new CompiledCharacteristic(attributes, field, categoricalLookup(attributes, field, type, constants));
+        }
+        return new CompiledCharacteristic(attributes, null, null);
+    }
+
+    private static boolean collectConstants(Object predicate, Set<String> fields, List<String> constants, boolean[] ordered) {
+        if (predicate instanceof True || predicate instanceof False) {
+            return true;
+        } else if (predicate instanceof SimplePredicate) {
+            SimplePredicate simple = (SimplePredicate) predicate;
+            fields.add(simple.getField());
+            String operator = simple.getOperator();
+            if (!"isMissing".equals(operator) && !"isNotMissing".equals(operator)) {
+                constants.add(simple.getValue());
+                ordered[0] |= !"equal".equals(operator) && !"notEqual".equals(operator);
+            }
+            return true;
+        } else if (predicate instanceof SimpleSetPredicate) {
+            SimpleSetPredicate set = (SimpleSetPredicate) predicate;
+            fields.add(set.getField());
+            constants.addAll(CompiledPredicate.parseArray(set.getArray()));
+            return true;
+        } else if (predicate instanceof CompoundPredicate) {
+            for (Object o : ((CompoundPredicate) predicate).getSimplePredicatesAndCompoundPredicatesAndSimpleSetPredicates()) {
+                if (!collectConstants(o, fields, constants, ordered)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static AttributeLookup intervalLookup(CompiledAttribute[] attributes, String field, DATATYPE type, List<String> constants) {
+        Set<Double> sorted = new TreeSet<>();
+        for (String constant : constants) {
+            sorted.add(PMML4Values.toDouble(PMML4Values.convert(constant, type)));
+        }
+        double[] bounds = new double[sorted.size()];
+        int n = 0;
+        for (Double bound : sorted) {
+            bounds[n++] = bound;
+        }
+        // bin 2i + 1 holds the constant i, bin 2i the values between the constants i - 1 and i
+        int[] bins = new int[2 * n + 1];
+        for (int i = 0; i < bins.length; i++) {
+            double representative;
+            if (n == 0) {
+                representative = 0.0;
+            } else if (i % 2 == 1) {
+                representative = bounds[i / 2];
+            } else if (i == 0) {
+                representative = Math.nextDown(bounds[0]);
+            } else if (i == 2 * n) {
+                representative = Math.nextUp(bounds[n - 1]);
+            } else {
+                representative = bounds[i / 2 - 1] / 2 + bounds[i / 2] / 2;
+            }
+            bins[i] = scan(attributes, Collections.singletonMap(field, representative));
+        }
+        return value -> {
+            int pos = Arrays.binarySearch(bounds, PMML4Values.toDouble(value));
+            return bins[pos >= 0 ? 2 * pos + 1 : -2 * (pos + 1)];
+        };
+    }
+
+    private static AttributeLookup categoricalLookup(CompiledAttribute[] attributes, String field, DATATYPE type, List<String> constants) {
+        Set<Object> categories = new LinkedHashSet<>();
+        for (String constant : constants) {
+            categories.add(PMML4Values.normalize(PMML4Values.convert(constant, type)));
+        }
+        Object other;
+        if (type == DATATYPE.BOOLEAN) {
+            categories.add(Boolean.TRUE);
+            categories.add(Boolean.FALSE);
+            other = null;
+        } else {
+            StringBuilder sb = new StringBuilder("\u0000");
+            while (categories.contains(sb.toString())) {
+                sb.append('\u0000');
+            }
+            other = sb.toString();
+        }
+        Map<Object, Integer> index = new HashMap<>(categories.size() * 2);
+        for (Object category : categories) {
+            index.put(category, scan(attributes, Collections.singletonMap(field, category)));
+        }
+        int otherwise = other != null ? scan(attributes, Collections.singletonMap(field, other)) : NO_MATCH;
+        return value -> index.getOrDefault(PMML4Values.normalize(value), otherwise);
+    }
+
+    @Override
+    protected Prediction predict(PMMLRequestData request, Map<String, Object> input, PMML4Result result) {
+        double score = initialScore;
+        double[] points = useReasonCodes ? new double[reasonCodes.length] : null;
+        int[] ranking = useReasonCodes ? new int[reasonCodes.length] : null;
+        boolean[] seen = useReasonCodes ? new boolean[reasonCodes.length] : null;
+        int ranked = 0;
+        for (CompiledCharacteristic characteristic : characteristics) {
+            CompiledAttribute attribute = characteristic.match(input);
+            if (attribute != null) {
+                score += attribute.partialScore;
+                if (attribute.reasonCode != NO_MATCH) {
+                    points[attribute.reasonCode] += attribute.reasonPoints;
+                    if (!seen[attribute.reasonCode]) {
+                        seen[attribute.reasonCode] = true;
+                        ranking[ranked++] = attribute.reasonCode;
+                    }
+                }
+            }
+        }
+
+        // stable insertion sort by decreasing points: there are only a handful of reason codes
+        for (int i = 1; i < ranked; i++) {
+            int code = ranking[i];
+            int j = i - 1;
+            while (j >= 0 && points[ranking[j]] < points[code]) {
+                ranking[j + 1] = ranking[j];
+                j--;
+            }
+            ranking[j + 1] = code;
+        }
+        LinkedHashMap<String, Double> ranks = new LinkedHashMap<>();
+        List<String> codes = new ArrayList<>(ranked);
+        for (int i = 0; i < ranked; i++) {
+            ranks.put(reasonCodes[ranking[i]], points[ranking[i]]);
+            codes.add(reasonCodes[ranking[i]]);
+        }
+        result.addResultVariable("ScoreCard", new ScoreCard(getModelName(), score, null, useReasonCodes, pointsBelow, ranks));
+        return new Prediction(score, 1.0, Collections.emptyMap(), codes);
+    }
+}
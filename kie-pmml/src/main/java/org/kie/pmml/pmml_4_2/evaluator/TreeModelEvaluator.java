@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.LocalTransformations;
+import org.dmg.pmml.pmml_4_2.descr.MISSINGVALUESTRATEGY;
+import org.dmg.pmml.pmml_4_2.descr.MiningSchema;
+import org.dmg.pmml.pmml_4_2.descr.NOTRUECHILDSTRATEGY;
+import org.dmg.pmml.pmml_4_2.descr.Node;
+import org.dmg.pmml.pmml_4_2.descr.Output;
+import org.dmg.pmml.pmml_4_2.descr.ScoreDistribution;
+import org.dmg.pmml.pmml_4_2.descr.Targets;
+import org.dmg.pmml.pmml_4_2.descr.TreeModel;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+
+/**
+ * Compiled evaluator of a PMML TreeModel: the node hierarchy is turned into an array based tree of compiled
+ * predicates. As with the rule based execution, the tree is searched depth first for a leaf whose path is true:
+ * with the return last prediction strategy the search stops at the first true child, returning the node itself
+ * if none of its children is true, while with the return null prediction strategy it backtracks to the next sibling.
+ * Only the "none" missing value strategy is supported, unknown predicates being treated as false.
+ */
+public class TreeModelEvaluator extends AbstractPMML4Evaluator {
+
+    private static final class CompiledNode {
+
+        final CompiledPredicate predicate;
+        final Object score;
+        final double weight;
+        final Map<Object, Double> probabilities;
+        final CompiledNode[] children;
+
+        CompiledNode(CompiledPredicate predicate, Object score, double weight, Map<Object, Double> probabilities, CompiledNode[] children) {
+            this.predicate = predicate;
+            this.score = score;
+            this.weight = weight;
+            this.probabilities = probabilities;
+            this.children = children;
+        }
+    }
+
+    private final CompiledNode root;
+    private final boolean returnLastPrediction;
+
+    public TreeModelEvaluator(TreeModel model, Map<String, DATATYPE> fieldTypes) {
+        super(model.getModelName(),
+              fieldTypes,
+              PMML4EvaluatorFactory.find(model.getExtensionsAndNodesAndMiningSchemas(), MiningSchema.class),
+              PMML4EvaluatorFactory.find(model.getExtensionsAndNodesAndMiningSchemas(), Output.class));
+        PMML4EvaluatorFactory.checkAbsent(model.getExtensionsAndNodesAndMiningSchemas(), LocalTransformations.class, Targets.class);
+        if (model.getMissingValueStrategy() != MISSINGVALUESTRATEGY.NONE) {
+            throw new UnsupportedOperationException("Unsupported missing value strategy " + model.getMissingValueStrategy());
+        }
+        this.returnLastPrediction = model.getNoTrueChildStrategy() == NOTRUECHILDSTRATEGY.RETURN_LAST_PREDICTION;
+        this.root = compileNode(PMML4EvaluatorFactory.find(model.getExtensionsAndNodesAndMiningSchemas(), Node.class));
+    }
+
+    private CompiledNode compileNode(Node node) {
+        if (node == null) {
+            throw new UnsupportedOperationException("Missing root node");
+        }
+        CompiledPredicate predicate = CompiledPredicate.compile(node.getExtensionsAndSimplePredicatesAndCompoundPredicates(), getFieldTypes());
+        Object score = PMML4Values.convert(node.getScore(), getTargetType());
+
+        double weight = 1.0;
+        Map<Object, Double> probabilities = Collections.emptyMap();
+        if (!node.getScoreDistributions().isEmpty()) {
+            probabilities = new HashMap<>();
+            double total = 0.0;
+            for (ScoreDistribution distribution : node.getScoreDistributions()) {
+                total += distribution.getRecordCount();
+            }
+            for (ScoreDistribution distribution : node.getScoreDistributions()) {
+                Object category = PMML4Values.normalize(PMML4Values.convert(distribution.getValue(), getTargetType()));
+                double probability = distribution.getProbability() != null
+                        ? distribution.getProbability().doubleValue()
+                        : (total > 0 ? distribution.getRecordCount() / total : 0.0);
+                probabilities.put(category, probability);
+                if (distribution.getConfidence() != null && score != null && PMML4Values.normalize(score).equals(category)) {
+                    weight = distribution.getConfidence().doubleValue();
+                }
+            }
+        }
+
+        List<CompiledNode> children = new ArrayList<>();
+        for (Node child : node.getNodes()) {
+            children.add(compileNode(child));
+        }
+        return new CompiledNode(predicate, score, weight, probabilities, children.toArray(new CompiledNode[children.size()]));
+    }
+
+    @Override
+    protected Prediction predict(PMMLRequestData request, Map<String, Object> input, PMML4Result result) {
+        CompiledNode node = Boolean.TRUE.equals(root.predicate.evaluate(input)) ? search(root, input) : null;
+        return node != null ? new Prediction(node.score, node.weight, node.probabilities, Collections.emptyList()) : new Prediction(null, 0.0);
+    }
+
+    /**
+     * @param node a node whose predicate is true
+     */
+    private CompiledNode search(CompiledNode node, Map<String, Object> input) {
+        if (node.children.length == 0) {
+            return node;
+        }
+        for (CompiledNode child : node.children) {
+            if (Boolean.TRUE.equals(child.predicate.evaluate(input))) {
+                CompiledNode found = search(child, input);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return returnLastPrediction ? node : null;
+    }
+}
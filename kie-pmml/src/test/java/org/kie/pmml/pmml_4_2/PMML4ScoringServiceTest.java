@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.RuleUnitExecutor;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.utils.KieHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PMML4ScoringServiceTest {
+
+    private static final String source = "org/kie/pmml/pmml_4_2/test_scorecard.pmml";
+    private static final String modelName = "Sample Score";
+
+    private static PMMLRequestData newRequest(String correlationId, double age, String occupation, String residenceState) {
+        return new PMMLRequestDataBuilder(correlationId, modelName)
+                .addParameter("age", age, Double.class)
+                .addParameter("occupation", occupation, String.class)
+                .addParameter("residenceState", residenceState, String.class)
+                .addParameter("validLicense", true, Boolean.class)
+                .build();
+    }
+
+    @Test
+    public void testConcurrentBatch() {
+        KieBase kbase = new KieHelper().addResource(ResourceFactory.newClassPathResource(source), ResourceType.PMML).build();
+        try (PMML4ScoringService service = new PMML4ScoringService(kbase, 4, false, "org.drools.scorecards.example")) {
+            assertNull(service.getMetrics(modelName));
+
+            List<PMMLRequestData> requests = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                requests.add(i % 2 == 0
+                                     ? newRequest("req" + i, 33.0, "SKYDIVER", "KN")
+                                     : newRequest("req" + i, 50.0, "TEACHER", "AP"));
+            }
+            List<PMML4Result> results = service.submitRequests(requests);
+
+            assertEquals(requests.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                PMML4Result result = results.get(i);
+                assertEquals("req" + i, result.getCorrelationId());
+                Double score = result.getResultValue("ScoreCard", "score", Double.class).orElse(null);
+                assertNotNull(score);
+                assertEquals(i % 2 == 0 ? 41.345 : 26.345, score, 1e-6);
+            }
+
+            PMML4ScoringMetrics metrics = service.getMetrics(modelName);
+            assertNotNull(metrics);
+            assertEquals(20, metrics.getRequestCount());
+            assertEquals(0, metrics.getFailureCount());
+            assertTrue(metrics.getMaxLatency(TimeUnit.NANOSECONDS) > 0);
+            assertTrue(metrics.getAverageLatency(TimeUnit.NANOSECONDS) <= metrics.getMaxLatency(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Test
+    public void testHelpersBoundedByPoolSize() throws Exception {
+        KieBase kbase = new KieHelper().addResource(ResourceFactory.newClassPathResource(source), ResourceType.PMML).build();
+        AtomicInteger createdHelpers = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try (PMML4ScoringService service = new PMML4ScoringService(kbase, 2, false, "org.drools.scorecards.example") {
+            @Override
+            protected PMML4ExecutionHelper newHelper(String modelName) {
+                createdHelpers.incrementAndGet();
+                return super.newHelper(modelName);
+            }
+        }) {
+            List<Future<PMML4Result>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                PMMLRequestData request = newRequest("req" + i, 33.0, "SKYDIVER", "KN");
+                results.add(clients.submit(() -> service.submitRequest(request)));
+            }
+            for (Future<PMML4Result> result : results) {
+                assertEquals("OK", result.get().getResultCode());
+            }
+            assertTrue(createdHelpers.get() <= 2);
+            assertEquals(40, service.getMetrics(modelName).getRequestCount());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingleRequest() {
+        KieBase kbase = new KieHelper().addResource(ResourceFactory.newClassPathResource(source), ResourceType.PMML).build();
+        try (PMML4ScoringService service = new PMML4ScoringService(kbase, "org.drools.scorecards.example")) {
+            for (int i = 0; i < 3; i++) {
+                PMML4Result result = service.submitRequest(newRequest("req" + i, 33.0, "SKYDIVER", "KN"));
+                assertEquals("OK", result.getResultCode());
+                assertEquals(41.345, result.getResultValue("ScoreCard", "score", Double.class).orElse(null), 1e-6);
+            }
+            assertEquals(3, service.getMetrics(modelName).getRequestCount());
+        }
+    }
+
+    @Test
+    public void testHelperReusesItsExecutor() {
+        KieBase kbase = new KieHelper().addResource(ResourceFactory.newClassPathResource(source), ResourceType.PMML).build();
+        PMML4ExecutionHelper helper = PMML4ExecutionHelper.PMML4ExecutionHelperFactory.getExecutionHelper(modelName, kbase);
+        RuleUnitExecutor executor = helper.getExecutor();
+        helper.setPossiblePackageNames(new ArrayList<>(Collections.singletonList("org.drools.scorecards.example")));
+        assertSame(executor, helper.getExecutor());
+        KieSession session = executor.getKieSession();
+
+        for (int i = 0; i < 6; i++) {
+            PMML4Result result = helper.submitRequest(i % 2 == 0
+                                                              ? newRequest("req" + i, 33.0, "SKYDIVER", "KN")
+                                                              : newRequest("req" + i, 50.0, "TEACHER", "AP"));
+            assertEquals("OK", result.getResultCode());
+            assertEquals(i % 2 == 0 ? 41.345 : 26.345, result.getResultValue("ScoreCard", "score", Double.class).orElse(null), 1e-6);
+            assertSame(executor, helper.getExecutor());
+            assertSame(session, executor.getKieSession());
+        }
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testRequestWithoutModelName() {
+        KieBase kbase = new KieHelper().addResource(ResourceFactory.newClassPathResource(source), ResourceType.PMML).build();
+        try (PMML4ScoringService service = new PMML4ScoringService(kbase, "org.drools.scorecards.example")) {
+            service.submitRequest(new PMMLRequestDataBuilder("req", null).build());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kie.pmml.pmml_4_2.evaluator;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dmg.pmml.pmml_4_2.descr.DATATYPE;
+import org.dmg.pmml.pmml_4_2.descr.DataField;
+import org.dmg.pmml.pmml_4_2.descr.MiningModel;
+import org.dmg.pmml.pmml_4_2.descr.PMML;
+import org.junit.Test;
+import org.kie.api.pmml.PMML4Result;
+import org.kie.api.pmml.PMMLRequestData;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.pmml.pmml_4_2.PMML4Compiler;
+import org.kie.pmml.pmml_4_2.PMMLRequestDataBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PMML4EvaluatorTest {
+
+    private static final String FOLDER = "org/kie/pmml/pmml_4_2/";
+
+    private static PMML4Evaluator getEvaluator(String modelName, String source) {
+        PMML4Evaluator evaluator = PMML4EvaluatorFactory.getEvaluator(modelName, ResourceFactory.newClassPathResource(FOLDER + source));
+        assertNotNull(evaluator);
+        assertEquals(modelName, evaluator.getModelName());
+        return evaluator;
+    }
+
+    @Test
+    public void testRegression() {
+        PMML4Evaluator evaluator = getEvaluator("LinReg", "test_regression.pmml");
+        PMMLRequestData request = new PMMLRequestData("123", "LinReg");
+        request.addRequestParam("fld1", 0.9);
+        request.addRequestParam("fld2", 0.3);
+        request.addRequestParam("fld3", "x");
+
+        PMML4Result result = evaluator.evaluate(request);
+        assertEquals("OK", result.getResultCode());
+        assertEquals("123", result.getCorrelationId());
+        Double value = result.getResultValue("Fld4", "value", Double.class).orElse(null);
+        assertNotNull(value);
+
+        double chkVal = 0.5 + 5 * 0.9 * 0.9 + 2 * 0.3 - 3.0 + 0.4 * 0.9 * 0.3;
+        chkVal = 1.0 / (1.0 + Math.exp(-chkVal));
+        assertEquals(chkVal, value, 1e-6);
+    }
+
+    @Test
+    public void testClassification() {
+        PMML4Evaluator evaluator = getEvaluator("LinReg", "test_regression_clax.pmml");
+        PMMLRequestData request = new PMMLRequestData("123", "LinReg");
+        request.addRequestParam("fld1", 1.0);
+        request.addRequestParam("fld2", 1.0);
+        request.addRequestParam("fld3", "x");
+
+        PMML4Result result = evaluator.evaluate(request);
+        assertEquals("catC", result.getResultValue("RegOut", "value", String.class).orElse(null));
+        assertEquals(0.709228, result.getResultValue("RegProb", "value", Double.class).orElse(null), 1e-6);
+        assertEquals(0.010635, result.getResultValue("RegProbA", "value", Double.class).orElse(null), 1e-6);
+    }
+
+    @Test
+    public void testSimpleTree() {
+        PMML4Evaluator evaluator = getEvaluator("TreeTest", "test_tree_simple.pmml");
+        PMMLRequestData request = new PMMLRequestData("123", "TreeTest");
+        request.addRequestParam("fld1", 30.0);
+        request.addRequestParam("fld2", 60.0);
+        request.addRequestParam("fld3", "false");
+        request.addRequestParam("fld4", "optA");
+        assertEquals("tgtY", evaluator.evaluate(request).getResultValue("Fld5", "value", String.class).orElse(null));
+
+        request = new PMMLRequestData("124", "TreeTest");
+        request.addRequestParam("fld1", 5.0);
+        request.addRequestParam("fld2", 20.0);
+        request.addRequestParam("fld3", "false");
+        request.addRequestParam("fld4", "optC");
+        assertEquals("tgtZ", evaluator.evaluate(request).getResultValue("Fld5", "value", String.class).orElse(null));
+    }
+
+    @Test
+    public void testTreeNoTrueChildStrategies() {
+        PMML4Evaluator returnNull = getEvaluator("TreeTest", "test_tree_return_null_notruechild_strategy.pmml");
+        PMML4Evaluator returnLast = getEvaluator("TreeTest", "test_tree_return_last_notruechild_strategy.pmml");
+
+        PMMLRequestData request = new PMMLRequestData("123", "TreeTest");
+        request.addRequestParam("fld1", 30.0);
+        assertEquals("tgtY", returnNull.evaluate(request).getResultValue("Fld2", "value", String.class).orElse(null));
+        assertEquals("tgtY", returnLast.evaluate(request).getResultValue("Fld2", "value", String.class).orElse(null));
+
+        request = new PMMLRequestData("124", "TreeTest");
+        request.addRequestParam("fld1", 50.0);
+        assertNull(returnNull.evaluate(request).getResultValue("Fld2", "value", String.class).orElse(null));
+        assertEquals("tgtX", returnLast.evaluate(request).getResultValue("Fld2", "value", String.class).orElse(null));
+    }
+
+    @Test
+    public void testUnsupportedMissingValueStrategy() {
+        assertNull(PMML4EvaluatorFactory.getEvaluator("TreeTest",
+                                                      ResourceFactory.newClassPathResource(FOLDER + "test_tree_weightedconfidence_missing_value_strategy.pmml")));
+    }
+
+    @Test
+    public void testScorecard() {
+        PMML4Evaluator evaluator = getEvaluator("Sample Score", "test_scorecard.pmml");
+        PMMLRequestData request = new PMMLRequestDataBuilder("123", "Sample Score")
+                .addParameter("age", 33.0, Double.class)
+                .addParameter("occupation", "SKYDIVER", String.class)
+                .addParameter("residenceState", "KN", String.class)
+                .addParameter("validLicense", true, Boolean.class)
+                .build();
+        PMML4Result result = evaluator.evaluate(request);
+
+        assertEquals(3, result.getResultVariables().size());
+        assertEquals(41.345, result.getResultValue("ScoreCard", "score", Double.class).orElse(null), 1e-6);
+        assertEquals(41.345, result.getResultValue("CalculatedScore", "value", Double.class).orElse(null), 1e-6);
+        checkRanking(result, "LX00", -1.0, "RES", -10.0, "CX2", -30.0);
+
+        request = new PMMLRequestDataBuilder("124", "Sample Score")
+                .addParameter("age", 50.0, Double.class)
+                .addParameter("occupation", "TEACHER", String.class)
+                .addParameter("residenceState", "AP", String.class)
+                .addParameter("validLicense", true, Boolean.class)
+                .build();
+        result = evaluator.evaluate(request);
+        assertEquals(26.345, result.getResultValue("ScoreCard", "score", Double.class).orElse(null), 1e-6);
+        checkRanking(result, "RES", 10.0, "LX00", -1.0, "OCC", -10.0, "ABZ", -25.0);
+    }
+
+    @Test
+    public void testWeightedAverageMiningModel() {
+        PMML4Evaluator evaluator = getEvaluator("SampleMiningModelAvg", "test_mining_model_weighted_avg.pmml");
+        PMML4Result result = evaluator.evaluate(newIrisRequest("SampleMiningModelAvg"));
+
+        assertEquals(7.1833385, result.getResultValue("WeightedAvg_Sepal_length", "value", Double.class).orElse(null), 1e-6);
+        assertEquals(1.0, result.getResultValue("WeightedAvg_Sepal_length", "weight", Double.class).orElse(null), 1e-6);
+        assertEquals(7.1833385, result.getResultValue("Sepal_length", "value", Double.class).orElse(null), 1e-6);
+    }
+
+    @Test
+    public void testSumMiningModel() {
+        PMML4Evaluator evaluator = getEvaluator("SampleMiningModelSum", "test_mining_model_summed.pmml");
+        PMML4Result result = evaluator.evaluate(newIrisRequest("SampleMiningModelSum"));
+
+        // the three trees score 7.577778, 6.0 and 7.577788
+        assertEquals(7.577778 + 6.0 + 7.577788, result.getResultValue("Sum_Sepal_length", "value", Double.class).orElse(null), 1e-6);
+    }
+
+    @Test
+    public void testParallelSegmentsAreDeterministic() throws Exception {
+        PMML pmml;
+        try (InputStream is = ResourceFactory.newClassPathResource(FOLDER + "test_mining_model_weighted_avg.pmml").getInputStream()) {
+            pmml = new PMML4Compiler().loadModel(PMML4Compiler.PMML, is);
+        }
+        Map<String, DATATYPE> fieldTypes = new HashMap<>();
+        for (DataField field : pmml.getDataDictionary().getDataFields()) {
+            fieldTypes.put(field.getName(), field.getDataType());
+        }
+        MiningModel model = PMML4EvaluatorFactory.find(pmml.getAssociationModelsAndBaselineModelsAndClusteringModels(), MiningModel.class);
+
+        PMML4Evaluator sequential = new MiningModelEvaluator(model, fieldTypes, Integer.MAX_VALUE);
+        PMML4Evaluator parallel = new MiningModelEvaluator(model, fieldTypes, 1);
+        Double expected = sequential.evaluate(newIrisRequest("SampleMiningModelAvg")).getResultValue("Sepal_length", "value", Double.class).orElse(null);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected, parallel.evaluate(newIrisRequest("SampleMiningModelAvg")).getResultValue("Sepal_length", "value", Double.class).orElse(null));
+        }
+    }
+
+    @Test
+    public void testMajorityVoteMiningModel() {
+        PMML4Evaluator evaluator = getEvaluator("SampleMiningModelVote", "test_mining_model_majority_vote.pmml");
+
+        PMML4Result result = evaluator.evaluate(newVoteRequest(30.0, 2.0));
+        assertEquals("high", result.getResultValue("VoteOut", "value", String.class).orElse(null));
+        assertEquals(2.0 / 3.0, result.getResultValue("VoteProbHigh", "value", Double.class).orElse(null), 1e-6);
+
+        result = evaluator.evaluate(newVoteRequest(5.0, 7.0));
+        assertEquals("low", result.getResultValue("Fld3", "value", String.class).orElse(null));
+        assertEquals(1.0 / 3.0, result.getResultValue("VoteProbHigh", "value", Double.class).orElse(null), 1e-6);
+
+        // the third segment is not selected, the tie is won by the first segment
+        result = evaluator.evaluate(newVoteRequest(-1.0, 7.0));
+        assertEquals("low", result.getResultValue("VoteOut", "value", String.class).orElse(null));
+        assertEquals(0.5, result.getResultValue("VoteProbHigh", "value", Double.class).orElse(null), 1e-6);
+    }
+
+    @Test
+    public void testMiningModelSegmentsReplaceTheirOwnMissingValues() {
+        PMML4Evaluator evaluator = getEvaluator("SampleMiningModelVote", "test_mining_model_majority_vote.pmml");
+        PMMLRequestData request = new PMMLRequestDataBuilder("1234", "SampleMiningModelVote")
+                .addParameter("fld2", 7.0, Double.class)
+                .build();
+
+        // the missing fld1 is replaced by 1.0 when selecting the segments, but by 15.0 in the first segment,
+        // whose vote for "high" would otherwise be a vote for "low"
+        PMML4Result result = evaluator.evaluate(request);
+        assertEquals("high", result.getResultValue("VoteOut", "value", String.class).orElse(null));
+    }
+
+    private static PMMLRequestData newIrisRequest(String modelName) {
+        return new PMMLRequestDataBuilder("1234", modelName)
+                .addParameter("petal_length", 6.45, Double.class)
+                .addParameter("petal_width", 1.75, Double.class)
+                .addParameter("sepal_width", 1.23, Double.class)
+                .build();
+    }
+
+    private static PMMLRequestData newVoteRequest(double fld1, double fld2) {
+        return new PMMLRequestDataBuilder("1234", "SampleMiningModelVote")
+                .addParameter("fld1", fld1, Double.class)
+                .addParameter("fld2", fld2, Double.class)
+                .build();
+    }
+
+    private static void checkRanking(PMML4Result result, Object... expected) {
+        Object ranking = result.getResultValue("ScoreCard", "ranking");
+        assertTrue(ranking instanceof LinkedHashMap);
+        Map<String, Double> map = (Map<String, Double>) ranking;
+        assertEquals(expected.length / 2, map.size());
+        Iterator<Map.Entry<String, Double>> iter = map.entrySet().iterator();
+        for (int i = 0; i < expected.length; i += 2) {
+            Map.Entry<String, Double> entry = iter.next();
+            assertEquals(expected[i], entry.getKey());
+            assertEquals((Double) expected[i + 1], entry.getValue(), 1e-6);
+        }
+    }
+}